@@ -64,12 +64,14 @@ public class SecurityConfig {
                         
                         // Cart - allow guest access
                         .requestMatchers("/cart/**").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/admission/tickets/**").permitAll()
                         
                         // Orders - guest can create orders, users can view their orders
-                        .requestMatchers(HttpMethod.POST, "/orders").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/orders", "/orders/async").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/orders/async/**").permitAll()
                         .requestMatchers(HttpMethod.GET, "/orders/track/**").permitAll()
-                        .requestMatchers(HttpMethod.GET, "/orders/my-orders").permitAll()
-                        .requestMatchers(HttpMethod.GET, "/orders/guest").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/orders/my-orders", "/orders/my-orders/summary").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/orders/guest", "/orders/guest/summary").permitAll()
                         
                         // Admin endpoints
                         .requestMatchers("/admin/**").hasRole("ADMIN")
@@ -0,0 +1,62 @@
+package com.kidsfashion.controller;
+
+import com.kidsfashion.dto.ApiResponse;
+import com.kidsfashion.service.AdmissionControlService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/admission")
+@RequiredArgsConstructor
+public class AdminAdmissionController {
+
+    private final AdmissionControlService admissionControlService;
+
+    /**
+     * List waiting-room gates with their in-flight and queued counts
+     */
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getGates() {
+        return ResponseEntity.ok(ApiResponse.success(admissionControlService.getGates()));
+    }
+
+    /**
+     * Limit concurrent cart/checkout requests for one variant
+     */
+    @PutMapping("/variants/{variantId}")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> limitVariant(
+            @PathVariable Long variantId,
+            @RequestParam int limit,
+            @RequestParam(required = false) Integer queueSize) {
+        admissionControlService.limitVariant(variantId, limit, queueSize);
+        return ResponseEntity.ok(ApiResponse.success("Admission limit set", admissionControlService.getGates()));
+    }
+
+    /**
+     * Limit concurrent cart/checkout requests across all variants of a product
+     */
+    @PutMapping("/products/{productId}")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> limitProduct(
+            @PathVariable Long productId,
+            @RequestParam int limit,
+            @RequestParam(required = false) Integer queueSize) {
+        admissionControlService.limitProduct(productId, limit, queueSize);
+        return ResponseEntity.ok(ApiResponse.success("Admission limit set", admissionControlService.getGates()));
+    }
+
+    @DeleteMapping("/variants/{variantId}")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> removeVariantLimit(@PathVariable Long variantId) {
+        admissionControlService.removeVariantLimit(variantId);
+        return ResponseEntity.ok(ApiResponse.success("Admission limit removed", admissionControlService.getGates()));
+    }
+
+    @DeleteMapping("/products/{productId}")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> removeProductLimit(@PathVariable Long productId) {
+        admissionControlService.removeProductLimit(productId);
+        return ResponseEntity.ok(ApiResponse.success("Admission limit removed", admissionControlService.getGates()));
+    }
+}
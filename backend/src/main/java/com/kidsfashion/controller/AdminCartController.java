@@ -0,0 +1,52 @@
+package com.kidsfashion.controller;
+
+import com.kidsfashion.dto.ApiResponse;
+import com.kidsfashion.service.CartReaperService;
+import com.kidsfashion.service.GuestCartWriteBehindService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/carts")
+@RequiredArgsConstructor
+public class AdminCartController {
+
+    private final GuestCartWriteBehindService guestCartWriteBehindService;
+    private final CartReaperService cartReaperService;
+
+    /**
+     * Guest carts held in memory, unsaved changes and write-behind throughput
+     */
+    @GetMapping("/guest-store/stats")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getGuestStoreStats() {
+        return ResponseEntity.ok(ApiResponse.success(guestCartWriteBehindService.getStats()));
+    }
+
+    /**
+     * Write every unsaved guest cart now, e.g. before a deployment
+     */
+    @PostMapping("/guest-store/flush")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> flushGuestStore() {
+        guestCartWriteBehindService.flushDirty();
+        return ResponseEntity.ok(ApiResponse.success("Guest carts written", guestCartWriteBehindService.getStats()));
+    }
+
+    /**
+     * Carts abandoned and deleted by the reaper, totals and the last run's throughput
+     */
+    @GetMapping("/reaper/stats")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getReaperStats() {
+        return ResponseEntity.ok(ApiResponse.success(cartReaperService.getStats()));
+    }
+
+    /**
+     * Run the reaper now instead of waiting for its schedule
+     */
+    @PostMapping("/reaper/run")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> runReaper() {
+        return ResponseEntity.ok(ApiResponse.success("Cart reaper finished", cartReaperService.reap()));
+    }
+}
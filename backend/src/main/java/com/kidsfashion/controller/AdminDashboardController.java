@@ -0,0 +1,33 @@
+package com.kidsfashion.controller;
+
+import com.kidsfashion.dto.ApiResponse;
+import com.kidsfashion.dto.response.DashboardStatsResponse;
+import com.kidsfashion.service.DashboardStatsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/admin/dashboard")
+@RequiredArgsConstructor
+public class AdminDashboardController {
+
+    private final DashboardStatsService dashboardStatsService;
+
+    /**
+     * All dashboard numbers in one call, served from in-memory counters
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<ApiResponse<DashboardStatsResponse>> getStats() {
+        return ResponseEntity.ok(ApiResponse.success(dashboardStatsService.getStats()));
+    }
+
+    /**
+     * Recount everything from the database now instead of waiting for the scheduled run
+     */
+    @PostMapping("/reconcile")
+    public ResponseEntity<ApiResponse<DashboardStatsResponse>> reconcile() {
+        dashboardStatsService.reconcile();
+        return ResponseEntity.ok(ApiResponse.success(dashboardStatsService.getStats()));
+    }
+}
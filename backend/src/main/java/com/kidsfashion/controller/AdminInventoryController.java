@@ -0,0 +1,149 @@
+package com.kidsfashion.controller;
+
+import com.kidsfashion.dto.ApiResponse;
+import com.kidsfashion.dto.response.HotStockResponse;
+import com.kidsfashion.dto.response.InventoryMovementResponse;
+import com.kidsfashion.dto.response.LowStockItemResponse;
+import com.kidsfashion.dto.response.ReservationReconcileResponse;
+import com.kidsfashion.dto.response.StockAlertResponse;
+import com.kidsfashion.dto.response.StockAtResponse;
+import com.kidsfashion.entity.enums.StockLevel;
+import com.kidsfashion.service.InventoryLedgerService;
+import com.kidsfashion.service.InventorySlotService;
+import com.kidsfashion.service.LowStockService;
+import com.kidsfashion.service.ReservationReconcileService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/admin/inventory")
+@RequiredArgsConstructor
+public class AdminInventoryController {
+
+    private static final int MAX_ALERTS = 200;
+    private static final int MAX_MOVEMENTS = 200;
+
+    private final InventorySlotService inventorySlotService;
+    private final LowStockService lowStockService;
+    private final ReservationReconcileService reservationReconcileService;
+    private final InventoryLedgerService inventoryLedgerService;
+
+    /**
+     * Variants at or below their low-stock threshold, out of stock first
+     */
+    @GetMapping("/low-stock")
+    public ResponseEntity<ApiResponse<Page<LowStockItemResponse>>> getLowStock(
+            @RequestParam(required = false) StockLevel level,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(ApiResponse.success(lowStockService.getLowStock(level, PageRequest.of(page, size))));
+    }
+
+    /**
+     * Recompute the low-stock set from the inventory table now
+     */
+    @PostMapping("/low-stock/reconcile")
+    public ResponseEntity<ApiResponse<String>> reconcileLowStock() {
+        lowStockService.reconcile();
+        return ResponseEntity.ok(ApiResponse.success("Low-stock set reconciled"));
+    }
+
+    /**
+     * Threshold crossings, oldest first after the given alert id; the newest alerts without one.
+     * Poll with the id of the last alert received to follow the stream.
+     */
+    @GetMapping("/alerts")
+    public ResponseEntity<ApiResponse<List<StockAlertResponse>>> getAlerts(
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "50") int size) {
+        int limit = Math.max(1, Math.min(size, MAX_ALERTS));
+        return ResponseEntity.ok(ApiResponse.success(lowStockService.getAlerts(afterId, limit)));
+    }
+
+    /**
+     * Compare reserved stock with what open orders hold and correct the drift; dryRun only reports it
+     */
+    @PostMapping("/reservations/reconcile")
+    public ResponseEntity<ApiResponse<ReservationReconcileResponse>> reconcileReservations(
+            @RequestParam(defaultValue = "true") boolean dryRun) {
+        return ResponseEntity.ok(ApiResponse.success(reservationReconcileService.reconcile(dryRun)));
+    }
+
+    /**
+     * Report of the last reservation reconciliation, scheduled or manual
+     */
+    @GetMapping("/reservations/reconcile")
+    public ResponseEntity<ApiResponse<ReservationReconcileResponse>> getLastReservationReconcile() {
+        return ResponseEntity.ok(ApiResponse.success(reservationReconcileService.getLastRun()));
+    }
+
+    /**
+     * Stock ledger of a variant, newest first; pass the id of the last movement received to get the next page
+     */
+    @GetMapping("/{variantId}/movements")
+    public ResponseEntity<ApiResponse<List<InventoryMovementResponse>>> getMovements(
+            @PathVariable Long variantId,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(defaultValue = "50") int size) {
+        int limit = Math.max(1, Math.min(size, MAX_MOVEMENTS));
+        return ResponseEntity.ok(ApiResponse.success(inventoryLedgerService.getMovements(variantId, beforeId, limit)));
+    }
+
+    /**
+     * Stock of a variant as it stood at the given time, rebuilt from the ledger
+     */
+    @GetMapping("/{variantId}/stock-at")
+    public ResponseEntity<ApiResponse<StockAtResponse>> getStockAt(
+            @PathVariable Long variantId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return ResponseEntity.ok(ApiResponse.success(inventoryLedgerService.getStockAt(variantId, at)));
+    }
+
+    /**
+     * List variants running in hot-SKU (sharded stock) mode
+     */
+    @GetMapping("/hot")
+    public ResponseEntity<ApiResponse<List<HotStockResponse>>> getHotVariants() {
+        return ResponseEntity.ok(ApiResponse.success(inventorySlotService.getShardedVariants()));
+    }
+
+    @GetMapping("/{variantId}/hot")
+    public ResponseEntity<ApiResponse<HotStockResponse>> getHotStock(@PathVariable Long variantId) {
+        return ResponseEntity.ok(ApiResponse.success(inventorySlotService.getHotStock(variantId)));
+    }
+
+    /**
+     * Split a variant's stock across counter slots before a flash sale
+     */
+    @PostMapping("/{variantId}/hot")
+    public ResponseEntity<ApiResponse<HotStockResponse>> enableHotMode(
+            @PathVariable Long variantId,
+            @RequestParam(defaultValue = "8") int slots) {
+        inventorySlotService.enable(variantId, slots);
+        return ResponseEntity.ok(ApiResponse.success("Hot-SKU mode enabled",
+                inventorySlotService.getHotStock(variantId)));
+    }
+
+    @PostMapping("/{variantId}/hot/rebalance")
+    public ResponseEntity<ApiResponse<HotStockResponse>> rebalance(@PathVariable Long variantId) {
+        inventorySlotService.rebalance(variantId);
+        return ResponseEntity.ok(ApiResponse.success(inventorySlotService.getHotStock(variantId)));
+    }
+
+    /**
+     * Merge the slots back into the main inventory row
+     */
+    @DeleteMapping("/{variantId}/hot")
+    public ResponseEntity<ApiResponse<HotStockResponse>> disableHotMode(@PathVariable Long variantId) {
+        inventorySlotService.disable(variantId);
+        return ResponseEntity.ok(ApiResponse.success("Hot-SKU mode disabled",
+                inventorySlotService.getHotStock(variantId)));
+    }
+}
@@ -1,17 +1,33 @@
 package com.kidsfashion.controller;
 
 import com.kidsfashion.dto.ApiResponse;
+import com.kidsfashion.dto.request.BulkOrderStatusRequest;
+import com.kidsfashion.dto.response.AdminOrderListResponse;
+import com.kidsfashion.dto.response.BulkStatusResponse;
+import com.kidsfashion.dto.response.OrderSearchResponse;
 import com.kidsfashion.entity.Order;
 import com.kidsfashion.entity.enums.OrderStatus;
 import com.kidsfashion.repository.OrderRepository;
+import com.kidsfashion.service.AsyncCheckoutService;
+import com.kidsfashion.service.BulkOrderStatusService;
+import com.kidsfashion.service.CheckoutBatchService;
+import com.kidsfashion.service.OrderArchiveService;
+import com.kidsfashion.service.OrderSearchService;
+import com.kidsfashion.service.OrderService;
+import com.kidsfashion.service.ReservationExpiryService;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.util.Map;
 
 @RestController
@@ -21,67 +37,156 @@ import java.util.Map;
 public class AdminOrderController {
 
     private final OrderRepository orderRepository;
+    private final OrderSearchService orderSearchService;
+    private final CheckoutBatchService checkoutBatchService;
+    private final AsyncCheckoutService asyncCheckoutService;
+    private final OrderService orderService;
+    private final OrderArchiveService orderArchiveService;
+    private final ReservationExpiryService reservationExpiryService;
+    private final BulkOrderStatusService bulkOrderStatusService;
 
     @GetMapping
-    public ResponseEntity<ApiResponse<Page<Order>>> getAllOrders(
+    public ResponseEntity<ApiResponse<Page<AdminOrderListResponse>>> getAllOrders(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) String status,
-            @RequestParam(required = false) String search) {
-        
-        PageRequest pageRequest = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
-        
-        Page<Order> orders;
-        if (status != null && !status.isEmpty()) {
-            try {
-                OrderStatus orderStatus = OrderStatus.valueOf(status);
-                orders = orderRepository.findByStatus(orderStatus, pageRequest);
-            } catch (Exception e) {
-                orders = orderRepository.findAll(pageRequest);
-            }
-        } else {
-            orders = orderRepository.findAll(pageRequest);
-        }
-        
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        OrderStatus orderStatus = parseStatus(status);
+        validateDateRange(from, to);
+
+        // Ordering is fixed by the query (newest first), so the page request carries no sort
+        Page<AdminOrderListResponse> orders = orderService.getAdminOrders(orderStatus,
+                from != null ? from.atStartOfDay() : null,
+                to != null ? to.plusDays(1).atStartOfDay() : null,
+                page, size);
+
         return ResponseEntity.ok(ApiResponse.success(orders));
     }
 
+    /**
+     * Ranked search by order code, recipient phone or name, keyset paged with {@code cursor}
+     */
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<OrderSearchResponse>> searchOrders(
+            @RequestParam String q,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+
+        validateDateRange(from, to);
+        OrderSearchResponse result = orderSearchService.search(q, parseStatus(status),
+                from != null ? from.atStartOfDay() : null,
+                to != null ? to.plusDays(1).atStartOfDay() : null,
+                cursor, size);
+        return ResponseEntity.ok(ApiResponse.success(result));
+    }
+
+    /**
+     * Order archival progress (horizon, last run, archived totals)
+     */
+    @GetMapping("/archive-stats")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getArchiveStats() {
+        return ResponseEntity.ok(ApiResponse.success(orderArchiveService.getStats()));
+    }
+
+    /**
+     * Unpaid online orders being tracked for payment expiry, and how many were cancelled
+     */
+    @GetMapping("/payment-expiry-stats")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getPaymentExpiryStats() {
+        return ResponseEntity.ok(ApiResponse.success(reservationExpiryService.getStats()));
+    }
+
+    /**
+     * Run the archival job now instead of waiting for its schedule
+     */
+    @PostMapping("/archive")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResponseEntity<ApiResponse<Map<String, Object>>> archiveOrders() {
+        int archived = orderArchiveService.archiveOrders();
+        return ResponseEntity.ok(ApiResponse.success(Map.of("archived", archived)));
+    }
+
+    /**
+     * Group-commit checkout counters (batches, orders, average batch size, fallbacks)
+     */
+    @GetMapping("/checkout-stats")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getCheckoutStats() {
+        return ResponseEntity.ok(ApiResponse.success(checkoutBatchService.getStats()));
+    }
+
+    /**
+     * Async checkout queue depth, outcome counts and latencies
+     */
+    @GetMapping("/async-stats")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getAsyncCheckoutStats() {
+        return ResponseEntity.ok(ApiResponse.success(asyncCheckoutService.getStats()));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<Order>> getOrder(@PathVariable Long id) {
-        Order order = orderRepository.findById(id)
+        Order order = orderRepository.findDetailById(id)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
         return ResponseEntity.ok(ApiResponse.success(order));
     }
 
+    /**
+     * Move a fulfilment wave to one status; answers with the outcome of every order
+     */
+    @PostMapping("/bulk-status")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResponseEntity<ApiResponse<BulkStatusResponse>> bulkUpdateStatus(
+            @Valid @RequestBody BulkOrderStatusRequest request) {
+        return ResponseEntity.ok(ApiResponse.success(bulkOrderStatusService.transition(request.getOrderIds(),
+                request.getOrderCodes(), request.getStatus(), request.getReason())));
+    }
+
+    /**
+     * Apply a carrier status file (CSV of order code and tracking status), streamed from the request body
+     */
+    @PostMapping(value = "/carrier-updates", consumes = {"text/csv", "text/plain"})
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResponseEntity<ApiResponse<BulkStatusResponse>> importCarrierUpdates(InputStream body) throws IOException {
+        return ResponseEntity.ok(ApiResponse.success(bulkOrderStatusService.importCarrierUpdates(body)));
+    }
+
     @PutMapping("/{id}/status")
     @Transactional
     public ResponseEntity<ApiResponse<Order>> updateOrderStatus(
             @PathVariable Long id,
             @RequestBody Map<String, String> request) {
         
-        Order order = orderRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Order not found"));
-        
-        String statusStr = request.get("status");
-        if (statusStr != null && !statusStr.isEmpty()) {
-            try {
-                OrderStatus newStatus = OrderStatus.valueOf(statusStr.toUpperCase());
-                // Use updateStatus method to handle timestamps
-                order.updateStatus(newStatus);
-                orderRepository.save(order);
-            } catch (IllegalArgumentException e) {
-                return ResponseEntity.badRequest()
-                    .body(ApiResponse.error("Invalid status: " + statusStr));
-            } catch (Exception e) {
-                return ResponseEntity.badRequest()
-                    .body(ApiResponse.error("Error updating status: " + e.getMessage()));
-            }
-        } else {
+        OrderStatus newStatus = parseStatus(request.get("status"));
+        if (newStatus == null) {
             return ResponseEntity.badRequest()
                 .body(ApiResponse.error("Status is required"));
         }
-        
+        // Validated and applied to stock like every other status change
+        orderService.updateOrderStatus(id, newStatus);
+        Order order = orderRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Order not found"));
+
         return ResponseEntity.ok(ApiResponse.success(order));
     }
-}
 
+    private OrderStatus parseStatus(String status) {
+        if (status == null || status.isEmpty()) {
+            return null;
+        }
+        try {
+            return OrderStatus.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid status: " + status);
+        }
+    }
+
+    private void validateDateRange(LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.kidsfashion.controller;
+
+import com.kidsfashion.dto.ApiResponse;
+import com.kidsfashion.repository.OutboxEventRepository;
+import com.kidsfashion.service.OutboxDispatcher;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/outbox")
+@RequiredArgsConstructor
+public class AdminOutboxController {
+
+    private final OutboxDispatcher outboxDispatcher;
+    private final OutboxEventRepository outboxEventRepository;
+
+    /**
+     * Outbox backlog, dispatch lag and delivery throughput
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getStats() {
+        return ResponseEntity.ok(ApiResponse.success(outboxDispatcher.getStats()));
+    }
+
+    /**
+     * Re-queue an event that exhausted its delivery attempts
+     */
+    @PostMapping("/{id}/retry")
+    @Transactional
+    public ResponseEntity<ApiResponse<Map<String, Object>>> retry(@PathVariable Long id) {
+        if (outboxEventRepository.requeueFailed(id) == 0) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Event not found or not failed"));
+        }
+        return ResponseEntity.ok(ApiResponse.success("Event re-queued", outboxDispatcher.getStats()));
+    }
+}
@@ -4,7 +4,12 @@ import com.kidsfashion.dto.ApiResponse;
 import com.kidsfashion.dto.ProductDTO;
 import com.kidsfashion.entity.*;
 import com.kidsfashion.entity.enums.Gender;
+import com.kidsfashion.entity.enums.ProductStatus;
 import com.kidsfashion.repository.*;
+import com.kidsfashion.service.DashboardStatsService;
+import com.kidsfashion.service.InventoryLedgerService;
+import com.kidsfashion.service.InventorySlotService;
+import com.kidsfashion.service.LowStockService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
@@ -31,6 +36,10 @@ public class AdminProductController {
     private final ProductVariantRepository productVariantRepository;
     private final InventoryRepository inventoryRepository;
     private final OrderItemRepository orderItemRepository;
+    private final InventorySlotService inventorySlotService;
+    private final DashboardStatsService dashboardStatsService;
+    private final LowStockService lowStockService;
+    private final InventoryLedgerService inventoryLedgerService;
 
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<Map<String, Object>>> getProduct(@PathVariable Long id) {
@@ -120,6 +129,7 @@ public class AdminProductController {
         }
         
         Product savedProduct = productRepository.save(product);
+        dashboardStatsService.productStatusChanged(null, savedProduct.getStatus());
         
         // Save images
         if (dto.getImages() != null) {
@@ -158,9 +168,11 @@ public class AdminProductController {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
         
+        ProductStatus previousStatus = product.getStatus();
         mapDtoToProduct(dto, product);
         
         Product savedProduct = productRepository.save(product);
+        dashboardStatsService.productStatusChanged(previousStatus, savedProduct.getStatus());
         
         // Update images if provided
         if (dto.getImages() != null) {
@@ -192,12 +204,15 @@ public class AdminProductController {
         // Delete related entities
         List<ProductVariant> variants = productVariantRepository.findByProductId(id);
         for (ProductVariant v : variants) {
+            inventoryLedgerService.recordRemoval(v.getId());
             inventoryRepository.deleteByVariantId(v.getId());
+            lowStockService.check(v.getId());
         }
         productVariantRepository.deleteByProductId(id);
         productImageRepository.deleteAllByProductId(id);
         
         productRepository.delete(product);
+        dashboardStatsService.productStatusChanged(product.getStatus(), null);
         
         return ResponseEntity.ok(ApiResponse.success("Product deleted successfully"));
     }
@@ -287,7 +302,9 @@ public class AdminProductController {
                     productVariantRepository.save(oldVariant);
                 } else {
                     // Variant not used in orders - safe to delete
+                    inventoryLedgerService.recordRemoval(oldVariant.getId());
                     inventoryRepository.deleteByVariantId(oldVariant.getId());
+                    lowStockService.check(oldVariant.getId());
                     productVariantRepository.delete(oldVariant);
                 }
             }
@@ -318,16 +335,23 @@ public class AdminProductController {
         Inventory inventory = inventoryRepository.findByVariantId(variant.getId()).orElse(null);
         if (quantity != null) {
             int qty = Integer.parseInt(quantity.toString());
-            if (inventory != null) {
+            if (inventory != null && inventorySlotService.isSharded(variant.getId())) {
+                // Hot-SKU variant - stock lives in slots, so set the total through the slot service
+                inventorySlotService.setTotalQuantity(variant.getId(), qty);
+            } else if (inventory != null) {
+                inventoryLedgerService.recordQuantityChange(variant.getId(), inventory.getQuantity(), qty);
                 inventory.setQuantity(qty);
-                inventoryRepository.save(inventory);
+                inventoryRepository.saveAndFlush(inventory);
+                lowStockService.check(variant.getId());
             } else {
                 inventory = new Inventory();
                 inventory.setVariant(variant);
                 inventory.setQuantity(qty);
                 inventory.setReservedQuantity(0);
                 inventory.setLowStockThreshold(5);
-                inventoryRepository.save(inventory);
+                inventoryRepository.saveAndFlush(inventory);
+                inventoryLedgerService.recordQuantityChange(variant.getId(), 0, qty);
+                lowStockService.check(variant.getId());
             }
         }
     }
@@ -365,7 +389,9 @@ public class AdminProductController {
             inventory.setQuantity(Integer.parseInt(quantity.toString()));
             inventory.setReservedQuantity(0);
             inventory.setLowStockThreshold(5);
-            inventoryRepository.save(inventory);
+            inventoryRepository.saveAndFlush(inventory);
+            inventoryLedgerService.recordQuantityChange(savedVariant.getId(), 0, inventory.getQuantity());
+            lowStockService.check(savedVariant.getId());
         }
     }
 
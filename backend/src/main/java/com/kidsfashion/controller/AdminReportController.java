@@ -0,0 +1,63 @@
+package com.kidsfashion.controller;
+
+import com.kidsfashion.dto.ApiResponse;
+import com.kidsfashion.dto.response.SalesBreakdownResponse;
+import com.kidsfashion.dto.response.SalesSummaryResponse;
+import com.kidsfashion.entity.enums.SalesDimension;
+import com.kidsfashion.service.DailySalesService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/reports")
+@RequiredArgsConstructor
+public class AdminReportController {
+
+    private static final int DEFAULT_DAYS = 30;
+
+    private final DailySalesService dailySalesService;
+
+    /**
+     * Revenue totals over a date range (last 30 days by default), per day or per month
+     */
+    @GetMapping("/sales")
+    public ResponseEntity<ApiResponse<SalesSummaryResponse>> getSales(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "DAY") String granularity) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_DAYS - 1);
+        boolean monthly = "MONTH".equalsIgnoreCase(granularity);
+        return ResponseEntity.ok(ApiResponse.success(dailySalesService.getSummary(start, end, monthly)));
+    }
+
+    /**
+     * Revenue by payment method, brand or category, highest first
+     */
+    @GetMapping("/sales/breakdown")
+    public ResponseEntity<ApiResponse<List<SalesBreakdownResponse>>> getSalesBreakdown(
+            @RequestParam SalesDimension dimension,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_DAYS - 1);
+        return ResponseEntity.ok(ApiResponse.success(dailySalesService.getBreakdown(dimension, start, end)));
+    }
+
+    /**
+     * Rebuild the rollups from the order tables; safe to re-run. Defaults to all history up to today.
+     */
+    @PostMapping("/sales/backfill")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> backfillSales(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        int days = dailySalesService.backfill(from, to);
+        return ResponseEntity.ok(ApiResponse.success(Map.of("days", days)));
+    }
+}
@@ -1,19 +1,22 @@
 package com.kidsfashion.controller;
 
 import com.kidsfashion.dto.ApiResponse;
+import com.kidsfashion.dto.response.AdminUserResponse;
 import com.kidsfashion.entity.User;
 import com.kidsfashion.entity.enums.UserStatus;
 import com.kidsfashion.repository.UserRepository;
+import com.kidsfashion.service.DashboardStatsService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.HashMap;
+import java.time.LocalDate;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @RestController
@@ -23,23 +26,47 @@ import java.util.stream.Collectors;
 public class AdminUserController {
 
     private final UserRepository userRepository;
+    private final DashboardStatsService dashboardStatsService;
 
     @GetMapping
-    public ResponseEntity<ApiResponse<Page<Map<String, Object>>>> getAllUsers(
+    public ResponseEntity<ApiResponse<Page<AdminUserResponse>>> getAllUsers(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-        
-        PageRequest pageRequest = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
-        Page<User> users = userRepository.findAll(pageRequest);
-        
-        // Map to DTO to avoid exposing sensitive data
-        Page<Map<String, Object>> userDtos = users.map(this::mapUserToDto);
-        
-        return ResponseEntity.ok(ApiResponse.success(userDtos));
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        UserStatus userStatus = null;
+        if (status != null && !status.isEmpty()) {
+            try {
+                userStatus = UserStatus.valueOf(status.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid status: " + status);
+            }
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+
+        Page<AdminUserResponse> users = userRepository.findAdminList(userStatus,
+                from != null ? from.atStartOfDay() : null,
+                to != null ? to.plusDays(1).atStartOfDay() : null,
+                PageRequest.of(page, size));
+
+        // Roles for the whole page in one query instead of one lazy load per user
+        Map<Long, AdminUserResponse> byId = users.getContent().stream()
+                .collect(Collectors.toMap(AdminUserResponse::getId, Function.identity()));
+        if (!byId.isEmpty()) {
+            for (Object[] row : userRepository.findRoleNamesByUserIdIn(byId.keySet())) {
+                byId.get((Long) row[0]).getRoles().add((String) row[1]);
+            }
+        }
+
+        return ResponseEntity.ok(ApiResponse.success(users));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> getUser(@PathVariable Long id) {
+    public ResponseEntity<ApiResponse<AdminUserResponse>> getUser(@PathVariable Long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
@@ -48,7 +75,7 @@ public class AdminUserController {
 
     @PutMapping("/{id}/status")
     @Transactional
-    public ResponseEntity<ApiResponse<Map<String, Object>>> updateUserStatus(
+    public ResponseEntity<ApiResponse<AdminUserResponse>> updateUserStatus(
             @PathVariable Long id,
             @RequestBody Map<String, String> request) {
         
@@ -66,6 +93,7 @@ public class AdminUserController {
                     return ResponseEntity.badRequest()
                             .body(ApiResponse.error("Không thể khóa tài khoản admin"));
                 }
+                dashboardStatsService.userStatusChanged(user.getStatus(), newStatus);
                 user.setStatus(newStatus);
                 userRepository.save(user);
             } catch (Exception e) {
@@ -76,20 +104,19 @@ public class AdminUserController {
         return ResponseEntity.ok(ApiResponse.success(mapUserToDto(user)));
     }
 
-    private Map<String, Object> mapUserToDto(User user) {
-        Map<String, Object> dto = new HashMap<>();
-        dto.put("id", user.getId());
-        dto.put("email", user.getEmail());
-        dto.put("fullName", user.getFullName());
-        dto.put("phoneNumber", user.getPhoneNumber());
-        dto.put("avatarUrl", user.getAvatarUrl());
-        dto.put("status", user.getStatus().name());
-        dto.put("emailVerified", user.getEmailVerified());
-        dto.put("createdAt", user.getCreatedAt());
-        dto.put("roles", user.getRoles().stream()
-                .map(role -> role.getName())
-                .collect(Collectors.toList()));
-        return dto;
+    private AdminUserResponse mapUserToDto(User user) {
+        return AdminUserResponse.builder()
+                .id(user.getId())
+                .email(user.getEmail())
+                .fullName(user.getFullName())
+                .phoneNumber(user.getPhoneNumber())
+                .avatarUrl(user.getAvatarUrl())
+                .status(user.getStatus())
+                .emailVerified(user.getEmailVerified())
+                .createdAt(user.getCreatedAt())
+                .roles(user.getRoles().stream()
+                        .map(role -> role.getName())
+                        .collect(Collectors.toList()))
+                .build();
     }
 }
-
@@ -0,0 +1,29 @@
+package com.kidsfashion.controller;
+
+import com.kidsfashion.dto.response.AdmissionTicketResponse;
+import com.kidsfashion.dto.response.ApiResponse;
+import com.kidsfashion.service.AdmissionControlService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/admission")
+@RequiredArgsConstructor
+public class AdmissionController {
+
+    private final AdmissionControlService admissionControlService;
+
+    /**
+     * Poll a waiting-room ticket.
+     * Once ADMITTED, retry the request with the token in the X-Admission-Token header.
+     */
+    @GetMapping("/tickets/{token}")
+    public ResponseEntity<ApiResponse<AdmissionTicketResponse>> getTicket(@PathVariable String token) {
+        AdmissionTicketResponse ticket = admissionControlService.getTicket(token);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ticket.getRetryAfterSeconds()))
+                .body(ApiResponse.success(ticket));
+    }
+}
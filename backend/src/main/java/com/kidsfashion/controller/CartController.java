@@ -1,11 +1,15 @@
 package com.kidsfashion.controller;
 
 import com.kidsfashion.dto.request.AddToCartRequest;
+import com.kidsfashion.dto.request.CartBatchRequest;
 import com.kidsfashion.dto.response.ApiResponse;
+import com.kidsfashion.dto.response.CartBatchResponse;
 import com.kidsfashion.dto.response.CartResponse;
 import com.kidsfashion.entity.User;
 import com.kidsfashion.repository.UserRepository;
+import com.kidsfashion.service.AdmissionControlService;
 import com.kidsfashion.service.CartService;
+import com.kidsfashion.service.GuestCartWriteBehindService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -13,13 +17,17 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/cart")
 @RequiredArgsConstructor
 public class CartController {
 
     private final CartService cartService;
+    private final GuestCartWriteBehindService guestCartWriteBehindService;
     private final UserRepository userRepository;
+    private final AdmissionControlService admissionControlService;
 
     @GetMapping
     public ResponseEntity<ApiResponse<CartResponse>> getCart(
@@ -30,10 +38,22 @@ public class CartController {
         return ResponseEntity.ok(ApiResponse.success(cart));
     }
 
+    /**
+     * Units in the cart, for the header badge - much cheaper than the full cart
+     */
+    @GetMapping("/count")
+    public ResponseEntity<ApiResponse<Integer>> getCartCount(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @RequestHeader(name = "X-Cart-Session", required = false) String sessionId) {
+        Long userId = getUserId(userDetails);
+        return ResponseEntity.ok(ApiResponse.success(cartService.getItemCount(userId, sessionId)));
+    }
+
     @PostMapping("/items")
     public ResponseEntity<ApiResponse<CartResponse>> addToCart(
             @AuthenticationPrincipal UserDetails userDetails,
             @RequestHeader(name = "X-Cart-Session", required = false) String sessionId,
+            @RequestHeader(name = "X-Admission-Token", required = false) String admissionToken,
             @Valid @RequestBody AddToCartRequest request) {
         Long userId = getUserId(userDetails);
         
@@ -42,8 +62,38 @@ public class CartController {
             sessionId = cartService.generateSessionId();
         }
         
-        CartResponse cart = cartService.addToCart(userId, sessionId, request);
-        return ResponseEntity.ok(ApiResponse.success("Item added to cart", cart));
+        try (AdmissionControlService.Permit permit = admissionControlService.admit(
+                () -> List.of(request.getVariantId()), admissionToken)) {
+            CartResponse cart = cartService.addToCart(userId, sessionId, request);
+            return ResponseEntity.ok(ApiResponse.success("Item added to cart", cart));
+        }
+    }
+
+    /**
+     * Many add/set/remove operations in one round trip; rejected lines are listed in the response
+     */
+    @PostMapping("/items/batch")
+    public ResponseEntity<ApiResponse<CartBatchResponse>> applyBatch(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @RequestHeader(name = "X-Cart-Session", required = false) String sessionId,
+            @RequestHeader(name = "X-Admission-Token", required = false) String admissionToken,
+            @Valid @RequestBody CartBatchRequest request) {
+        Long userId = getUserId(userDetails);
+
+        if (userId == null && sessionId == null) {
+            sessionId = cartService.generateSessionId();
+        }
+
+        try (AdmissionControlService.Permit permit = admissionControlService.admit(
+                () -> request.getOperations().stream()
+                        .filter(operation -> operation.getType() != CartBatchRequest.Operation.Type.REMOVE)
+                        .map(CartBatchRequest.Operation::getVariantId)
+                        .toList(), admissionToken)) {
+            CartBatchResponse result = cartService.applyBatch(userId, sessionId, request.getOperations());
+            String message = result.getErrors().isEmpty() ? "Cart updated"
+                    : result.getErrors().size() + " of " + request.getOperations().size() + " operations rejected";
+            return ResponseEntity.ok(ApiResponse.success(message, result));
+        }
     }
 
     @PutMapping("/items/{variantId}")
@@ -84,6 +134,8 @@ public class CartController {
         if (userId == null) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Must be logged in to merge cart"));
         }
+        // Unsaved guest changes go through before the merge transaction reads the database copy
+        guestCartWriteBehindService.flush(sessionId);
         CartResponse cart = cartService.mergeGuestCartToUser(userId, sessionId);
         return ResponseEntity.ok(ApiResponse.success("Cart merged", cart));
     }
@@ -3,8 +3,10 @@ package com.kidsfashion.controller;
 import com.kidsfashion.dto.response.ApiResponse;
 import com.kidsfashion.entity.*;
 import com.kidsfashion.entity.enums.Gender;
+import com.kidsfashion.entity.enums.MovementType;
 import com.kidsfashion.entity.enums.ProductStatus;
 import com.kidsfashion.repository.*;
+import com.kidsfashion.service.InventoryLedgerService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
@@ -34,6 +36,7 @@ public class DataSeederController {
     private final ProductImageRepository imageRepository;
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
+    private final InventoryLedgerService inventoryLedgerService;
 
     @PostMapping("/clean-carts")
     @Transactional
@@ -508,6 +511,7 @@ public class DataSeederController {
                         .lowStockThreshold(5)
                         .build();
                     inventoryRepository.save(inventory);
+                    inventoryLedgerService.record(variant.getId(), MovementType.OPENING, inventory.getQuantity(), 0);
                     
                     count++;
                 }
@@ -1,15 +1,25 @@
 package com.kidsfashion.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.kidsfashion.dto.request.CreateOrderRequest;
 import com.kidsfashion.dto.response.ApiResponse;
+import com.kidsfashion.dto.response.AsyncOrderResponse;
 import com.kidsfashion.dto.response.OrderResponse;
+import com.kidsfashion.dto.response.OrderSummaryResponse;
 import com.kidsfashion.entity.User;
 import com.kidsfashion.entity.enums.OrderStatus;
 import com.kidsfashion.repository.UserRepository;
+import com.kidsfashion.service.AdmissionControlService;
+import com.kidsfashion.service.AsyncCheckoutService;
+import com.kidsfashion.service.CartService;
+import com.kidsfashion.service.CheckoutBatchService;
+import com.kidsfashion.service.IdempotencyService;
 import com.kidsfashion.service.OrderService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -22,6 +32,11 @@ import org.springframework.web.bind.annotation.*;
 public class OrderController {
 
     private final OrderService orderService;
+    private final CartService cartService;
+    private final CheckoutBatchService checkoutBatchService;
+    private final AsyncCheckoutService asyncCheckoutService;
+    private final IdempotencyService idempotencyService;
+    private final AdmissionControlService admissionControlService;
     private final UserRepository userRepository;
 
     /**
@@ -32,11 +47,54 @@ public class OrderController {
     public ResponseEntity<ApiResponse<OrderResponse>> createOrder(
             @AuthenticationPrincipal UserDetails userDetails,
             @RequestHeader(name = "X-Cart-Session", required = false) String sessionId,
+            @RequestHeader(name = "X-Admission-Token", required = false) String admissionToken,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
             @Valid @RequestBody CreateOrderRequest request) {
         
         Long userId = getUserId(userDetails);
-        OrderResponse order = orderService.createOrder(userId, sessionId, request);
-        return ResponseEntity.ok(ApiResponse.success("Order created successfully", order));
+        if (userId == null && (sessionId == null || sessionId.isBlank())) {
+            throw new IllegalArgumentException("X-Cart-Session is required for guest checkout");
+        }
+        // Retries with the same Idempotency-Key get the first response back
+        String scope = "orders:" + (userId != null ? "user:" + userId : "session:" + sessionId);
+        ApiResponse<OrderResponse> response = idempotencyService.execute(scope, idempotencyKey, request,
+                new TypeReference<>() { }, () -> {
+                    // Hot products only let a limited number of checkouts through at once
+                    try (AdmissionControlService.Permit permit = admissionControlService.admit(
+                            () -> cartService.getCheckoutVariantIds(userId, sessionId), admissionToken)) {
+                        OrderResponse order = checkoutBatchService.placeOrder(userId, sessionId, request);
+                        return ApiResponse.success("Order created successfully", order);
+                    }
+                });
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Queue an order for asynchronous placement
+     * Returns 202 Accepted with a reference to poll at /orders/async/{reference}
+     */
+    @PostMapping("/async")
+    public ResponseEntity<ApiResponse<AsyncOrderResponse>> createOrderAsync(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @RequestHeader(name = "X-Cart-Session", required = false) String sessionId,
+            @RequestHeader(name = "X-Admission-Token", required = false) String admissionToken,
+            @Valid @RequestBody CreateOrderRequest request) {
+
+        Long userId = getUserId(userDetails);
+        // The permit is held until the queued order has been processed
+        AdmissionControlService.Permit permit = admissionControlService.admit(
+                () -> cartService.getCheckoutVariantIds(userId, sessionId), admissionToken);
+        AsyncOrderResponse accepted = asyncCheckoutService.submit(userId, sessionId, request, permit);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success("Order is being processed", accepted));
+    }
+
+    /**
+     * Poll the status of an asynchronously placed order
+     */
+    @GetMapping("/async/{reference}")
+    public ResponseEntity<ApiResponse<AsyncOrderResponse>> getAsyncOrder(@PathVariable String reference) {
+        return ResponseEntity.ok(ApiResponse.success(asyncCheckoutService.getStatus(reference)));
     }
 
     /**
@@ -92,6 +150,24 @@ public class OrderController {
         return ResponseEntity.ok(ApiResponse.success(orders));
     }
 
+    /**
+     * Current user's orders without line items (list view)
+     */
+    @GetMapping("/my-orders/summary")
+    public ResponseEntity<ApiResponse<Page<OrderSummaryResponse>>> getMyOrderSummaries(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+
+        Long userId = getUserId(userDetails);
+        if (userId == null) {
+            return ResponseEntity.ok(ApiResponse.success(Page.empty(PageRequest.of(page, size))));
+        }
+
+        return ResponseEntity.ok(ApiResponse.success(orderService.getUserOrderSummaries(userId, status, page, size)));
+    }
+
     /**
      * Get guest orders by email
      */
@@ -105,6 +181,18 @@ public class OrderController {
         return ResponseEntity.ok(ApiResponse.success(orders));
     }
 
+    /**
+     * Guest orders by email without line items (list view)
+     */
+    @GetMapping("/guest/summary")
+    public ResponseEntity<ApiResponse<Page<OrderSummaryResponse>>> getGuestOrderSummaries(
+            @RequestParam String email,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+
+        return ResponseEntity.ok(ApiResponse.success(orderService.getGuestOrderSummaries(email, page, size)));
+    }
+
     /**
      * Cancel an order
      */
@@ -130,12 +218,12 @@ public class OrderController {
      */
     @GetMapping("/admin/all")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<ApiResponse<Page<OrderResponse>>> getAllOrders(
+    public ResponseEntity<ApiResponse<Page<OrderSummaryResponse>>> getAllOrders(
             @RequestParam(required = false) OrderStatus status,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
         
-        Page<OrderResponse> orders = orderService.getAllOrders(status, page, size);
+        Page<OrderSummaryResponse> orders = orderService.getAllOrders(status, page, size);
         return ResponseEntity.ok(ApiResponse.success(orders));
     }
 
@@ -1,9 +1,11 @@
 package com.kidsfashion.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.kidsfashion.dto.request.CreatePaymentRequest;
 import com.kidsfashion.dto.response.ApiResponse;
 import com.kidsfashion.dto.response.PaymentResponse;
 import com.kidsfashion.dto.response.StripePaymentResponse;
+import com.kidsfashion.service.IdempotencyService;
 import com.kidsfashion.service.PaymentService;
 import com.kidsfashion.service.StripeService;
 import jakarta.validation.Valid;
@@ -22,6 +24,7 @@ public class PaymentController {
 
     private final PaymentService paymentService;
     private final StripeService stripeService;
+    private final IdempotencyService idempotencyService;
 
     // ==================== STRIPE ENDPOINTS ====================
 
@@ -39,10 +42,12 @@ public class PaymentController {
      */
     @PostMapping("/stripe/create-payment-intent")
     public ResponseEntity<ApiResponse<StripePaymentResponse>> createStripePaymentIntent(
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
             @RequestBody Map<String, Long> request) {
         Long orderId = request.get("orderId");
-        StripePaymentResponse response = stripeService.createPaymentIntent(orderId);
-        return ResponseEntity.ok(ApiResponse.success("Payment intent created", response));
+        return ResponseEntity.ok(idempotencyService.execute(scope("stripe-intent", orderId), idempotencyKey, request,
+                new TypeReference<>() { },
+                () -> ApiResponse.success("Payment intent created", stripeService.createPaymentIntent(orderId))));
     }
 
     /**
@@ -50,10 +55,12 @@ public class PaymentController {
      */
     @PostMapping("/stripe/create-checkout-session")
     public ResponseEntity<ApiResponse<StripePaymentResponse>> createStripeCheckoutSession(
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
             @RequestBody Map<String, Long> request) {
         Long orderId = request.get("orderId");
-        StripePaymentResponse response = stripeService.createCheckoutSession(orderId);
-        return ResponseEntity.ok(ApiResponse.success("Checkout session created", response));
+        return ResponseEntity.ok(idempotencyService.execute(scope("stripe-session", orderId), idempotencyKey, request,
+                new TypeReference<>() { },
+                () -> ApiResponse.success("Checkout session created", stripeService.createCheckoutSession(orderId))));
     }
 
     /**
@@ -89,9 +96,12 @@ public class PaymentController {
      */
     @PostMapping("/create")
     public ResponseEntity<ApiResponse<PaymentResponse>> createPayment(
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
             @Valid @RequestBody CreatePaymentRequest request) {
-        PaymentResponse payment = paymentService.createPayment(request);
-        return ResponseEntity.ok(ApiResponse.success("Payment created successfully", payment));
+        // Retries with the same Idempotency-Key get the first payment back instead of a second one
+        return ResponseEntity.ok(idempotencyService.execute(scope("create", request.getOrderId()), idempotencyKey,
+                request, new TypeReference<>() { },
+                () -> ApiResponse.success("Payment created successfully", paymentService.createPayment(request))));
     }
 
     /**
@@ -102,4 +112,12 @@ public class PaymentController {
         PaymentResponse payment = paymentService.getPaymentByOrderId(orderId);
         return ResponseEntity.ok(ApiResponse.success(payment));
     }
+
+    // Payment endpoints are open to guests, so keys are scoped to the order paid for
+    private String scope(String operation, Long orderId) {
+        if (orderId == null) {
+            throw new IllegalArgumentException("Order ID is required");
+        }
+        return "payments:" + operation + ":order:" + orderId;
+    }
 }
@@ -0,0 +1,24 @@
+package com.kidsfashion.dto.request;
+
+import com.kidsfashion.entity.enums.OrderStatus;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkOrderStatusRequest {
+
+    // Orders may be given by id, by code, or both
+    private List<Long> orderIds;
+
+    private List<String> orderCodes;
+
+    @NotNull(message = "Status is required")
+    private OrderStatus status;
+
+    // Stored on cancelled orders
+    @Size(max = 500)
+    private String reason;
+}
@@ -0,0 +1,41 @@
+package com.kidsfashion.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CartBatchRequest {
+
+    @NotEmpty(message = "At least one operation is required")
+    @Size(max = 100, message = "At most 100 operations per request")
+    @Valid
+    private List<Operation> operations;
+
+    @Data
+    public static class Operation {
+
+        public enum Type {
+            // Add to the quantity already in the cart
+            ADD,
+            // Replace the quantity; 0 removes the item
+            SET,
+            REMOVE
+        }
+
+        @NotNull(message = "Operation type is required")
+        private Type type;
+
+        @NotNull(message = "Variant ID is required")
+        private Long variantId;
+
+        // Required for ADD and SET
+        @Min(value = 0, message = "Quantity must not be negative")
+        private Integer quantity;
+    }
+}
@@ -0,0 +1,33 @@
+package com.kidsfashion.dto.response;
+
+import com.kidsfashion.entity.enums.OrderStatus;
+import com.kidsfashion.entity.enums.PaymentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Order row for the admin order list, read straight from the orders table.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AdminOrderListResponse {
+
+    private Long id;
+    private String orderCode;
+    private OrderStatus status;
+    private String recipientName;
+    private String recipientPhone;
+    private String guestEmail;
+    private String customerEmail;
+    private BigDecimal totalAmount;
+    private String paymentMethod;
+    private PaymentStatus paymentStatus;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,38 @@
+package com.kidsfashion.dto.response;
+
+import com.kidsfashion.entity.enums.UserStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * User row for the admin user list; never carries credentials.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AdminUserResponse {
+
+    private Long id;
+    private String email;
+    private String fullName;
+    private String phoneNumber;
+    private String avatarUrl;
+    private UserStatus status;
+    private Boolean emailVerified;
+    private LocalDateTime createdAt;
+    @Builder.Default
+    private List<String> roles = new ArrayList<>();
+
+    // Used by the list query; roles are filled in afterwards for the whole page at once
+    public AdminUserResponse(Long id, String email, String fullName, String phoneNumber, String avatarUrl,
+                             UserStatus status, Boolean emailVerified, LocalDateTime createdAt) {
+        this(id, email, fullName, phoneNumber, avatarUrl, status, emailVerified, createdAt, new ArrayList<>());
+    }
+}
@@ -0,0 +1,18 @@
+package com.kidsfashion.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AdmissionTicketResponse {
+
+    private String token;
+    private String status; // WAITING, ADMITTED or EXPIRED
+    private int position;
+    private int retryAfterSeconds;
+}
@@ -0,0 +1,22 @@
+package com.kidsfashion.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AsyncOrderResponse {
+
+    private String reference;
+    private String status; // QUEUED, PROCESSING, COMPLETED or FAILED
+    private OrderResponse order;
+    private String error;
+    private LocalDateTime submittedAt;
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,25 @@
+package com.kidsfashion.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Totals and per-order outcomes of a bulk status transition.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusResponse {
+
+    private int requested;
+    private int updated;
+    private int unchanged;
+    private int rejected;
+    private List<BulkStatusResultResponse> results;
+    private boolean resultsTruncated;
+}
@@ -0,0 +1,33 @@
+package com.kidsfashion.dto.response;
+
+import com.kidsfashion.entity.enums.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one order (or one CSV line) in a bulk status transition.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusResultResponse {
+
+    public enum Outcome {
+        UPDATED,
+        UNCHANGED,
+        INVALID_TRANSITION,
+        NOT_FOUND,
+        INVALID_LINE,
+        FAILED
+    }
+
+    private Long orderId;
+    private String orderCode;
+    private OrderStatus previousStatus;
+    private OrderStatus status;
+    private Outcome outcome;
+    private String message;
+}
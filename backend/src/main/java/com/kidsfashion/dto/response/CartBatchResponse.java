@@ -0,0 +1,33 @@
+package com.kidsfashion.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The cart after a batch of operations, and the operations that were rejected.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartBatchResponse {
+
+    private CartResponse cart;
+    private int applied;
+    private List<LineError> errors;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LineError {
+        // Position of the operation in the request
+        private int index;
+        private Long variantId;
+        private String message;
+    }
+}
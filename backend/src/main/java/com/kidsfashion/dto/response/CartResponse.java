@@ -1,5 +1,6 @@
 package com.kidsfashion.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -19,6 +20,10 @@ public class CartResponse {
     private BigDecimal subtotal;
     private List<CartItemResponse> items;
 
+    // Guest cart token to send back as X-Cart-Session; only set when guest carts travel in tokens
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String cartToken;
+
     @Data
     @Builder
     @NoArgsConstructor
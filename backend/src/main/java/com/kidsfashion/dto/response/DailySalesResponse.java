@@ -0,0 +1,24 @@
+package com.kidsfashion.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Sales of one period (a day, or the first day of a month for monthly reports).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailySalesResponse {
+
+    private LocalDate date;
+    private Long orderCount;
+    private Long itemsSold;
+    private BigDecimal revenue;
+}
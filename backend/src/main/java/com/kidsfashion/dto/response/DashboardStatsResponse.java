@@ -0,0 +1,41 @@
+package com.kidsfashion.dto.response;
+
+import com.kidsfashion.entity.enums.CartStatus;
+import com.kidsfashion.entity.enums.OrderStatus;
+import com.kidsfashion.entity.enums.ProductStatus;
+import com.kidsfashion.entity.enums.UserStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Everything the admin dashboard shows, served from in-memory counters and the sales rollups.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardStatsResponse {
+
+    private Map<OrderStatus, Long> ordersByStatus;
+    private long totalOrders;
+    private long pendingOrders;
+    private Map<ProductStatus, Long> productsByStatus;
+    private long activeProducts;
+    private Map<CartStatus, Long> cartsByStatus;
+    private long activeCarts;
+    private Map<UserStatus, Long> usersByStatus;
+    private long totalUsers;
+    private long lowStockItems;
+    private long outOfStockItems;
+    private BigDecimal revenueToday;
+    private BigDecimal revenueLast30Days;
+    private long completedOrdersLast30Days;
+    private LocalDateTime reconciledAt;
+    private long lastReconcileDrift;
+}
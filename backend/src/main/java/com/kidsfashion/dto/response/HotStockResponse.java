@@ -0,0 +1,30 @@
+package com.kidsfashion.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HotStockResponse {
+
+    private Long variantId;
+    private int slotCount;
+    private int availableQuantity;
+    private List<SlotResponse> slots;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SlotResponse {
+        private int slotNo;
+        private int quantity;
+        private int reservedQuantity;
+    }
+}
@@ -0,0 +1,26 @@
+package com.kidsfashion.dto.response;
+
+import com.kidsfashion.entity.enums.MovementType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row of a variant's stock ledger.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryMovementResponse {
+
+    private Long id;
+    private Long variantId;
+    private MovementType type;
+    private Integer quantityDelta;
+    private Integer reservedDelta;
+    private LocalDateTime createdAt;
+}
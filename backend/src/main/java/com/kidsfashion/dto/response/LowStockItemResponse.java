@@ -0,0 +1,30 @@
+package com.kidsfashion.dto.response;
+
+import com.kidsfashion.entity.enums.StockLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row of the low-stock report.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LowStockItemResponse {
+
+    private Long variantId;
+    private Long productId;
+    private String productName;
+    private String skuVariant;
+    private String sizeName;
+    private String colorName;
+    private StockLevel level;
+    private Integer available;
+    private Integer threshold;
+    private LocalDateTime since;
+}
@@ -0,0 +1,32 @@
+package com.kidsfashion.dto.response;
+
+import com.kidsfashion.entity.enums.OrderStatus;
+import com.kidsfashion.entity.enums.PaymentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Order row for list views; line items are only loaded on the detail endpoint.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummaryResponse {
+
+    private Long id;
+    private String orderCode;
+    private OrderStatus status;
+    private String recipientName;
+    private BigDecimal totalAmount;
+    private String paymentMethod;
+    private String shippingMethod;
+    private PaymentStatus paymentStatus;
+    private Long totalItems;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,28 @@
+package com.kidsfashion.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A variant whose reserved stock does not match what its open orders hold.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationDriftResponse {
+
+    public enum Action {
+        CORRECTED,
+        REPORTED,
+        SKIPPED_LOCKED,
+        SHARDED
+    }
+
+    private Long variantId;
+    private Integer reserved;
+    private Integer expected;
+    private Action action;
+}
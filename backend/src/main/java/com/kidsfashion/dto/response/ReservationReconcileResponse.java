@@ -0,0 +1,30 @@
+package com.kidsfashion.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Outcome of one reservation reconciliation run.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationReconcileResponse {
+
+    private boolean dryRun;
+    private int variantsChecked;
+    private int drifted;
+    private int corrected;
+    private int skippedLocked;
+    private long unitsCorrected;
+    private List<ReservationDriftResponse> drifts;
+    private boolean driftsTruncated;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,33 @@
+package com.kidsfashion.dto.response;
+
+import com.kidsfashion.entity.enums.SalesDimension;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Sales for one payment method, brand or category over a date range.
+ * Brand and category revenue is the sum of the matching line items, before shipping.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesBreakdownResponse {
+
+    private SalesDimension dimension;
+    private String key;
+    private String name;
+    private Long orderCount;
+    private Long itemsSold;
+    private BigDecimal revenue;
+
+    // Used by the rollup query; the display name is resolved afterwards
+    public SalesBreakdownResponse(SalesDimension dimension, String key, Long orderCount, Long itemsSold,
+                                  BigDecimal revenue) {
+        this(dimension, key, key, orderCount, itemsSold, revenue);
+    }
+}
@@ -0,0 +1,28 @@
+package com.kidsfashion.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Revenue report over a date range, read from the daily sales rollups.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesSummaryResponse {
+
+    private LocalDate from;
+    private LocalDate to;
+    private long orderCount;
+    private long itemsSold;
+    private BigDecimal revenue;
+    private BigDecimal averageOrderValue;
+    private List<DailySalesResponse> periods;
+}
@@ -0,0 +1,29 @@
+package com.kidsfashion.dto.response;
+
+import com.kidsfashion.entity.enums.StockLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A low-stock threshold crossing. Product fields are null once the variant has been deleted.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAlertResponse {
+
+    private Long id;
+    private Long variantId;
+    private String productName;
+    private String skuVariant;
+    private StockLevel level;
+    private StockLevel previousLevel;
+    private Integer available;
+    private Integer threshold;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,26 @@
+package com.kidsfashion.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A variant's stock rebuilt from the ledger as it stood at a point in time.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAtResponse {
+
+    private Long variantId;
+    private LocalDateTime at;
+    private Integer quantity;
+    private Integer reservedQuantity;
+    private Integer availableQuantity;
+    private LocalDateTime snapshotAsOf;
+    private Long movementsApplied;
+}
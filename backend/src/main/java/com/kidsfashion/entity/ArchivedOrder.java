@@ -0,0 +1,50 @@
+package com.kidsfashion.entity;
+
+import com.kidsfashion.entity.enums.OrderStatus;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * A completed or cancelled order moved out of the live order tables by the archival job.
+ * The whole order, items and payment included, is kept as one JSON document; rows are
+ * written with native SQL and only read through JPA.
+ */
+@Entity
+@Table(name = "orders_archive")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArchivedOrder {
+
+    @Id
+    private Long id;
+
+    @Column(name = "order_code", nullable = false, length = 30)
+    private String orderCode;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "guest_email")
+    private String guestEmail;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private OrderStatus status;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(nullable = false, columnDefinition = "jsonb")
+    private String document;
+}
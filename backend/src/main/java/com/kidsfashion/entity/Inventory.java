@@ -2,6 +2,7 @@ package com.kidsfashion.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Formula;
 
 import java.time.LocalDateTime;
 
@@ -37,15 +38,22 @@ public class Inventory {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Available stock held in hot-SKU slots (0 when the variant is not sharded)
+    @Formula("(SELECT COALESCE(SUM(s.quantity - s.reserved_quantity), 0) FROM inventory_slots s WHERE s.variant_id = variant_id)")
+    @Setter(AccessLevel.NONE)
+    @Builder.Default
+    private Integer slotAvailableQuantity = 0;
+
     @PrePersist
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
     }
 
-    // Get available quantity
+    // Get available quantity, including stock spread across hot-SKU slots
     public int getAvailableQuantity() {
-        return quantity - reservedQuantity;
+        int slotAvailable = slotAvailableQuantity != null ? slotAvailableQuantity : 0;
+        return quantity - reservedQuantity + slotAvailable;
     }
 
     // Check if low stock
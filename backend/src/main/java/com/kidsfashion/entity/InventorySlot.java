@@ -0,0 +1,55 @@
+package com.kidsfashion.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One counter slot of a hot-SKU variant.
+ * When a variant is sharded, its stock is spread across several slots so concurrent
+ * checkouts lock different rows instead of queuing on the single inventory row.
+ */
+@Entity
+@Table(name = "inventory_slots",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"variant_id", "slot_no"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InventorySlot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "variant_id", nullable = false)
+    private ProductVariant variant;
+
+    @Column(name = "slot_no", nullable = false)
+    private Integer slotNo;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer quantity = 0;
+
+    @Column(name = "reserved_quantity", nullable = false)
+    @Builder.Default
+    private Integer reservedQuantity = 0;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Get available quantity in this slot
+    public int getAvailableQuantity() {
+        return quantity - reservedQuantity;
+    }
+}
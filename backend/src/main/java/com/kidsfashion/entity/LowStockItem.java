@@ -0,0 +1,42 @@
+package com.kidsfashion.entity;
+
+import com.kidsfashion.entity.enums.StockLevel;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A variant whose available stock is at or below its low-stock threshold.
+ * Maintained by {@link com.kidsfashion.service.LowStockService} whenever stock changes;
+ * variants with enough stock have no row.
+ */
+@Entity
+@Table(name = "inventory_low_stock")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LowStockItem {
+
+    @Id
+    @Column(name = "variant_id")
+    private Long variantId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private StockLevel level;
+
+    @Column(nullable = false)
+    private Integer available;
+
+    @Column(nullable = false)
+    private Integer threshold;
+
+    @Column(nullable = false)
+    private LocalDateTime since;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
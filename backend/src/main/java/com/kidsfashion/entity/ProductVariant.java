@@ -57,7 +57,7 @@ public class ProductVariant extends BaseEntity {
     // Get available quantity
     public int getAvailableQuantity() {
         if (inventory == null) return 0;
-        return inventory.getQuantity() - inventory.getReservedQuantity();
+        return inventory.getAvailableQuantity();
     }
 
     // Check if in stock
@@ -0,0 +1,49 @@
+package com.kidsfashion.entity;
+
+import com.kidsfashion.entity.enums.StockLevel;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One crossing of a variant's low-stock threshold, in either direction.
+ */
+@Entity
+@Table(name = "stock_alerts")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockAlert {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "variant_id", nullable = false)
+    private Long variantId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private StockLevel level;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "previous_level", nullable = false, length = 20)
+    private StockLevel previousLevel;
+
+    @Column(nullable = false)
+    private Integer available;
+
+    @Column(nullable = false)
+    private Integer threshold;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,6 @@
+package com.kidsfashion.entity.enums;
+
+public enum IdempotencyStatus {
+    IN_PROGRESS,
+    COMPLETED
+}
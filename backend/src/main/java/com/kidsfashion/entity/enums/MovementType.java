@@ -0,0 +1,10 @@
+package com.kidsfashion.entity.enums;
+
+public enum MovementType {
+    OPENING,
+    RESERVE,
+    RELEASE,
+    DEDUCT,
+    RESTOCK,
+    ADJUST
+}
@@ -0,0 +1,7 @@
+package com.kidsfashion.entity.enums;
+
+public enum OutboxStatus {
+    PENDING,
+    DELIVERED,
+    FAILED
+}
@@ -0,0 +1,8 @@
+package com.kidsfashion.entity.enums;
+
+public enum SalesDimension {
+    TOTAL,
+    PAYMENT_METHOD,
+    BRAND,
+    CATEGORY
+}
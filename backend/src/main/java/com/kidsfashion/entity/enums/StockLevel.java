@@ -0,0 +1,7 @@
+package com.kidsfashion.entity.enums;
+
+public enum StockLevel {
+    IN_STOCK,
+    LOW_STOCK,
+    OUT_OF_STOCK
+}
@@ -0,0 +1,19 @@
+package com.kidsfashion.exception;
+
+import com.kidsfashion.dto.response.AdmissionTicketResponse;
+import lombok.Getter;
+
+/**
+ * Thrown when a checkout for a hot product is parked in the waiting room.
+ * The client polls the ticket and retries with the X-Admission-Token header once admitted.
+ */
+@Getter
+public class AdmissionQueuedException extends RuntimeException {
+
+    private final AdmissionTicketResponse ticket;
+
+    public AdmissionQueuedException(AdmissionTicketResponse ticket) {
+        super("Too many checkouts for this product, you are in the queue at position " + ticket.getPosition());
+        this.ticket = ticket;
+    }
+}
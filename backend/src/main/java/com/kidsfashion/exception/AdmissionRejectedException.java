@@ -0,0 +1,21 @@
+package com.kidsfashion.exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown when the waiting room of a hot product, or the async checkout queue, is full.
+ */
+@Getter
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final int retryAfterSeconds;
+
+    public AdmissionRejectedException(int retryAfterSeconds) {
+        this("Too many checkouts for this product, please try again later", retryAfterSeconds);
+    }
+
+    public AdmissionRejectedException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,57 @@
+package com.kidsfashion.repository;
+
+import com.kidsfashion.entity.ArchivedOrder;
+import com.kidsfashion.entity.enums.OrderStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+
+    // Lookup by code within a created_at window, so only the matching month partitions are scanned
+    @Query("SELECT a FROM ArchivedOrder a WHERE a.orderCode = :orderCode " +
+            "AND a.createdAt >= :start AND a.createdAt < :end")
+    Optional<ArchivedOrder> findByOrderCodeCreatedBetween(@Param("orderCode") String orderCode,
+                                                         @Param("start") LocalDateTime start,
+                                                         @Param("end") LocalDateTime end);
+
+    Optional<ArchivedOrder> findFirstByOrderCode(String orderCode);
+
+    // Customer history continues into the archive after the live orders: one slice of ids, newest first
+    @Query(value = "SELECT id FROM orders_archive WHERE user_id = :userId " +
+            "AND (:status = '' OR status = :status) ORDER BY created_at DESC, id DESC LIMIT :limit OFFSET :offset",
+            nativeQuery = true)
+    List<Long> findIdsByUser(@Param("userId") Long userId, @Param("status") String status,
+                             @Param("limit") int limit, @Param("offset") long offset);
+
+    @Query("SELECT COUNT(a) FROM ArchivedOrder a WHERE a.userId = :userId " +
+            "AND (:status IS NULL OR a.status = :status)")
+    long countByUser(@Param("userId") Long userId, @Param("status") OrderStatus status);
+
+    @Query(value = "SELECT id FROM orders_archive WHERE guest_email = :email " +
+            "ORDER BY created_at DESC, id DESC LIMIT :limit OFFSET :offset",
+            nativeQuery = true)
+    List<Long> findIdsByGuestEmail(@Param("email") String email,
+                                   @Param("limit") int limit, @Param("offset") long offset);
+
+    long countByGuestEmail(String email);
+
+    // Dashboard reconciliation: rows of (status, count)
+    @Query("SELECT a.status, COUNT(a) FROM ArchivedOrder a GROUP BY a.status")
+    List<Object[]> countGroupByStatus();
+
+    // Copy one live order into the archive; the document is the order as returned by the API
+    @Modifying
+    @Query(value = "INSERT INTO orders_archive (id, order_code, user_id, guest_email, status, created_at, " +
+            "archived_at, document) SELECT o.id, o.order_code, o.user_id, o.guest_email, o.status, o.created_at, " +
+            "CURRENT_TIMESTAMP, CAST(:document AS jsonb) FROM orders o WHERE o.id = :id " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int archive(@Param("id") Long id, @Param("document") String document);
+}
@@ -1,12 +1,15 @@
 package com.kidsfashion.repository;
 
 import com.kidsfashion.entity.CartItem;
+import com.kidsfashion.entity.enums.CartStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +25,11 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     @Query("DELETE FROM CartItem ci WHERE ci.cart.id = :cartId")
     void deleteAllByCartId(@Param("cartId") Long cartId);
 
+    // Items of many carts, ahead of deleting the carts themselves
+    @Modifying
+    @Query(value = "DELETE FROM cart_items WHERE cart_id IN (:cartIds)", nativeQuery = true)
+    int deleteByCartIdIn(@Param("cartIds") Collection<Long> cartIds);
+
     // Delete specific item
     @Modifying
     @Query("DELETE FROM CartItem ci WHERE ci.cart.id = :cartId AND ci.variant.id = :variantId")
@@ -36,6 +44,39 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     @Query("SELECT COALESCE(SUM(ci.quantity), 0) FROM CartItem ci WHERE ci.cart.id = :cartId")
     int countItemsInCart(@Param("cartId") Long cartId);
 
+    // Units in the active cart of a user or a guest session, for the header badge
+    @Query("SELECT COALESCE(SUM(ci.quantity), 0) FROM CartItem ci WHERE ci.cart.user.id = :userId AND ci.cart.status = :status")
+    int countItemsByUserId(@Param("userId") Long userId, @Param("status") CartStatus status);
+
+    @Query("SELECT COALESCE(SUM(ci.quantity), 0) FROM CartItem ci WHERE ci.cart.sessionId = :sessionId AND ci.cart.status = :status")
+    int countItemsBySessionId(@Param("sessionId") String sessionId, @Param("status") CartStatus status);
+
+    // Quantity per variant in a cart; rows of (variant id, quantity)
+    @Query("SELECT ci.variant.id, ci.quantity FROM CartItem ci WHERE ci.cart.id = :cartId ORDER BY ci.id")
+    List<Object[]> findQuantitiesByCartId(@Param("cartId") Long cartId);
+
+    // Variant ids in a cart, without loading the items
+    @Query("SELECT ci.variant.id FROM CartItem ci WHERE ci.cart.id = :cartId")
+    List<Long> findVariantIdsByCartId(@Param("cartId") Long cartId);
+
+    // Merge a guest cart into a user cart in one statement: quantities are summed per variant and
+    // clamped to the available stock (main row plus hot-SKU slots); sold out variants are left behind
+    @Modifying
+    @Query(value = "INSERT INTO cart_items (cart_id, variant_id, quantity, added_at, updated_at) " +
+            "SELECT :userCartId, g.variant_id, " +
+            "LEAST(g.quantity + COALESCE(u.quantity, 0), a.available), :now, :now " +
+            "FROM cart_items g " +
+            "LEFT JOIN cart_items u ON u.cart_id = :userCartId AND u.variant_id = g.variant_id " +
+            "LEFT JOIN LATERAL (SELECT i.quantity - i.reserved_quantity + COALESCE((SELECT SUM(s.quantity - s.reserved_quantity) " +
+            "    FROM inventory_slots s WHERE s.variant_id = i.variant_id), 0) AS available " +
+            "    FROM inventory i WHERE i.variant_id = g.variant_id) a ON TRUE " +
+            "WHERE g.cart_id = :guestCartId AND COALESCE(a.available, 0) > 0 " +
+            "ON CONFLICT (cart_id, variant_id) DO UPDATE SET quantity = EXCLUDED.quantity, updated_at = EXCLUDED.updated_at",
+            nativeQuery = true)
+    int mergeInto(@Param("guestCartId") Long guestCartId,
+                  @Param("userCartId") Long userCartId,
+                  @Param("now") LocalDateTime now);
+
     // Check if variant exists in cart
     boolean existsByCartIdAndVariantId(Long cartId, Long variantId);
 }
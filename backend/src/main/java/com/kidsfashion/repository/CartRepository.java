@@ -9,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,16 +30,60 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
         return findBySessionIdAndStatus(sessionId, CartStatus.ACTIVE);
     }
 
+    @Query("SELECT c.id FROM Cart c WHERE c.user.id = :userId AND c.status = :status")
+    Optional<Long> findIdByUserIdAndStatus(@Param("userId") Long userId, @Param("status") CartStatus status);
+
+    @Query("SELECT c.id FROM Cart c WHERE c.sessionId = :sessionId AND c.status = :status")
+    Optional<Long> findIdBySessionIdAndStatus(@Param("sessionId") String sessionId, @Param("status") CartStatus status);
+
+    // Cart ids of many guest sessions; rows of (session id, cart id)
+    @Query("SELECT c.sessionId, c.id FROM Cart c WHERE c.sessionId IN :sessionIds AND c.status = :status")
+    List<Object[]> findIdsBySessionIdIn(@Param("sessionIds") Collection<String> sessionIds,
+                                        @Param("status") CartStatus status);
+
+    // Cart with its items and everything an item shows (variant, product, size, color, stock)
+    @Query("SELECT DISTINCT c FROM Cart c LEFT JOIN FETCH c.items i LEFT JOIN FETCH i.variant v " +
+            "LEFT JOIN FETCH v.product LEFT JOIN FETCH v.size LEFT JOIN FETCH v.color LEFT JOIN FETCH v.inventory " +
+            "WHERE c.id = :id")
+    Optional<Cart> findDetailById(@Param("id") Long id);
+
+    // Guarded status change - returns 0 when another request changed the cart first
+    @Modifying
+    @Query("UPDATE Cart c SET c.status = :to, c.updatedAt = :now WHERE c.id = :id AND c.status = :from")
+    int updateStatus(@Param("id") Long id,
+                     @Param("from") CartStatus from,
+                     @Param("to") CartStatus to,
+                     @Param("now") LocalDateTime now);
+
     // Find expired guest carts
     @Query("SELECT c FROM Cart c WHERE c.sessionId IS NOT NULL AND c.expiresAt < :now AND c.status = 'ACTIVE'")
     List<Cart> findExpiredGuestCarts(@Param("now") LocalDateTime now);
 
-    // Mark expired carts as abandoned
+    // Mark expired guest carts as abandoned, at most :limit per call, skipping carts a request holds;
+    // returns their session ids
+    @Query(value = "UPDATE carts SET status = 'ABANDONED', updated_at = :now WHERE id IN (" +
+            "SELECT id FROM carts WHERE session_id IS NOT NULL AND status = 'ACTIVE' AND expires_at < :now " +
+            "ORDER BY expires_at LIMIT :limit FOR UPDATE SKIP LOCKED) RETURNING session_id", nativeQuery = true)
+    List<String> markExpiredCartsAsAbandoned(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Cart reaper: abandoned and merged carts past their retention, rows of (id, status),
+    // locked so concurrent runs take different rows
+    @Query(value = "SELECT id, status FROM carts " +
+            "WHERE (status = 'ABANDONED' AND updated_at < :abandonedBefore) OR (status = 'MERGED' AND updated_at < :mergedBefore) " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Object[]> findReapable(@Param("abandonedBefore") LocalDateTime abandonedBefore,
+                                @Param("mergedBefore") LocalDateTime mergedBefore,
+                                @Param("limit") int limit);
+
     @Modifying
-    @Query("UPDATE Cart c SET c.status = 'ABANDONED' WHERE c.sessionId IS NOT NULL AND c.expiresAt < :now AND c.status = 'ACTIVE'")
-    int markExpiredCartsAsAbandoned(@Param("now") LocalDateTime now);
+    @Query(value = "DELETE FROM carts WHERE id IN (:ids)", nativeQuery = true)
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 
     // Count active carts
     long countByStatus(CartStatus status);
+
+    // Dashboard reconciliation: rows of (status, count)
+    @Query("SELECT c.status, COUNT(c) FROM Cart c GROUP BY c.status")
+    List<Object[]> countGroupByStatus();
 }
 
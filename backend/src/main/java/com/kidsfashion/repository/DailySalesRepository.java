@@ -0,0 +1,108 @@
+package com.kidsfashion.repository;
+
+import com.kidsfashion.dto.response.DailySalesResponse;
+import com.kidsfashion.dto.response.SalesBreakdownResponse;
+import com.kidsfashion.entity.DailySales;
+import com.kidsfashion.entity.enums.SalesDimension;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DailySalesRepository extends JpaRepository<DailySales, Long> {
+
+    // An order counts toward revenue while it is COMPLETED and its payment has not been refunded
+    String COUNTED = "o.status = 'COMPLETED' AND o.completed_at IS NOT NULL " +
+            "AND NOT EXISTS (SELECT 1 FROM payments p WHERE p.order_id = o.id AND p.status = 'REFUNDED')";
+
+    // Adds the contributions of the orders in the "changed" CTE (order_id, sales_date, sign), where sign
+    // is 1 for newly counted orders and -1 for orders taken back out, onto the rollup rows of every dimension
+    String ADD_CHANGED = "INSERT INTO daily_sales (sales_date, dimension, dimension_key, order_count, " +
+            "items_sold, revenue) " +
+            "SELECT x.sales_date, x.dimension, x.dimension_key, x.sign * x.order_count, x.sign * x.items_sold, " +
+            "x.sign * x.revenue FROM (" +
+            "SELECT c.sales_date, 'TOTAL' AS dimension, '' AS dimension_key, COUNT(*) AS order_count, " +
+            "SUM(q.items) AS items_sold, SUM(o.total_amount) AS revenue, MAX(c.sign) AS sign " +
+            "FROM changed c JOIN orders o ON o.id = c.order_id CROSS JOIN LATERAL " +
+            "(SELECT COALESCE(SUM(i.quantity), 0) AS items FROM order_items i WHERE i.order_id = o.id) q " +
+            "GROUP BY c.sales_date " +
+            "UNION ALL SELECT c.sales_date, 'PAYMENT_METHOD', o.payment_method, COUNT(*), SUM(q.items), " +
+            "SUM(o.total_amount), MAX(c.sign) " +
+            "FROM changed c JOIN orders o ON o.id = c.order_id CROSS JOIN LATERAL " +
+            "(SELECT COALESCE(SUM(i.quantity), 0) AS items FROM order_items i WHERE i.order_id = o.id) q " +
+            "GROUP BY c.sales_date, o.payment_method " +
+            "UNION ALL SELECT c.sales_date, 'BRAND', CAST(p.brand_id AS VARCHAR), COUNT(DISTINCT i.order_id), " +
+            "SUM(i.quantity), SUM(i.subtotal), MAX(c.sign) " +
+            "FROM changed c JOIN order_items i ON i.order_id = c.order_id " +
+            "JOIN product_variants v ON v.id = i.variant_id JOIN products p ON p.id = v.product_id " +
+            "GROUP BY c.sales_date, p.brand_id " +
+            "UNION ALL SELECT c.sales_date, 'CATEGORY', CAST(pc.category_id AS VARCHAR), " +
+            "COUNT(DISTINCT i.order_id), SUM(i.quantity), SUM(i.subtotal), MAX(c.sign) " +
+            "FROM changed c JOIN order_items i ON i.order_id = c.order_id " +
+            "JOIN product_variants v ON v.id = i.variant_id " +
+            "JOIN product_categories pc ON pc.product_id = v.product_id " +
+            "GROUP BY c.sales_date, pc.category_id" +
+            ") x ON CONFLICT (sales_date, dimension, dimension_key) DO UPDATE SET " +
+            "order_count = daily_sales.order_count + EXCLUDED.order_count, " +
+            "items_sold = daily_sales.items_sold + EXCLUDED.items_sold, " +
+            "revenue = daily_sales.revenue + EXCLUDED.revenue, updated_at = CURRENT_TIMESTAMP";
+
+    // Count one order if it completed and is not counted yet
+    @Modifying
+    @Query(value = "WITH changed AS (INSERT INTO daily_sales_orders (order_id, sales_date) " +
+            "SELECT o.id, CAST(o.completed_at AS DATE) FROM orders o WHERE o.id = :orderId AND " + COUNTED +
+            " ON CONFLICT (order_id) DO NOTHING RETURNING order_id, sales_date, 1 AS sign) " + ADD_CHANGED,
+            nativeQuery = true)
+    int addOrder(@Param("orderId") Long orderId);
+
+    // Take one order back out if it was counted and no longer qualifies (cancelled, refunded)
+    @Modifying
+    @Query(value = "WITH changed AS (DELETE FROM daily_sales_orders d WHERE d.order_id = :orderId " +
+            "AND EXISTS (SELECT 1 FROM orders o WHERE o.id = d.order_id AND NOT (" + COUNTED + ")) " +
+            "RETURNING d.order_id, d.sales_date, -1 AS sign) " + ADD_CHANGED,
+            nativeQuery = true)
+    int removeOrder(@Param("orderId") Long orderId);
+
+    // Backfill: count every qualifying order completed in [start, end) that is not counted yet
+    @Modifying
+    @Query(value = "WITH changed AS (INSERT INTO daily_sales_orders (order_id, sales_date) " +
+            "SELECT o.id, CAST(o.completed_at AS DATE) FROM orders o " +
+            "WHERE o.completed_at >= :start AND o.completed_at < :end AND " + COUNTED +
+            " ON CONFLICT (order_id) DO NOTHING RETURNING order_id, sales_date, 1 AS sign) " + ADD_CHANGED,
+            nativeQuery = true)
+    int addCompletedBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // Backfill: take out counted orders of [start, end) that no longer qualify. Orders moved to
+    // the archive are no longer in the orders table and keep their contribution.
+    @Modifying
+    @Query(value = "WITH changed AS (DELETE FROM daily_sales_orders d " +
+            "WHERE d.sales_date >= :start AND d.sales_date < :end " +
+            "AND EXISTS (SELECT 1 FROM orders o WHERE o.id = d.order_id AND NOT (" + COUNTED + ")) " +
+            "RETURNING d.order_id, d.sales_date, -1 AS sign) " + ADD_CHANGED,
+            nativeQuery = true)
+    int removeNoLongerCountedBetween(@Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    @Query("SELECT MIN(o.completedAt) FROM Order o WHERE o.status = 'COMPLETED'")
+    LocalDateTime findFirstCompletedAt();
+
+    // Daily totals over a range: one index range scan on (dimension, sales_date)
+    @Query("SELECT new com.kidsfashion.dto.response.DailySalesResponse(d.salesDate, " +
+            "SUM(d.orderCount), SUM(d.itemsSold), SUM(d.revenue)) FROM DailySales d " +
+            "WHERE d.dimension = com.kidsfashion.entity.enums.SalesDimension.TOTAL " +
+            "AND d.salesDate >= :from AND d.salesDate <= :to GROUP BY d.salesDate ORDER BY d.salesDate")
+    List<DailySalesResponse> findDailyTotals(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT new com.kidsfashion.dto.response.SalesBreakdownResponse(d.dimension, d.dimensionKey, " +
+            "SUM(d.orderCount), SUM(d.itemsSold), SUM(d.revenue)) FROM DailySales d " +
+            "WHERE d.dimension = :dimension AND d.salesDate >= :from AND d.salesDate <= :to " +
+            "GROUP BY d.dimension, d.dimensionKey ORDER BY SUM(d.revenue) DESC")
+    List<SalesBreakdownResponse> findBreakdown(@Param("dimension") SalesDimension dimension,
+                                               @Param("from") LocalDate from,
+                                               @Param("to") LocalDate to);
+}
@@ -0,0 +1,51 @@
+package com.kidsfashion.repository;
+
+import com.kidsfashion.entity.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, Long> {
+
+    Optional<IdempotencyKey> findByScopeAndIdemKey(String scope, String idemKey);
+
+    // Claim a key; returns 0 when another request already holds it
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (scope, idem_key, request_hash, status, created_at, expires_at) " +
+           "VALUES (:scope, :key, :hash, 'IN_PROGRESS', NOW(), :expiresAt) " +
+           "ON CONFLICT (scope, idem_key) DO NOTHING", nativeQuery = true)
+    int claim(@Param("scope") String scope, @Param("key") String key,
+              @Param("hash") String hash, @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Take over an expired key (finished past its TTL, or abandoned mid-request)
+    @Modifying
+    @Query("UPDATE IdempotencyKey k SET k.requestHash = :hash, " +
+           "k.status = com.kidsfashion.entity.enums.IdempotencyStatus.IN_PROGRESS, " +
+           "k.responseBody = NULL, k.createdAt = CURRENT_TIMESTAMP, k.expiresAt = :expiresAt " +
+           "WHERE k.scope = :scope AND k.idemKey = :key AND k.expiresAt < CURRENT_TIMESTAMP")
+    int reclaimExpired(@Param("scope") String scope, @Param("key") String key,
+                       @Param("hash") String hash, @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Store the response of a finished request
+    @Modifying
+    @Query("UPDATE IdempotencyKey k SET k.status = com.kidsfashion.entity.enums.IdempotencyStatus.COMPLETED, " +
+           "k.responseBody = :body, k.expiresAt = :expiresAt WHERE k.scope = :scope AND k.idemKey = :key")
+    int complete(@Param("scope") String scope, @Param("key") String key,
+                 @Param("body") String body, @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Release a key whose request failed, so the client can retry it
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.scope = :scope AND k.idemKey = :key " +
+           "AND k.status = com.kidsfashion.entity.enums.IdempotencyStatus.IN_PROGRESS")
+    int release(@Param("scope") String scope, @Param("key") String key);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,48 @@
+package com.kidsfashion.repository;
+
+import com.kidsfashion.dto.response.InventoryMovementResponse;
+import com.kidsfashion.entity.InventoryMovement;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface InventoryMovementRepository extends JpaRepository<InventoryMovement, Long> {
+
+    String RESPONSE = "SELECT new com.kidsfashion.dto.response.InventoryMovementResponse(m.id, m.variantId, m.type, " +
+            "m.quantityDelta, m.reservedDelta, m.createdAt) FROM InventoryMovement m ";
+
+    // Newest movements of a variant
+    @Query(RESPONSE + "WHERE m.variantId = :variantId ORDER BY m.createdAt DESC, m.id DESC")
+    List<InventoryMovementResponse> findLatest(@Param("variantId") Long variantId, Pageable pageable);
+
+    // Keyset page: the movements of a variant older than the cursor row
+    @Query(RESPONSE + "WHERE m.variantId = :variantId AND (m.createdAt < :createdAt " +
+            "OR (m.createdAt = :createdAt AND m.id < :id)) ORDER BY m.createdAt DESC, m.id DESC")
+    List<InventoryMovementResponse> findBefore(@Param("variantId") Long variantId,
+                                               @Param("createdAt") LocalDateTime createdAt,
+                                               @Param("id") Long id,
+                                               Pageable pageable);
+
+    // Net change of a variant over [from, to): one row of (quantity delta, reserved delta, movement count)
+    @Query("SELECT COALESCE(SUM(m.quantityDelta), 0), COALESCE(SUM(m.reservedDelta), 0), COUNT(m) " +
+            "FROM InventoryMovement m WHERE m.variantId = :variantId AND m.createdAt >= :from AND m.createdAt < :to")
+    List<Object[]> sumDeltas(@Param("variantId") Long variantId,
+                             @Param("from") LocalDateTime from,
+                             @Param("to") LocalDateTime to);
+
+    // Record what a deleted inventory row held (main row and slots) as one ADJUST movement
+    @Modifying
+    @Query(value = "INSERT INTO inventory_movements (variant_id, type, quantity_delta, reserved_delta, created_at) " +
+            "SELECT i.variant_id, 'ADJUST', " +
+            "-(i.quantity + COALESCE((SELECT SUM(s.quantity) FROM inventory_slots s WHERE s.variant_id = i.variant_id), 0)), " +
+            "-(i.reserved_quantity + COALESCE((SELECT SUM(s.reserved_quantity) FROM inventory_slots s WHERE s.variant_id = i.variant_id), 0)), " +
+            ":now FROM inventory i WHERE i.variant_id = :variantId", nativeQuery = true)
+    int insertRemoval(@Param("variantId") Long variantId, @Param("now") LocalDateTime now);
+}
@@ -1,14 +1,14 @@
 package com.kidsfashion.repository;
 
 import com.kidsfashion.entity.Inventory;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,43 +16,68 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
 
     Optional<Inventory> findByVariantId(Long variantId);
 
-    // Find low stock items
-    @Query("SELECT i FROM Inventory i WHERE (i.quantity - i.reservedQuantity) <= i.lowStockThreshold")
-    Page<Inventory> findLowStockItems(Pageable pageable);
-
-    // Find out of stock items
-    @Query("SELECT i FROM Inventory i WHERE (i.quantity - i.reservedQuantity) <= 0")
-    Page<Inventory> findOutOfStockItems(Pageable pageable);
-
     // Update quantity
     @Modifying
     @Query("UPDATE Inventory i SET i.quantity = :quantity WHERE i.variant.id = :variantId")
     void updateQuantity(@Param("variantId") Long variantId, @Param("quantity") Integer quantity);
 
-    // Reserve stock
+    // Reserve stock - only succeeds if enough stock is available, returns affected rows
     @Modifying
-    @Query("UPDATE Inventory i SET i.reservedQuantity = i.reservedQuantity + :amount WHERE i.variant.id = :variantId")
-    void reserveStock(@Param("variantId") Long variantId, @Param("amount") Integer amount);
+    @Query("UPDATE Inventory i SET i.reservedQuantity = i.reservedQuantity + :amount " +
+            "WHERE i.variant.id = :variantId AND (i.quantity - i.reservedQuantity) >= :amount")
+    int reserveStock(@Param("variantId") Long variantId, @Param("amount") Integer amount);
 
-    // Release reserved stock
+    // Release reserved stock - only succeeds if the row holds enough reserved stock
+    @Modifying
+    @Query("UPDATE Inventory i SET i.reservedQuantity = i.reservedQuantity - :amount " +
+            "WHERE i.variant.id = :variantId AND i.reservedQuantity >= :amount")
+    int releaseReservedStock(@Param("variantId") Long variantId, @Param("amount") Integer amount);
+
+    // Release reserved stock, clamping at zero when the reservation has drifted
     @Modifying
     @Query("UPDATE Inventory i SET i.reservedQuantity = GREATEST(0, i.reservedQuantity - :amount) WHERE i.variant.id = :variantId")
-    void releaseReservedStock(@Param("variantId") Long variantId, @Param("amount") Integer amount);
+    int releaseReservedStockClamped(@Param("variantId") Long variantId, @Param("amount") Integer amount);
+
+    // Deduct reserved stock (when order ships) - only succeeds if the row holds the reservation
+    @Modifying
+    @Query("UPDATE Inventory i SET i.quantity = i.quantity - :amount, " +
+            "i.reservedQuantity = i.reservedQuantity - :amount " +
+            "WHERE i.variant.id = :variantId AND i.quantity >= :amount AND i.reservedQuantity >= :amount")
+    int deductReservedStock(@Param("variantId") Long variantId, @Param("amount") Integer amount);
 
-    // Deduct stock (when order confirmed)
+    // Deduct stock, clamping reserved stock at zero when the reservation has drifted
     @Modifying
     @Query("UPDATE Inventory i SET i.quantity = i.quantity - :amount, " +
             "i.reservedQuantity = GREATEST(0, i.reservedQuantity - :amount) " +
             "WHERE i.variant.id = :variantId AND i.quantity >= :amount")
     int deductStock(@Param("variantId") Long variantId, @Param("amount") Integer amount);
 
-    // Count low stock items
-    @Query("SELECT COUNT(i) FROM Inventory i WHERE (i.quantity - i.reservedQuantity) <= i.lowStockThreshold")
-    long countLowStockItems();
+    // Lock the inventory row of a variant - returns [quantity, reserved_quantity]
+    @Query(value = "SELECT quantity, reserved_quantity FROM inventory WHERE variant_id = :variantId FOR UPDATE",
+            nativeQuery = true)
+    List<Object[]> lockByVariantId(@Param("variantId") Long variantId);
+
+    // Adjust quantity and reserved quantity by a delta (moving stock in or out of hot-SKU slots)
+    @Modifying
+    @Query("UPDATE Inventory i SET i.quantity = i.quantity + :quantityDelta, " +
+            "i.reservedQuantity = i.reservedQuantity + :reservedDelta WHERE i.variant.id = :variantId")
+    int adjustStock(@Param("variantId") Long variantId,
+                    @Param("quantityDelta") Integer quantityDelta,
+                    @Param("reservedDelta") Integer reservedDelta);
+
+    // Reservations in variant id order, without locks:
+    // rows of (variant_id, reserved_quantity, reserved in hot-SKU slots, slot count)
+    @Query(value = "SELECT i.variant_id, i.reserved_quantity, " +
+            "COALESCE((SELECT SUM(s.reserved_quantity) FROM inventory_slots s WHERE s.variant_id = i.variant_id), 0), " +
+            "(SELECT COUNT(*) FROM inventory_slots s WHERE s.variant_id = i.variant_id) " +
+            "FROM inventory i WHERE i.variant_id > :afterVariantId ORDER BY i.variant_id LIMIT :limit",
+            nativeQuery = true)
+    List<Object[]> findReservationsAfter(@Param("afterVariantId") Long afterVariantId, @Param("limit") int limit);
 
-    // Count out of stock items
-    @Query("SELECT COUNT(i) FROM Inventory i WHERE (i.quantity - i.reservedQuantity) <= 0")
-    long countOutOfStockItems();
+    // Lock the inventory rows nobody else is holding - rows of (variant_id, reserved_quantity)
+    @Query(value = "SELECT variant_id, reserved_quantity FROM inventory WHERE variant_id IN (:variantIds) " +
+            "ORDER BY variant_id FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Object[]> lockReservationsSkipLocked(@Param("variantIds") Collection<Long> variantIds);
 
     @Modifying
     @Query("DELETE FROM Inventory i WHERE i.variant.id = :variantId")
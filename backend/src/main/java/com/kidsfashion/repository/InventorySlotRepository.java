@@ -0,0 +1,75 @@
+package com.kidsfashion.repository;
+
+import com.kidsfashion.entity.InventorySlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface InventorySlotRepository extends JpaRepository<InventorySlot, Long> {
+
+    List<InventorySlot> findByVariantIdOrderBySlotNo(Long variantId);
+
+    boolean existsByVariantId(Long variantId);
+
+    // Variants currently running in hot-SKU mode
+    @Query("SELECT DISTINCT s.variant.id FROM InventorySlot s")
+    List<Long> findShardedVariantIds();
+
+    // Lock all slots of a variant in slot order - returns [id, quantity, reserved_quantity]
+    @Query(value = "SELECT id, quantity, reserved_quantity FROM inventory_slots " +
+            "WHERE variant_id = :variantId ORDER BY slot_no FOR UPDATE", nativeQuery = true)
+    List<Object[]> lockSlots(@Param("variantId") Long variantId);
+
+    // Reserve in a random slot with enough stock, skipping slots locked by other checkouts
+    @Modifying
+    @Query(value = "UPDATE inventory_slots SET reserved_quantity = reserved_quantity + :amount " +
+            "WHERE id = (SELECT id FROM inventory_slots WHERE variant_id = :variantId " +
+            "AND quantity - reserved_quantity >= :amount ORDER BY random() LIMIT 1 FOR UPDATE SKIP LOCKED) " +
+            "AND quantity - reserved_quantity >= :amount", nativeQuery = true)
+    int reserveInRandomSlot(@Param("variantId") Long variantId, @Param("amount") Integer amount);
+
+    // Release from a random slot holding enough reserved stock
+    @Modifying
+    @Query(value = "UPDATE inventory_slots SET reserved_quantity = reserved_quantity - :amount " +
+            "WHERE id = (SELECT id FROM inventory_slots WHERE variant_id = :variantId " +
+            "AND reserved_quantity >= :amount ORDER BY random() LIMIT 1 FOR UPDATE SKIP LOCKED) " +
+            "AND reserved_quantity >= :amount", nativeQuery = true)
+    int releaseInRandomSlot(@Param("variantId") Long variantId, @Param("amount") Integer amount);
+
+    // Deduct from a random slot holding enough reserved stock
+    @Modifying
+    @Query(value = "UPDATE inventory_slots SET quantity = quantity - :amount, reserved_quantity = reserved_quantity - :amount " +
+            "WHERE id = (SELECT id FROM inventory_slots WHERE variant_id = :variantId " +
+            "AND reserved_quantity >= :amount AND quantity >= :amount ORDER BY random() LIMIT 1 FOR UPDATE SKIP LOCKED) " +
+            "AND reserved_quantity >= :amount AND quantity >= :amount", nativeQuery = true)
+    int deductInRandomSlot(@Param("variantId") Long variantId, @Param("amount") Integer amount);
+
+    @Modifying
+    @Query("UPDATE InventorySlot s SET s.reservedQuantity = s.reservedQuantity + :amount " +
+            "WHERE s.id = :slotId AND (s.quantity - s.reservedQuantity) >= :amount")
+    int reserveInSlot(@Param("slotId") Long slotId, @Param("amount") Integer amount);
+
+    @Modifying
+    @Query("UPDATE InventorySlot s SET s.reservedQuantity = s.reservedQuantity - :amount " +
+            "WHERE s.id = :slotId AND s.reservedQuantity >= :amount")
+    int releaseInSlot(@Param("slotId") Long slotId, @Param("amount") Integer amount);
+
+    @Modifying
+    @Query("UPDATE InventorySlot s SET s.quantity = s.quantity - :amount, s.reservedQuantity = s.reservedQuantity - :amount " +
+            "WHERE s.id = :slotId AND s.reservedQuantity >= :amount AND s.quantity >= :amount")
+    int deductInSlot(@Param("slotId") Long slotId, @Param("amount") Integer amount);
+
+    // Set the on-hand quantity of a slot (used by rebalancing)
+    @Modifying
+    @Query("UPDATE InventorySlot s SET s.quantity = :quantity WHERE s.id = :slotId AND s.reservedQuantity <= :quantity")
+    int updateSlotQuantity(@Param("slotId") Long slotId, @Param("quantity") Integer quantity);
+
+    @Modifying
+    @Query("DELETE FROM InventorySlot s WHERE s.variant.id = :variantId")
+    void deleteByVariantId(@Param("variantId") Long variantId);
+}
@@ -0,0 +1,39 @@
+package com.kidsfashion.repository;
+
+import com.kidsfashion.entity.InventorySnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface InventorySnapshotRepository extends JpaRepository<InventorySnapshot, Long> {
+
+    Optional<InventorySnapshot> findFirstByVariantIdAndAsOfLessThanEqualOrderByAsOfDesc(Long variantId, LocalDateTime at);
+
+    // Cutoff of the last snapshot run
+    @Query("SELECT MAX(s.asOf) FROM InventorySnapshot s")
+    Optional<LocalDateTime> findLatestAsOf();
+
+    // Fold the movements of [since, asOf) into each changed variant's latest snapshot
+    @Modifying
+    @Query(value = "INSERT INTO inventory_snapshots (variant_id, as_of, quantity, reserved_quantity) " +
+            "SELECT d.variant_id, :asOf, COALESCE(s.quantity, 0) + d.quantity_delta, " +
+            "COALESCE(s.reserved_quantity, 0) + d.reserved_delta " +
+            "FROM (SELECT m.variant_id, SUM(m.quantity_delta) AS quantity_delta, SUM(m.reserved_delta) AS reserved_delta " +
+            "      FROM inventory_movements m WHERE m.created_at >= :since AND m.created_at < :asOf " +
+            "      GROUP BY m.variant_id) d " +
+            "LEFT JOIN LATERAL (SELECT p.quantity, p.reserved_quantity FROM inventory_snapshots p " +
+            "      WHERE p.variant_id = d.variant_id ORDER BY p.as_of DESC LIMIT 1) s ON TRUE",
+            nativeQuery = true)
+    int insertSnapshots(@Param("since") LocalDateTime since, @Param("asOf") LocalDateTime asOf);
+
+    @Modifying
+    @Query("DELETE FROM InventorySnapshot s WHERE s.asOf < :before AND EXISTS (SELECT 1 FROM InventorySnapshot n " +
+            "WHERE n.variantId = s.variantId AND n.asOf > s.asOf AND n.asOf < :before)")
+    int deleteSupersededBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,90 @@
+package com.kidsfashion.repository;
+
+import com.kidsfashion.dto.response.LowStockItemResponse;
+import com.kidsfashion.entity.LowStockItem;
+import com.kidsfashion.entity.enums.StockLevel;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface LowStockItemRepository extends JpaRepository<LowStockItem, Long> {
+
+    // Available stock (main row + hot-SKU slots) and threshold of every variant, with its level
+    String LEVELS = "SELECT x.variant_id, x.available, x.threshold, CASE WHEN x.available <= 0 THEN 'OUT_OF_STOCK' " +
+            "WHEN x.available <= x.threshold THEN 'LOW_STOCK' END AS level FROM (" +
+            "SELECT i.variant_id, i.quantity - i.reserved_quantity + COALESCE(s.available, 0) AS available, " +
+            "COALESCE(i.low_stock_threshold, 0) AS threshold FROM inventory i LEFT JOIN (" +
+            "SELECT variant_id, SUM(quantity - reserved_quantity) AS available FROM inventory_slots " +
+            "GROUP BY variant_id) s ON s.variant_id = i.variant_id) x";
+
+    // Stock of one variant next to its entry in the set: one row of
+    // (available, threshold, listed level, listed available, listed threshold), none without inventory
+    @Query(value = "SELECT i.quantity - i.reserved_quantity + COALESCE((SELECT SUM(s.quantity - s.reserved_quantity) " +
+            "FROM inventory_slots s WHERE s.variant_id = i.variant_id), 0), COALESCE(i.low_stock_threshold, 0), " +
+            "l.level, l.available, l.threshold " +
+            "FROM inventory i LEFT JOIN inventory_low_stock l ON l.variant_id = i.variant_id " +
+            "WHERE i.variant_id = :variantId", nativeQuery = true)
+    List<Object[]> findStockLevel(@Param("variantId") Long variantId);
+
+    // Returns 1 when the variant entered the set, 0 when another transaction put it there first
+    @Modifying
+    @Query(value = "INSERT INTO inventory_low_stock (variant_id, level, available, threshold, since, updated_at) " +
+            "VALUES (:variantId, :level, :available, :threshold, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (variant_id) DO NOTHING", nativeQuery = true)
+    int enter(@Param("variantId") Long variantId,
+              @Param("level") String level,
+              @Param("available") int available,
+              @Param("threshold") int threshold);
+
+    // Guarded on the level read before, so of two racing transactions only one sees the crossing
+    @Modifying
+    @Query("UPDATE LowStockItem l SET l.level = :level, l.available = :available, l.threshold = :threshold, " +
+            "l.updatedAt = CURRENT_TIMESTAMP WHERE l.variantId = :variantId AND l.level = :previous")
+    int update(@Param("variantId") Long variantId,
+               @Param("previous") StockLevel previous,
+               @Param("level") StockLevel level,
+               @Param("available") int available,
+               @Param("threshold") int threshold);
+
+    @Modifying
+    @Query("DELETE FROM LowStockItem l WHERE l.variantId = :variantId AND l.level = :previous")
+    int leave(@Param("variantId") Long variantId, @Param("previous") StockLevel previous);
+
+    // Low-stock report: reads the set only, out of stock first; product details by primary key
+    @Query(value = "SELECT new com.kidsfashion.dto.response.LowStockItemResponse(l.variantId, p.id, p.name, " +
+            "v.skuVariant, s.name, c.name, l.level, l.available, l.threshold, l.since) " +
+            "FROM LowStockItem l JOIN ProductVariant v ON v.id = l.variantId JOIN v.product p " +
+            "JOIN v.size s JOIN v.color c WHERE :level IS NULL OR l.level = :level " +
+            "ORDER BY l.available, l.variantId",
+            countQuery = "SELECT COUNT(l) FROM LowStockItem l WHERE :level IS NULL OR l.level = :level")
+    Page<LowStockItemResponse> findReport(@Param("level") StockLevel level, Pageable pageable);
+
+    // Rows of (level, count)
+    @Query("SELECT l.level, COUNT(l) FROM LowStockItem l GROUP BY l.level")
+    List<Object[]> countGroupByLevel();
+
+    // Reconciliation: drop variants that are no longer low on stock (or no longer have inventory)
+    @Modifying
+    @Query(value = "DELETE FROM inventory_low_stock l WHERE NOT EXISTS (SELECT 1 FROM (" + LEVELS + ") k " +
+            "WHERE k.variant_id = l.variant_id AND k.level IS NOT NULL)", nativeQuery = true)
+    int removeRecovered();
+
+    // Reconciliation: add or correct every variant that is low on stock; unchanged rows are left alone
+    @Modifying
+    @Query(value = "INSERT INTO inventory_low_stock (variant_id, level, available, threshold, since, updated_at) " +
+            "SELECT k.variant_id, k.level, k.available, k.threshold, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP " +
+            "FROM (" + LEVELS + ") k WHERE k.level IS NOT NULL " +
+            "ON CONFLICT (variant_id) DO UPDATE SET level = EXCLUDED.level, available = EXCLUDED.available, " +
+            "threshold = EXCLUDED.threshold, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE inventory_low_stock.level <> EXCLUDED.level " +
+            "OR inventory_low_stock.available <> EXCLUDED.available " +
+            "OR inventory_low_stock.threshold <> EXCLUDED.threshold", nativeQuery = true)
+    int addMissing();
+}
@@ -1,11 +1,13 @@
 package com.kidsfashion.repository;
 
 import com.kidsfashion.entity.OrderItem;
+import com.kidsfashion.entity.enums.OrderStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -25,6 +27,22 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     @Query("SELECT COALESCE(SUM(oi.quantity), 0) FROM OrderItem oi JOIN oi.order o WHERE o.status = 'COMPLETED'")
     long countTotalItemsSold();
 
+    // Units per variant across a set of orders: rows of (variantId, quantity)
+    @Query("SELECT oi.variant.id, SUM(oi.quantity) FROM OrderItem oi WHERE oi.order.id IN :orderIds " +
+            "GROUP BY oi.variant.id")
+    List<Object[]> sumQuantityByVariant(@Param("orderIds") Collection<Long> orderIds);
+
+    // Units held by orders in the given statuses, per variant: rows of (variantId, quantity)
+    @Query("SELECT oi.variant.id, SUM(oi.quantity) FROM OrderItem oi WHERE oi.order.status IN :statuses " +
+            "GROUP BY oi.variant.id")
+    List<Object[]> sumQuantityByVariantAndOrderStatus(@Param("statuses") Collection<OrderStatus> statuses);
+
+    // Same, for some variants only
+    @Query("SELECT oi.variant.id, SUM(oi.quantity) FROM OrderItem oi WHERE oi.order.status IN :statuses " +
+            "AND oi.variant.id IN :variantIds GROUP BY oi.variant.id")
+    List<Object[]> sumQuantityByVariantAndOrderStatus(@Param("statuses") Collection<OrderStatus> statuses,
+                                                      @Param("variantIds") Collection<Long> variantIds);
+
     // Check if variant is used in any order
     @Query("SELECT COUNT(oi) > 0 FROM OrderItem oi WHERE oi.variant.id = :variantId")
     boolean existsByVariantId(@Param("variantId") Long variantId);
@@ -1,17 +1,22 @@
 package com.kidsfashion.repository;
 
+import com.kidsfashion.dto.response.AdminOrderListResponse;
+import com.kidsfashion.dto.response.OrderSummaryResponse;
 import com.kidsfashion.entity.Order;
 import com.kidsfashion.entity.enums.OrderStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,24 +25,134 @@ public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecific
 
     Optional<Order> findByOrderCode(String orderCode);
 
-    // Find orders by user
-    Page<Order> findByUserIdOrderByCreatedAtDesc(Long userId, Pageable pageable);
-
     // Find orders by status
     Page<Order> findByStatus(OrderStatus status, Pageable pageable);
 
-    // Find orders by user and status
-    Page<Order> findByUserIdAndStatusOrderByCreatedAtDesc(Long userId, OrderStatus status, Pageable pageable);
-
-    // Find guest orders by email
-    Page<Order> findByGuestEmailOrderByCreatedAtDesc(String guestEmail, Pageable pageable);
-
-    // Search orders
-    @Query("SELECT o FROM Order o WHERE " +
-            "o.orderCode LIKE CONCAT('%', :keyword, '%') OR " +
-            "o.recipientName LIKE CONCAT('%', :keyword, '%') OR " +
-            "o.recipientPhone LIKE CONCAT('%', :keyword, '%')")
-    Page<Order> searchOrders(@Param("keyword") String keyword, Pageable pageable);
+    // Order history, phase 1: one page of ids, newest first
+    @Query(value = "SELECT o.id FROM Order o WHERE o.user.id = :userId " +
+            "AND (:status IS NULL OR o.status = :status) ORDER BY o.createdAt DESC, o.id DESC",
+            countQuery = "SELECT COUNT(o) FROM Order o WHERE o.user.id = :userId " +
+            "AND (:status IS NULL OR o.status = :status)")
+    Page<Long> findIdsByUser(@Param("userId") Long userId, @Param("status") OrderStatus status, Pageable pageable);
+
+    @Query(value = "SELECT o.id FROM Order o WHERE o.guestEmail = :email ORDER BY o.createdAt DESC, o.id DESC",
+            countQuery = "SELECT COUNT(o) FROM Order o WHERE o.guestEmail = :email")
+    Page<Long> findIdsByGuestEmail(@Param("email") String email, Pageable pageable);
+
+    // Admin order history: a slice of ids without a count, the total comes from estimateCount
+    @Query("SELECT o.id FROM Order o WHERE :status IS NULL OR o.status = :status " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    Slice<Long> findIdsByStatus(@Param("status") OrderStatus status, Pageable pageable);
+
+    // Order history, phase 2: the page's orders with items and payment in one query
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.items LEFT JOIN FETCH o.payment WHERE o.id IN :ids")
+    List<Order> findWithItemsAndPaymentByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Order history, phase 2 for list views: summary rows without line items
+    @Query("SELECT new com.kidsfashion.dto.response.OrderSummaryResponse(o.id, o.orderCode, o.status, " +
+            "o.recipientName, o.totalAmount, o.paymentMethod, o.shippingMethod, p.status, " +
+            "(SELECT COALESCE(SUM(i.quantity), 0) FROM OrderItem i WHERE i.order = o), o.createdAt) " +
+            "FROM Order o LEFT JOIN o.payment p WHERE o.id IN :ids")
+    List<OrderSummaryResponse> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Admin order list: one slice of rows with only the listed columns, optionally filtered by status, between
+    // two dates that are never null. No count query; the caller counts date-filtered lists with countAdminList
+    // and estimates the rest.
+    @Query("SELECT new com.kidsfashion.dto.response.AdminOrderListResponse(o.id, o.orderCode, o.status, " +
+            "o.recipientName, o.recipientPhone, o.guestEmail, u.email, o.totalAmount, o.paymentMethod, p.status, " +
+            "o.createdAt) FROM Order o LEFT JOIN o.user u LEFT JOIN o.payment p " +
+            "WHERE (:status IS NULL OR o.status = :status) " +
+            "AND o.createdAt >= :from AND o.createdAt < :to " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    Slice<AdminOrderListResponse> findAdminList(@Param("status") OrderStatus status,
+                                                @Param("from") LocalDateTime from,
+                                                @Param("to") LocalDateTime to,
+                                                Pageable pageable);
+
+    @Query("SELECT COUNT(o) FROM Order o WHERE (:status IS NULL OR o.status = :status) " +
+            "AND o.createdAt >= :from AND o.createdAt < :to")
+    long countAdminList(@Param("status") OrderStatus status,
+                        @Param("from") LocalDateTime from,
+                        @Param("to") LocalDateTime to);
+
+    // Planner estimate of the orders in a status, or of all orders when status is null: the table's
+    // reltuples times the status frequency from pg_stats. Zero or less before the first ANALYZE.
+    @Query(value = "SELECT CAST(c.reltuples * CASE WHEN CAST(:status AS text) IS NULL THEN 1 " +
+            "ELSE COALESCE(s.most_common_freqs[array_position(CAST(CAST(s.most_common_vals AS text) AS text[]), " +
+            "CAST(:status AS text))], 0) END AS bigint) " +
+            "FROM pg_class c LEFT JOIN pg_stats s ON s.schemaname = current_schema() " +
+            "AND s.tablename = 'orders' AND s.attname = 'status' " +
+            "WHERE c.oid = to_regclass('orders')", nativeQuery = true)
+    long estimateCount(@Param("status") String status);
+
+    // Order detail with items and payment
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.items LEFT JOIN FETCH o.payment WHERE o.id = :id")
+    Optional<Order> findDetailById(@Param("id") Long id);
+
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.items LEFT JOIN FETCH o.payment WHERE o.orderCode = :orderCode")
+    Optional<Order> findDetailByOrderCode(@Param("orderCode") String orderCode);
+
+    // Admin order search: ranked trigram match on order code, normalized phone and accent-folded name.
+    // Keyset paged on (score, created_at, id); the search_normalize_* functions and indexes live in schema.sql.
+    // Every parameter is non-null: open date bounds and the first page use sentinel values. :name is the
+    // LIKE-escaped keyword, :term the keyword as typed for the trigram similarity functions.
+    @Query(value = "SELECT s.id, s.order_code, s.status, s.recipient_name, s.recipient_phone, s.guest_email, " +
+            "s.customer_email, s.total_amount, s.payment_method, s.payment_status, s.created_at, s.score FROM (" +
+            "SELECT o.id, o.order_code, o.status, o.recipient_name, o.recipient_phone, o.guest_email, " +
+            "u.email AS customer_email, o.total_amount, o.payment_method, p.status AS payment_status, o.created_at, " +
+            "ROUND(CAST(CASE " +
+            "WHEN o.order_code = :code THEN 4 " +
+            "WHEN o.order_code LIKE :codePrefix THEN 3 " +
+            "WHEN :phone <> '' AND search_normalize_phone(o.recipient_phone) = :phone THEN 2.5 " +
+            "WHEN :phone <> '' AND search_normalize_phone(o.recipient_phone) LIKE '%' || :phone || '%' THEN 2 " +
+            "WHEN search_normalize_text(o.recipient_name) LIKE '%' || search_normalize_text(:name) || '%' " +
+            "THEN 1 + similarity(search_normalize_text(o.recipient_name), search_normalize_text(:term)) " +
+            "ELSE word_similarity(search_normalize_text(:term), search_normalize_text(o.recipient_name)) " +
+            "END AS numeric), 4) AS score " +
+            "FROM orders o LEFT JOIN users u ON u.id = o.user_id LEFT JOIN payments p ON p.order_id = o.id " +
+            "WHERE (o.order_code LIKE :codePrefix " +
+            "OR (:phone <> '' AND search_normalize_phone(o.recipient_phone) LIKE '%' || :phone || '%') " +
+            "OR search_normalize_text(o.recipient_name) LIKE '%' || search_normalize_text(:name) || '%' " +
+            "OR search_normalize_text(:term) <% search_normalize_text(o.recipient_name)) " +
+            "AND (:status = '' OR o.status = :status) " +
+            "AND o.created_at >= :from AND o.created_at < :to" +
+            ") s WHERE (s.score, s.created_at, s.id) < (:afterScore, :afterCreatedAt, :afterId) " +
+            "ORDER BY s.score DESC, s.created_at DESC, s.id DESC LIMIT :limit",
+            nativeQuery = true)
+    List<Object[]> searchOrders(@Param("name") String name,
+                                @Param("term") String term,
+                                @Param("code") String code,
+                                @Param("codePrefix") String codePrefix,
+                                @Param("phone") String phone,
+                                @Param("status") String status,
+                                @Param("from") LocalDateTime from,
+                                @Param("to") LocalDateTime to,
+                                @Param("afterScore") BigDecimal afterScore,
+                                @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                @Param("afterId") Long afterId,
+                                @Param("limit") int limit);
+
+    // Admin order search fast path for order codes: prefix range on idx_orders_code_prefix only
+    @Query(value = "SELECT o.id, o.order_code, o.status, o.recipient_name, o.recipient_phone, o.guest_email, " +
+            "u.email AS customer_email, o.total_amount, o.payment_method, p.status AS payment_status, o.created_at, " +
+            "CAST(CASE WHEN o.order_code = :code THEN 4 ELSE 3 END AS numeric) AS score " +
+            "FROM orders o LEFT JOIN users u ON u.id = o.user_id LEFT JOIN payments p ON p.order_id = o.id " +
+            "WHERE o.order_code LIKE :codePrefix " +
+            "AND (:status = '' OR o.status = :status) " +
+            "AND o.created_at >= :from AND o.created_at < :to " +
+            "AND (CASE WHEN o.order_code = :code THEN 4 ELSE 3 END, o.created_at, o.id) < " +
+            "(:afterScore, :afterCreatedAt, :afterId) " +
+            "ORDER BY score DESC, o.created_at DESC, o.id DESC LIMIT :limit",
+            nativeQuery = true)
+    List<Object[]> searchOrdersByCodePrefix(@Param("code") String code,
+                                            @Param("codePrefix") String codePrefix,
+                                            @Param("status") String status,
+                                            @Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to,
+                                            @Param("afterScore") BigDecimal afterScore,
+                                            @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                            @Param("afterId") Long afterId,
+                                            @Param("limit") int limit);
 
     // Find orders by date range
     @Query("SELECT o FROM Order o WHERE o.createdAt BETWEEN :startDate AND :endDate")
@@ -48,28 +163,83 @@ public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecific
     // Count orders by status
     long countByStatus(OrderStatus status);
 
+    // Dashboard reconciliation: rows of (status, count)
+    @Query("SELECT o.status, COUNT(o) FROM Order o GROUP BY o.status")
+    List<Object[]> countGroupByStatus();
+
     // Count orders by user
     long countByUserId(Long userId);
 
-    // Get total revenue
-    @Query("SELECT COALESCE(SUM(o.totalAmount), 0) FROM Order o WHERE o.status = 'COMPLETED'")
-    BigDecimal getTotalRevenue();
-
-    // Get revenue by date range
-    @Query("SELECT COALESCE(SUM(o.totalAmount), 0) FROM Order o WHERE o.status = 'COMPLETED' AND o.completedAt BETWEEN :startDate AND :endDate")
-    BigDecimal getRevenueByDateRange(@Param("startDate") LocalDateTime startDate, 
-                                      @Param("endDate") LocalDateTime endDate);
-
-    // Get daily revenue for a period
-    @Query("SELECT CAST(o.completedAt AS date), SUM(o.totalAmount) FROM Order o " +
-            "WHERE o.status = 'COMPLETED' AND o.completedAt BETWEEN :startDate AND :endDate " +
-            "GROUP BY CAST(o.completedAt AS date) ORDER BY CAST(o.completedAt AS date)")
-    List<Object[]> getDailyRevenue(@Param("startDate") LocalDateTime startDate, 
-                                    @Param("endDate") LocalDateTime endDate);
-
-    // Count orders today
-    @Query("SELECT COUNT(o) FROM Order o WHERE CAST(o.createdAt AS date) = CURRENT_DATE")
-    long countOrdersToday();
+    // Highest order code issued in a day (range on created_at so idx_orders_created is used)
+    @Query("SELECT MAX(o.orderCode) FROM Order o WHERE o.createdAt >= :start AND o.createdAt < :end " +
+            "AND o.orderCode LIKE :pattern")
+    String findMaxOrderCodeCreatedBetween(@Param("pattern") String pattern,
+                                          @Param("start") LocalDateTime start,
+                                          @Param("end") LocalDateTime end);
+
+    // Archival: oldest finished orders past the horizon, locked so concurrent runs take different rows
+    @Query(value = "SELECT id FROM orders WHERE status IN ('COMPLETED', 'CANCELLED') AND created_at < :cutoff " +
+            "ORDER BY created_at, id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> findArchivableIds(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    // Payment expiry: orders still waiting for an online payment, rows of (id, createdAt)
+    @Query("SELECT o.id, o.createdAt FROM Order o WHERE o.status = :pending AND o.paymentMethod <> 'COD'")
+    List<Object[]> findAwaitingPayment(@Param("pending") OrderStatus pending);
+
+    // Payment expiry: the given orders that are still unpaid past the window, locked so only one node
+    // cancels each; rows of (id, order_code, user_id, total_amount)
+    @Query(value = "SELECT id, order_code, user_id, total_amount FROM orders WHERE id IN (:ids) " +
+            "AND status = 'PENDING' AND payment_method <> 'COD' AND created_at <= :cutoff " +
+            "ORDER BY id FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Object[]> lockUnpaidCreatedBefore(@Param("ids") Collection<Long> ids, @Param("cutoff") LocalDateTime cutoff);
+
+    @Query("SELECT o.id FROM Order o WHERE o.id IN :ids AND o.status = :status")
+    List<Long> findIdsByIdInAndStatus(@Param("ids") Collection<Long> ids, @Param("status") OrderStatus status);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :cancelled, o.cancelledAt = :now, o.cancellationReason = :reason " +
+            "WHERE o.id IN :ids AND o.status = :pending")
+    int cancelExpired(@Param("ids") Collection<Long> ids,
+                      @Param("pending") OrderStatus pending,
+                      @Param("cancelled") OrderStatus cancelled,
+                      @Param("reason") String reason,
+                      @Param("now") LocalDateTime now);
+
+    // Resolve order codes: rows of (id, orderCode)
+    @Query("SELECT o.id, o.orderCode FROM Order o WHERE o.orderCode IN :codes")
+    List<Object[]> findIdsByOrderCodeIn(@Param("codes") Collection<String> codes);
+
+    // Lock one order and return its committed status; anything read after this sees the latest state
+    @Query(value = "SELECT status FROM orders WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<String> lockStatusById(@Param("id") Long id);
+
+    // Lock orders for a bulk transition, in id order; rows of (id, order_code, status, user_id, total_amount)
+    @Query(value = "SELECT id, order_code, status, user_id, total_amount FROM orders WHERE id IN (:ids) " +
+            "ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Object[]> lockForTransition(@Param("ids") Collection<Long> ids);
+
+    // Move locked orders to a new status; each timestamp is only set when its parameter is given
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status, o.updatedAt = :now, " +
+            "o.paidAt = COALESCE(:paidAt, o.paidAt), " +
+            "o.shippedAt = COALESCE(:shippedAt, o.shippedAt), " +
+            "o.completedAt = COALESCE(:completedAt, o.completedAt), " +
+            "o.cancelledAt = COALESCE(:cancelledAt, o.cancelledAt), " +
+            "o.cancellationReason = COALESCE(:reason, o.cancellationReason) " +
+            "WHERE o.id IN :ids")
+    int transition(@Param("ids") Collection<Long> ids,
+                   @Param("status") OrderStatus status,
+                   @Param("now") LocalDateTime now,
+                   @Param("paidAt") LocalDateTime paidAt,
+                   @Param("shippedAt") LocalDateTime shippedAt,
+                   @Param("completedAt") LocalDateTime completedAt,
+                   @Param("cancelledAt") LocalDateTime cancelledAt,
+                   @Param("reason") String reason);
+
+    // Items and payment go with the order through ON DELETE CASCADE
+    @Modifying
+    @Query(value = "DELETE FROM orders WHERE id IN (:ids)", nativeQuery = true)
+    int deleteArchived(@Param("ids") Collection<Long> ids);
 
     // Get recent orders
     @Query("SELECT o FROM Order o ORDER BY o.createdAt DESC")
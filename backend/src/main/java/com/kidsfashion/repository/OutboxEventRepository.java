@@ -0,0 +1,43 @@
+package com.kidsfashion.repository;
+
+import com.kidsfashion.entity.OutboxEvent;
+import com.kidsfashion.entity.enums.OutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Claim due events, skipping rows another dispatcher holds.
+    // Only the oldest pending event of each aggregate is eligible, so events of one order are delivered in order.
+    @Query(value = "SELECT * FROM outbox_events e WHERE e.status = 'PENDING' AND e.next_attempt_at <= NOW() " +
+           "AND NOT EXISTS (SELECT 1 FROM outbox_events p WHERE p.status = 'PENDING' " +
+           "AND p.aggregate_type = e.aggregate_type AND p.aggregate_id = e.aggregate_id AND p.id < e.id) " +
+           "ORDER BY e.id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEvent> claimDueEvents(@Param("limit") int limit);
+
+    long countByStatus(OutboxStatus status);
+
+    // Creation time of the oldest undelivered event (dispatch lag)
+    @Query("SELECT MIN(e.createdAt) FROM OutboxEvent e WHERE e.status = com.kidsfashion.entity.enums.OutboxStatus.PENDING")
+    LocalDateTime findOldestPendingCreatedAt();
+
+    // Remove delivered events past retention
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = com.kidsfashion.entity.enums.OutboxStatus.DELIVERED " +
+           "AND e.deliveredAt < :cutoff")
+    int deleteDeliveredBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    // Put a failed event back in the queue
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = com.kidsfashion.entity.enums.OutboxStatus.PENDING, " +
+           "e.attempts = 0, e.nextAttemptAt = CURRENT_TIMESTAMP WHERE e.id = :id " +
+           "AND e.status = com.kidsfashion.entity.enums.OutboxStatus.FAILED")
+    int requeueFailed(@Param("id") Long id);
+}
@@ -6,12 +6,14 @@ import com.kidsfashion.entity.enums.PaymentStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Optional;
 
 @Repository
@@ -44,5 +46,11 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
 
     // Count by status
     long countByStatus(PaymentStatus status);
-}
 
+    // Payment expiry: close the payments of orders cancelled for not being paid in time
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = :cancelled WHERE p.order.id IN :orderIds AND p.status = :pending")
+    int cancelByOrderIdIn(@Param("orderIds") Collection<Long> orderIds,
+                          @Param("pending") PaymentStatus pending,
+                          @Param("cancelled") PaymentStatus cancelled);
+}
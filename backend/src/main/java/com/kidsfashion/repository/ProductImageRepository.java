@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +18,12 @@ public interface ProductImageRepository extends JpaRepository<ProductImage, Long
 
     Optional<ProductImage> findByProductIdAndIsPrimaryTrue(Long productId);
 
+    // The image each product shows: its primary image, else its first; rows of (product_id, image_url)
+    @Query(value = "SELECT DISTINCT ON (product_id) product_id, image_url FROM product_images " +
+            "WHERE product_id IN (:productIds) ORDER BY product_id, COALESCE(is_primary, FALSE) DESC, sort_order, id",
+            nativeQuery = true)
+    List<Object[]> findPrimaryImageUrls(@Param("productIds") Collection<Long> productIds);
+
     @Modifying
     @Query("UPDATE ProductImage pi SET pi.isPrimary = false WHERE pi.product.id = :productId AND pi.id != :imageId")
     void clearPrimaryForProduct(@Param("productId") Long productId, @Param("imageId") Long imageId);
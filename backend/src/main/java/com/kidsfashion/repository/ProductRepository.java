@@ -102,6 +102,10 @@ public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpec
     // Count by status
     long countByStatus(ProductStatus status);
 
+    // Dashboard reconciliation: rows of (status, count)
+    @Query("SELECT p.status, COUNT(p) FROM Product p GROUP BY p.status")
+    List<Object[]> countGroupByStatus();
+
     // Get min and max prices
     @Query("SELECT MIN(COALESCE(p.salePrice, p.basePrice)), MAX(COALESCE(p.salePrice, p.basePrice)) " +
             "FROM Product p WHERE p.status = 'ACTIVE'")
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,32 +26,42 @@ public interface ProductVariantRepository extends JpaRepository<ProductVariant,
 
     // Find variants with available stock
     @Query("SELECT v FROM ProductVariant v JOIN v.inventory i " +
-            "WHERE v.product.id = :productId AND v.isActive = true AND (i.quantity - i.reservedQuantity) > 0")
+            "WHERE v.product.id = :productId AND v.isActive = true AND (i.quantity - i.reservedQuantity + i.slotAvailableQuantity) > 0")
     List<ProductVariant> findAvailableVariants(@Param("productId") Long productId);
 
     // Get available sizes for a product
     @Query("SELECT DISTINCT v.size FROM ProductVariant v JOIN v.inventory i " +
-            "WHERE v.product.id = :productId AND v.isActive = true AND (i.quantity - i.reservedQuantity) > 0 " +
+            "WHERE v.product.id = :productId AND v.isActive = true AND (i.quantity - i.reservedQuantity + i.slotAvailableQuantity) > 0 " +
             "ORDER BY v.size.sortOrder")
     List<Object> findAvailableSizes(@Param("productId") Long productId);
 
     // Get available colors for a product
     @Query("SELECT DISTINCT v.color FROM ProductVariant v JOIN v.inventory i " +
-            "WHERE v.product.id = :productId AND v.isActive = true AND (i.quantity - i.reservedQuantity) > 0 " +
+            "WHERE v.product.id = :productId AND v.isActive = true AND (i.quantity - i.reservedQuantity + i.slotAvailableQuantity) > 0 " +
             "ORDER BY v.color.sortOrder")
     List<Object> findAvailableColors(@Param("productId") Long productId);
 
     // Get available colors for a specific size
     @Query("SELECT DISTINCT v.color FROM ProductVariant v JOIN v.inventory i " +
             "WHERE v.product.id = :productId AND v.size.id = :sizeId AND v.isActive = true " +
-            "AND (i.quantity - i.reservedQuantity) > 0 ORDER BY v.color.sortOrder")
+            "AND (i.quantity - i.reservedQuantity + i.slotAvailableQuantity) > 0 ORDER BY v.color.sortOrder")
     List<Object> findAvailableColorsForSize(@Param("productId") Long productId, @Param("sizeId") Integer sizeId);
 
     // Check if product has any variants in stock
     @Query("SELECT COUNT(v) > 0 FROM ProductVariant v JOIN v.inventory i " +
-            "WHERE v.product.id = :productId AND (i.quantity - i.reservedQuantity) > 0")
+            "WHERE v.product.id = :productId AND (i.quantity - i.reservedQuantity + i.slotAvailableQuantity) > 0")
     boolean hasAvailableStock(@Param("productId") Long productId);
 
+    // Whether each variant can go into a cart, and how many units are free; rows of (id, active, product status, available)
+    @Query("SELECT v.id, v.isActive, p.status, COALESCE(i.quantity - i.reservedQuantity + i.slotAvailableQuantity, 0) " +
+            "FROM ProductVariant v JOIN v.product p LEFT JOIN v.inventory i WHERE v.id IN :variantIds")
+    List<Object[]> findCartAvailability(@Param("variantIds") Collection<Long> variantIds);
+
+    // Everything a cart line shows, for carts held outside the database
+    @Query("SELECT v FROM ProductVariant v JOIN FETCH v.product JOIN FETCH v.size JOIN FETCH v.color " +
+            "LEFT JOIN FETCH v.inventory WHERE v.id IN :variantIds")
+    List<ProductVariant> findCartDetailsByIdIn(@Param("variantIds") Collection<Long> variantIds);
+
     @Modifying
     @Query("DELETE FROM ProductVariant v WHERE v.product.id = :productId")
     void deleteByProductId(@Param("productId") Long productId);
@@ -0,0 +1,33 @@
+package com.kidsfashion.repository;
+
+import com.kidsfashion.dto.response.StockAlertResponse;
+import com.kidsfashion.entity.StockAlert;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StockAlertRepository extends JpaRepository<StockAlert, Long> {
+
+    String RESPONSE = "SELECT new com.kidsfashion.dto.response.StockAlertResponse(a.id, a.variantId, p.name, " +
+            "v.skuVariant, a.level, a.previousLevel, a.available, a.threshold, a.createdAt) " +
+            "FROM StockAlert a LEFT JOIN ProductVariant v ON v.id = a.variantId LEFT JOIN v.product p ";
+
+    // Alert feed: alerts after the caller's last seen id, oldest first
+    @Query(RESPONSE + "WHERE a.id > :afterId ORDER BY a.id")
+    List<StockAlertResponse> findAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Alert feed without a cursor: the newest alerts
+    @Query(RESPONSE + "ORDER BY a.id DESC")
+    List<StockAlertResponse> findLatest(Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM StockAlert a WHERE a.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
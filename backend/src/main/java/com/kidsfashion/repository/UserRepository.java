@@ -1,5 +1,6 @@
 package com.kidsfashion.repository;
 
+import com.kidsfashion.dto.response.AdminUserResponse;
 import com.kidsfashion.entity.User;
 import com.kidsfashion.entity.enums.UserStatus;
 import org.springframework.data.domain.Page;
@@ -9,6 +10,9 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -35,7 +39,28 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT u FROM User u JOIN u.roles r WHERE r.name = :roleName")
     Page<User> findByRoleName(@Param("roleName") String roleName, Pageable pageable);
 
+    // Admin user list: one page of rows without roles, optionally filtered by status and registration date
+    @Query(value = "SELECT new com.kidsfashion.dto.response.AdminUserResponse(u.id, u.email, u.fullName, " +
+            "u.phoneNumber, u.avatarUrl, u.status, u.emailVerified, u.createdAt) FROM User u " +
+            "WHERE (:status IS NULL OR u.status = :status) " +
+            "AND (:from IS NULL OR u.createdAt >= :from) AND (:to IS NULL OR u.createdAt < :to) " +
+            "ORDER BY u.createdAt DESC, u.id DESC",
+            countQuery = "SELECT COUNT(u) FROM User u WHERE (:status IS NULL OR u.status = :status) " +
+            "AND (:from IS NULL OR u.createdAt >= :from) AND (:to IS NULL OR u.createdAt < :to)")
+    Page<AdminUserResponse> findAdminList(@Param("status") UserStatus status,
+                                          @Param("from") LocalDateTime from,
+                                          @Param("to") LocalDateTime to,
+                                          Pageable pageable);
+
+    // Role names for a page of users in one query: rows of (userId, roleName)
+    @Query("SELECT u.id, r.name FROM User u JOIN u.roles r WHERE u.id IN :ids")
+    List<Object[]> findRoleNamesByUserIdIn(@Param("ids") Collection<Long> ids);
+
     @Query("SELECT COUNT(u) FROM User u WHERE u.status = :status")
     long countByStatus(@Param("status") UserStatus status);
+
+    // Dashboard reconciliation: rows of (status, count)
+    @Query("SELECT u.status, COUNT(u) FROM User u GROUP BY u.status")
+    List<Object[]> countGroupByStatus();
 }
 
@@ -0,0 +1,287 @@
+package com.kidsfashion.service;
+
+import com.kidsfashion.dto.response.AdmissionTicketResponse;
+import com.kidsfashion.entity.ProductVariant;
+import com.kidsfashion.exception.AdmissionQueuedException;
+import com.kidsfashion.exception.AdmissionRejectedException;
+import com.kidsfashion.repository.ProductVariantRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Virtual waiting room for flash-sale checkout.
+ *
+ * Admins put a concurrency limit on hot products or variants. Only that many cart/checkout
+ * requests touching them are in flight at once; the rest wait in a FIFO queue and poll their
+ * ticket until admitted, or are turned away with a retry-after when the queue is full.
+ * Variants without a gate pass straight through without touching the database.
+ *
+ * Limits are enforced per application node.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AdmissionControlService {
+
+    public static final Permit NO_PERMIT = () -> { };
+
+    private final ProductVariantRepository variantRepository;
+
+    private final Map<Long, Gate> gatesByVariant = new ConcurrentHashMap<>();
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+
+    @Value("${admission.default-queue-size:500}")
+    private int defaultQueueSize;
+
+    @Value("${admission.ticket-ttl-seconds:30}")
+    private long ticketTtlSeconds;
+
+    @Value("${admission.retry-after-seconds:2}")
+    private int retryAfterSeconds;
+
+    /**
+     * A held slot of in-flight capacity; must be released when the request finishes.
+     */
+    @FunctionalInterface
+    public interface Permit extends AutoCloseable {
+        void release();
+
+        @Override
+        default void close() {
+            release();
+        }
+    }
+
+    /**
+     * Admit a request touching the given variants.
+     * The supplier is only called when at least one gate is configured.
+     *
+     * @throws AdmissionQueuedException   when the request has to wait; the ticket is returned to the client
+     * @throws AdmissionRejectedException when the waiting room is full
+     */
+    public Permit admit(Supplier<Collection<Long>> variantIds, String admissionToken) {
+        if (gatesByVariant.isEmpty()) {
+            return NO_PERMIT;
+        }
+        List<Gate> gates = variantIds.get().stream()
+                .map(gatesByVariant::get)
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted(Comparator.comparing(Gate::getName))
+                .toList();
+        if (gates.isEmpty()) {
+            return NO_PERMIT;
+        }
+
+        Ticket ticket = admissionToken != null ? tickets.get(admissionToken) : null;
+        List<Gate> entered = new ArrayList<>();
+        for (Gate gate : gates) {
+            boolean claimed = ticket != null && ticket.gate == gate && gate.claim(ticket);
+            if (claimed) {
+                tickets.remove(ticket.token);
+            } else if (!gate.tryEnter()) {
+                entered.forEach(Gate::leave);
+                throw queueOrReject(gate, ticket);
+            }
+            entered.add(gate);
+        }
+        return () -> entered.forEach(Gate::leave);
+    }
+
+    public AdmissionTicketResponse getTicket(String token) {
+        Ticket ticket = tickets.get(token);
+        if (ticket == null) {
+            return AdmissionTicketResponse.builder()
+                    .token(token)
+                    .status("EXPIRED")
+                    .build();
+        }
+        return ticket.gate.view(ticket);
+    }
+
+    // ==================== GATE CONFIGURATION ====================
+
+    public void limitVariant(Long variantId, int limit, Integer queueSize) {
+        ProductVariant variant = variantRepository.findById(variantId)
+                .orElseThrow(() -> new IllegalArgumentException("Product variant not found"));
+        configure("variant:" + variant.getId(), List.of(variant.getId()), limit, queueSize);
+    }
+
+    public void limitProduct(Long productId, int limit, Integer queueSize) {
+        List<Long> variantIds = variantRepository.findByProductId(productId).stream()
+                .map(ProductVariant::getId)
+                .toList();
+        if (variantIds.isEmpty()) {
+            throw new IllegalArgumentException("Product has no variants");
+        }
+        configure("product:" + productId, variantIds, limit, queueSize);
+    }
+
+    public void removeVariantLimit(Long variantId) {
+        remove("variant:" + variantId);
+    }
+
+    public void removeProductLimit(Long productId) {
+        remove("product:" + productId);
+    }
+
+    public List<Map<String, Object>> getGates() {
+        return gatesByVariant.values().stream()
+                .distinct()
+                .sorted(Comparator.comparing(Gate::getName))
+                .map(Gate::stats)
+                .collect(Collectors.toList());
+    }
+
+    private synchronized void configure(String name, List<Long> variantIds, int limit, Integer queueSize) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1");
+        }
+        remove(name);
+        Gate gate = new Gate(name, variantIds, limit, queueSize != null ? queueSize : defaultQueueSize);
+        variantIds.forEach(id -> gatesByVariant.put(id, gate));
+        log.info("Admission gate {} set to {} in flight, queue size {}", name, limit, gate.maxQueue);
+    }
+
+    private synchronized void remove(String name) {
+        List<Gate> removed = gatesByVariant.values().stream()
+                .filter(gate -> gate.name.equals(name))
+                .distinct()
+                .toList();
+        for (Gate gate : removed) {
+            gate.variantIds.forEach(id -> gatesByVariant.remove(id, gate));
+            // Waiting clients are let through on their next attempt
+            gate.drain().forEach(ticket -> tickets.remove(ticket.token));
+        }
+    }
+
+    private RuntimeException queueOrReject(Gate gate, Ticket existing) {
+        if (existing != null && existing.gate == gate && tickets.containsKey(existing.token)) {
+            return new AdmissionQueuedException(gate.view(existing));
+        }
+        Ticket ticket = gate.enqueue();
+        if (ticket == null) {
+            return new AdmissionRejectedException(retryAfterSeconds);
+        }
+        tickets.put(ticket.token, ticket);
+        return new AdmissionQueuedException(gate.view(ticket));
+    }
+
+    // Drop tickets whose clients stopped polling and hand their slots to the next in line
+    @Scheduled(fixedDelayString = "${admission.sweep-interval-ms:1000}")
+    public void expireTickets() {
+        Instant cutoff = Instant.now().minus(Duration.ofSeconds(ticketTtlSeconds));
+        tickets.values().removeIf(ticket -> ticket.gate.expireIfIdle(ticket, cutoff));
+    }
+
+    private static final class Ticket {
+        private final String token = UUID.randomUUID().toString();
+        private final Gate gate;
+        private boolean admitted;
+        private Instant lastSeenAt = Instant.now();
+
+        private Ticket(Gate gate) {
+            this.gate = gate;
+        }
+    }
+
+    private final class Gate {
+        private final String name;
+        private final List<Long> variantIds;
+        private final int limit;
+        private final int maxQueue;
+        private final LinkedList<Ticket> queue = new LinkedList<>();
+        private int inFlight;
+
+        private Gate(String name, List<Long> variantIds, int limit, int maxQueue) {
+            this.name = name;
+            this.variantIds = variantIds;
+            this.limit = limit;
+            this.maxQueue = maxQueue;
+        }
+
+        private String getName() {
+            return name;
+        }
+
+        // Newcomers only get in when nobody is waiting, so the queue stays FIFO
+        private synchronized boolean tryEnter() {
+            if (queue.isEmpty() && inFlight < limit) {
+                inFlight++;
+                return true;
+            }
+            return false;
+        }
+
+        // An admitted ticket already holds the slot handed over by leave()
+        private synchronized boolean claim(Ticket ticket) {
+            return ticket.admitted && queue.remove(ticket);
+        }
+
+        private synchronized void leave() {
+            for (Ticket next : queue) {
+                if (!next.admitted) {
+                    next.admitted = true;
+                    next.lastSeenAt = Instant.now();
+                    return;
+                }
+            }
+            inFlight--;
+        }
+
+        private synchronized Ticket enqueue() {
+            if (queue.size() >= maxQueue) {
+                return null;
+            }
+            Ticket ticket = new Ticket(this);
+            queue.addLast(ticket);
+            return ticket;
+        }
+
+        private synchronized AdmissionTicketResponse view(Ticket ticket) {
+            ticket.lastSeenAt = Instant.now();
+            return AdmissionTicketResponse.builder()
+                    .token(ticket.token)
+                    .status(ticket.admitted ? "ADMITTED" : "WAITING")
+                    .position(ticket.admitted ? 0 : queue.indexOf(ticket) + 1)
+                    .retryAfterSeconds(ticket.admitted ? 0 : retryAfterSeconds)
+                    .build();
+        }
+
+        private synchronized boolean expireIfIdle(Ticket ticket, Instant cutoff) {
+            if (ticket.lastSeenAt.isAfter(cutoff)) {
+                return false;
+            }
+            if (queue.remove(ticket) && ticket.admitted) {
+                leave();
+            }
+            return true;
+        }
+
+        private synchronized List<Ticket> drain() {
+            List<Ticket> waiting = new ArrayList<>(queue);
+            queue.clear();
+            return waiting;
+        }
+
+        private synchronized Map<String, Object> stats() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("name", name);
+            stats.put("limit", limit);
+            stats.put("inFlight", inFlight);
+            stats.put("queued", queue.size());
+            stats.put("maxQueue", maxQueue);
+            return stats;
+        }
+    }
+}
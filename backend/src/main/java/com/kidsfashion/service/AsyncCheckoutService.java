@@ -0,0 +1,186 @@
+package com.kidsfashion.service;
+
+import com.kidsfashion.dto.request.CreateOrderRequest;
+import com.kidsfashion.dto.response.AsyncOrderResponse;
+import com.kidsfashion.dto.response.OrderResponse;
+import com.kidsfashion.exception.AdmissionRejectedException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous order placement.
+ *
+ * The request is validated up front and queued on a bounded worker pool; the client gets a
+ * reference straight away and polls it for the final status. When the queue is full new
+ * checkouts are turned away with a retry-after instead of piling up on request threads.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AsyncCheckoutService {
+
+    private final CheckoutBatchService checkoutBatchService;
+    private final CartService cartService;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong totalQueueWaitMs = new AtomicLong();
+    private final AtomicLong totalProcessingMs = new AtomicLong();
+    private final AtomicLong maxProcessingMs = new AtomicLong();
+    private ThreadPoolExecutor executor;
+
+    @Value("${checkout.async.workers:8}")
+    private int workers;
+
+    @Value("${checkout.async.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${checkout.async.result-ttl-minutes:30}")
+    private long resultTtlMinutes;
+
+    @Value("${checkout.async.retry-after-seconds:2}")
+    private int retryAfterSeconds;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadNo = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> {
+                    Thread thread = new Thread(task, "checkout-worker-" + threadNo.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdown();
+    }
+
+    /**
+     * Queue an order for placement. Takes ownership of the admission permit and releases it
+     * once the order has been processed (or immediately when it cannot be queued).
+     */
+    public AsyncOrderResponse submit(Long userId, String sessionId, CreateOrderRequest request,
+                                     AdmissionControlService.Permit permit) {
+        Job job;
+        try {
+            // Cheap checks up front so obvious failures are reported synchronously
+            if (cartService.getCheckoutVariantIds(userId, sessionId).isEmpty()) {
+                throw new IllegalArgumentException("Giỏ hàng trống");
+            }
+            if (userId == null && (request.getGuestEmail() == null || request.getGuestEmail().isBlank())) {
+                throw new IllegalArgumentException("Email is required for guest checkout");
+            }
+
+            job = new Job();
+            jobs.put(job.reference, job);
+            try {
+                executor.execute(() -> process(job, userId, sessionId, request, permit));
+            } catch (RejectedExecutionException e) {
+                jobs.remove(job.reference);
+                rejected.incrementAndGet();
+                throw new AdmissionRejectedException("Checkout queue is full, please try again shortly",
+                        retryAfterSeconds);
+            }
+        } catch (RuntimeException e) {
+            permit.release();
+            throw e;
+        }
+        submitted.incrementAndGet();
+        return job.view();
+    }
+
+    public AsyncOrderResponse getStatus(String reference) {
+        Job job = jobs.get(reference);
+        if (job == null) {
+            throw new IllegalArgumentException("Unknown or expired order reference");
+        }
+        return job.view();
+    }
+
+    public Map<String, Object> getStats() {
+        long finished = completed.get() + failed.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("workers", workers);
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("queueDepth", executor.getQueue().size());
+        stats.put("activeWorkers", executor.getActiveCount());
+        stats.put("submitted", submitted.get());
+        stats.put("completed", completed.get());
+        stats.put("failed", failed.get());
+        stats.put("rejected", rejected.get());
+        stats.put("averageQueueWaitMs", finished == 0 ? 0 : totalQueueWaitMs.get() / finished);
+        stats.put("averageProcessingMs", finished == 0 ? 0 : totalProcessingMs.get() / finished);
+        stats.put("maxProcessingMs", maxProcessingMs.get());
+        return stats;
+    }
+
+    private void process(Job job, Long userId, String sessionId, CreateOrderRequest request,
+                         AdmissionControlService.Permit permit) {
+        long startedAt = System.currentTimeMillis();
+        totalQueueWaitMs.addAndGet(startedAt - job.submittedAtMillis);
+        job.status = "PROCESSING";
+        try {
+            job.order = checkoutBatchService.placeOrder(userId, sessionId, request);
+            job.status = "COMPLETED";
+            completed.incrementAndGet();
+        } catch (RuntimeException e) {
+            log.warn("Async checkout {} failed: {}", job.reference, e.getMessage());
+            job.error = e.getMessage();
+            job.status = "FAILED";
+            failed.incrementAndGet();
+        } finally {
+            permit.release();
+            job.completedAt = LocalDateTime.now();
+            long elapsed = System.currentTimeMillis() - startedAt;
+            totalProcessingMs.addAndGet(elapsed);
+            maxProcessingMs.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+
+    // Forget finished jobs once clients have had time to collect the result
+    @Scheduled(fixedDelayString = "${checkout.async.cleanup-interval-ms:60000}")
+    public void removeExpiredResults() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(resultTtlMinutes);
+        jobs.values().removeIf(job -> job.completedAt != null && job.completedAt.isBefore(cutoff));
+    }
+
+    private static final class Job {
+        private final String reference = UUID.randomUUID().toString();
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private final long submittedAtMillis = System.currentTimeMillis();
+        private volatile String status = "QUEUED";
+        private volatile OrderResponse order;
+        private volatile String error;
+        private volatile LocalDateTime completedAt;
+
+        private AsyncOrderResponse view() {
+            return AsyncOrderResponse.builder()
+                    .reference(reference)
+                    .status(status)
+                    .order(order)
+                    .error(error)
+                    .submittedAt(submittedAt)
+                    .completedAt(completedAt)
+                    .build();
+        }
+    }
+}
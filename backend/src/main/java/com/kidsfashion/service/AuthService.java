@@ -30,6 +30,7 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtTokenProvider tokenProvider;
+    private final DashboardStatsService dashboardStatsService;
 
     @Transactional
     public AuthResponse register(RegisterRequest request) {
@@ -54,6 +55,7 @@ public class AuthService {
 
         user.addRole(customerRole);
         user = userRepository.save(user);
+        dashboardStatsService.userStatusChanged(null, user.getStatus());
 
         // Generate token
         String token = tokenProvider.generateToken(user.getEmail());
@@ -156,6 +158,7 @@ public class AuthService {
                     .build();
             admin.addRole(adminRole);
             userRepository.save(admin);
+            dashboardStatsService.userStatusChanged(null, admin.getStatus());
             return "Admin user created with email: " + adminEmail + " and password: " + newPassword;
         } else {
             // Reset password
@@ -0,0 +1,317 @@
+package com.kidsfashion.service;
+
+import com.kidsfashion.dto.response.BulkStatusResponse;
+import com.kidsfashion.dto.response.BulkStatusResultResponse;
+import com.kidsfashion.dto.response.BulkStatusResultResponse.Outcome;
+import com.kidsfashion.entity.enums.OrderStatus;
+import com.kidsfashion.repository.OrderItemRepository;
+import com.kidsfashion.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Status transitions for whole fulfilment waves.
+ *
+ * Orders are handled in chunks, one short transaction each: the chunk's orders are locked in
+ * id order with one query, every transition is validated in memory, stock for all shipped
+ * orders is deducted with one grouped update per variant (released the same way for
+ * cancellations), and the accepted orders move to the new status with one UPDATE.
+ * Carrier files are read line by line and flushed per chunk, so their size does not matter.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BulkOrderStatusService {
+
+    // Allowed moves, shared with single-order updates in OrderService
+    static final Map<OrderStatus, Set<OrderStatus>> TRANSITIONS = new EnumMap<>(OrderStatus.class);
+    // Statuses at which an order's goods have left the warehouse
+    static final Set<OrderStatus> SHIPPED_STATUSES = EnumSet.of(OrderStatus.SHIPPING,
+            OrderStatus.SHIPPED, OrderStatus.DELIVERED, OrderStatus.COMPLETED);
+    private static final Map<String, OrderStatus> CARRIER_STATUSES = Map.of(
+            "PICKED_UP", OrderStatus.SHIPPING,
+            "IN_TRANSIT", OrderStatus.SHIPPING,
+            "OUT_FOR_DELIVERY", OrderStatus.SHIPPING,
+            "DELIVERED", OrderStatus.DELIVERED);
+    private static final int MAX_ORDERS_PER_REQUEST = 1000;
+    private static final int MAX_REPORTED_RESULTS = 1000;
+
+    static {
+        TRANSITIONS.put(OrderStatus.PENDING, EnumSet.of(OrderStatus.CONFIRMED, OrderStatus.PAID,
+                OrderStatus.PROCESSING, OrderStatus.CANCELLED));
+        TRANSITIONS.put(OrderStatus.CONFIRMED, EnumSet.of(OrderStatus.PAID, OrderStatus.PROCESSING,
+                OrderStatus.SHIPPING, OrderStatus.CANCELLED));
+        TRANSITIONS.put(OrderStatus.PAID, EnumSet.of(OrderStatus.PROCESSING, OrderStatus.SHIPPING,
+                OrderStatus.CANCELLED));
+        TRANSITIONS.put(OrderStatus.PROCESSING, EnumSet.of(OrderStatus.SHIPPING, OrderStatus.SHIPPED,
+                OrderStatus.CANCELLED));
+        TRANSITIONS.put(OrderStatus.SHIPPING, EnumSet.of(OrderStatus.SHIPPED, OrderStatus.DELIVERED));
+        TRANSITIONS.put(OrderStatus.SHIPPED, EnumSet.of(OrderStatus.DELIVERED));
+        TRANSITIONS.put(OrderStatus.DELIVERED, EnumSet.of(OrderStatus.COMPLETED));
+        TRANSITIONS.put(OrderStatus.COMPLETED, EnumSet.noneOf(OrderStatus.class));
+        TRANSITIONS.put(OrderStatus.CANCELLED, EnumSet.noneOf(OrderStatus.class));
+    }
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final InventoryService inventoryService;
+    private final OutboxService outboxService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${orders.bulk-status.chunk-size:200}")
+    private int chunkSize;
+
+    /**
+     * Move the given orders, by id and/or code, to {@code status}.
+     */
+    public BulkStatusResponse transition(List<Long> orderIds, List<String> orderCodes, OrderStatus status,
+                                         String reason) {
+        Set<Long> ids = new LinkedHashSet<>(orderIds != null ? orderIds : List.of());
+        Set<String> codes = new LinkedHashSet<>(orderCodes != null ? orderCodes : List.of());
+        if (ids.isEmpty() && codes.isEmpty()) {
+            throw new IllegalArgumentException("No orders given");
+        }
+        if (ids.size() + codes.size() > MAX_ORDERS_PER_REQUEST) {
+            throw new IllegalArgumentException("At most " + MAX_ORDERS_PER_REQUEST + " orders per request");
+        }
+
+        Tally tally = new Tally();
+        if (!codes.isEmpty()) {
+            Map<String, Long> resolved = resolveCodes(codes);
+            for (String code : codes) {
+                Long id = resolved.get(code);
+                if (id == null) {
+                    tally.add(result(null, code, null, status, Outcome.NOT_FOUND, "Order not found"));
+                } else {
+                    ids.add(id);
+                }
+            }
+        }
+        List<Long> all = new ArrayList<>(ids);
+        for (int from = 0; from < all.size(); from += chunkSize) {
+            applyChunk(all.subList(from, Math.min(from + chunkSize, all.size())), status, reason, tally);
+        }
+        return tally.toResponse();
+    }
+
+    /**
+     * Apply a carrier status file: one {@code order_code,status} pair per line, further columns
+     * ignored, an optional header. Carrier statuses (PICKED_UP, IN_TRANSIT, OUT_FOR_DELIVERY,
+     * DELIVERED) and order statuses are both understood.
+     */
+    public BulkStatusResponse importCarrierUpdates(InputStream csv) throws IOException {
+        Tally tally = new Tally();
+        Map<OrderStatus, Map<String, Integer>> pending = new EnumMap<>(OrderStatus.class);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8))) {
+            String line;
+            int lineNo = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                String[] columns = line.split(",", -1);
+                if (line.isBlank() || (lineNo == 1 && isHeader(columns))) {
+                    continue;
+                }
+                String code = columns[0].trim();
+                OrderStatus status = columns.length < 2 ? null : toOrderStatus(columns[1].trim());
+                if (code.isEmpty() || status == null) {
+                    tally.add(result(null, code.isEmpty() ? null : code, null, null, Outcome.INVALID_LINE,
+                            "Line " + lineNo + ": expected order code and a known status"));
+                    continue;
+                }
+                Map<String, Integer> codes = pending.computeIfAbsent(status, key -> new LinkedHashMap<>());
+                codes.put(code, lineNo);
+                if (codes.size() >= chunkSize) {
+                    applyCodes(codes, status, tally);
+                    codes.clear();
+                }
+            }
+        }
+        pending.forEach((status, codes) -> {
+            if (!codes.isEmpty()) {
+                applyCodes(codes, status, tally);
+            }
+        });
+        return tally.toResponse();
+    }
+
+    private void applyCodes(Map<String, Integer> codes, OrderStatus status, Tally tally) {
+        Map<String, Long> resolved = resolveCodes(codes.keySet());
+        List<Long> ids = new ArrayList<>();
+        codes.forEach((code, lineNo) -> {
+            Long id = resolved.get(code);
+            if (id == null) {
+                tally.add(result(null, code, null, status, Outcome.NOT_FOUND, "Line " + lineNo + ": order not found"));
+            } else {
+                ids.add(id);
+            }
+        });
+        if (!ids.isEmpty()) {
+            applyChunk(ids, status, null, tally);
+        }
+    }
+
+    private Map<String, Long> resolveCodes(Collection<String> codes) {
+        Map<String, Long> ids = new HashMap<>();
+        transactionTemplate.executeWithoutResult(txStatus -> orderRepository.findIdsByOrderCodeIn(codes)
+                .forEach(row -> ids.put((String) row[1], ((Number) row[0]).longValue())));
+        return ids;
+    }
+
+    private void applyChunk(List<Long> orderIds, OrderStatus status, String reason, Tally tally) {
+        try {
+            tally.addAll(transactionTemplate.execute(txStatus -> transitionLocked(orderIds, status, reason)));
+        } catch (RuntimeException e) {
+            log.warn("Bulk transition of {} orders to {} failed: {}", orderIds.size(), status, e.getMessage());
+            orderIds.forEach(id -> tally.add(result(id, null, null, status, Outcome.FAILED, e.getMessage())));
+        }
+    }
+
+    private List<BulkStatusResultResponse> transitionLocked(List<Long> orderIds, OrderStatus status, String reason) {
+        List<BulkStatusResultResponse> results = new ArrayList<>();
+        List<Object[]> accepted = new ArrayList<>();
+        List<Long> toDeduct = new ArrayList<>();
+        List<Long> toRelease = new ArrayList<>();
+        Set<Long> found = new HashSet<>();
+
+        for (Object[] row : orderRepository.lockForTransition(orderIds)) {
+            Long id = ((Number) row[0]).longValue();
+            String code = (String) row[1];
+            OrderStatus current = OrderStatus.valueOf((String) row[2]);
+            found.add(id);
+            if (current == status) {
+                results.add(result(id, code, current, status, Outcome.UNCHANGED, null));
+            } else if (!TRANSITIONS.get(current).contains(status)) {
+                results.add(result(id, code, current, status, Outcome.INVALID_TRANSITION,
+                        "Cannot move from " + current + " to " + status));
+            } else {
+                accepted.add(row);
+                if (ReservationReconcileService.HOLDING_STATUSES.contains(current)) {
+                    if (SHIPPED_STATUSES.contains(status)) {
+                        toDeduct.add(id);
+                    } else if (status == OrderStatus.CANCELLED) {
+                        toRelease.add(id);
+                    }
+                }
+            }
+        }
+        orderIds.stream()
+                .filter(id -> !found.contains(id))
+                .forEach(id -> results.add(result(id, null, null, status, Outcome.NOT_FOUND, "Order not found")));
+        if (accepted.isEmpty()) {
+            return results;
+        }
+
+        if (!toDeduct.isEmpty()) {
+            inventoryService.deductAll(sumByVariant(toDeduct));
+        }
+        if (!toRelease.isEmpty()) {
+            inventoryService.releaseAll(sumByVariant(toRelease));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = accepted.stream().map(row -> ((Number) row[0]).longValue()).toList();
+        orderRepository.transition(ids, status, now,
+                status == OrderStatus.PAID ? now : null,
+                status == OrderStatus.SHIPPING ? now : null,
+                status == OrderStatus.COMPLETED ? now : null,
+                status == OrderStatus.CANCELLED ? now : null,
+                status == OrderStatus.CANCELLED ? reason : null);
+
+        String eventType = status == OrderStatus.CANCELLED ? OutboxService.ORDER_CANCELLED
+                : OutboxService.ORDER_STATUS_CHANGED;
+        for (Object[] row : accepted) {
+            Long id = ((Number) row[0]).longValue();
+            OrderStatus previous = OrderStatus.valueOf((String) row[2]);
+            outboxService.publishOrderEvent(eventType, id, (String) row[1],
+                    row[3] == null ? null : ((Number) row[3]).longValue(), status, previous, (BigDecimal) row[4]);
+            results.add(result(id, (String) row[1], previous, status, Outcome.UPDATED, null));
+        }
+        return results;
+    }
+
+    // Units per variant over all the orders, in lock order for the grouped stock update
+    private Map<Long, Integer> sumByVariant(List<Long> orderIds) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (Object[] row : orderItemRepository.sumQuantityByVariant(orderIds)) {
+            quantities.merge(((Number) row[0]).longValue(), ((Number) row[1]).intValue(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    private boolean isHeader(String[] columns) {
+        return columns.length >= 2 && toOrderStatus(columns[1].trim()) == null;
+    }
+
+    private OrderStatus toOrderStatus(String value) {
+        String normalized = value.toUpperCase(Locale.ROOT).replace(' ', '_').replace('-', '_');
+        OrderStatus carrier = CARRIER_STATUSES.get(normalized);
+        if (carrier != null) {
+            return carrier;
+        }
+        try {
+            return OrderStatus.valueOf(normalized);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static BulkStatusResultResponse result(Long orderId, String orderCode, OrderStatus previous,
+                                                   OrderStatus status, Outcome outcome, String message) {
+        return BulkStatusResultResponse.builder()
+                .orderId(orderId)
+                .orderCode(orderCode)
+                .previousStatus(previous)
+                .status(status)
+                .outcome(outcome)
+                .message(message)
+                .build();
+    }
+
+    private static class Tally {
+
+        private final List<BulkStatusResultResponse> results = new ArrayList<>();
+        private int requested;
+        private int updated;
+        private int unchanged;
+        private int rejected;
+
+        private void addAll(List<BulkStatusResultResponse> chunk) {
+            chunk.forEach(this::add);
+        }
+
+        private void add(BulkStatusResultResponse result) {
+            requested++;
+            switch (result.getOutcome()) {
+                case UPDATED -> updated++;
+                case UNCHANGED -> unchanged++;
+                default -> rejected++;
+            }
+            if (results.size() < MAX_REPORTED_RESULTS) {
+                results.add(result);
+            }
+        }
+
+        private BulkStatusResponse toResponse() {
+            return BulkStatusResponse.builder()
+                    .requested(requested)
+                    .updated(updated)
+                    .unchanged(unchanged)
+                    .rejected(rejected)
+                    .results(results)
+                    .resultsTruncated(requested > results.size())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.kidsfashion.service;
+
+import com.kidsfashion.entity.enums.CartStatus;
+import com.kidsfashion.repository.CartItemRepository;
+import com.kidsfashion.repository.CartRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cleans up carts nobody will come back to: guest carts past their expiry are marked
+ * ABANDONED, and abandoned and merged carts past their retention are deleted with their items.
+ *
+ * Both steps work in chunks of a few hundred carts, each in its own short transaction that
+ * skips rows a request is holding, with a pause between chunks and a cap per run. Locks stay
+ * short and autovacuum keeps up with the dead tuples instead of facing one huge delete.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CartReaperService {
+
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final DashboardStatsService dashboardStatsService;
+    private final GuestCartWriteBehindService guestCarts;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong abandonedTotal = new AtomicLong();
+    private final AtomicLong cartsDeletedTotal = new AtomicLong();
+    private final AtomicLong itemsDeletedTotal = new AtomicLong();
+    private volatile Map<String, Object> lastRun;
+
+    private record Deleted(int carts, int items) {
+    }
+
+    @Value("${cart.reaper.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cart.reaper.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${cart.reaper.pause-ms:100}")
+    private long pauseMs;
+
+    @Value("${cart.reaper.max-chunks-per-run:200}")
+    private int maxChunksPerRun;
+
+    @Value("${cart.reaper.abandoned-retention-days:30}")
+    private int abandonedRetentionDays;
+
+    @Value("${cart.reaper.merged-retention-days:7}")
+    private int mergedRetentionDays;
+
+    @Scheduled(cron = "${cart.reaper.cron:0 */15 * * * *}")
+    public void reapScheduled() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            reap();
+        } catch (IllegalStateException e) {
+            log.info("Skipping scheduled cart reaping: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Abandon expired guest carts, then delete finished carts past their retention. Returns the run's figures.
+     */
+    public Map<String, Object> reap() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Cart reaping is already running");
+        }
+        try {
+            long started = System.nanoTime();
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime abandonedBefore = now.minusDays(abandonedRetentionDays);
+            LocalDateTime mergedBefore = now.minusDays(mergedRetentionDays);
+            int chunks = 0;
+            long abandoned = 0;
+            long cartsDeleted = 0;
+            long itemsDeleted = 0;
+
+            boolean more = true;
+            while (more && chunks < maxChunksPerRun) {
+                int count = transactionTemplate.execute(status -> abandonChunk(now));
+                chunks++;
+                abandoned += count;
+                more = count == chunkSize && pause();
+            }
+
+            more = true;
+            while (more && chunks < maxChunksPerRun) {
+                Deleted deleted = transactionTemplate.execute(status -> deleteChunk(abandonedBefore, mergedBefore));
+                chunks++;
+                cartsDeleted += deleted.carts();
+                itemsDeleted += deleted.items();
+                more = deleted.carts() == chunkSize && pause();
+            }
+
+            abandonedTotal.addAndGet(abandoned);
+            cartsDeletedTotal.addAndGet(cartsDeleted);
+            itemsDeletedTotal.addAndGet(itemsDeleted);
+            long elapsedMs = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+
+            Map<String, Object> run = new LinkedHashMap<>();
+            run.put("startedAt", now);
+            run.put("durationMs", elapsedMs);
+            run.put("chunks", chunks);
+            run.put("abandoned", abandoned);
+            run.put("cartsDeleted", cartsDeleted);
+            run.put("itemsDeleted", itemsDeleted);
+            run.put("rowsPerSecond", (abandoned + cartsDeleted + itemsDeleted) * 1000 / elapsedMs);
+            // The rest is left for the next run
+            run.put("hitChunkLimit", chunks >= maxChunksPerRun);
+            lastRun = run;
+            if (abandoned + cartsDeleted > 0) {
+                log.info("Cart reaper: abandoned {} expired guest carts, deleted {} carts and {} items in {} chunks, {} ms",
+                        abandoned, cartsDeleted, itemsDeleted, chunks, elapsedMs);
+            }
+            return run;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("running", running.get());
+        stats.put("chunkSize", chunkSize);
+        stats.put("pauseMs", pauseMs);
+        stats.put("abandonedRetentionDays", abandonedRetentionDays);
+        stats.put("mergedRetentionDays", mergedRetentionDays);
+        stats.put("abandonedTotal", abandonedTotal.get());
+        stats.put("cartsDeletedTotal", cartsDeletedTotal.get());
+        stats.put("itemsDeletedTotal", itemsDeletedTotal.get());
+        stats.put("lastRun", lastRun);
+        return stats;
+    }
+
+    private int abandonChunk(LocalDateTime now) {
+        List<String> sessionIds = cartRepository.markExpiredCartsAsAbandoned(now, chunkSize);
+        dashboardStatsService.cartsStatusChanged(CartStatus.ACTIVE, CartStatus.ABANDONED, sessionIds.size());
+        // A copy in the write-behind store would otherwise be written back into the abandoned cart
+        sessionIds.forEach(guestCarts::evictAfterCommit);
+        return sessionIds.size();
+    }
+
+    private Deleted deleteChunk(LocalDateTime abandonedBefore, LocalDateTime mergedBefore) {
+        List<Object[]> rows = cartRepository.findReapable(abandonedBefore, mergedBefore, chunkSize);
+        if (rows.isEmpty()) {
+            return new Deleted(0, 0);
+        }
+        List<Long> ids = new ArrayList<>(rows.size());
+        Map<CartStatus, Long> byStatus = new EnumMap<>(CartStatus.class);
+        for (Object[] row : rows) {
+            ids.add(((Number) row[0]).longValue());
+            byStatus.merge(CartStatus.valueOf((String) row[1]), 1L, Long::sum);
+        }
+        int items = cartItemRepository.deleteByCartIdIn(ids);
+        int carts = cartRepository.deleteByIdIn(ids);
+        byStatus.forEach((status, count) -> dashboardStatsService.cartsStatusChanged(status, null, count));
+        return new Deleted(carts, items);
+    }
+
+    // Returns false when interrupted, which ends the run
+    private boolean pause() {
+        if (pauseMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -1,19 +1,27 @@
 package com.kidsfashion.service;
 
 import com.kidsfashion.dto.request.AddToCartRequest;
+import com.kidsfashion.dto.request.CartBatchRequest;
+import com.kidsfashion.dto.response.CartBatchResponse;
 import com.kidsfashion.dto.response.CartResponse;
 import com.kidsfashion.entity.*;
 import com.kidsfashion.entity.enums.CartStatus;
 import com.kidsfashion.entity.enums.ProductStatus;
 import com.kidsfashion.repository.*;
+import com.kidsfashion.service.GuestCartStore.GuestCart;
+import com.kidsfashion.service.GuestCartTokenService.CartToken;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
-import java.util.Optional;
-import java.util.UUID;
+import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,18 +33,70 @@ public class CartService {
     private final ProductVariantRepository variantRepository;
     private final UserRepository userRepository;
     private final InventoryRepository inventoryRepository;
+    private final ProductImageRepository productImageRepository;
+    private final DashboardStatsService dashboardStatsService;
+    private final GuestCartWriteBehindService guestCarts;
+    private final GuestCartTokenService guestCartTokens;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    static final int GUEST_CART_EXPIRY_DAYS = 7;
+    static final String UPSERT_ITEM_SQL = "INSERT INTO cart_items (cart_id, variant_id, quantity, added_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?) ON CONFLICT (cart_id, variant_id) " +
+            "DO UPDATE SET quantity = EXCLUDED.quantity, updated_at = EXCLUDED.updated_at";
+    static final String DELETE_ITEM_SQL = "DELETE FROM cart_items WHERE cart_id = ? AND variant_id = ?";
+
+    private record VariantStock(boolean available, int availableQuantity) {
+    }
 
-    private static final int GUEST_CART_EXPIRY_DAYS = 7;
-
+    /**
+     * The active cart, read with one fetch-joined query plus one for the product images.
+     * Reading never creates a cart; without one the cart is simply empty. Guest carts held in
+     * the write-behind store or in a token are rendered from one batched variant lookup instead,
+     * which also brings their prices and stock up to date.
+     */
     @Transactional(readOnly = true)
     public CartResponse getCart(Long userId, String sessionId) {
-        Cart cart = getOrCreateCart(userId, sessionId);
-        return mapToCartResponse(cart);
+        if (carriedInToken(userId)) {
+            return renderQuantities(null, currentToken(sessionId).quantities());
+        }
+        if (heldInStore(userId, sessionId)) {
+            GuestCart cart = guestCarts.get(sessionId);
+            return renderQuantities(cart.cartId(), cart.quantities());
+        }
+        return findCartId(userId, sessionId)
+                .map(this::renderCart)
+                .orElseGet(this::emptyCart);
+    }
+
+    /**
+     * Units in the active cart, for the header badge: one aggregate query, nothing loaded.
+     */
+    @Transactional(readOnly = true)
+    public int getItemCount(Long userId, String sessionId) {
+        if (carriedInToken(userId)) {
+            return currentToken(sessionId).quantities().values().stream().mapToInt(Integer::intValue).sum();
+        }
+        if (heldInStore(userId, sessionId)) {
+            return guestCarts.get(sessionId).itemCount();
+        }
+        if (userId != null) {
+            return cartItemRepository.countItemsByUserId(userId, CartStatus.ACTIVE);
+        }
+        if (sessionId != null) {
+            return cartItemRepository.countItemsBySessionId(sessionId, CartStatus.ACTIVE);
+        }
+        return 0;
     }
 
     @Transactional
     public CartResponse addToCart(Long userId, String sessionId, AddToCartRequest request) {
-        Cart cart = getOrCreateCart(userId, sessionId);
+        if (carriedInToken(userId) || heldInStore(userId, sessionId)) {
+            VariantStock stock = findStock(List.of(request.getVariantId())).get(request.getVariantId());
+            return changeGuestCart(userId, sessionId, quantities -> apply(CartBatchRequest.Operation.Type.ADD,
+                    request.getVariantId(), request.getQuantity(), stock, quantities));
+        }
+        Long cartId = getOrCreateCartId(userId, sessionId);
 
         // Validate variant
         ProductVariant variant = variantRepository.findById(request.getVariantId())
@@ -53,7 +113,7 @@ public class CartService {
         }
 
         // Check if item already exists in cart
-        Optional<CartItem> existingItem = cartItemRepository.findByCartIdAndVariantId(cart.getId(), variant.getId());
+        Optional<CartItem> existingItem = cartItemRepository.findByCartIdAndVariantId(cartId, variant.getId());
 
         if (existingItem.isPresent()) {
             CartItem item = existingItem.get();
@@ -65,22 +125,31 @@ public class CartService {
             cartItemRepository.save(item);
         } else {
             CartItem newItem = CartItem.builder()
-                    .cart(cart)
+                    .cart(cartRepository.getReferenceById(cartId))
                     .variant(variant)
                     .quantity(request.getQuantity())
                     .build();
-            cart.addItem(newItem);
             cartItemRepository.save(newItem);
         }
 
-        return mapToCartResponse(cart);
+        return renderCart(cartId);
     }
 
     @Transactional
     public CartResponse updateCartItem(Long userId, String sessionId, Long variantId, int quantity) {
-        Cart cart = getOrCreateCart(userId, sessionId);
+        if (carriedInToken(userId) || heldInStore(userId, sessionId)) {
+            VariantStock stock = quantity > 0 ? findStock(List.of(variantId)).get(variantId) : null;
+            return changeGuestCart(userId, sessionId, quantities -> {
+                if (!quantities.containsKey(variantId)) {
+                    throw new EntityNotFoundException("Item not found in cart");
+                }
+                apply(CartBatchRequest.Operation.Type.SET, variantId, Math.max(quantity, 0), stock, quantities);
+            });
+        }
+        Long cartId = findCartId(userId, sessionId)
+                .orElseThrow(() -> new EntityNotFoundException("Item not found in cart"));
 
-        CartItem item = cartItemRepository.findByCartIdAndVariantId(cart.getId(), variantId)
+        CartItem item = cartItemRepository.findByCartIdAndVariantId(cartId, variantId)
                 .orElseThrow(() -> new EntityNotFoundException("Item not found in cart"));
 
         if (quantity <= 0) {
@@ -95,134 +164,394 @@ public class CartService {
             cartItemRepository.save(item);
         }
 
-        return mapToCartResponse(cart);
+        return renderCart(cartId);
     }
 
     @Transactional
     public CartResponse removeFromCart(Long userId, String sessionId, Long variantId) {
-        Cart cart = getOrCreateCart(userId, sessionId);
-        cartItemRepository.deleteByCartIdAndVariantId(cart.getId(), variantId);
-        return mapToCartResponse(cartRepository.findById(cart.getId()).orElse(cart));
+        if (carriedInToken(userId) || heldInStore(userId, sessionId)) {
+            return changeGuestCart(userId, sessionId, quantities -> quantities.remove(variantId));
+        }
+        Optional<Long> cartId = findCartId(userId, sessionId);
+        if (cartId.isEmpty()) {
+            return emptyCart();
+        }
+        cartItemRepository.deleteByCartIdAndVariantId(cartId.get(), variantId);
+        return renderCart(cartId.get());
     }
 
     @Transactional
     public void clearCart(Long userId, String sessionId) {
-        Cart cart = getOrCreateCart(userId, sessionId);
-        cartItemRepository.deleteAllByCartId(cart.getId());
+        if (carriedInToken(userId)) {
+            // Nothing is stored; the client drops its token
+            return;
+        }
+        if (heldInStore(userId, sessionId)) {
+            guestCarts.update(sessionId, Map::clear);
+            return;
+        }
+        findCartId(userId, sessionId).ifPresent(cartItemRepository::deleteAllByCartId);
     }
 
+    /**
+     * Apply many add/set/remove operations at once. Stock and availability of every variant are
+     * read in one query and the operations are checked in order against the running quantities;
+     * rejected operations are reported per line and the rest are written as two JDBC batches,
+     * upserts and deletes, in this one transaction. A cart is only created if something changes.
+     */
     @Transactional
-    public CartResponse mergeGuestCartToUser(Long userId, String sessionId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+    public CartBatchResponse applyBatch(Long userId, String sessionId, List<CartBatchRequest.Operation> operations) {
+        Map<Long, VariantStock> stock = findStock(operations.stream()
+                .map(CartBatchRequest.Operation::getVariantId)
+                .collect(Collectors.toSet()));
+
+        if (carriedInToken(userId) || heldInStore(userId, sessionId)) {
+            List<CartBatchResponse.LineError> errors = new ArrayList<>();
+            CartResponse cart = changeGuestCart(userId, sessionId, quantities -> {
+                // Run again from scratch if the cart changed under us
+                errors.clear();
+                errors.addAll(applyAll(operations, stock, quantities));
+            });
+            return batchResponse(cart, operations, errors);
+        }
+
+        Optional<Long> existingCartId = findCartId(userId, sessionId);
+        Map<Long, Integer> before = existingCartId
+                .map(cartId -> toQuantities(cartItemRepository.findQuantitiesByCartId(cartId)))
+                .orElseGet(HashMap::new);
+        Map<Long, Integer> after = new HashMap<>(before);
+        List<CartBatchResponse.LineError> errors = applyAll(operations, stock, after);
+
+        Set<Long> changed = new HashSet<>(before.keySet());
+        changed.addAll(after.keySet());
+        changed.removeIf(variantId -> Objects.equals(before.get(variantId), after.get(variantId)));
+        if (changed.isEmpty()) {
+            return batchResponse(existingCartId.map(this::renderCart).orElseGet(this::emptyCart), operations, errors);
+        }
 
-        // Find guest cart
-        Optional<Cart> guestCartOpt = cartRepository.findActiveCartBySessionId(sessionId);
-        if (guestCartOpt.isEmpty()) {
-            return getCart(userId, null);
-        }
-
-        Cart guestCart = guestCartOpt.get();
-
-        // Find or create user cart
-        Cart userCart = cartRepository.findActiveCartByUserId(userId)
-                .orElseGet(() -> {
-                    Cart newCart = Cart.builder()
-                            .user(user)
-                            .status(CartStatus.ACTIVE)
-                            .build();
-                    return cartRepository.save(newCart);
-                });
-
-        // Merge items
-        for (CartItem guestItem : guestCart.getItems()) {
-            Optional<CartItem> existingItem = cartItemRepository
-                    .findByCartIdAndVariantId(userCart.getId(), guestItem.getVariant().getId());
-
-            if (existingItem.isPresent()) {
-                CartItem item = existingItem.get();
-                int newQuantity = item.getQuantity() + guestItem.getQuantity();
-                int availableStock = guestItem.getVariant().getAvailableQuantity();
-                item.setQuantity(Math.min(newQuantity, availableStock));
-                cartItemRepository.save(item);
+        Long cartId = existingCartId.orElseGet(() -> getOrCreateCartId(userId, sessionId));
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> upserts = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        for (Long variantId : changed) {
+            Integer quantity = after.get(variantId);
+            if (quantity == null) {
+                deletes.add(new Object[]{cartId, variantId});
             } else {
-                CartItem newItem = CartItem.builder()
-                        .cart(userCart)
-                        .variant(guestItem.getVariant())
-                        .quantity(guestItem.getQuantity())
-                        .build();
-                cartItemRepository.save(newItem);
+                upserts.add(new Object[]{cartId, variantId, quantity, now, now});
             }
         }
+        if (!upserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_ITEM_SQL, upserts);
+        }
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_ITEM_SQL, deletes);
+        }
 
-        // Mark guest cart as merged
-        guestCart.setStatus(CartStatus.MERGED);
-        cartRepository.save(guestCart);
+        return batchResponse(renderCart(cartId), operations, errors);
+    }
 
-        return mapToCartResponse(cartRepository.findById(userCart.getId()).orElse(userCart));
+    /**
+     * Move a guest cart into the user's cart at login. The guest cart is claimed first, so two
+     * logins from the same session cannot merge it twice; the items are then merged by a single
+     * upsert and the result is read back with one fetch-joined query. Unsaved guest changes must
+     * have been flushed before, see {@link GuestCartWriteBehindService#flush}.
+     */
+    @Transactional
+    public CartResponse mergeGuestCartToUser(Long userId, String sessionId) {
+        if (guestCartTokens.isEnabled() && guestCartTokens.isToken(sessionId)) {
+            // A token cart becomes a guest cart row first, then merges like any other
+            sessionId = guestCartTokens.decode(sessionId).map(guestCartTokens::materialize).orElse(null);
+        }
+        if (sessionId != null) {
+            guestCarts.evictAfterCommit(sessionId);
+        }
+        Long userCartId = cartRepository.findIdByUserIdAndStatus(userId, CartStatus.ACTIVE)
+                .orElseGet(() -> createUserCart(userId).getId());
+
+        Optional<Long> guestCartId = sessionId != null
+                ? cartRepository.findIdBySessionIdAndStatus(sessionId, CartStatus.ACTIVE)
+                : Optional.empty();
+        LocalDateTime now = LocalDateTime.now();
+        if (guestCartId.isPresent()
+                && cartRepository.updateStatus(guestCartId.get(), CartStatus.ACTIVE, CartStatus.MERGED, now) == 1) {
+            cartItemRepository.mergeInto(guestCartId.get(), userCartId, now);
+            dashboardStatsService.cartStatusChanged(CartStatus.ACTIVE, CartStatus.MERGED);
+        }
+
+        return renderCart(userCartId);
+    }
+
+    /**
+     * Variant ids in the cart that checkout would use (user cart, falling back to the session cart).
+     */
+    @Transactional(readOnly = true)
+    public List<Long> getCheckoutVariantIds(Long userId, String sessionId) {
+        List<Long> variantIds = userId != null
+                ? cartRepository.findActiveCartByUserId(userId)
+                        .map(cart -> cartItemRepository.findVariantIdsByCartId(cart.getId()))
+                        .orElse(List.of())
+                : List.of();
+        if (variantIds.isEmpty() && guestCartTokens.isEnabled() && guestCartTokens.isToken(sessionId)) {
+            variantIds = guestCartTokens.decode(sessionId)
+                    .map(token -> List.copyOf(token.quantities().keySet()))
+                    .orElse(List.of());
+        } else if (variantIds.isEmpty() && heldInStore(null, sessionId)) {
+            variantIds = new ArrayList<>(guestCarts.get(sessionId).quantities().keySet());
+        } else if (variantIds.isEmpty() && sessionId != null) {
+            variantIds = cartRepository.findActiveCartBySessionId(sessionId)
+                    .map(cart -> cartItemRepository.findVariantIdsByCartId(cart.getId()))
+                    .orElse(List.of());
+        }
+        return variantIds;
     }
 
     public String generateSessionId() {
         return UUID.randomUUID().toString();
     }
 
-    private Cart getOrCreateCart(Long userId, String sessionId) {
+    private Optional<Long> findCartId(Long userId, String sessionId) {
         if (userId != null) {
-            return cartRepository.findActiveCartByUserId(userId)
-                    .orElseGet(() -> {
-                        User user = userRepository.findById(userId)
-                                .orElseThrow(() -> new EntityNotFoundException("User not found"));
-                        Cart cart = Cart.builder()
-                                .user(user)
-                                .status(CartStatus.ACTIVE)
-                                .build();
-                        return cartRepository.save(cart);
-                    });
+            return cartRepository.findIdByUserIdAndStatus(userId, CartStatus.ACTIVE);
         } else if (sessionId != null) {
-            return cartRepository.findActiveCartBySessionId(sessionId)
-                    .orElseGet(() -> {
-                        Cart cart = Cart.builder()
-                                .sessionId(sessionId)
-                                .status(CartStatus.ACTIVE)
-                                .expiresAt(LocalDateTime.now().plusDays(GUEST_CART_EXPIRY_DAYS))
-                                .build();
-                        return cartRepository.save(cart);
-                    });
+            return cartRepository.findIdBySessionIdAndStatus(sessionId, CartStatus.ACTIVE);
         } else {
             throw new IllegalArgumentException("Either userId or sessionId must be provided");
         }
     }
 
+    private Long getOrCreateCartId(Long userId, String sessionId) {
+        return findCartId(userId, sessionId).orElseGet(() -> userId != null
+                ? createUserCart(userId).getId()
+                : createGuestCart(sessionId).getId());
+    }
+
+    private Cart createGuestCart(String sessionId) {
+        Cart cart = Cart.builder()
+                .sessionId(sessionId)
+                .status(CartStatus.ACTIVE)
+                .expiresAt(LocalDateTime.now().plusDays(GUEST_CART_EXPIRY_DAYS))
+                .build();
+        dashboardStatsService.cartStatusChanged(null, CartStatus.ACTIVE);
+        return cartRepository.save(cart);
+    }
+
+    private Cart createUserCart(Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+        Cart cart = Cart.builder()
+                .user(user)
+                .status(CartStatus.ACTIVE)
+                .build();
+        dashboardStatsService.cartStatusChanged(null, CartStatus.ACTIVE);
+        return cartRepository.save(cart);
+    }
+
+    // Guests without an account carry their cart in a signed token when token mode is on
+    private boolean carriedInToken(Long userId) {
+        return userId == null && guestCartTokens.isEnabled();
+    }
+
+    // A plain session id from before token mode seeds the token with that session's cart
+    private CartToken currentToken(String sessionId) {
+        if (guestCartTokens.isToken(sessionId)) {
+            return guestCartTokens.decode(sessionId)
+                    .orElseGet(() -> new CartToken(guestCartTokens.newCartKey(), Map.of()));
+        }
+        Map<Long, Integer> quantities = Map.of();
+        if (heldInStore(null, sessionId)) {
+            quantities = guestCarts.get(sessionId).quantities();
+        } else if (sessionId != null) {
+            quantities = findCartId(null, sessionId)
+                    .map(cartId -> toQuantities(cartItemRepository.findQuantitiesByCartId(cartId)))
+                    .orElse(Map.of());
+        }
+        return new CartToken(guestCartTokens.newCartKey(), quantities);
+    }
+
+    // Change a guest cart held in a token or in the write-behind store and render the result
+    private CartResponse changeGuestCart(Long userId, String sessionId, Consumer<Map<Long, Integer>> change) {
+        if (carriedInToken(userId)) {
+            CartToken token = currentToken(sessionId);
+            Map<Long, Integer> quantities = new LinkedHashMap<>(token.quantities());
+            change.accept(quantities);
+            String reissued = guestCartTokens.encode(token.cartKey(), quantities);
+            CartResponse cart = renderQuantities(null, quantities);
+            cart.setCartToken(reissued);
+            return cart;
+        }
+        GuestCart cart = guestCarts.update(sessionId, change);
+        return renderQuantities(cart.cartId(), cart.quantities());
+    }
+
+    // Guests without an account live in the write-behind store when it is enabled
+    private boolean heldInStore(Long userId, String sessionId) {
+        return userId == null && sessionId != null && guestCarts.isEnabled();
+    }
+
+    // Whether each variant can be sold and how many units are free, in one query
+    private Map<Long, VariantStock> findStock(Collection<Long> variantIds) {
+        Map<Long, VariantStock> stock = new HashMap<>();
+        for (Object[] row : variantRepository.findCartAvailability(variantIds)) {
+            stock.put((Long) row[0], new VariantStock(Boolean.TRUE.equals(row[1]) && row[2] == ProductStatus.ACTIVE,
+                    ((Number) row[3]).intValue()));
+        }
+        return stock;
+    }
+
+    // Apply operations in order to the running quantities; rejected ones are returned, not thrown
+    private List<CartBatchResponse.LineError> applyAll(List<CartBatchRequest.Operation> operations,
+                                                       Map<Long, VariantStock> stock, Map<Long, Integer> quantities) {
+        List<CartBatchResponse.LineError> errors = new ArrayList<>();
+        for (int index = 0; index < operations.size(); index++) {
+            CartBatchRequest.Operation operation = operations.get(index);
+            try {
+                apply(operation.getType(), operation.getVariantId(), operation.getQuantity(),
+                        stock.get(operation.getVariantId()), quantities);
+            } catch (IllegalArgumentException | EntityNotFoundException e) {
+                errors.add(CartBatchResponse.LineError.builder()
+                        .index(index)
+                        .variantId(operation.getVariantId())
+                        .message(e.getMessage())
+                        .build());
+            }
+        }
+        return errors;
+    }
+
+    private void apply(CartBatchRequest.Operation.Type type, Long variantId, Integer quantity,
+                       VariantStock stock, Map<Long, Integer> quantities) {
+        if (type == CartBatchRequest.Operation.Type.REMOVE) {
+            if (quantities.remove(variantId) == null) {
+                throw new EntityNotFoundException("Item not found in cart");
+            }
+            return;
+        }
+        if (quantity == null) {
+            throw new IllegalArgumentException("Quantity is required");
+        }
+        int total = type == CartBatchRequest.Operation.Type.ADD
+                ? quantities.getOrDefault(variantId, 0) + quantity
+                : quantity;
+        if (total <= 0) {
+            if (type == CartBatchRequest.Operation.Type.ADD) {
+                throw new IllegalArgumentException("Quantity must be at least 1");
+            }
+            quantities.remove(variantId);
+            return;
+        }
+        if (stock == null) {
+            throw new EntityNotFoundException("Product variant not found");
+        }
+        if (!stock.available()) {
+            throw new IllegalArgumentException("Product is not available");
+        }
+        if (stock.availableQuantity() < total) {
+            throw new IllegalArgumentException("Not enough stock. Available: " + stock.availableQuantity());
+        }
+        quantities.put(variantId, total);
+    }
+
+    private CartBatchResponse batchResponse(CartResponse cart, List<CartBatchRequest.Operation> operations,
+                                            List<CartBatchResponse.LineError> errors) {
+        return CartBatchResponse.builder()
+                .cart(cart)
+                .applied(operations.size() - errors.size())
+                .errors(errors)
+                .build();
+    }
+
+    private Map<Long, Integer> toQuantities(List<Object[]> rows) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (Object[] row : rows) {
+            quantities.put((Long) row[0], (Integer) row[1]);
+        }
+        return quantities;
+    }
+
+    // Items are written around the persistence context (bulk and JDBC statements, carts created in this
+    // transaction with an empty item list), so the cart is read afresh
+    private CartResponse renderCart(Long cartId) {
+        cartRepository.flush();
+        entityManager.clear();
+        return mapToCartResponse(cartRepository.findDetailById(cartId)
+                .orElseThrow(() -> new EntityNotFoundException("Cart not found")));
+    }
+
+    private CartResponse emptyCart() {
+        return CartResponse.builder()
+                .totalItems(0)
+                .subtotal(BigDecimal.ZERO)
+                .items(List.of())
+                .build();
+    }
+
+    // A guest cart held outside the database: prices and stock come from one batched variant lookup
+    private CartResponse renderQuantities(Long cartId, Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return emptyCart();
+        }
+        Map<Long, ProductVariant> variants = variantRepository.findCartDetailsByIdIn(quantities.keySet()).stream()
+                .collect(Collectors.toMap(ProductVariant::getId, variant -> variant));
+        Map<Long, String> images = primaryImageUrls(variants.values());
+        // Variants deleted since they were added are left out
+        List<CartResponse.CartItemResponse> items = quantities.entrySet().stream()
+                .filter(entry -> variants.containsKey(entry.getKey()))
+                .map(entry -> mapToCartItemResponse(null, variants.get(entry.getKey()), entry.getValue(), images))
+                .collect(Collectors.toList());
+        return CartResponse.builder()
+                .id(cartId)
+                .totalItems(items.stream().mapToInt(CartResponse.CartItemResponse::getQuantity).sum())
+                .subtotal(items.stream()
+                        .map(CartResponse.CartItemResponse::getSubtotal)
+                        .reduce(BigDecimal.ZERO, BigDecimal::add))
+                .items(items)
+                .build();
+    }
+
+    // Expects a cart from findDetailById; product images come in one query for all items
     private CartResponse mapToCartResponse(Cart cart) {
+        Map<Long, String> images = primaryImageUrls(cart.getItems().stream().map(CartItem::getVariant).toList());
         return CartResponse.builder()
                 .id(cart.getId())
                 .totalItems(cart.getTotalItemsCount())
                 .subtotal(cart.getSubtotal())
                 .items(cart.getItems().stream()
-                        .map(this::mapToCartItemResponse)
+                        .map(item -> mapToCartItemResponse(item.getId(), item.getVariant(), item.getQuantity(), images))
                         .collect(Collectors.toList()))
                 .build();
     }
 
-    private CartResponse.CartItemResponse mapToCartItemResponse(CartItem item) {
-        ProductVariant variant = item.getVariant();
+    private Map<Long, String> primaryImageUrls(Collection<ProductVariant> variants) {
+        Set<Long> productIds = variants.stream()
+                .filter(variant -> variant.getImageUrl() == null)
+                .map(variant -> variant.getProduct().getId())
+                .collect(Collectors.toSet());
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+        return productImageRepository.findPrimaryImageUrls(productIds).stream()
+                .collect(Collectors.toMap(row -> ((Number) row[0]).longValue(), row -> (String) row[1]));
+    }
+
+    private CartResponse.CartItemResponse mapToCartItemResponse(Long itemId, ProductVariant variant, int quantity,
+                                                                Map<Long, String> images) {
         Product product = variant.getProduct();
 
         return CartResponse.CartItemResponse.builder()
-                .id(item.getId())
+                .id(itemId)
                 .variantId(variant.getId())
                 .productName(product.getName())
                 .productSlug(product.getSlug())
                 .variantSku(variant.getSkuVariant())
                 .sizeName(variant.getSize().getName())
                 .colorName(variant.getColor().getName())
-                .imageUrl(variant.getImageUrl() != null ? variant.getImageUrl() : product.getPrimaryImageUrl())
+                .imageUrl(variant.getImageUrl() != null ? variant.getImageUrl() : images.get(product.getId()))
                 .unitPrice(variant.getFinalPrice())
-                .quantity(item.getQuantity())
-                .subtotal(item.getSubtotal())
+                .quantity(quantity)
+                .subtotal(variant.getFinalPrice().multiply(BigDecimal.valueOf(quantity)))
                 .availableStock(variant.getAvailableQuantity())
                 .inStock(variant.isInStock())
                 .build();
     }
 }
-
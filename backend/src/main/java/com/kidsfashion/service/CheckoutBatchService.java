@@ -0,0 +1,239 @@
+package com.kidsfashion.service;
+
+import com.kidsfashion.dto.request.CreateOrderRequest;
+import com.kidsfashion.dto.response.OrderResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Group commit for checkout.
+ *
+ * When enabled, concurrent order placements are collected for a few milliseconds and
+ * executed in one transaction, so a burst of checkouts pays for one commit instead of one
+ * each. Every order runs inside its own savepoint: a business failure (out of stock, empty
+ * cart...) rolls back only that order and is reported to its caller. If the batch itself
+ * fails, each order is retried in its own transaction so one bad order never fails the rest.
+ *
+ * The savepoints are set on the batch's JDBC connection directly: the JPA transaction manager
+ * cannot create nested transactions with Hibernate. The persistence context is flushed before
+ * each savepoint and cleared after rolling back to one, so it never holds a failed order's rows.
+ */
+@Slf4j
+@Service
+public class CheckoutBatchService {
+
+    private final OrderService orderService;
+    private final GuestCartWriteBehindService guestCarts;
+    private final EntityManager entityManager;
+    private final DataSource dataSource;
+    private final TransactionTemplate batchTransaction;
+
+    private final BlockingQueue<PendingOrder> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong batchedOrders = new AtomicLong();
+    private final AtomicLong fallbackBatches = new AtomicLong();
+    private Thread worker;
+
+    @Value("${checkout.group-commit.enabled:false}")
+    private boolean enabled;
+
+    @Value("${checkout.group-commit.window-ms:5}")
+    private long windowMs;
+
+    @Value("${checkout.group-commit.max-batch-size:50}")
+    private int maxBatchSize;
+
+    public CheckoutBatchService(OrderService orderService,
+                                GuestCartWriteBehindService guestCarts,
+                                EntityManager entityManager,
+                                DataSource dataSource,
+                                PlatformTransactionManager transactionManager) {
+        this.orderService = orderService;
+        this.guestCarts = guestCarts;
+        this.entityManager = entityManager;
+        this.dataSource = dataSource;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        worker = new Thread(this::runBatches, "checkout-batcher");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("Checkout group commit enabled: window {} ms, max batch {}", windowMs, maxBatchSize);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Place an order, sharing a transaction with concurrent checkouts when group commit is enabled.
+     */
+    public OrderResponse placeOrder(Long userId, String sessionId, CreateOrderRequest request) {
+        // Guest cart changes still in the write-behind store go through before the order's transaction
+        guestCarts.flush(sessionId);
+        if (!enabled) {
+            return orderService.createOrder(userId, sessionId, request);
+        }
+        PendingOrder pending = new PendingOrder(userId, sessionId, request);
+        queue.add(pending);
+        try {
+            return pending.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long batchCount = batches.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("windowMs", windowMs);
+        stats.put("maxBatchSize", maxBatchSize);
+        stats.put("queued", queue.size());
+        stats.put("batches", batchCount);
+        stats.put("orders", batchedOrders.get());
+        stats.put("averageBatchSize", batchCount == 0 ? 0 : (double) batchedOrders.get() / batchCount);
+        stats.put("fallbackBatches", fallbackBatches.get());
+        return stats;
+    }
+
+    private void runBatches() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                List<PendingOrder> batch = new ArrayList<>();
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(windowMs);
+                while (batch.size() < maxBatchSize) {
+                    PendingOrder next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                executeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Don't leave callers hanging on shutdown
+        queue.forEach(pending -> pending.result.completeExceptionally(
+                new IllegalStateException("Checkout is shutting down, please try again")));
+    }
+
+    private void executeBatch(List<PendingOrder> batch) {
+        batches.incrementAndGet();
+        batchedOrders.addAndGet(batch.size());
+        try {
+            batchTransaction.executeWithoutResult(status -> batch.forEach(this::placeInSavepoint));
+        } catch (RuntimeException e) {
+            // The shared commit failed: give every order its own transaction
+            log.warn("Checkout batch of {} failed, retrying orders one by one: {}", batch.size(), e.getMessage());
+            fallbackBatches.incrementAndGet();
+            batch.forEach(pending -> {
+                pending.response = null;
+                pending.error = null;
+                placeAlone(pending);
+            });
+        }
+        // Results are only handed out after the commit
+        batch.forEach(PendingOrder::complete);
+    }
+
+    private void placeInSavepoint(PendingOrder pending) {
+        // Earlier orders of the batch reach the database before the savepoint, so they survive a rollback to it
+        entityManager.flush();
+        // The connection of the batch transaction, bound by the transaction manager
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        Savepoint savepoint = savepoint(connection);
+        try {
+            pending.response = orderService.createOrderInSavepoint(pending.userId, pending.sessionId, pending.request);
+            entityManager.flush();
+            connection.releaseSavepoint(savepoint);
+        } catch (IllegalArgumentException | IllegalStateException | EntityNotFoundException e) {
+            rollbackTo(connection, savepoint);
+            pending.error = e;
+        } catch (SQLException e) {
+            throw new TransactionSystemException("Could not release checkout savepoint", e);
+        }
+    }
+
+    private Savepoint savepoint(Connection connection) {
+        try {
+            return connection.setSavepoint();
+        } catch (SQLException e) {
+            throw new TransactionSystemException("Could not create checkout savepoint", e);
+        }
+    }
+
+    private void rollbackTo(Connection connection, Savepoint savepoint) {
+        try {
+            connection.rollback(savepoint);
+        } catch (SQLException e) {
+            throw new TransactionSystemException("Could not roll back to checkout savepoint", e);
+        }
+        // Entities of the failed order would otherwise be written again at commit
+        entityManager.clear();
+    }
+
+    private void placeAlone(PendingOrder pending) {
+        try {
+            pending.response = orderService.createOrder(pending.userId, pending.sessionId, pending.request);
+        } catch (RuntimeException e) {
+            pending.error = e;
+        }
+    }
+
+    private static final class PendingOrder {
+        private final Long userId;
+        private final String sessionId;
+        private final CreateOrderRequest request;
+        private final CompletableFuture<OrderResponse> result = new CompletableFuture<>();
+        private OrderResponse response;
+        private RuntimeException error;
+
+        private PendingOrder(Long userId, String sessionId, CreateOrderRequest request) {
+            this.userId = userId;
+            this.sessionId = sessionId;
+            this.request = request;
+        }
+
+        private void complete() {
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(response);
+            }
+        }
+    }
+}
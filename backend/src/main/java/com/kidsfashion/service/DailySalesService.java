@@ -0,0 +1,164 @@
+package com.kidsfashion.service;
+
+import com.kidsfashion.dto.response.DailySalesResponse;
+import com.kidsfashion.dto.response.SalesBreakdownResponse;
+import com.kidsfashion.dto.response.SalesSummaryResponse;
+import com.kidsfashion.entity.Brand;
+import com.kidsfashion.entity.Category;
+import com.kidsfashion.entity.OutboxEvent;
+import com.kidsfashion.entity.enums.SalesDimension;
+import com.kidsfashion.repository.BrandRepository;
+import com.kidsfashion.repository.CategoryRepository;
+import com.kidsfashion.repository.DailySalesRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Daily sales rollups behind the revenue reports.
+ *
+ * Revenue is that of COMPLETED orders (not refunded), booked on their completion day, broken
+ * down by payment method, brand and category. Order status changes reach the rollups through
+ * the outbox; every order is counted at most once thanks to the daily_sales_orders ledger, so
+ * redelivered events and repeated backfills are harmless. Reports only read the rollups.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DailySalesService implements OutboxEventHandler {
+
+    private static final Set<String> EVENT_TYPES = Set.of(
+            OutboxService.ORDER_STATUS_CHANGED, OutboxService.ORDER_CANCELLED);
+
+    private final DailySalesRepository dailySalesRepository;
+    private final BrandRepository brandRepository;
+    private final CategoryRepository categoryRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean backfilling = new AtomicBoolean();
+
+    @Override
+    public boolean supports(String eventType) {
+        return EVENT_TYPES.contains(eventType);
+    }
+
+    // Runs in the dispatcher's transaction, next to the event's delivery status
+    @Override
+    public void handle(OutboxEvent event) {
+        dailySalesRepository.addOrder(event.getAggregateId());
+        dailySalesRepository.removeOrder(event.getAggregateId());
+    }
+
+    /**
+     * Bring the rollups in line with the orders completed in [from, to], one day per transaction.
+     * Only orders not yet counted (or no longer qualifying) are touched, so this can be re-run at
+     * any time. Without a start date it goes back to the first completed order.
+     *
+     * @return the number of days processed
+     */
+    public int backfill(LocalDate from, LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from;
+        if (start == null) {
+            LocalDateTime firstCompleted = dailySalesRepository.findFirstCompletedAt();
+            if (firstCompleted == null) {
+                return 0;
+            }
+            start = firstCompleted.toLocalDate();
+        }
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        if (!backfilling.compareAndSet(false, true)) {
+            throw new IllegalStateException("A sales backfill is already running");
+        }
+        try {
+            int days = 0;
+            for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+                LocalDate current = day;
+                transactionTemplate.executeWithoutResult(status -> {
+                    dailySalesRepository.addCompletedBetween(current.atStartOfDay(),
+                            current.plusDays(1).atStartOfDay());
+                    dailySalesRepository.removeNoLongerCountedBetween(current, current.plusDays(1));
+                });
+                days++;
+            }
+            log.info("Sales rollups backfilled for {} days ({} to {})", days, start, end);
+            return days;
+        } finally {
+            backfilling.set(false);
+        }
+    }
+
+    /**
+     * Totals over [from, to] with one entry per day, or per month when {@code monthly} is set.
+     */
+    @Transactional(readOnly = true)
+    public SalesSummaryResponse getSummary(LocalDate from, LocalDate to, boolean monthly) {
+        validateRange(from, to);
+        List<DailySalesResponse> days = dailySalesRepository.findDailyTotals(from, to);
+        long orderCount = days.stream().mapToLong(DailySalesResponse::getOrderCount).sum();
+        long itemsSold = days.stream().mapToLong(DailySalesResponse::getItemsSold).sum();
+        BigDecimal revenue = days.stream().map(DailySalesResponse::getRevenue).reduce(BigDecimal.ZERO, BigDecimal::add);
+        return SalesSummaryResponse.builder()
+                .from(from)
+                .to(to)
+                .orderCount(orderCount)
+                .itemsSold(itemsSold)
+                .revenue(revenue)
+                .averageOrderValue(orderCount == 0 ? BigDecimal.ZERO
+                        : revenue.divide(BigDecimal.valueOf(orderCount), 2, RoundingMode.HALF_UP))
+                .periods(monthly ? byMonth(days) : days)
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    public List<SalesBreakdownResponse> getBreakdown(SalesDimension dimension, LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        List<SalesBreakdownResponse> rows = dailySalesRepository.findBreakdown(dimension, from, to);
+        if (dimension == SalesDimension.BRAND) {
+            Map<String, String> names = brandRepository.findAllById(keys(rows)).stream()
+                    .collect(Collectors.toMap(brand -> String.valueOf(brand.getId()), Brand::getName));
+            rows.forEach(row -> row.setName(names.getOrDefault(row.getKey(), row.getKey())));
+        } else if (dimension == SalesDimension.CATEGORY) {
+            Map<String, String> names = categoryRepository.findAllById(keys(rows)).stream()
+                    .collect(Collectors.toMap(category -> String.valueOf(category.getId()), Category::getName));
+            rows.forEach(row -> row.setName(names.getOrDefault(row.getKey(), row.getKey())));
+        }
+        return rows;
+    }
+
+    private List<Long> keys(List<SalesBreakdownResponse> rows) {
+        return rows.stream().map(row -> Long.valueOf(row.getKey())).toList();
+    }
+
+    private List<DailySalesResponse> byMonth(List<DailySalesResponse> days) {
+        Map<LocalDate, List<DailySalesResponse>> months = days.stream()
+                .collect(Collectors.groupingBy(day -> day.getDate().withDayOfMonth(1), TreeMap::new, Collectors.toList()));
+        return months.entrySet().stream()
+                .map(month -> DailySalesResponse.builder()
+                        .date(month.getKey())
+                        .orderCount(month.getValue().stream().mapToLong(DailySalesResponse::getOrderCount).sum())
+                        .itemsSold(month.getValue().stream().mapToLong(DailySalesResponse::getItemsSold).sum())
+                        .revenue(month.getValue().stream().map(DailySalesResponse::getRevenue)
+                                .reduce(BigDecimal.ZERO, BigDecimal::add))
+                        .build())
+                .toList();
+    }
+
+    private void validateRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.kidsfashion.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kidsfashion.dto.response.DailySalesResponse;
+import com.kidsfashion.dto.response.DashboardStatsResponse;
+import com.kidsfashion.dto.response.SalesSummaryResponse;
+import com.kidsfashion.entity.OutboxEvent;
+import com.kidsfashion.entity.enums.CartStatus;
+import com.kidsfashion.entity.enums.OrderStatus;
+import com.kidsfashion.entity.enums.ProductStatus;
+import com.kidsfashion.entity.enums.StockLevel;
+import com.kidsfashion.entity.enums.UserStatus;
+import com.kidsfashion.repository.*;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters behind the admin dashboard, kept in memory so a refresh never counts whole tables.
+ *
+ * Order counts follow the outbox events; product, cart and user counts are moved by the code
+ * that changes those statuses. Every change is applied only once its transaction commits.
+ * A periodic reconciliation resets all counters from GROUP BY counts, which also picks up
+ * changes made on other nodes, by bulk updates and by hand in the database. Low and out of
+ * stock counts follow the crossings recorded by {@link LowStockService}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DashboardStatsService implements OutboxEventHandler {
+
+    private static final Set<String> EVENT_TYPES = Set.of(OutboxService.ORDER_CREATED, OutboxService.ORDER_PAID,
+            OutboxService.ORDER_STATUS_CHANGED, OutboxService.ORDER_CANCELLED);
+    private static final int REVENUE_DAYS = 30;
+    private static final int APPLIED_EVENTS_KEPT = 10_000;
+
+    private final OrderRepository orderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final ProductRepository productRepository;
+    private final CartRepository cartRepository;
+    private final UserRepository userRepository;
+    private final LowStockItemRepository lowStockItemRepository;
+    private final DailySalesService dailySalesService;
+    private final ObjectMapper objectMapper;
+
+    private final Map<OrderStatus, AtomicLong> orders = counters(OrderStatus.class);
+    private final Map<ProductStatus, AtomicLong> products = counters(ProductStatus.class);
+    private final Map<CartStatus, AtomicLong> carts = counters(CartStatus.class);
+    private final Map<UserStatus, AtomicLong> users = counters(UserStatus.class);
+    private final AtomicLong lowStock = new AtomicLong();
+    private final AtomicLong outOfStock = new AtomicLong();
+
+    // A dispatcher that outlives its claim can deliver an event again after it was counted
+    private final Set<Long> appliedEvents = Collections.newSetFromMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+            return size() > APPLIED_EVENTS_KEPT;
+        }
+    });
+
+    private volatile LocalDateTime reconciledAt;
+    private volatile long lastDrift;
+
+    @Override
+    public boolean supports(String eventType) {
+        return EVENT_TYPES.contains(eventType);
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        JsonNode payload = readPayload(event);
+        OrderStatus status = readStatus(payload, "status");
+        OrderStatus previousStatus = readStatus(payload, "previousStatus");
+        afterCommit(() -> {
+            synchronized (appliedEvents) {
+                if (!appliedEvents.add(event.getId())) {
+                    return;
+                }
+            }
+            move(orders, previousStatus, status, 1);
+        });
+    }
+
+    /**
+     * A product was created ({@code from} null), deleted ({@code to} null) or changed status.
+     */
+    public void productStatusChanged(ProductStatus from, ProductStatus to) {
+        afterCommit(() -> move(products, from, to, 1));
+    }
+
+    /**
+     * A cart was created ({@code from} null), deleted ({@code to} null) or changed status.
+     */
+    public void cartStatusChanged(CartStatus from, CartStatus to) {
+        cartsStatusChanged(from, to, 1);
+    }
+
+    public void cartsStatusChanged(CartStatus from, CartStatus to, long count) {
+        if (count > 0) {
+            afterCommit(() -> move(carts, from, to, count));
+        }
+    }
+
+    /**
+     * A user was created ({@code from} null) or changed status.
+     */
+    public void userStatusChanged(UserStatus from, UserStatus to) {
+        afterCommit(() -> move(users, from, to, 1));
+    }
+
+    /**
+     * A variant crossed its low-stock threshold; out of stock variants count as low on stock too.
+     */
+    public void stockLevelChanged(StockLevel from, StockLevel to) {
+        afterCommit(() -> {
+            lowStock.addAndGet((to != StockLevel.IN_STOCK ? 1 : 0) - (from != StockLevel.IN_STOCK ? 1 : 0));
+            outOfStock.addAndGet((to == StockLevel.OUT_OF_STOCK ? 1 : 0) - (from == StockLevel.OUT_OF_STOCK ? 1 : 0));
+        });
+    }
+
+    public DashboardStatsResponse getStats() {
+        if (reconciledAt == null) {
+            reconcile();
+        }
+        LocalDate today = LocalDate.now();
+        SalesSummaryResponse sales = dailySalesService.getSummary(today.minusDays(REVENUE_DAYS - 1), today, false);
+        BigDecimal revenueToday = sales.getPeriods().stream()
+                .filter(period -> today.equals(period.getDate()))
+                .map(DailySalesResponse::getRevenue)
+                .findFirst()
+                .orElse(BigDecimal.ZERO);
+        Map<OrderStatus, Long> orderCounts = snapshot(orders, OrderStatus.class);
+        Map<ProductStatus, Long> productCounts = snapshot(products, ProductStatus.class);
+        Map<CartStatus, Long> cartCounts = snapshot(carts, CartStatus.class);
+        Map<UserStatus, Long> userCounts = snapshot(users, UserStatus.class);
+        return DashboardStatsResponse.builder()
+                .ordersByStatus(orderCounts)
+                .totalOrders(orderCounts.values().stream().mapToLong(Long::longValue).sum())
+                .pendingOrders(orderCounts.get(OrderStatus.PENDING))
+                .productsByStatus(productCounts)
+                .activeProducts(productCounts.get(ProductStatus.ACTIVE))
+                .cartsByStatus(cartCounts)
+                .activeCarts(cartCounts.get(CartStatus.ACTIVE))
+                .usersByStatus(userCounts)
+                .totalUsers(userCounts.values().stream().mapToLong(Long::longValue).sum())
+                .lowStockItems(lowStock.get())
+                .outOfStockItems(outOfStock.get())
+                .revenueToday(revenueToday)
+                .revenueLast30Days(sales.getRevenue())
+                .completedOrdersLast30Days(sales.getOrderCount())
+                .reconciledAt(reconciledAt)
+                .lastReconcileDrift(lastDrift)
+                .build();
+    }
+
+    /**
+     * Reset every counter from the database. Orders count live and archived rows alike.
+     * A change committing while this runs may be off by one until the next run.
+     */
+    @Scheduled(fixedDelayString = "${dashboard.reconcile-interval-ms:300000}")
+    public synchronized void reconcile() {
+        Map<OrderStatus, Long> orderCounts = toCounts(OrderStatus.class, orderRepository.countGroupByStatus());
+        toCounts(OrderStatus.class, archivedOrderRepository.countGroupByStatus())
+                .forEach((status, count) -> orderCounts.merge(status, count, Long::sum));
+        Map<StockLevel, Long> stockCounts = toCounts(StockLevel.class, lowStockItemRepository.countGroupByLevel());
+        long outOfStockCount = stockCounts.getOrDefault(StockLevel.OUT_OF_STOCK, 0L);
+        long drift = reset(orders, orderCounts)
+                + reset(products, toCounts(ProductStatus.class, productRepository.countGroupByStatus()))
+                + reset(carts, toCounts(CartStatus.class, cartRepository.countGroupByStatus()))
+                + reset(users, toCounts(UserStatus.class, userRepository.countGroupByStatus()))
+                + reset(lowStock, stockCounts.getOrDefault(StockLevel.LOW_STOCK, 0L) + outOfStockCount)
+                + reset(outOfStock, outOfStockCount);
+        if (reconciledAt != null) {
+            lastDrift = drift;
+            if (drift > 0) {
+                log.info("Dashboard counters were off by {} and have been reconciled", drift);
+            }
+        }
+        reconciledAt = LocalDateTime.now();
+    }
+
+    private void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    private <E extends Enum<E>> void move(Map<E, AtomicLong> counters, E from, E to, long count) {
+        if (from == to) {
+            return;
+        }
+        if (from != null) {
+            counters.get(from).addAndGet(-count);
+        }
+        if (to != null) {
+            counters.get(to).addAndGet(count);
+        }
+    }
+
+    private <E extends Enum<E>> long reset(Map<E, AtomicLong> counters, Map<E, Long> counts) {
+        long drift = 0;
+        for (Map.Entry<E, AtomicLong> counter : counters.entrySet()) {
+            drift += reset(counter.getValue(), counts.getOrDefault(counter.getKey(), 0L));
+        }
+        return drift;
+    }
+
+    private long reset(AtomicLong counter, long count) {
+        return Math.abs(counter.getAndSet(count) - count);
+    }
+
+    private <E extends Enum<E>> Map<E, Long> toCounts(Class<E> type, List<Object[]> rows) {
+        Map<E, Long> counts = new EnumMap<>(type);
+        for (Object[] row : rows) {
+            if (row[0] != null) {
+                counts.put(type.cast(row[0]), ((Number) row[1]).longValue());
+            }
+        }
+        return counts;
+    }
+
+    private <E extends Enum<E>> Map<E, Long> snapshot(Map<E, AtomicLong> counters, Class<E> type) {
+        Map<E, Long> snapshot = new EnumMap<>(type);
+        counters.forEach((key, counter) -> snapshot.put(key, Math.max(0, counter.get())));
+        return snapshot;
+    }
+
+    private static <E extends Enum<E>> Map<E, AtomicLong> counters(Class<E> type) {
+        Map<E, AtomicLong> counters = new EnumMap<>(type);
+        for (E value : type.getEnumConstants()) {
+            counters.put(value, new AtomicLong());
+        }
+        return counters;
+    }
+
+    private JsonNode readPayload(OutboxEvent event) {
+        try {
+            return objectMapper.readTree(event.getPayload());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable payload of outbox event " + event.getId(), e);
+        }
+    }
+
+    private OrderStatus readStatus(JsonNode payload, String field) {
+        JsonNode value = payload.get(field);
+        return value == null || value.isNull() ? null : OrderStatus.valueOf(value.asText());
+    }
+}
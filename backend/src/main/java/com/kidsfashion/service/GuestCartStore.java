@@ -0,0 +1,74 @@
+package com.kidsfashion.service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Holds guest carts in front of the database; {@link GuestCartWriteBehindService} loads them on
+ * a miss and persists their changes in batches. The local implementation keeps them in this
+ * JVM, which needs session affinity when several nodes serve guests; a shared backend (Redis
+ * or similar) can be plugged in through {@code cart.guest-store.backend}.
+ *
+ * A cart is dirty while its items differ from what was last written to the database. Dirty
+ * carts must survive eviction until they are persisted.
+ */
+public interface GuestCartStore {
+
+    Optional<GuestCart> get(String sessionId);
+
+    /**
+     * Cache a cart just read from the database, unless the session already has one. Returns the cart held.
+     */
+    GuestCart putLoaded(GuestCart cart);
+
+    /**
+     * Replace the items of a cart still at {@code expectedVersion}; empty if it changed or is gone.
+     */
+    Optional<GuestCart> update(String sessionId, long expectedVersion, Map<Long, Integer> quantities);
+
+    /**
+     * Up to {@code max} dirty carts, those changed longest ago first.
+     */
+    List<GuestCart> dirty(int max);
+
+    /**
+     * Record that the database now holds {@code quantities} for the session, in cart {@code cartId}.
+     */
+    void persisted(String sessionId, Long cartId, Map<Long, Integer> quantities);
+
+    Optional<GuestCart> remove(String sessionId);
+
+    Map<String, Object> getStats();
+
+    record GuestCart(String sessionId, Long cartId, Map<Long, Integer> quantities,
+                     Map<Long, Integer> persisted, long version) {
+
+        public static GuestCart loaded(String sessionId, Long cartId, Map<Long, Integer> quantities) {
+            Map<Long, Integer> items = copy(quantities);
+            return new GuestCart(sessionId, cartId, items, items, 0);
+        }
+
+        public GuestCart withQuantities(Map<Long, Integer> quantities) {
+            return new GuestCart(sessionId, cartId, copy(quantities), persisted, version + 1);
+        }
+
+        public GuestCart withPersisted(Long cartId, Map<Long, Integer> persisted) {
+            return new GuestCart(sessionId, cartId, quantities, copy(persisted), version);
+        }
+
+        public boolean dirty() {
+            return !quantities.equals(persisted);
+        }
+
+        public int itemCount() {
+            return quantities.values().stream().mapToInt(Integer::intValue).sum();
+        }
+
+        private static Map<Long, Integer> copy(Map<Long, Integer> quantities) {
+            return Collections.unmodifiableMap(new LinkedHashMap<>(quantities));
+        }
+    }
+}
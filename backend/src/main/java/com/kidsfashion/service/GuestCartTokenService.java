@@ -0,0 +1,280 @@
+package com.kidsfashion.service;
+
+import com.kidsfashion.entity.enums.CartStatus;
+import com.kidsfashion.repository.CartItemRepository;
+import com.kidsfashion.repository.CartRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Guest carts carried by the client in {@code X-Cart-Session} as a signed token, so no node
+ * keeps any state for them until checkout or login merge turns the token into a cart row.
+ *
+ * Token layout: {@code c1.<payload>.<signature>}, both parts base64url. The payload is a
+ * format version byte, a random cart key that stays the same across reissues, the issue time
+ * and the (variant id, quantity) pairs, all as varints. The signature is HMAC-SHA256 over the
+ * prefix and payload, truncated to 128 bits. Tokens that are too long, tampered with, of an
+ * unknown version or past their lifetime are treated as an empty cart.
+ */
+@Slf4j
+@Service
+public class GuestCartTokenService {
+
+    public static final String PREFIX = "c1.";
+    private static final byte VERSION = 1;
+    private static final int SIGNATURE_BYTES = 16;
+    private static final int MAX_QUANTITY = 999;
+    // Tokens from a node whose clock runs slightly ahead are still accepted
+    private static final long CLOCK_SKEW_SECONDS = 300;
+    private static final String INSERT_CART_SQL = "INSERT INTO carts (session_id, status, expires_at, created_at, updated_at) " +
+            "VALUES (?, 'ACTIVE', ?, ?, ?)";
+    // Variants deleted since they went into the token are skipped
+    private static final String INSERT_ITEM_SQL = "INSERT INTO cart_items (cart_id, variant_id, quantity, added_at, updated_at) " +
+            "SELECT ?, id, ?, ?, ? FROM product_variants WHERE id = ?";
+
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final DashboardStatsService dashboardStatsService;
+    private final JdbcTemplate jdbcTemplate;
+    private final SecureRandom random = new SecureRandom();
+    private final SecretKeySpec key;
+    private final boolean generatedKey;
+
+    @Value("${cart.guest-token.enabled:false}")
+    private boolean enabled;
+
+    @Value("${cart.guest-token.ttl-days:7}")
+    private long ttlDays;
+
+    @Value("${cart.guest-token.max-items:50}")
+    private int maxItems;
+
+    @Value("${cart.guest-token.max-length:1024}")
+    private int maxLength;
+
+    public record CartToken(long cartKey, Map<Long, Integer> quantities) {
+    }
+
+    public GuestCartTokenService(CartRepository cartRepository,
+                                 CartItemRepository cartItemRepository,
+                                 DashboardStatsService dashboardStatsService,
+                                 JdbcTemplate jdbcTemplate,
+                                 @Value("${cart.guest-token.secret:}") String secret) {
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.dashboardStatsService = dashboardStatsService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.generatedKey = secret == null || secret.isBlank();
+        byte[] keyBytes;
+        if (generatedKey) {
+            keyBytes = new byte[32];
+            random.nextBytes(keyBytes);
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(keyBytes, "HmacSHA256");
+    }
+
+    @PostConstruct
+    void checkKey() {
+        if (enabled && generatedKey) {
+            log.warn("No cart.guest-token.secret configured: guest cart tokens are signed with a random key "
+                    + "and stop verifying on restart and on other nodes");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether the header value is meant as a token, valid or not, rather than a plain session id.
+     */
+    public boolean isToken(String value) {
+        return value != null && value.startsWith(PREFIX);
+    }
+
+    /**
+     * The cart in a token; empty if the value is not a token or fails any check.
+     */
+    public Optional<CartToken> decode(String token) {
+        if (!isToken(token) || token.length() > maxLength) {
+            return Optional.empty();
+        }
+        int dot = token.indexOf('.', PREFIX.length());
+        if (dot < 0) {
+            return Optional.empty();
+        }
+        try {
+            byte[] payload = Base64.getUrlDecoder().decode(token.substring(PREFIX.length(), dot));
+            byte[] signature = Base64.getUrlDecoder().decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, sign(token.substring(0, dot)))) {
+                log.debug("Rejected guest cart token with a bad signature");
+                return Optional.empty();
+            }
+            return parse(payload);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * A new token for the items, keeping the cart key of the token it replaces.
+     */
+    public String encode(long cartKey, Map<Long, Integer> quantities) {
+        if (quantities.size() > maxItems) {
+            throw new IllegalArgumentException("Cart cannot hold more than " + maxItems + " different items");
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(VERSION);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (cartKey >>> shift));
+        }
+        writeVarint(out, Instant.now().getEpochSecond());
+        writeVarint(out, quantities.size());
+        quantities.forEach((variantId, quantity) -> {
+            writeVarint(out, variantId);
+            writeVarint(out, quantity);
+        });
+        String signed = PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(out.toByteArray());
+        String token = signed + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(sign(signed));
+        if (token.length() > maxLength) {
+            throw new IllegalArgumentException("Cart is too large, please remove some items");
+        }
+        return token;
+    }
+
+    public long newCartKey() {
+        return random.nextLong();
+    }
+
+    /**
+     * The session id a token's cart is stored under once it becomes a row.
+     */
+    public String sessionIdOf(long cartKey) {
+        return "tok_" + Long.toUnsignedString(cartKey, 36);
+    }
+
+    /**
+     * Write a token's cart as an active cart row, replacing the items of an earlier copy, and
+     * return its session id. Runs in the caller's transaction, so a failed checkout leaves nothing.
+     */
+    public String materialize(CartToken token) {
+        String sessionId = sessionIdOf(token.cartKey());
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp timestamp = Timestamp.valueOf(now);
+        Long cartId = cartRepository.findIdBySessionIdAndStatus(sessionId, CartStatus.ACTIVE).orElse(null);
+        if (cartId != null) {
+            cartItemRepository.deleteAllByCartId(cartId);
+        } else {
+            jdbcTemplate.update(INSERT_CART_SQL, sessionId,
+                    Timestamp.valueOf(now.plusDays(CartService.GUEST_CART_EXPIRY_DAYS)), timestamp, timestamp);
+            dashboardStatsService.cartStatusChanged(null, CartStatus.ACTIVE);
+            cartId = cartRepository.findIdBySessionIdAndStatus(sessionId, CartStatus.ACTIVE).orElseThrow();
+        }
+        Long id = cartId;
+        jdbcTemplate.batchUpdate(INSERT_ITEM_SQL, token.quantities().entrySet().stream()
+                .map(entry -> new Object[]{id, entry.getValue(), timestamp, timestamp, entry.getKey()})
+                .toList());
+        return sessionId;
+    }
+
+    private Optional<CartToken> parse(byte[] payload) {
+        Reader reader = new Reader(payload);
+        if (reader.readByte() != VERSION) {
+            return Optional.empty();
+        }
+        long cartKey = 0;
+        for (int i = 0; i < 8; i++) {
+            cartKey = (cartKey << 8) | (reader.readByte() & 0xFF);
+        }
+        long issuedAt = reader.readVarint();
+        long now = Instant.now().getEpochSecond();
+        if (issuedAt > now + CLOCK_SKEW_SECONDS || issuedAt + ttlDays * 86_400 < now) {
+            return Optional.empty();
+        }
+        long count = reader.readVarint();
+        if (count > maxItems) {
+            return Optional.empty();
+        }
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            long variantId = reader.readVarint();
+            long quantity = reader.readVarint();
+            if (quantity < 1 || quantity > MAX_QUANTITY || quantities.put(variantId, (int) quantity) != null) {
+                return Optional.empty();
+            }
+        }
+        if (!reader.atEnd()) {
+            return Optional.empty();
+        }
+        return Optional.of(new CartToken(cartKey, Collections.unmodifiableMap(quantities)));
+    }
+
+    private byte[] sign(String value) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            return Arrays.copyOf(mac.doFinal(value.getBytes(StandardCharsets.US_ASCII)), SIGNATURE_BYTES);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    // Bounds-checked reads; a short or malformed payload throws IllegalArgumentException
+    private static class Reader {
+
+        private final byte[] bytes;
+        private int position;
+
+        private Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        private byte readByte() {
+            if (position >= bytes.length) {
+                throw new IllegalArgumentException("Truncated cart token");
+            }
+            return bytes[position++];
+        }
+
+        private long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed cart token");
+        }
+
+        private boolean atEnd() {
+            return position == bytes.length;
+        }
+    }
+}
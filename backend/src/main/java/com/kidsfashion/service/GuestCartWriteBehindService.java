@@ -0,0 +1,341 @@
+package com.kidsfashion.service;
+
+import com.kidsfashion.entity.enums.CartStatus;
+import com.kidsfashion.repository.CartItemRepository;
+import com.kidsfashion.repository.CartRepository;
+import com.kidsfashion.service.GuestCartStore.GuestCart;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Keeps guest carts in a {@link GuestCartStore} and writes them behind to Postgres, so browsing
+ * traffic that never reaches checkout costs no row per click, or often no row at all.
+ *
+ * Carts are loaded on a miss. Changes are persisted by a periodic flush, in batches of many
+ * carts in one short transaction: cart rows for new sessions are inserted in one JDBC batch and
+ * only the items that changed since the last write are upserted or deleted. Checkout and
+ * login merge force the session's cart through before their own transaction starts, so the
+ * database copy they read is current without holding two connections at once.
+ *
+ * A session's cart is written by one flush at a time, so an older snapshot never overwrites a
+ * newer one. The periodic flush passes over carts that checkout or merge is writing, and only
+ * takes a bounded number of carts per run.
+ *
+ * Off by default: the local store keeps carts in one JVM, so several nodes need sticky sessions
+ * or a shared {@link GuestCartStore} backend, otherwise a node can lose another node's updates.
+ */
+@Slf4j
+@Service
+public class GuestCartWriteBehindService {
+
+    private static final int MAX_UPDATE_ATTEMPTS = 5;
+    private static final String INSERT_CART_SQL = "INSERT INTO carts (session_id, status, expires_at, created_at, updated_at) " +
+            "VALUES (?, 'ACTIVE', ?, ?, ?)";
+
+    private final GuestCartStore store;
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final DashboardStatsService dashboardStatsService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // Sessions whose cart a flush is writing right now
+    private final Set<String> writing = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong changes = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong cartsPersisted = new AtomicLong();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final AtomicLong forced = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    @Value("${cart.guest-store.enabled:false}")
+    private boolean enabled;
+
+    @Value("${cart.guest-store.batch-size:200}")
+    private int batchSize;
+
+    @Value("${cart.guest-store.max-carts-per-flush:5000}")
+    private int maxCartsPerFlush;
+
+    public GuestCartWriteBehindService(GuestCartStore store,
+                                       CartRepository cartRepository,
+                                       CartItemRepository cartItemRepository,
+                                       DashboardStatsService dashboardStatsService,
+                                       JdbcTemplate jdbcTemplate,
+                                       PlatformTransactionManager transactionManager) {
+        this.store = store;
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.dashboardStatsService = dashboardStatsService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The guest cart of a session, read from the database on a miss.
+     */
+    public GuestCart get(String sessionId) {
+        return store.get(sessionId).orElseGet(() -> load(sessionId));
+    }
+
+    /**
+     * Change a guest cart. {@code change} gets a copy of the items to modify and may throw to
+     * reject the change; it is run again if a concurrent request changed the cart meanwhile.
+     */
+    public GuestCart update(String sessionId, Consumer<Map<Long, Integer>> change) {
+        for (int attempt = 0; attempt < MAX_UPDATE_ATTEMPTS; attempt++) {
+            GuestCart cart = get(sessionId);
+            Map<Long, Integer> quantities = new LinkedHashMap<>(cart.quantities());
+            change.accept(quantities);
+            if (quantities.equals(cart.quantities())) {
+                return cart;
+            }
+            Optional<GuestCart> updated = store.update(sessionId, cart.version(), quantities);
+            if (updated.isPresent()) {
+                changes.incrementAndGet();
+                return updated.get();
+            }
+        }
+        throw new IllegalStateException("Cart is being changed by another request, please retry");
+    }
+
+    /**
+     * Write the session's cart to the database now, if it has unsaved changes. Must be called
+     * outside a transaction: the cart is written in one of its own.
+     */
+    public void flush(String sessionId) {
+        if (!enabled || sessionId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Guest carts must be flushed before the transaction starts");
+        }
+        Optional<GuestCart> cart = store.get(sessionId).filter(GuestCart::dirty);
+        if (cart.isEmpty()) {
+            return;
+        }
+        awaitWriting(sessionId);
+        try {
+            // Re-read once it is ours: the periodic flush may have written it meanwhile
+            store.get(sessionId).filter(GuestCart::dirty).ifPresent(current -> {
+                persist(List.of(current));
+                forced.incrementAndGet();
+            });
+        } finally {
+            release(List.of(sessionId));
+        }
+    }
+
+    /**
+     * Drop the session's cart from the store once the current transaction commits, for carts
+     * that checkout or merge has just taken over in the database.
+     */
+    public void evictAfterCommit(String sessionId) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            store.remove(sessionId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                store.remove(sessionId);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${cart.guest-store.flush-interval-ms:5000}")
+    public void flushDirty() {
+        if (!enabled) {
+            return;
+        }
+        // Carts that fail or are left over stay dirty and come round again next time
+        List<GuestCart> dirty = store.dirty(maxCartsPerFlush);
+        for (int from = 0; from < dirty.size(); from += batchSize) {
+            flushBatch(dirty.subList(from, Math.min(from + batchSize, dirty.size())));
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flushDirty();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(store.getStats());
+        stats.put("enabled", enabled);
+        stats.put("loads", loads.get());
+        stats.put("changes", changes.get());
+        stats.put("flushes", flushes.get());
+        stats.put("cartsPersisted", cartsPersisted.get());
+        stats.put("rowsWritten", rowsWritten.get());
+        stats.put("forcedFlushes", forced.get());
+        stats.put("failures", failures.get());
+        return stats;
+    }
+
+    private GuestCart load(String sessionId) {
+        loads.incrementAndGet();
+        Optional<Long> cartId = cartRepository.findIdBySessionIdAndStatus(sessionId, CartStatus.ACTIVE);
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        cartId.ifPresent(id -> cartItemRepository.findQuantitiesByCartId(id)
+                .forEach(row -> quantities.put((Long) row[0], (Integer) row[1])));
+        return store.putLoaded(GuestCart.loaded(sessionId, cartId.orElse(null), quantities));
+    }
+
+    // Carts a forced flush is writing are skipped; the others are re-read once claimed
+    private void flushBatch(List<GuestCart> batch) {
+        List<String> claimed = new ArrayList<>();
+        List<GuestCart> current = new ArrayList<>();
+        try {
+            for (GuestCart cart : batch) {
+                if (writing.add(cart.sessionId())) {
+                    claimed.add(cart.sessionId());
+                    store.get(cart.sessionId()).filter(GuestCart::dirty).ifPresent(current::add);
+                }
+            }
+            persistOrSplit(current);
+        } finally {
+            release(claimed);
+        }
+    }
+
+    private void awaitWriting(String sessionId) {
+        synchronized (writing) {
+            while (!writing.add(sessionId)) {
+                try {
+                    writing.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while the guest cart was being written", e);
+                }
+            }
+        }
+    }
+
+    private void release(Collection<String> sessionIds) {
+        if (sessionIds.isEmpty()) {
+            return;
+        }
+        synchronized (writing) {
+            writing.removeAll(sessionIds);
+            writing.notifyAll();
+        }
+    }
+
+    // A failed batch is retried cart by cart, so one bad cart does not hold back the rest
+    private void persistOrSplit(List<GuestCart> carts) {
+        if (carts.isEmpty()) {
+            return;
+        }
+        try {
+            persist(carts);
+        } catch (RuntimeException e) {
+            if (carts.size() == 1) {
+                failures.incrementAndGet();
+                log.warn("Failed to persist guest cart {}, keeping it for the next flush: {}",
+                        carts.get(0).sessionId(), e.getMessage());
+                return;
+            }
+            carts.forEach(cart -> persistOrSplit(List.of(cart)));
+        }
+    }
+
+    private void persist(List<GuestCart> carts) {
+        Map<String, Long> cartIds = transactionTemplate.execute(status -> {
+            Map<String, Long> ids = findOrCreateCarts(carts);
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object[]> upserts = new ArrayList<>();
+            List<Object[]> deletes = new ArrayList<>();
+            for (GuestCart cart : carts) {
+                Long cartId = ids.get(cart.sessionId());
+                if (cartId == null) {
+                    continue;
+                }
+                cart.quantities().forEach((variantId, quantity) -> {
+                    if (!quantity.equals(cart.persisted().get(variantId))) {
+                        upserts.add(new Object[]{cartId, variantId, quantity, now, now});
+                    }
+                });
+                cart.persisted().keySet().stream()
+                        .filter(variantId -> !cart.quantities().containsKey(variantId))
+                        .forEach(variantId -> deletes.add(new Object[]{cartId, variantId}));
+            }
+            if (!upserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(CartService.UPSERT_ITEM_SQL, upserts);
+            }
+            if (!deletes.isEmpty()) {
+                jdbcTemplate.batchUpdate(CartService.DELETE_ITEM_SQL, deletes);
+            }
+            rowsWritten.addAndGet(upserts.size() + deletes.size());
+            return ids;
+        });
+        for (GuestCart cart : carts) {
+            store.persisted(cart.sessionId(), cartIds.get(cart.sessionId()), cart.quantities());
+        }
+        flushes.incrementAndGet();
+        cartsPersisted.addAndGet(carts.size());
+    }
+
+    // Cart ids by session; a row is created only for a session that has items to store
+    private Map<String, Long> findOrCreateCarts(List<GuestCart> carts) {
+        Map<String, Long> ids = new HashMap<>();
+        List<String> unknown = new ArrayList<>();
+        for (GuestCart cart : carts) {
+            if (cart.cartId() != null) {
+                ids.put(cart.sessionId(), cart.cartId());
+            } else if (!cart.quantities().isEmpty()) {
+                unknown.add(cart.sessionId());
+            }
+        }
+        if (unknown.isEmpty()) {
+            return ids;
+        }
+        // Another node may have created some of them
+        ids.putAll(findIds(unknown));
+        List<String> missing = unknown.stream().filter(sessionId -> !ids.containsKey(sessionId)).toList();
+        if (!missing.isEmpty()) {
+            LocalDateTime now = LocalDateTime.now();
+            Timestamp created = Timestamp.valueOf(now);
+            Timestamp expires = Timestamp.valueOf(now.plusDays(CartService.GUEST_CART_EXPIRY_DAYS));
+            jdbcTemplate.batchUpdate(INSERT_CART_SQL, missing.stream()
+                    .map(sessionId -> new Object[]{sessionId, expires, created, created})
+                    .toList());
+            missing.forEach(sessionId -> dashboardStatsService.cartStatusChanged(null, CartStatus.ACTIVE));
+            rowsWritten.addAndGet(missing.size());
+            ids.putAll(findIds(missing));
+        }
+        return ids;
+    }
+
+    private Map<String, Long> findIds(Collection<String> sessionIds) {
+        Map<String, Long> ids = new HashMap<>();
+        for (Object[] row : cartRepository.findIdsBySessionIdIn(sessionIds, CartStatus.ACTIVE)) {
+            ids.put((String) row[0], (Long) row[1]);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,195 @@
+package com.kidsfashion.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kidsfashion.entity.IdempotencyKey;
+import com.kidsfashion.entity.enums.IdempotencyStatus;
+import com.kidsfashion.repository.IdempotencyKeyRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key support for endpoints that create orders and payments.
+ *
+ * The first request with a key claims it and runs; its response is stored and replayed to
+ * every retry until the key expires. A duplicate arriving while the first is still running
+ * waits for it (in-process through a future, across nodes by polling the key row) instead
+ * of racing it. Failed requests release their key so the client can simply retry.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final long POLL_INTERVAL_MS = 100;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${idempotency.in-progress-timeout-seconds:60}")
+    private long inProgressTimeoutSeconds;
+
+    @Value("${idempotency.wait-timeout-ms:30000}")
+    private long waitTimeoutMs;
+
+    /**
+     * Run the action once per (scope, key). Without a key the action simply runs.
+     *
+     * @param scope   namespace of the key: the endpoint and the caller or order it belongs to
+     * @param request request body; a key reused with a different body is rejected
+     * @param type    type of the stored response, used to replay it
+     */
+    public <T> T execute(String scope, String key, Object request, TypeReference<T> type, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        String hash = fingerprint(request);
+        String localKey = scope + "|" + key;
+        long deadline = System.currentTimeMillis() + waitTimeoutMs;
+
+        while (true) {
+            CompletableFuture<Void> mine = new CompletableFuture<>();
+            CompletableFuture<Void> running = inFlight.putIfAbsent(localKey, mine);
+            if (running != null) {
+                // Same key already running on this node: wait for it, then replay its result
+                awaitLocal(running, deadline);
+                continue;
+            }
+            try {
+                return executeClaimed(scope, key, hash, type, action, deadline);
+            } finally {
+                inFlight.remove(localKey, mine);
+                mine.complete(null);
+            }
+        }
+    }
+
+    // Drop keys past their TTL
+    @Scheduled(cron = "${idempotency.cleanup-cron:0 45 * * * *}")
+    public void removeExpiredKeys() {
+        Integer removed = transactionTemplate.execute(status ->
+                idempotencyKeyRepository.deleteExpired(LocalDateTime.now()));
+        if (removed != null && removed > 0) {
+            log.info("Removed {} expired idempotency keys", removed);
+        }
+    }
+
+    private <T> T executeClaimed(String scope, String key, String hash, TypeReference<T> type,
+                                 Supplier<T> action, long deadline) {
+        while (true) {
+            if (claim(scope, key, hash)) {
+                return runAndStore(scope, key, type, action);
+            }
+            IdempotencyKey existing = idempotencyKeyRepository.findByScopeAndIdemKey(scope, key).orElse(null);
+            if (existing == null) {
+                // Released by a failed request in the meantime
+                continue;
+            }
+            if (!existing.getRequestHash().equals(hash)) {
+                throw new IllegalArgumentException("Idempotency-Key was already used for a different request");
+            }
+            if (existing.getStatus() == IdempotencyStatus.COMPLETED) {
+                return read(existing.getResponseBody(), type);
+            }
+            // Still running on another node
+            if (System.currentTimeMillis() >= deadline) {
+                throw new IllegalStateException("A request with this Idempotency-Key is still being processed");
+            }
+            sleep(POLL_INTERVAL_MS);
+        }
+    }
+
+    private boolean claim(String scope, String key, String hash) {
+        // An in-progress claim expires on its own if the node dies mid-request
+        LocalDateTime expiresAt = LocalDateTime.now().plusSeconds(inProgressTimeoutSeconds);
+        return Boolean.TRUE.equals(transactionTemplate.execute(status ->
+                idempotencyKeyRepository.claim(scope, key, hash, expiresAt) == 1
+                        || idempotencyKeyRepository.reclaimExpired(scope, key, hash, expiresAt) == 1));
+    }
+
+    private <T> T runAndStore(String scope, String key, TypeReference<T> type, Supplier<T> action) {
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            transactionTemplate.executeWithoutResult(status -> idempotencyKeyRepository.release(scope, key));
+            throw e;
+        }
+        String body = write(result);
+        LocalDateTime expiresAt = LocalDateTime.now().plusHours(ttlHours);
+        transactionTemplate.executeWithoutResult(status ->
+                idempotencyKeyRepository.complete(scope, key, body, expiresAt));
+        return result;
+    }
+
+    private void awaitLocal(CompletableFuture<Void> running, long deadline) {
+        try {
+            running.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("A request with this Idempotency-Key is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a duplicate request");
+        } catch (ExecutionException e) {
+            // The running request failed; loop around and claim the key ourselves
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a duplicate request");
+        }
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(write(request).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize idempotent response", e);
+        }
+    }
+
+    private <T> T read(String body, TypeReference<T> type) {
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read stored idempotent response", e);
+        }
+    }
+}
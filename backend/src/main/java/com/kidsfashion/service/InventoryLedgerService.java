@@ -0,0 +1,148 @@
+package com.kidsfashion.service;
+
+import com.kidsfashion.dto.response.InventoryMovementResponse;
+import com.kidsfashion.dto.response.StockAtResponse;
+import com.kidsfashion.entity.InventoryMovement;
+import com.kidsfashion.entity.InventorySnapshot;
+import com.kidsfashion.entity.enums.MovementType;
+import com.kidsfashion.repository.InventoryMovementRepository;
+import com.kidsfashion.repository.InventorySnapshotRepository;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Append-only stock ledger. Every stock change is written as a movement in the transaction
+ * that makes it, so a rolled-back checkout leaves no trace; a multi-line change goes out as
+ * one JDBC batch after its guarded updates. Movements count the main inventory row and the
+ * hot-SKU slots together, so moving stock between them is not a movement.
+ *
+ * Snapshots fold the ledger into per-variant totals at a cutoff, so rebuilding a variant's
+ * stock at any moment only adds up the movements since the snapshot before it.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InventoryLedgerService {
+
+    private static final String INSERT_SQL = "INSERT INTO inventory_movements " +
+            "(variant_id, type, quantity_delta, reserved_delta, created_at) VALUES (?, ?, ?, ?, ?)";
+    private static final LocalDateTime LEDGER_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final InventoryMovementRepository movementRepository;
+    private final InventorySnapshotRepository snapshotRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    // Movements are stamped before their transaction commits; a cutoff this far back sees them all
+    @Value("${inventory.ledger.snapshot-lag-seconds:60}")
+    private long snapshotLagSeconds;
+
+    @Value("${inventory.ledger.snapshot-retention-days:90}")
+    private long snapshotRetentionDays;
+
+    public record Movement(Long variantId, MovementType type, int quantityDelta, int reservedDelta) {
+    }
+
+    public void record(Long variantId, MovementType type, int quantityDelta, int reservedDelta) {
+        recordAll(List.of(new Movement(variantId, type, quantityDelta, reservedDelta)));
+    }
+
+    /**
+     * Write movements in one batch. Must run inside the transaction that changed the stock.
+     */
+    public void recordAll(Collection<Movement> movements) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = movements.stream()
+                .filter(movement -> movement.quantityDelta() != 0 || movement.reservedDelta() != 0)
+                .map(movement -> new Object[]{movement.variantId(), movement.type().name(),
+                        movement.quantityDelta(), movement.reservedDelta(), now})
+                .toList();
+        if (rows.size() == 1) {
+            jdbcTemplate.update(INSERT_SQL, rows.get(0));
+        } else if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        }
+    }
+
+    /**
+     * Record a restock or a manual correction of the on-hand quantity.
+     */
+    public void recordQuantityChange(Long variantId, int before, int after) {
+        int delta = after - before;
+        record(variantId, delta > 0 ? MovementType.RESTOCK : MovementType.ADJUST, delta, 0);
+    }
+
+    /**
+     * Call before deleting an inventory row: writes off whatever it still holds.
+     */
+    public void recordRemoval(Long variantId) {
+        movementRepository.insertRemoval(variantId, LocalDateTime.now());
+    }
+
+    /**
+     * Ledger of a variant, newest first. Pass the id of the last movement received to page on.
+     */
+    @Transactional(readOnly = true)
+    public List<InventoryMovementResponse> getMovements(Long variantId, Long beforeId, int size) {
+        PageRequest page = PageRequest.of(0, size);
+        if (beforeId == null) {
+            return movementRepository.findLatest(variantId, page);
+        }
+        InventoryMovement cursor = movementRepository.findById(beforeId)
+                .filter(movement -> movement.getVariantId().equals(variantId))
+                .orElseThrow(() -> new EntityNotFoundException("Movement not found: " + beforeId));
+        return movementRepository.findBefore(variantId, cursor.getCreatedAt(), cursor.getId(), page);
+    }
+
+    /**
+     * Rebuild a variant's stock as it stood at {@code at}: the snapshot before it plus the movements since.
+     */
+    @Transactional(readOnly = true)
+    public StockAtResponse getStockAt(Long variantId, LocalDateTime at) {
+        Optional<InventorySnapshot> snapshot =
+                snapshotRepository.findFirstByVariantIdAndAsOfLessThanEqualOrderByAsOfDesc(variantId, at);
+        LocalDateTime from = snapshot.map(InventorySnapshot::getAsOf).orElse(LEDGER_START);
+        Object[] deltas = movementRepository.sumDeltas(variantId, from, at).get(0);
+        int quantity = snapshot.map(InventorySnapshot::getQuantity).orElse(0) + ((Number) deltas[0]).intValue();
+        int reserved = snapshot.map(InventorySnapshot::getReservedQuantity).orElse(0) + ((Number) deltas[1]).intValue();
+        return StockAtResponse.builder()
+                .variantId(variantId)
+                .at(at)
+                .quantity(quantity)
+                .reservedQuantity(reserved)
+                .availableQuantity(quantity - reserved)
+                .snapshotAsOf(snapshot.map(InventorySnapshot::getAsOf).orElse(null))
+                .movementsApplied(((Number) deltas[2]).longValue())
+                .build();
+    }
+
+    /**
+     * Snapshot every variant that moved since the last run. Variants that did not move keep
+     * their earlier snapshot, which is still exact.
+     */
+    @Scheduled(cron = "${inventory.ledger.snapshot-cron:0 10 1 * * *}")
+    @Transactional
+    public int takeSnapshots() {
+        LocalDateTime asOf = LocalDateTime.now().minusSeconds(snapshotLagSeconds);
+        LocalDateTime since = snapshotRepository.findLatestAsOf().orElse(LEDGER_START);
+        if (!asOf.isAfter(since)) {
+            return 0;
+        }
+        int taken = snapshotRepository.insertSnapshots(since, asOf);
+        int removed = snapshotRepository.deleteSupersededBefore(LocalDateTime.now().minusDays(snapshotRetentionDays));
+        log.info("Took {} inventory snapshots as of {}, removed {} superseded", taken, asOf, removed);
+        return taken;
+    }
+}
@@ -0,0 +1,143 @@
+package com.kidsfashion.service;
+
+import com.kidsfashion.entity.enums.MovementType;
+import com.kidsfashion.repository.InventoryRepository;
+import com.kidsfashion.service.InventoryLedgerService.Movement;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Stock mutations for order processing.
+ * Every change is a single guarded UPDATE so concurrent checkouts can never oversell,
+ * and multi-line changes are applied in ascending variant id order to avoid deadlocks.
+ * Each change re-checks the variant against its low-stock threshold and is written to
+ * the stock ledger; a multi-line change writes all its movements in one batch.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InventoryService {
+
+    private final InventoryRepository inventoryRepository;
+    private final InventorySlotService inventorySlotService;
+    private final LowStockService lowStockService;
+    private final InventoryLedgerService inventoryLedgerService;
+
+    /**
+     * Reserve stock for every variant, in lock order.
+     * Returns the first variant that could not be reserved, or null when all succeeded.
+     * The caller must roll back its transaction when a variant is returned.
+     */
+    @Transactional
+    public Long reserveAll(Map<Long, Integer> quantities) {
+        List<Movement> movements = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> entry : inLockOrder(quantities).entrySet()) {
+            Movement movement = tryReserve(entry.getKey(), entry.getValue());
+            if (movement == null) {
+                return entry.getKey();
+            }
+            movements.add(movement);
+        }
+        inventoryLedgerService.recordAll(movements);
+        return null;
+    }
+
+    @Transactional
+    public void releaseAll(Map<Long, Integer> quantities) {
+        List<Movement> movements = new ArrayList<>(quantities.size());
+        inLockOrder(quantities).forEach((variantId, amount) -> addIfPresent(movements, tryRelease(variantId, amount)));
+        inventoryLedgerService.recordAll(movements);
+    }
+
+    @Transactional
+    public void deductAll(Map<Long, Integer> quantities) {
+        List<Movement> movements = new ArrayList<>(quantities.size());
+        inLockOrder(quantities).forEach((variantId, amount) -> addIfPresent(movements, tryDeduct(variantId, amount)));
+        inventoryLedgerService.recordAll(movements);
+    }
+
+    @Transactional
+    public boolean reserve(Long variantId, int amount) {
+        return recorded(tryReserve(variantId, amount));
+    }
+
+    @Transactional
+    public void release(Long variantId, int amount) {
+        recorded(tryRelease(variantId, amount));
+    }
+
+    @Transactional
+    public boolean deduct(Long variantId, int amount) {
+        return recorded(tryDeduct(variantId, amount));
+    }
+
+    // Main row first; hot-SKU variants keep their stock in slots
+    private Movement tryReserve(Long variantId, int amount) {
+        if (inventoryRepository.reserveStock(variantId, amount) == 1
+                || inventorySlotService.reserve(variantId, amount)) {
+            lowStockService.check(variantId);
+            return new Movement(variantId, MovementType.RESERVE, 0, amount);
+        }
+        return null;
+    }
+
+    private Movement tryRelease(Long variantId, int amount) {
+        if (inventoryRepository.releaseReservedStock(variantId, amount) == 1
+                || inventorySlotService.release(variantId, amount)) {
+            lowStockService.check(variantId);
+            return new Movement(variantId, MovementType.RELEASE, 0, -amount);
+        }
+        // Drifted reservation: lock the row to learn how much is actually released
+        List<Object[]> row = inventoryRepository.lockByVariantId(variantId);
+        if (row.isEmpty()) {
+            log.warn("No inventory row to release {} units for variant {}", amount, variantId);
+            return null;
+        }
+        int released = Math.min(amount, ((Number) row.get(0)[1]).intValue());
+        inventoryRepository.releaseReservedStockClamped(variantId, amount);
+        lowStockService.check(variantId);
+        return new Movement(variantId, MovementType.RELEASE, 0, -released);
+    }
+
+    private Movement tryDeduct(Long variantId, int amount) {
+        if (inventoryRepository.deductReservedStock(variantId, amount) == 1
+                || inventorySlotService.deduct(variantId, amount)) {
+            lowStockService.check(variantId);
+            return new Movement(variantId, MovementType.DEDUCT, -amount, -amount);
+        }
+        List<Object[]> row = inventoryRepository.lockByVariantId(variantId);
+        if (!row.isEmpty() && inventoryRepository.deductStock(variantId, amount) == 1) {
+            lowStockService.check(variantId);
+            int reserved = ((Number) row.get(0)[1]).intValue();
+            return new Movement(variantId, MovementType.DEDUCT, -amount, -Math.min(amount, reserved));
+        }
+        log.warn("Could not deduct {} units for variant {}", amount, variantId);
+        return null;
+    }
+
+    private boolean recorded(Movement movement) {
+        if (movement == null) {
+            return false;
+        }
+        inventoryLedgerService.recordAll(List.of(movement));
+        return true;
+    }
+
+    private void addIfPresent(List<Movement> movements, Movement movement) {
+        if (movement != null) {
+            movements.add(movement);
+        }
+    }
+
+    // Sort by variant id so row locks are always taken in the same order
+    private Map<Long, Integer> inLockOrder(Map<Long, Integer> quantities) {
+        return quantities instanceof TreeMap ? quantities : new TreeMap<>(quantities);
+    }
+}
@@ -0,0 +1,266 @@
+package com.kidsfashion.service;
+
+import com.kidsfashion.dto.response.HotStockResponse;
+import com.kidsfashion.entity.InventorySlot;
+import com.kidsfashion.entity.ProductVariant;
+import com.kidsfashion.repository.InventoryRepository;
+import com.kidsfashion.repository.InventorySlotRepository;
+import com.kidsfashion.repository.ProductVariantRepository;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Hot-SKU mode: a variant's stock is split across N counter slots so flash-sale
+ * checkouts spread their row locks instead of serializing on one inventory row.
+ *
+ * The main inventory row keeps the stock that is not sharded; available quantity is
+ * always main row + slots (see Inventory#slotAvailableQuantity). Locks are taken main
+ * row first, then slots in slot order.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InventorySlotService {
+
+    private final InventorySlotRepository slotRepository;
+    private final InventoryRepository inventoryRepository;
+    private final ProductVariantRepository variantRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final LowStockService lowStockService;
+    private final InventoryLedgerService inventoryLedgerService;
+
+    @Value("${inventory.hot-sku.max-slots:32}")
+    private int maxSlots;
+
+    // Reserve from a random slot, falling back to spreading across all slots
+    @Transactional
+    public boolean reserve(Long variantId, int amount) {
+        if (slotRepository.reserveInRandomSlot(variantId, amount) == 1) {
+            return true;
+        }
+        List<Object[]> slots = slotRepository.lockSlots(variantId);
+        if (slots.stream().mapToInt(row -> quantity(row) - reserved(row)).sum() < amount) {
+            return false;
+        }
+        int remaining = amount;
+        for (Object[] row : slots) {
+            int take = Math.min(quantity(row) - reserved(row), remaining);
+            if (take > 0) {
+                slotRepository.reserveInSlot(slotId(row), take);
+                remaining -= take;
+            }
+        }
+        return true;
+    }
+
+    @Transactional
+    public boolean release(Long variantId, int amount) {
+        if (slotRepository.releaseInRandomSlot(variantId, amount) == 1) {
+            return true;
+        }
+        List<Object[]> slots = slotRepository.lockSlots(variantId);
+        if (slots.stream().mapToInt(this::reserved).sum() < amount) {
+            return false;
+        }
+        int remaining = amount;
+        for (Object[] row : slots) {
+            int take = Math.min(reserved(row), remaining);
+            if (take > 0) {
+                slotRepository.releaseInSlot(slotId(row), take);
+                remaining -= take;
+            }
+        }
+        return true;
+    }
+
+    @Transactional
+    public boolean deduct(Long variantId, int amount) {
+        if (slotRepository.deductInRandomSlot(variantId, amount) == 1) {
+            return true;
+        }
+        List<Object[]> slots = slotRepository.lockSlots(variantId);
+        if (slots.stream().mapToInt(this::reserved).sum() < amount) {
+            return false;
+        }
+        int remaining = amount;
+        for (Object[] row : slots) {
+            int take = Math.min(reserved(row), remaining);
+            if (take > 0) {
+                slotRepository.deductInSlot(slotId(row), take);
+                remaining -= take;
+            }
+        }
+        return true;
+    }
+
+    @Transactional(readOnly = true)
+    public boolean isSharded(Long variantId) {
+        return slotRepository.existsByVariantId(variantId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<HotStockResponse> getShardedVariants() {
+        return slotRepository.findShardedVariantIds().stream()
+                .map(this::getHotStock)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    public HotStockResponse getHotStock(Long variantId) {
+        List<InventorySlot> slots = slotRepository.findByVariantIdOrderBySlotNo(variantId);
+        return HotStockResponse.builder()
+                .variantId(variantId)
+                .slotCount(slots.size())
+                .availableQuantity(variantRepository.findById(variantId)
+                        .map(ProductVariant::getAvailableQuantity)
+                        .orElse(0))
+                .slots(slots.stream()
+                        .map(slot -> HotStockResponse.SlotResponse.builder()
+                                .slotNo(slot.getSlotNo())
+                                .quantity(slot.getQuantity())
+                                .reservedQuantity(slot.getReservedQuantity())
+                                .build())
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
+    /**
+     * Enable hot-SKU mode: create the slots and move the main row's available stock into them.
+     */
+    @Transactional
+    public void enable(Long variantId, int slotCount) {
+        if (slotCount < 2 || slotCount > maxSlots) {
+            throw new IllegalArgumentException("Slot count must be between 2 and " + maxSlots);
+        }
+        ProductVariant variant = variantRepository.findById(variantId)
+                .orElseThrow(() -> new EntityNotFoundException("Product variant not found"));
+        if (inventoryRepository.lockByVariantId(variantId).isEmpty()) {
+            throw new IllegalArgumentException("Variant has no inventory");
+        }
+        if (slotRepository.existsByVariantId(variantId)) {
+            throw new IllegalStateException("Variant is already in hot-SKU mode");
+        }
+
+        List<InventorySlot> slots = new ArrayList<>();
+        for (int i = 1; i <= slotCount; i++) {
+            slots.add(InventorySlot.builder()
+                    .variant(variant)
+                    .slotNo(i)
+                    .build());
+        }
+        slotRepository.saveAllAndFlush(slots);
+        rebalance(variantId);
+        log.info("Enabled hot-SKU mode for variant {} with {} slots", variantId, slotCount);
+    }
+
+    /**
+     * Disable hot-SKU mode: merge all slots back into the main inventory row.
+     * Returns the number of slots that were merged.
+     */
+    @Transactional
+    public int disable(Long variantId) {
+        inventoryRepository.lockByVariantId(variantId);
+        List<Object[]> slots = slotRepository.lockSlots(variantId);
+        if (slots.isEmpty()) {
+            return 0;
+        }
+        int quantity = slots.stream().mapToInt(this::quantity).sum();
+        int reserved = slots.stream().mapToInt(this::reserved).sum();
+        inventoryRepository.adjustStock(variantId, quantity, reserved);
+        slotRepository.deleteByVariantId(variantId);
+        log.info("Merged {} hot-SKU slots back into variant {}", slots.size(), variantId);
+        return slots.size();
+    }
+
+    /**
+     * Spread all available stock (main row + slots) evenly across the slots.
+     * Reserved stock stays where it is so in-flight orders can still release it.
+     */
+    @Transactional
+    public void rebalance(Long variantId) {
+        List<Object[]> main = inventoryRepository.lockByVariantId(variantId);
+        List<Object[]> slots = slotRepository.lockSlots(variantId);
+        if (main.isEmpty() || slots.isEmpty()) {
+            return;
+        }
+        int mainAvailable = toInt(main.get(0)[0]) - toInt(main.get(0)[1]);
+        int slotAvailable = slots.stream().mapToInt(row -> quantity(row) - reserved(row)).sum();
+        int total = Math.max(0, mainAvailable) + slotAvailable;
+        if (mainAvailable <= 0 && isBalanced(slots)) {
+            return;
+        }
+
+        int share = total / slots.size();
+        int extra = total % slots.size();
+        for (int i = 0; i < slots.size(); i++) {
+            Object[] row = slots.get(i);
+            int available = share + (i < extra ? 1 : 0);
+            slotRepository.updateSlotQuantity(slotId(row), reserved(row) + available);
+        }
+        if (mainAvailable > 0) {
+            inventoryRepository.adjustStock(variantId, -mainAvailable, 0);
+        }
+    }
+
+    /**
+     * Set the total on-hand quantity of a sharded variant (admin stock edit).
+     */
+    @Transactional
+    public void setTotalQuantity(Long variantId, int quantity) {
+        int slotCount = disable(variantId);
+        // All stock is back on the main row, which disable() has locked
+        List<Object[]> main = inventoryRepository.lockByVariantId(variantId);
+        inventoryRepository.updateQuantity(variantId, quantity);
+        if (!main.isEmpty()) {
+            inventoryLedgerService.recordQuantityChange(variantId, toInt(main.get(0)[0]), quantity);
+        }
+        if (slotCount > 0) {
+            enable(variantId, slotCount);
+        }
+        lowStockService.check(variantId);
+    }
+
+    // Periodically even out slots drained by checkouts and pick up restocked main-row stock
+    @Scheduled(fixedDelayString = "${inventory.hot-sku.rebalance-interval-ms:30000}")
+    public void rebalanceAll() {
+        for (Long variantId : slotRepository.findShardedVariantIds()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> rebalance(variantId));
+            } catch (Exception e) {
+                log.warn("Failed to rebalance hot-SKU slots for variant {}: {}", variantId, e.getMessage());
+            }
+        }
+    }
+
+    private boolean isBalanced(List<Object[]> slots) {
+        int min = slots.stream().mapToInt(row -> quantity(row) - reserved(row)).min().orElse(0);
+        int max = slots.stream().mapToInt(row -> quantity(row) - reserved(row)).max().orElse(0);
+        return max - min <= 1;
+    }
+
+    private Long slotId(Object[] row) {
+        return ((Number) row[0]).longValue();
+    }
+
+    private int quantity(Object[] row) {
+        return toInt(row[1]);
+    }
+
+    private int reserved(Object[] row) {
+        return toInt(row[2]);
+    }
+
+    private int toInt(Object value) {
+        return ((Number) value).intValue();
+    }
+}
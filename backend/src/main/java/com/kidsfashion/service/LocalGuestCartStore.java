@@ -0,0 +1,139 @@
+package com.kidsfashion.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Guest carts in this JVM, bounded and evicted least recently used first. A dirty cart pushed
+ * out moves to a side map, still readable, until the next write-behind batch persists it.
+ */
+@Component
+@ConditionalOnProperty(name = "cart.guest-store.backend", havingValue = "local", matchIfMissing = true)
+public class LocalGuestCartStore implements GuestCartStore {
+
+    private final int maxEntries;
+    // Least recently used first: a cart is moved to the end whenever a request touches it
+    private final LinkedHashMap<String, GuestCart> carts;
+    private final Map<String, GuestCart> evictedDirty = new HashMap<>();
+    // Sessions whose cart is dirty, in the order they first changed
+    private final Set<String> dirtySessions = new LinkedHashSet<>();
+    private long evictions;
+
+    public LocalGuestCartStore(@Value("${cart.guest-store.max-entries:50000}") int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Guest cart store needs room for at least one cart");
+        }
+        this.maxEntries = maxEntries;
+        this.carts = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, GuestCart> eldest) {
+                if (size() <= LocalGuestCartStore.this.maxEntries) {
+                    return false;
+                }
+                evictions++;
+                if (eldest.getValue().dirty()) {
+                    evictedDirty.put(eldest.getKey(), eldest.getValue());
+                }
+                return true;
+            }
+        };
+    }
+
+    @Override
+    public synchronized Optional<GuestCart> get(String sessionId) {
+        GuestCart cart = carts.remove(sessionId);
+        if (cart == null) {
+            cart = evictedDirty.remove(sessionId);
+        }
+        if (cart != null) {
+            carts.put(sessionId, cart);
+        }
+        return Optional.ofNullable(cart);
+    }
+
+    @Override
+    public synchronized GuestCart putLoaded(GuestCart cart) {
+        return get(cart.sessionId()).orElseGet(() -> {
+            carts.put(cart.sessionId(), cart);
+            return cart;
+        });
+    }
+
+    @Override
+    public synchronized Optional<GuestCart> update(String sessionId, long expectedVersion, Map<Long, Integer> quantities) {
+        Optional<GuestCart> current = get(sessionId);
+        if (current.isEmpty() || current.get().version() != expectedVersion) {
+            return Optional.empty();
+        }
+        GuestCart updated = current.get().withQuantities(quantities);
+        carts.put(sessionId, updated);
+        track(updated);
+        return Optional.of(updated);
+    }
+
+    @Override
+    public synchronized List<GuestCart> dirty(int max) {
+        List<GuestCart> dirty = new ArrayList<>(Math.min(max, dirtySessions.size()));
+        for (String sessionId : dirtySessions) {
+            if (dirty.size() >= max) {
+                break;
+            }
+            // Looked up without get(), so flushing does not count as use
+            GuestCart cart = evictedDirty.get(sessionId);
+            dirty.add(cart != null ? cart : carts.get(sessionId));
+        }
+        return dirty;
+    }
+
+    @Override
+    public synchronized void persisted(String sessionId, Long cartId, Map<Long, Integer> quantities) {
+        GuestCart evicted = evictedDirty.get(sessionId);
+        if (evicted != null) {
+            GuestCart updated = evicted.withPersisted(cartId, quantities);
+            if (updated.dirty()) {
+                evictedDirty.put(sessionId, updated);
+            } else {
+                evictedDirty.remove(sessionId);
+            }
+            track(updated);
+            return;
+        }
+        GuestCart cart = carts.get(sessionId);
+        if (cart != null) {
+            GuestCart updated = cart.withPersisted(cartId, quantities);
+            carts.replace(sessionId, updated);
+            track(updated);
+        }
+    }
+
+    @Override
+    public synchronized Optional<GuestCart> remove(String sessionId) {
+        dirtySessions.remove(sessionId);
+        GuestCart evicted = evictedDirty.remove(sessionId);
+        GuestCart cart = carts.remove(sessionId);
+        return Optional.ofNullable(cart != null ? cart : evicted);
+    }
+
+    @Override
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("backend", "local");
+        stats.put("maxEntries", maxEntries);
+        stats.put("carts", carts.size());
+        stats.put("dirty", dirtySessions.size());
+        stats.put("evictedAwaitingFlush", evictedDirty.size());
+        stats.put("evictions", evictions);
+        return stats;
+    }
+
+    private void track(GuestCart cart) {
+        if (cart.dirty()) {
+            dirtySessions.add(cart.sessionId());
+        } else {
+            dirtySessions.remove(cart.sessionId());
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.kidsfashion.service;
+
+import com.kidsfashion.dto.response.LowStockItemResponse;
+import com.kidsfashion.dto.response.StockAlertResponse;
+import com.kidsfashion.entity.StockAlert;
+import com.kidsfashion.entity.enums.StockLevel;
+import com.kidsfashion.repository.LowStockItemRepository;
+import com.kidsfashion.repository.StockAlertRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Keeps the low-stock set (inventory_low_stock) in step with stock changes.
+ *
+ * Every stock mutation calls {@link #check} for the variants it touched, inside its own
+ * transaction, so a threshold crossing is recorded (and alerted) exactly when the mutation
+ * commits. Variants with enough stock have no row, which keeps the set and the report small.
+ * Hot-SKU slot changes do not lock the main inventory row, so two racing checks may leave
+ * a stale entry; the scheduled reconciliation recomputes the set from the inventory table.
+ *
+ * The available stock of an entry is the one seen when the variant entered the set, changed
+ * level or got a new threshold. Stock moves within a level leave the row alone, so checkouts of
+ * a low-stock variant do not all queue on it; the reconciliation refreshes the figure.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LowStockService {
+
+    private final LowStockItemRepository lowStockItemRepository;
+    private final StockAlertRepository stockAlertRepository;
+    private final DashboardStatsService dashboardStatsService;
+
+    @Value("${inventory.low-stock.alert-retention-days:30}")
+    private long alertRetentionDays;
+
+    /**
+     * Re-evaluate a variant after its stock or threshold changed. Costs one indexed read when
+     * the level and threshold stay the same.
+     */
+    @Transactional
+    public void check(Long variantId) {
+        List<Object[]> rows = lowStockItemRepository.findStockLevel(variantId);
+        if (rows.isEmpty()) {
+            // Inventory row deleted: the variant simply leaves the set, without an alert
+            lowStockItemRepository.findById(variantId).ifPresent(item -> {
+                if (lowStockItemRepository.leave(variantId, item.getLevel()) == 1) {
+                    dashboardStatsService.stockLevelChanged(item.getLevel(), StockLevel.IN_STOCK);
+                }
+            });
+            return;
+        }
+        Object[] row = rows.get(0);
+        int available = toInt(row[0]);
+        int threshold = toInt(row[1]);
+        StockLevel previous = row[2] == null ? StockLevel.IN_STOCK : StockLevel.valueOf((String) row[2]);
+        StockLevel level = levelOf(available, threshold);
+
+        if (level == previous) {
+            if (level != StockLevel.IN_STOCK && !Objects.equals(threshold, toInt(row[4]))) {
+                lowStockItemRepository.update(variantId, level, level, available, threshold);
+            }
+            return;
+        }
+        boolean crossed;
+        if (level == StockLevel.IN_STOCK) {
+            crossed = lowStockItemRepository.leave(variantId, previous) == 1;
+        } else if (previous == StockLevel.IN_STOCK) {
+            crossed = lowStockItemRepository.enter(variantId, level.name(), available, threshold) == 1;
+        } else {
+            crossed = lowStockItemRepository.update(variantId, previous, level, available, threshold) == 1;
+        }
+        if (crossed) {
+            stockAlertRepository.save(StockAlert.builder()
+                    .variantId(variantId)
+                    .level(level)
+                    .previousLevel(previous)
+                    .available(available)
+                    .threshold(threshold)
+                    .build());
+            dashboardStatsService.stockLevelChanged(previous, level);
+        }
+    }
+
+    /**
+     * Low-stock report, out of stock first. Pass a level to see only low or only out of stock variants.
+     */
+    @Transactional(readOnly = true)
+    public Page<LowStockItemResponse> getLowStock(StockLevel level, Pageable pageable) {
+        if (level == StockLevel.IN_STOCK) {
+            throw new IllegalArgumentException("Level must be LOW_STOCK or OUT_OF_STOCK");
+        }
+        return lowStockItemRepository.findReport(level, pageable);
+    }
+
+    /**
+     * Alert feed: the alerts after {@code afterId}, oldest first, or the newest alerts without a cursor.
+     * Pollers pass the id of the last alert they have seen.
+     */
+    @Transactional(readOnly = true)
+    public List<StockAlertResponse> getAlerts(Long afterId, int size) {
+        PageRequest page = PageRequest.of(0, size);
+        if (afterId != null) {
+            return stockAlertRepository.findAfter(afterId, page);
+        }
+        List<StockAlertResponse> latest = new ArrayList<>(stockAlertRepository.findLatest(page));
+        Collections.reverse(latest);
+        return latest;
+    }
+
+    // Catch up with changes no check saw: racing hot-SKU updates, bulk loads, edits made in the database
+    @Scheduled(cron = "${inventory.low-stock.reconcile-cron:0 20 * * * *}")
+    @Transactional
+    public void reconcile() {
+        int removed = lowStockItemRepository.removeRecovered();
+        int corrected = lowStockItemRepository.addMissing();
+        if (removed > 0 || corrected > 0) {
+            log.info("Low-stock set reconciled: {} removed, {} added or corrected", removed, corrected);
+        }
+    }
+
+    @Scheduled(cron = "${inventory.low-stock.alert-cleanup-cron:0 50 4 * * *}")
+    @Transactional
+    public void removeOldAlerts() {
+        int removed = stockAlertRepository.deleteCreatedBefore(LocalDateTime.now().minusDays(alertRetentionDays));
+        if (removed > 0) {
+            log.info("Removed {} old stock alerts", removed);
+        }
+    }
+
+    private StockLevel levelOf(int available, int threshold) {
+        if (available <= 0) {
+            return StockLevel.OUT_OF_STOCK;
+        }
+        return available <= threshold ? StockLevel.LOW_STOCK : StockLevel.IN_STOCK;
+    }
+
+    private Integer toInt(Object value) {
+        return value == null ? null : ((Number) value).intValue();
+    }
+}
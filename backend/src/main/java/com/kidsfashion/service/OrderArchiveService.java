@@ -0,0 +1,159 @@
+package com.kidsfashion.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kidsfashion.entity.Order;
+import com.kidsfashion.repository.ArchivedOrderRepository;
+import com.kidsfashion.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Moves completed and cancelled orders older than the archive horizon out of the live
+ * order tables into the monthly partitions of orders_archive.
+ *
+ * Each batch copies the orders (with items and payment, as the API document) and deletes
+ * them from the live tables in one transaction, so an order is always in exactly one place.
+ * Month partitions are created on demand. Order lookups and customer history read through
+ * to the archive, see {@link OrderService}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderArchiveService {
+
+    private final OrderRepository orderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final OrderService orderService;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Set<YearMonth> knownPartitions = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong archivedTotal = new AtomicLong();
+    private volatile LocalDateTime lastRunAt;
+    private volatile LocalDateTime lastCutoff;
+    private volatile int lastRunArchived;
+
+    @Value("${archive.orders.enabled:true}")
+    private boolean enabled;
+
+    @Value("${archive.orders.horizon-months:12}")
+    private int horizonMonths;
+
+    @Value("${archive.orders.batch-size:500}")
+    private int batchSize;
+
+    @Value("${archive.orders.max-batches-per-run:200}")
+    private int maxBatchesPerRun;
+
+    @Scheduled(cron = "${archive.orders.cron:0 30 3 * * *}")
+    public void archiveScheduled() {
+        if (enabled) {
+            archiveOrders();
+        }
+    }
+
+    /**
+     * Archive everything past the horizon, batch by batch. Returns the number of orders moved.
+     */
+    public int archiveOrders() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Order archival is already running");
+        }
+        try {
+            LocalDateTime cutoff = YearMonth.now().minusMonths(horizonMonths).atDay(1).atStartOfDay();
+            int archived = 0;
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                Integer moved;
+                try {
+                    moved = transactionTemplate.execute(status -> archiveBatch(cutoff));
+                } catch (RuntimeException e) {
+                    // Partitions created in the failed transaction were rolled back with it
+                    knownPartitions.clear();
+                    throw e;
+                }
+                archived += moved != null ? moved : 0;
+                if (moved == null || moved < batchSize) {
+                    break;
+                }
+            }
+            archivedTotal.addAndGet(archived);
+            lastRunAt = LocalDateTime.now();
+            lastCutoff = cutoff;
+            lastRunArchived = archived;
+            if (archived > 0) {
+                log.info("Archived {} orders created before {}", archived, cutoff);
+            }
+            return archived;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("horizonMonths", horizonMonths);
+        stats.put("running", running.get());
+        stats.put("archivedTotal", archivedTotal.get());
+        stats.put("lastRunAt", lastRunAt);
+        stats.put("lastCutoff", lastCutoff);
+        stats.put("lastRunArchived", lastRunArchived);
+        stats.put("archivedOrders", archivedOrderRepository.count());
+        return stats;
+    }
+
+    private int archiveBatch(LocalDateTime cutoff) {
+        List<Long> ids = orderRepository.findArchivableIds(cutoff, batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<Order> orders = orderRepository.findWithItemsAndPaymentByIdIn(ids);
+        orders.stream()
+                .map(order -> YearMonth.from(order.getCreatedAt()))
+                .collect(Collectors.toSet())
+                .forEach(this::ensurePartition);
+        for (Order order : orders) {
+            archivedOrderRepository.archive(order.getId(), toDocument(order));
+        }
+        orderRepository.deleteArchived(ids);
+        return ids.size();
+    }
+
+    private void ensurePartition(YearMonth month) {
+        if (knownPartitions.contains(month)) {
+            return;
+        }
+        // Identifiers and bounds come from YearMonth, never from user input
+        String name = String.format("orders_archive_y%04dm%02d", month.getYear(), month.getMonthValue());
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF orders_archive "
+                + "FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+        knownPartitions.add(month);
+    }
+
+    private String toDocument(Order order) {
+        try {
+            return objectMapper.writeValueAsString(orderService.mapToOrderResponse(order));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize order " + order.getId() + " for the archive", e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.kidsfashion.service;
+
+import com.kidsfashion.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Generates order codes in the ORD-yyyyMMdd-NNNNNN format from a per-day sequence.
+ * Codes are unique across nodes but not strictly consecutive.
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderCodeGenerator {
+
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final SequenceBlockService sequenceBlockService;
+    private final OrderRepository orderRepository;
+
+    private String currentDay;
+
+    public String nextOrderCode() {
+        String day = LocalDate.now().format(DAY_FORMAT);
+        rollOver(day);
+        String prefix = "ORD-" + day + "-";
+        long number = sequenceBlockService.next("order-code:" + day, () -> firstNumber(prefix, LocalDate.now()));
+        return prefix + String.format("%06d", number);
+    }
+
+    // Drop the previous day's block once the date changes
+    private synchronized void rollOver(String day) {
+        if (!day.equals(currentDay)) {
+            if (currentDay != null) {
+                sequenceBlockService.discard("order-code:" + currentDay);
+            }
+            currentDay = day;
+        }
+    }
+
+    // Continue after codes already issued today (e.g. before this generator was deployed)
+    private long firstNumber(String prefix, LocalDate day) {
+        LocalDateTime dayStart = day.atStartOfDay();
+        String lastCode = orderRepository.findMaxOrderCodeCreatedBetween(prefix + "%", dayStart, dayStart.plusDays(1));
+        if (lastCode == null) {
+            return 1L;
+        }
+        try {
+            return Long.parseLong(lastCode.substring(prefix.length())) + 1;
+        } catch (NumberFormatException e) {
+            return 1L;
+        }
+    }
+}
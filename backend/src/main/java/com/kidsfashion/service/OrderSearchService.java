@@ -0,0 +1,175 @@
+package com.kidsfashion.service;
+
+import com.kidsfashion.dto.response.AdminOrderListResponse;
+import com.kidsfashion.dto.response.OrderSearchResponse;
+import com.kidsfashion.entity.enums.OrderStatus;
+import com.kidsfashion.entity.enums.PaymentStatus;
+import com.kidsfashion.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Admin order search over order code, recipient phone and recipient name.
+ *
+ * Keywords that look like an order code take a prefix-only fast path on the order code
+ * index. Everything else is matched in SQL against trigram indexes on the accent-folded
+ * name and the digits-only phone, ranked exact code, code prefix, exact phone, phone
+ * fragment, name fragment, then fuzzy name. Results are keyset paged so deep pages cost
+ * the same as the first one.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class OrderSearchService {
+
+    // pg_trgm extracts no usable trigram from a shorter %keyword% pattern, so the name search would scan every order
+    private static final int MIN_KEYWORD_LENGTH = 3;
+    private static final int MAX_KEYWORD_LENGTH = 100;
+    private static final int MAX_PAGE_SIZE = 100;
+    // Trigram indexes need at least three characters to narrow anything down
+    private static final int MIN_PHONE_DIGITS = 3;
+    // Open date bounds, so the queries never bind nulls; shared with the admin order list in OrderService
+    static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private static final Pattern ORDER_CODE = Pattern.compile("^ORD[\\s-]*(\\d{0,8})[\\s-]*(\\d*)$");
+    private static final Pattern PHONE_LIKE = Pattern.compile("^[+\\d\\s().-]+$");
+
+    private final OrderRepository orderRepository;
+
+    public OrderSearchResponse search(String keyword, OrderStatus status, LocalDateTime from, LocalDateTime to,
+                                      String cursor, int size) {
+        String trimmed = keyword == null ? "" : keyword.trim();
+        if (trimmed.length() < MIN_KEYWORD_LENGTH) {
+            throw new IllegalArgumentException("Search keyword must be at least " + MIN_KEYWORD_LENGTH + " characters");
+        }
+        if (trimmed.length() > MAX_KEYWORD_LENGTH) {
+            throw new IllegalArgumentException("Search keyword must be at most " + MAX_KEYWORD_LENGTH + " characters");
+        }
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Cursor after = Cursor.decode(cursor);
+        String statusName = status != null ? status.name() : "";
+        LocalDateTime fromBound = from != null ? from : EARLIEST;
+        LocalDateTime toBound = to != null ? to : LATEST;
+
+        // One extra row tells us whether there is a next page
+        List<Object[]> rows;
+        String orderCode = canonicalOrderCode(trimmed);
+        if (orderCode != null) {
+            rows = orderRepository.searchOrdersByCodePrefix(orderCode, escapeLike(orderCode) + "%",
+                    statusName, fromBound, toBound, after.score, after.createdAt, after.id, limit + 1);
+        } else {
+            String code = trimmed.toUpperCase(Locale.ROOT);
+            rows = orderRepository.searchOrders(escapeLike(trimmed), trimmed, code, escapeLike(code) + "%",
+                    normalizePhone(trimmed), statusName, fromBound, toBound, after.score, after.createdAt, after.id, limit + 1);
+        }
+
+        boolean hasNext = rows.size() > limit;
+        List<AdminOrderListResponse> content = new ArrayList<>();
+        String nextCursor = null;
+        for (Object[] row : rows.subList(0, Math.min(rows.size(), limit))) {
+            AdminOrderListResponse order = mapRow(row);
+            content.add(order);
+            nextCursor = new Cursor((BigDecimal) row[11], order.getCreatedAt(), order.getId()).encode();
+        }
+        return OrderSearchResponse.builder()
+                .content(content)
+                .nextCursor(hasNext ? nextCursor : null)
+                .hasNext(hasNext)
+                .build();
+    }
+
+    // "ord20240115000123", "ORD 20240115" and "ord-2024" all become ORD-... prefixes
+    private String canonicalOrderCode(String keyword) {
+        Matcher matcher = ORDER_CODE.matcher(keyword.toUpperCase(Locale.ROOT));
+        if (!matcher.matches()) {
+            return null;
+        }
+        String day = matcher.group(1);
+        String number = matcher.group(2);
+        if (day.isEmpty()) {
+            return "ORD-";
+        }
+        if (day.length() < 8) {
+            return number.isEmpty() ? "ORD-" + day : null;
+        }
+        return "ORD-" + day + "-" + number;
+    }
+
+    // Same folding as search_normalize_phone() in schema.sql; empty when the keyword is not a phone fragment
+    private String normalizePhone(String keyword) {
+        if (!PHONE_LIKE.matcher(keyword).matches()) {
+            return "";
+        }
+        String digits = keyword.replaceAll("[^0-9]", "");
+        if (digits.startsWith("84") && (digits.length() == 11 || digits.length() == 12)) {
+            digits = "0" + digits.substring(2);
+        }
+        return digits.length() >= MIN_PHONE_DIGITS ? digits : "";
+    }
+
+    private String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private AdminOrderListResponse mapRow(Object[] row) {
+        return AdminOrderListResponse.builder()
+                .id(((Number) row[0]).longValue())
+                .orderCode((String) row[1])
+                .status(OrderStatus.valueOf((String) row[2]))
+                .recipientName((String) row[3])
+                .recipientPhone((String) row[4])
+                .guestEmail((String) row[5])
+                .customerEmail((String) row[6])
+                .totalAmount((BigDecimal) row[7])
+                .paymentMethod((String) row[8])
+                .paymentStatus(row[9] != null ? PaymentStatus.valueOf((String) row[9]) : null)
+                .createdAt(toLocalDateTime(row[10]))
+                .build();
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+
+    /**
+     * Position after the last row of a page: (score, createdAt, id), base64url encoded.
+     */
+    private record Cursor(BigDecimal score, LocalDateTime createdAt, Long id) {
+
+        // Sorts before every real row: scores never exceed 4
+        private static final Cursor START = new Cursor(BigDecimal.valueOf(5), LATEST, Long.MAX_VALUE);
+
+        private static Cursor decode(String value) {
+            if (value == null || value.isBlank()) {
+                return START;
+            }
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8).split("\\|");
+                return new Cursor(new BigDecimal(parts[0]), LocalDateTime.parse(parts[1]), Long.parseLong(parts[2]));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid search cursor");
+            }
+        }
+
+        private String encode() {
+            String raw = score.toPlainString() + "|" + createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.kidsfashion.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kidsfashion.dto.request.CreateOrderRequest;
 import com.kidsfashion.dto.request.CreatePaymentRequest;
+import com.kidsfashion.dto.response.AdminOrderListResponse;
 import com.kidsfashion.dto.response.OrderResponse;
+import com.kidsfashion.dto.response.OrderSummaryResponse;
 import com.kidsfashion.entity.*;
 import com.kidsfashion.entity.enums.CartStatus;
 import com.kidsfashion.entity.enums.OrderStatus;
@@ -12,16 +16,23 @@ import com.kidsfashion.repository.*;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.UUID;
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,8 +43,19 @@ public class OrderService {
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
     private final UserRepository userRepository;
-    private final InventoryRepository inventoryRepository;
+    private final InventoryService inventoryService;
     private final PaymentRepository paymentRepository;
+    private final OutboxService outboxService;
+    private final DashboardStatsService dashboardStatsService;
+    private final ReservationExpiryService reservationExpiryService;
+    private final GuestCartWriteBehindService guestCarts;
+    private final GuestCartTokenService guestCartTokens;
+    private final OrderCodeGenerator orderCodeGenerator;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final ObjectMapper objectMapper;
+
+    private static final Pattern ORDER_CODE_DAY = Pattern.compile("^ORD-(\\d{8})-\\d+$");
 
     private static final BigDecimal FREE_SHIPPING_THRESHOLD = new BigDecimal("599000");
     private static final BigDecimal STANDARD_SHIPPING_FEE = new BigDecimal("30000");
@@ -41,6 +63,20 @@ public class OrderService {
 
     @Transactional
     public OrderResponse createOrder(Long userId, String sessionId, CreateOrderRequest request) {
+        return placeOrder(userId, sessionId, request);
+    }
+
+    /**
+     * Place an order inside a transaction the caller owns, for group commit. Business failures leave
+     * that transaction usable: the caller rolls back to its own savepoint instead.
+     */
+    @Transactional(propagation = Propagation.MANDATORY,
+            noRollbackFor = {IllegalArgumentException.class, IllegalStateException.class, EntityNotFoundException.class})
+    public OrderResponse createOrderInSavepoint(Long userId, String sessionId, CreateOrderRequest request) {
+        return placeOrder(userId, sessionId, request);
+    }
+
+    private OrderResponse placeOrder(Long userId, String sessionId, CreateOrderRequest request) {
         // Get cart - try user cart first, then session cart
         Cart cart = null;
         
@@ -50,25 +86,31 @@ public class OrderService {
         
         // If user cart is empty/null but sessionId provided, use session cart
         if ((cart == null || cart.isEmpty()) && sessionId != null) {
-            cart = cartRepository.findActiveCartBySessionId(sessionId).orElse(null);
+            // A guest cart carried in a token becomes a cart row only now
+            String cartSessionId = guestCartTokens.isEnabled() && guestCartTokens.isToken(sessionId)
+                    ? guestCartTokens.decode(sessionId).map(guestCartTokens::materialize).orElse(null)
+                    : sessionId;
+            cart = cartSessionId == null ? null
+                    : cartRepository.findActiveCartBySessionId(cartSessionId).orElse(null);
         }
         
         if (cart == null || cart.isEmpty()) {
             throw new IllegalArgumentException("Giỏ hàng trống");
         }
 
-        // Validate stock and reserve inventory
-        for (CartItem cartItem : cart.getItems()) {
-            ProductVariant variant = cartItem.getVariant();
-            Inventory inventory = variant.getInventory();
-            
-            if (inventory == null || !inventory.reserve(cartItem.getQuantity())) {
-                throw new IllegalArgumentException(
-                    "Not enough stock for: " + variant.getProduct().getName() + 
-                    " (" + variant.getSize().getName() + " - " + variant.getColor().getName() + ")"
-                );
-            }
-            inventoryRepository.save(inventory);
+        // Reserve inventory with guarded updates, in variant id order
+        Long failedVariantId = inventoryService.reserveAll(toVariantQuantities(cart.getItems(),
+                item -> item.getVariant().getId(), CartItem::getQuantity));
+        if (failedVariantId != null) {
+            ProductVariant variant = cart.getItems().stream()
+                    .map(CartItem::getVariant)
+                    .filter(v -> v.getId().equals(failedVariantId))
+                    .findFirst()
+                    .orElseThrow();
+            throw new IllegalArgumentException(
+                "Not enough stock for: " + variant.getProduct().getName() + 
+                " (" + variant.getSize().getName() + " - " + variant.getColor().getName() + ")"
+            );
         }
 
         // Calculate totals
@@ -93,7 +135,7 @@ public class OrderService {
 
         // Create order
         Order order = Order.builder()
-                .orderCode(generateOrderCode())
+                .orderCode(orderCodeGenerator.nextOrderCode())
                 .user(user)
                 .guestEmail(user == null ? request.getGuestEmail() : null)
                 .status(OrderStatus.PENDING)
@@ -118,6 +160,8 @@ public class OrderService {
         }
 
         order = orderRepository.save(order);
+        outboxService.publishOrderEvent(OutboxService.ORDER_CREATED, order, null);
+        reservationExpiryService.track(order);
 
         // Create payment if payment method is VNPay or MoMo
         if ("VNPAY".equals(request.getPaymentMethod()) || "MOMO".equals(request.getPaymentMethod())) {
@@ -125,59 +169,80 @@ public class OrderService {
         }
 
         // Clear cart - mark as MERGED (reusing status since CONVERTED not in DB constraint)
+        dashboardStatsService.cartStatusChanged(cart.getStatus(), CartStatus.MERGED);
         cart.setStatus(CartStatus.MERGED);
         cartRepository.save(cart);
         cartItemRepository.deleteAllByCartId(cart.getId());
+        if (cart.isGuestCart()) {
+            guestCarts.evictAfterCommit(cart.getSessionId());
+        }
 
         return mapToOrderResponse(order);
     }
 
     @Transactional(readOnly = true)
     public OrderResponse getOrderByCode(String orderCode) {
-        Order order = orderRepository.findByOrderCode(orderCode)
+        return orderRepository.findDetailByOrderCode(orderCode)
+                .map(this::mapToOrderResponse)
+                .or(() -> findArchivedByCode(orderCode))
                 .orElseThrow(() -> new EntityNotFoundException("Order not found: " + orderCode));
-        return mapToOrderResponse(order);
     }
 
     @Transactional(readOnly = true)
     public OrderResponse getOrderById(Long orderId) {
-        Order order = orderRepository.findById(orderId)
+        return orderRepository.findDetailById(orderId)
+                .map(this::mapToOrderResponse)
+                .or(() -> archivedOrderRepository.findById(orderId).map(this::readArchived))
                 .orElseThrow(() -> new EntityNotFoundException("Order not found"));
-        return mapToOrderResponse(order);
     }
 
     @Transactional(readOnly = true)
     public Page<OrderResponse> getUserOrders(Long userId, OrderStatus status, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
-        
-        Page<Order> orders;
-        if (status != null) {
-            orders = orderRepository.findByUserIdAndStatusOrderByCreatedAtDesc(userId, status, pageable);
-        } else {
-            orders = orderRepository.findByUserIdOrderByCreatedAtDesc(userId, pageable);
-        }
-        
-        return orders.map(this::mapToOrderResponse);
+        PageRequest pageable = PageRequest.of(page, size);
+        return appendArchived(loadOrders(orderRepository.findIdsByUser(userId, status, pageable)), pageable,
+                archivedOrderRepository.countByUser(userId, status),
+                (limit, offset) -> archivedOrderRepository.findIdsByUser(userId, statusName(status), limit, offset),
+                this::loadArchived);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<OrderSummaryResponse> getUserOrderSummaries(Long userId, OrderStatus status, int page, int size) {
+        PageRequest pageable = PageRequest.of(page, size);
+        return appendArchived(loadSummaries(orderRepository.findIdsByUser(userId, status, pageable)), pageable,
+                archivedOrderRepository.countByUser(userId, status),
+                (limit, offset) -> archivedOrderRepository.findIdsByUser(userId, statusName(status), limit, offset),
+                ids -> loadArchived(ids).stream().map(this::toSummary).toList());
     }
 
     @Transactional(readOnly = true)
     public Page<OrderResponse> getGuestOrders(String email, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        return orderRepository.findByGuestEmailOrderByCreatedAtDesc(email, pageable)
-                .map(this::mapToOrderResponse);
+        PageRequest pageable = PageRequest.of(page, size);
+        return appendArchived(loadOrders(orderRepository.findIdsByGuestEmail(email, pageable)), pageable,
+                archivedOrderRepository.countByGuestEmail(email),
+                (limit, offset) -> archivedOrderRepository.findIdsByGuestEmail(email, limit, offset),
+                this::loadArchived);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<OrderSummaryResponse> getGuestOrderSummaries(String email, int page, int size) {
+        PageRequest pageable = PageRequest.of(page, size);
+        return appendArchived(loadSummaries(orderRepository.findIdsByGuestEmail(email, pageable)), pageable,
+                archivedOrderRepository.countByGuestEmail(email),
+                (limit, offset) -> archivedOrderRepository.findIdsByGuestEmail(email, limit, offset),
+                ids -> loadArchived(ids).stream().map(this::toSummary).toList());
     }
 
     @Transactional(readOnly = true)
     public OrderResponse trackOrder(String orderCode) {
-        Order order = orderRepository.findByOrderCode(orderCode)
+        return orderRepository.findDetailByOrderCode(orderCode)
+                .map(this::mapToOrderResponse)
+                .or(() -> findArchivedByCode(orderCode))
                 .orElseThrow(() -> new EntityNotFoundException("Order not found: " + orderCode));
-        return mapToOrderResponse(order);
     }
 
     @Transactional
     public OrderResponse cancelOrder(Long orderId, Long userId, String reason) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new EntityNotFoundException("Order not found"));
+        Order order = lockOrder(orderId);
 
         // Verify ownership
         if (order.getUser() != null && !order.getUser().getId().equals(userId)) {
@@ -189,66 +254,184 @@ public class OrderService {
         }
 
         // Release reserved inventory
-        for (OrderItem item : order.getItems()) {
-            Inventory inventory = item.getVariant().getInventory();
-            if (inventory != null) {
-                inventory.releaseReservation(item.getQuantity());
-                inventoryRepository.save(inventory);
-            }
-        }
+        inventoryService.releaseAll(toVariantQuantities(order.getItems(),
+                item -> item.getVariant().getId(), OrderItem::getQuantity));
 
+        OrderStatus previousStatus = order.getStatus();
         order.setCancellationReason(reason);
         order.updateStatus(OrderStatus.CANCELLED);
         order = orderRepository.save(order);
+        outboxService.publishOrderEvent(OutboxService.ORDER_CANCELLED, order, previousStatus);
 
         return mapToOrderResponse(order);
     }
 
     // Admin methods
     @Transactional(readOnly = true)
-    public Page<OrderResponse> getAllOrders(OrderStatus status, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
-        
-        Page<Order> orders;
-        if (status != null) {
-            orders = orderRepository.findByStatus(status, pageable);
-        } else {
-            orders = orderRepository.findAll(pageable);
+    public Page<OrderSummaryResponse> getAllOrders(OrderStatus status, int page, int size) {
+        Slice<Long> ids = orderRepository.findIdsByStatus(status, PageRequest.of(page, size));
+        return loadSummaries(new PageImpl<>(ids.getContent(), ids.getPageable(), estimateTotal(status, ids)));
+    }
+
+    /**
+     * Admin order list. Date-filtered lists are counted exactly; unfiltered and status-only lists
+     * would count most of the table on every page, so their total is the planner's estimate.
+     */
+    @Transactional(readOnly = true)
+    public Page<AdminOrderListResponse> getAdminOrders(OrderStatus status, LocalDateTime from, LocalDateTime to,
+                                                       int page, int size) {
+        LocalDateTime since = from != null ? from : OrderSearchService.EARLIEST;
+        LocalDateTime until = to != null ? to : OrderSearchService.LATEST;
+        Slice<AdminOrderListResponse> rows = orderRepository.findAdminList(status, since, until,
+                PageRequest.of(page, size));
+        long total = from != null || to != null ? orderRepository.countAdminList(status, since, until)
+                : estimateTotal(status, rows);
+        return new PageImpl<>(rows.getContent(), rows.getPageable(), total);
+    }
+
+    // At least one row past what the slice has seen while there is a next page, and exact on the last page
+    private long estimateTotal(OrderStatus status, Slice<?> slice) {
+        long seen = slice.getPageable().getOffset() + slice.getNumberOfElements();
+        if (!slice.hasNext() && (slice.hasContent() || slice.getNumber() == 0)) {
+            return seen;
         }
-        
-        return orders.map(this::mapToOrderResponse);
+        long estimate = orderRepository.estimateCount(status != null ? status.name() : null);
+        return Math.max(estimate, slice.hasNext() ? seen + 1 : seen);
     }
 
     @Transactional
     public OrderResponse updateOrderStatus(Long orderId, OrderStatus newStatus) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new EntityNotFoundException("Order not found"));
+        Order order = lockOrder(orderId);
+
+        OrderStatus previousStatus = order.getStatus();
+        if (previousStatus == newStatus) {
+            return mapToOrderResponse(order);
+        }
+        if (!BulkOrderStatusService.TRANSITIONS.get(previousStatus).contains(newStatus)) {
+            throw new IllegalArgumentException("Cannot move from " + previousStatus + " to " + newStatus);
+        }
 
-        // Handle inventory for status transitions
-        if (newStatus == OrderStatus.SHIPPING && order.getStatus() == OrderStatus.PAID) {
-            // Deduct stock when shipping
-            for (OrderItem item : order.getItems()) {
-                Inventory inventory = item.getVariant().getInventory();
-                if (inventory != null) {
-                    inventory.deductStock(item.getQuantity());
-                    inventoryRepository.save(inventory);
-                }
+        // Same stock rule as bulk transitions: the reservation leaves with the goods or goes back on cancellation
+        if (ReservationReconcileService.HOLDING_STATUSES.contains(previousStatus)) {
+            Map<Long, Integer> quantities = toVariantQuantities(order.getItems(),
+                    item -> item.getVariant().getId(), OrderItem::getQuantity);
+            if (BulkOrderStatusService.SHIPPED_STATUSES.contains(newStatus)) {
+                inventoryService.deductAll(quantities);
+            } else if (newStatus == OrderStatus.CANCELLED) {
+                inventoryService.releaseAll(quantities);
             }
         }
 
         order.updateStatus(newStatus);
         order = orderRepository.save(order);
+        outboxService.publishOrderEvent(newStatus == OrderStatus.CANCELLED ? OutboxService.ORDER_CANCELLED
+                : OutboxService.ORDER_STATUS_CHANGED, order, previousStatus);
 
         return mapToOrderResponse(order);
     }
 
-    private String generateOrderCode() {
-        String datePrefix = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        long count = orderRepository.countOrdersToday() + 1;
-        return "ORD-" + datePrefix + "-" + String.format("%06d", count);
+    // Lock the order before reading it, so the expiry job and bulk transitions wait for this change
+    // and the status checks see their committed outcome
+    private Order lockOrder(Long orderId) {
+        orderRepository.lockStatusById(orderId)
+                .orElseThrow(() -> new EntityNotFoundException("Order not found"));
+        return orderRepository.findById(orderId)
+                .orElseThrow(() -> new EntityNotFoundException("Order not found"));
+    }
+
+    private <T> Map<Long, Integer> toVariantQuantities(Collection<T> items,
+                                                       Function<T, Long> variantId,
+                                                       Function<T, Integer> quantity) {
+        return items.stream()
+                .collect(Collectors.toMap(variantId, quantity, Integer::sum, TreeMap::new));
+    }
+
+    // Phase 2 of a paged read: fetch the page's orders with items and payment, keeping the page order
+    private Page<OrderResponse> loadOrders(Page<Long> ids) {
+        Map<Long, Order> orders = ids.isEmpty() ? Map.of()
+                : orderRepository.findWithItemsAndPaymentByIdIn(ids.getContent()).stream()
+                        .collect(Collectors.toMap(Order::getId, Function.identity()));
+        return ids.map(id -> mapToOrderResponse(orders.get(id)));
+    }
+
+    private Page<OrderSummaryResponse> loadSummaries(Page<Long> ids) {
+        Map<Long, OrderSummaryResponse> summaries = ids.isEmpty() ? Map.of()
+                : orderRepository.findSummariesByIdIn(ids.getContent()).stream()
+                        .collect(Collectors.toMap(OrderSummaryResponse::getId, Function.identity()));
+        return ids.map(summaries::get);
+    }
+
+    /**
+     * Continue a live history page into the archive. Archived orders are all older than the
+     * archive horizon, so they are listed after the live ones.
+     */
+    private <T> Page<T> appendArchived(Page<T> live, Pageable pageable, long archivedTotal,
+                                       BiFunction<Integer, Long, List<Long>> archivedIds,
+                                       Function<List<Long>, List<T>> loadArchived) {
+        if (archivedTotal == 0) {
+            return live;
+        }
+        List<T> content = new ArrayList<>(live.getContent());
+        int missing = pageable.getPageSize() - content.size();
+        if (missing > 0) {
+            long offset = Math.max(0, pageable.getOffset() - live.getTotalElements());
+            List<Long> ids = archivedIds.apply(missing, offset);
+            if (!ids.isEmpty()) {
+                content.addAll(loadArchived.apply(ids));
+            }
+        }
+        return new PageImpl<>(content, pageable, live.getTotalElements() + archivedTotal);
+    }
+
+    private List<OrderResponse> loadArchived(List<Long> ids) {
+        Map<Long, ArchivedOrder> archived = archivedOrderRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(ArchivedOrder::getId, Function.identity()));
+        return ids.stream().map(id -> readArchived(archived.get(id))).toList();
+    }
+
+    // Order codes carry their day (ORD-yyyyMMdd-NNNNNN), which narrows the lookup to one partition
+    private Optional<OrderResponse> findArchivedByCode(String orderCode) {
+        Matcher matcher = ORDER_CODE_DAY.matcher(orderCode);
+        Optional<ArchivedOrder> archived;
+        if (matcher.matches()) {
+            LocalDate day = LocalDate.parse(matcher.group(1), DateTimeFormatter.BASIC_ISO_DATE);
+            // A day either side: the code is issued just before created_at is stamped
+            archived = archivedOrderRepository.findByOrderCodeCreatedBetween(orderCode,
+                    day.minusDays(1).atStartOfDay(), day.plusDays(2).atStartOfDay());
+        } else {
+            archived = archivedOrderRepository.findFirstByOrderCode(orderCode);
+        }
+        return archived.map(this::readArchived);
+    }
+
+    private OrderResponse readArchived(ArchivedOrder archived) {
+        try {
+            return objectMapper.readValue(archived.getDocument(), OrderResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read archived order " + archived.getId(), e);
+        }
+    }
+
+    private OrderSummaryResponse toSummary(OrderResponse order) {
+        return OrderSummaryResponse.builder()
+                .id(order.getId())
+                .orderCode(order.getOrderCode())
+                .status(order.getStatus())
+                .recipientName(order.getRecipientName())
+                .totalAmount(order.getTotalAmount())
+                .paymentMethod(order.getPaymentMethod())
+                .shippingMethod(order.getShippingMethod())
+                .paymentStatus(order.getPayment() != null ? order.getPayment().getStatus() : null)
+                .totalItems((long) order.getTotalItems())
+                .createdAt(order.getCreatedAt())
+                .build();
+    }
+
+    private static String statusName(OrderStatus status) {
+        return status != null ? status.name() : "";
     }
 
-    private OrderResponse mapToOrderResponse(Order order) {
+    OrderResponse mapToOrderResponse(Order order) {
         return OrderResponse.builder()
                 .id(order.getId())
                 .orderCode(order.getOrderCode())
@@ -296,7 +479,7 @@ public class OrderService {
 
     private void createPaymentForOrder(Order order, BigDecimal amount) {
         PaymentGateway gateway = PaymentGateway.valueOf(order.getPaymentMethod());
-        String transactionId = "TXN" + System.currentTimeMillis() + "-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        String transactionId = transactionIdGenerator.next("TXN");
         
         Payment payment = Payment.builder()
                 .order(order)
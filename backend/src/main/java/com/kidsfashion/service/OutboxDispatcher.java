@@ -0,0 +1,173 @@
+package com.kidsfashion.service;
+
+import com.kidsfashion.entity.OutboxEvent;
+import com.kidsfashion.entity.enums.OutboxStatus;
+import com.kidsfashion.repository.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Polls the outbox in batches and delivers events to the registered handlers.
+ *
+ * Rows are claimed with FOR UPDATE SKIP LOCKED, so several nodes can dispatch side by side.
+ * Events of one aggregate are delivered in id order; a failing event is retried with
+ * exponential backoff and holds back later events of the same aggregate until it succeeds
+ * or is given up on.
+ *
+ * A claim is a short transaction that leases the events for the claim timeout. Each event is
+ * then delivered in a transaction of its own, where the handlers' writes and the delivered mark
+ * commit together; a failure is recorded in a separate short transaction. Only one connection
+ * is in use at a time, and events of a dispatcher that dies become due again once the lease ends.
+ */
+@Slf4j
+@Service
+public class OutboxDispatcher {
+
+    private static final long MAX_BACKOFF_SECONDS = 300;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectProvider<OutboxEventHandler> handlers;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong givenUp = new AtomicLong();
+    private final AtomicLong totalDeliveryLagMs = new AtomicLong();
+    private long currentMinute;
+    private long currentMinuteDelivered;
+    private long previousMinuteDelivered;
+
+    @Value("${outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${outbox.retention-hours:24}")
+    private long retentionHours;
+
+    @Value("${outbox.claim-timeout-seconds:60}")
+    private long claimTimeoutSeconds;
+
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository,
+                            ObjectProvider<OutboxEventHandler> handlers,
+                            PlatformTransactionManager transactionManager) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.handlers = handlers;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Keep draining while batches come back full
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:500}")
+    public void dispatch() {
+        List<Long> claimed;
+        do {
+            claimed = transactionTemplate.execute(status -> claimBatch());
+            claimed.forEach(this::deliver);
+        } while (claimed.size() == batchSize);
+    }
+
+    // Delivered events are only kept for troubleshooting
+    @Scheduled(cron = "${outbox.cleanup-cron:0 15 * * * *}")
+    @Transactional
+    public void removeDeliveredEvents() {
+        int removed = outboxEventRepository.deleteDeliveredBefore(LocalDateTime.now().minusHours(retentionHours));
+        if (removed > 0) {
+            log.info("Removed {} delivered outbox events", removed);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        LocalDateTime oldestPending = outboxEventRepository.findOldestPendingCreatedAt();
+        long deliveredCount = delivered.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", outboxEventRepository.countByStatus(OutboxStatus.PENDING));
+        stats.put("failed", outboxEventRepository.countByStatus(OutboxStatus.FAILED));
+        stats.put("oldestPendingAgeMs", oldestPending == null ? 0
+                : Duration.between(oldestPending, LocalDateTime.now()).toMillis());
+        stats.put("delivered", deliveredCount);
+        stats.put("retried", retried.get());
+        stats.put("givenUp", givenUp.get());
+        stats.put("averageDeliveryLagMs", deliveredCount == 0 ? 0 : totalDeliveryLagMs.get() / deliveredCount);
+        synchronized (this) {
+            stats.put("deliveredLastMinute", previousMinuteDelivered);
+        }
+        return stats;
+    }
+
+    // Other dispatchers pass over the claimed events until the lease ends
+    private List<Long> claimBatch() {
+        List<OutboxEvent> events = outboxEventRepository.claimDueEvents(batchSize);
+        LocalDateTime leasedUntil = LocalDateTime.now().plusSeconds(claimTimeoutSeconds);
+        events.forEach(event -> event.setNextAttemptAt(leasedUntil));
+        return events.stream().map(OutboxEvent::getId).toList();
+    }
+
+    private void deliver(Long eventId) {
+        try {
+            Duration lag = transactionTemplate.execute(status -> {
+                OutboxEvent event = outboxEventRepository.findById(eventId).orElseThrow();
+                handlers.orderedStream()
+                        .filter(handler -> handler.supports(event.getEventType()))
+                        .forEach(handler -> handler.handle(event));
+                LocalDateTime now = LocalDateTime.now();
+                event.setStatus(OutboxStatus.DELIVERED);
+                event.setDeliveredAt(now);
+                return Duration.between(event.getCreatedAt(), now);
+            });
+            delivered.incrementAndGet();
+            totalDeliveryLagMs.addAndGet(lag.toMillis());
+            countDelivery();
+        } catch (RuntimeException e) {
+            // The handlers' writes were rolled back with the delivery
+            transactionTemplate.executeWithoutResult(status -> outboxEventRepository.findById(eventId)
+                    .ifPresent(event -> recordFailure(event, e)));
+        }
+    }
+
+    private void recordFailure(OutboxEvent event, RuntimeException e) {
+        int attempts = event.getAttempts() + 1;
+        event.setAttempts(attempts);
+        event.setLastError(truncate(e.getMessage()));
+        if (attempts >= maxAttempts) {
+            event.setStatus(OutboxStatus.FAILED);
+            givenUp.incrementAndGet();
+            log.error("Giving up on outbox event {} ({}) after {} attempts", event.getId(), event.getEventType(), attempts, e);
+        } else {
+            long backoff = Math.min(1L << Math.min(attempts, 20), MAX_BACKOFF_SECONDS);
+            event.setNextAttemptAt(LocalDateTime.now().plusSeconds(backoff));
+            retried.incrementAndGet();
+            log.warn("Outbox event {} ({}) failed, retrying in {}s: {}", event.getId(), event.getEventType(), backoff, e.getMessage());
+        }
+    }
+
+    private synchronized void countDelivery() {
+        long minute = System.currentTimeMillis() / 60_000;
+        if (minute != currentMinute) {
+            previousMinuteDelivered = minute == currentMinute + 1 ? currentMinuteDelivered : 0;
+            currentMinute = minute;
+            currentMinuteDelivered = 0;
+        }
+        currentMinuteDelivered++;
+    }
+
+    private String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+}
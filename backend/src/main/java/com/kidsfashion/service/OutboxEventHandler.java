@@ -0,0 +1,14 @@
+package com.kidsfashion.service;
+
+import com.kidsfashion.entity.OutboxEvent;
+
+/**
+ * In-process consumer of outbox events.
+ * Delivery is at-least-once: an event is retried when any handler fails, so handlers must be idempotent.
+ */
+public interface OutboxEventHandler {
+
+    boolean supports(String eventType);
+
+    void handle(OutboxEvent event);
+}
@@ -0,0 +1,70 @@
+package com.kidsfashion.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kidsfashion.entity.Order;
+import com.kidsfashion.entity.OutboxEvent;
+import com.kidsfashion.entity.enums.OrderStatus;
+import com.kidsfashion.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writes outbox events. Must be called inside the transaction that makes the state change,
+ * so the event is stored if and only if the change commits.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    public static final String ORDER = "ORDER";
+
+    public static final String ORDER_CREATED = "ORDER_CREATED";
+    public static final String ORDER_PAID = "ORDER_PAID";
+    public static final String ORDER_STATUS_CHANGED = "ORDER_STATUS_CHANGED";
+    public static final String ORDER_CANCELLED = "ORDER_CANCELLED";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(String aggregateType, Long aggregateId, String eventType, Map<String, Object> payload) {
+        try {
+            outboxEventRepository.save(OutboxEvent.builder()
+                    .aggregateType(aggregateType)
+                    .aggregateId(aggregateId)
+                    .eventType(eventType)
+                    .payload(objectMapper.writeValueAsString(payload))
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + eventType + " event", e);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishOrderEvent(String eventType, Order order, OrderStatus previousStatus) {
+        publishOrderEvent(eventType, order.getId(), order.getOrderCode(),
+                order.getUser() != null ? order.getUser().getId() : null,
+                order.getStatus(), previousStatus, order.getTotalAmount());
+    }
+
+    // For changes made with bulk updates, where no Order entity is loaded
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishOrderEvent(String eventType, Long orderId, String orderCode, Long userId,
+                                  OrderStatus status, OrderStatus previousStatus, BigDecimal totalAmount) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("orderId", orderId);
+        payload.put("orderCode", orderCode);
+        payload.put("userId", userId);
+        payload.put("status", status);
+        payload.put("previousStatus", previousStatus);
+        payload.put("totalAmount", totalAmount);
+        publish(ORDER, orderId, eventType, payload);
+    }
+}
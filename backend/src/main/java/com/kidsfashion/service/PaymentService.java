@@ -11,6 +11,7 @@ import com.kidsfashion.dto.request.CreatePaymentRequest;
 import com.kidsfashion.dto.response.PaymentResponse;
 import com.kidsfashion.entity.Order;
 import com.kidsfashion.entity.Payment;
+import com.kidsfashion.entity.enums.OrderStatus;
 import com.kidsfashion.entity.enums.PaymentGateway;
 import com.kidsfashion.entity.enums.PaymentStatus;
 import com.kidsfashion.repository.OrderRepository;
@@ -47,6 +48,8 @@ public class PaymentService {
     private final OrderRepository orderRepository;
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
+    private final OutboxService outboxService;
+    private final TransactionIdGenerator transactionIdGenerator;
 
     @Value("${payment.vnpay.tmn-code:DEMO_TMN_CODE}")
     private String vnpayTmnCode;
@@ -98,6 +101,9 @@ public class PaymentService {
     public PaymentResponse createPayment(CreatePaymentRequest request) {
         Order order = orderRepository.findById(request.getOrderId())
                 .orElseThrow(() -> new EntityNotFoundException("Order not found"));
+        if (order.getStatus() == OrderStatus.CANCELLED) {
+            throw new IllegalStateException("Order has been cancelled: " + order.getCancellationReason());
+        }
 
         // Determine gateway from order payment method
         PaymentGateway gateway = PaymentGateway.valueOf(order.getPaymentMethod());
@@ -107,7 +113,7 @@ public class PaymentService {
         
         if (payment == null) {
             // Create new payment record
-            String transactionId = generateTransactionId();
+            String transactionId = transactionIdGenerator.next("TXN");
             payment = Payment.builder()
                     .order(order)
                     .transactionId(transactionId)
@@ -387,10 +393,6 @@ public class PaymentService {
         }
     }
 
-    private String generateTransactionId() {
-        return "TXN" + System.currentTimeMillis() + "-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-    }
-
     private String hmacSHA512(String key, String data) {
         try {
             Mac mac = Mac.getInstance("HmacSHA512");
@@ -490,7 +492,7 @@ public class PaymentService {
 
         if ("00".equals(responseCode)) {
             payment.markAsSuccess(params.get("vnp_TransactionNo"));
-            payment.getOrder().setStatus(com.kidsfashion.entity.enums.OrderStatus.PAID);
+            markOrderPaid(payment.getOrder());
         } else {
             payment.markAsFailed("VNPay response code: " + responseCode);
         }
@@ -513,7 +515,7 @@ public class PaymentService {
 
         if (resultCode != null && resultCode == 0) {
             payment.markAsSuccess((String) params.get("transId"));
-            payment.getOrder().setStatus(com.kidsfashion.entity.enums.OrderStatus.PAID);
+            markOrderPaid(payment.getOrder());
         } else {
             payment.markAsFailed("MoMo result code: " + resultCode);
         }
@@ -521,4 +523,19 @@ public class PaymentService {
         payment = paymentRepository.save(payment);
         return mapToPaymentResponse(payment);
     }
+
+    private void markOrderPaid(Order order) {
+        // Check the status under a row lock, so the expiry job cannot cancel the order between this check
+        // and the update. A refresh would also discard the payment's unsaved changes through the cascade.
+        OrderStatus previousStatus = orderRepository.lockStatusById(order.getId())
+                .map(OrderStatus::valueOf)
+                .orElseThrow(() -> new EntityNotFoundException("Order not found"));
+        if (previousStatus == OrderStatus.CANCELLED) {
+            // Paid after the payment window expired: the stock is released, so the payment needs a refund
+            log.warn("Payment received for cancelled order {}, refund required", order.getOrderCode());
+            return;
+        }
+        order.setStatus(OrderStatus.PAID);
+        outboxService.publishOrderEvent(OutboxService.ORDER_PAID, order, previousStatus);
+    }
 }
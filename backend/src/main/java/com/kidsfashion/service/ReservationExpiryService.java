@@ -0,0 +1,203 @@
+package com.kidsfashion.service;
+
+import com.kidsfashion.entity.Order;
+import com.kidsfashion.entity.enums.OrderStatus;
+import com.kidsfashion.entity.enums.PaymentStatus;
+import com.kidsfashion.repository.OrderItemRepository;
+import com.kidsfashion.repository.OrderRepository;
+import com.kidsfashion.repository.PaymentRepository;
+import com.kidsfashion.util.TimerWheel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cancels online-payment orders (VNPay, MoMo, Stripe) that are not paid within the payment
+ * window and releases the stock they reserved.
+ *
+ * Pending orders sit in an in-memory timer wheel keyed by order id, filled from the database at
+ * startup and topped up periodically with orders created on other nodes. Expired orders are
+ * cancelled in batches: one locking SELECT, one stock release per variant, one UPDATE each for
+ * orders and payments. Every node runs the same wheel; the rows are claimed with
+ * FOR UPDATE SKIP LOCKED and re-checked for PENDING, so each order is cancelled exactly once.
+ */
+@Slf4j
+@Service
+public class ReservationExpiryService {
+
+    private static final String EXPIRED_REASON = "Payment window expired";
+    private static final long RETRY_DELAY_MS = 30_000;
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final PaymentRepository paymentRepository;
+    private final InventoryService inventoryService;
+    private final OutboxService outboxService;
+    private final TransactionTemplate transactionTemplate;
+
+    // One-second ticks, 64 buckets per level: 64 s, ~68 min, ~3 days, then the overflow set
+    private final TimerWheel<Long> wheel = new TimerWheel<>(1000, 6, 3, System.currentTimeMillis());
+
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong alreadySettled = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+
+    @Value("${checkout.payment-expiry.enabled:true}")
+    private boolean enabled;
+
+    @Value("${checkout.payment-expiry.payment-window-minutes:30}")
+    private long paymentWindowMinutes;
+
+    @Value("${checkout.payment-expiry.batch-size:200}")
+    private int batchSize;
+
+    public ReservationExpiryService(OrderRepository orderRepository,
+                                    OrderItemRepository orderItemRepository,
+                                    PaymentRepository paymentRepository,
+                                    InventoryService inventoryService,
+                                    OutboxService outboxService,
+                                    PlatformTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.paymentRepository = paymentRepository;
+        this.inventoryService = inventoryService;
+        this.outboxService = outboxService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Start the payment window of a new order once its transaction commits. COD orders are not tracked.
+     */
+    public void track(Order order) {
+        if (!enabled || "COD".equals(order.getPaymentMethod())) {
+            return;
+        }
+        Long orderId = order.getId();
+        long deadline = deadline(order.getCreatedAt() != null ? order.getCreatedAt() : LocalDateTime.now());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            wheel.schedule(orderId, deadline);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                wheel.schedule(orderId, deadline);
+            }
+        });
+    }
+
+    // Load every order awaiting payment, including those created on other nodes since the last run
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${checkout.payment-expiry.resync-interval-ms:300000}",
+            fixedDelayString = "${checkout.payment-expiry.resync-interval-ms:300000}")
+    public void resync() {
+        if (!enabled) {
+            return;
+        }
+        List<Object[]> pending = transactionTemplate.execute(status ->
+                orderRepository.findAwaitingPayment(OrderStatus.PENDING));
+        int added = 0;
+        for (Object[] row : pending) {
+            Long orderId = (Long) row[0];
+            if (!wheel.contains(orderId)) {
+                wheel.schedule(orderId, deadline((LocalDateTime) row[1]));
+                added++;
+            }
+        }
+        if (added > 0) {
+            log.info("Tracking {} more orders awaiting payment ({} in total)", added, wheel.size());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${checkout.payment-expiry.tick-ms:1000}")
+    public void expireDue() {
+        if (!enabled) {
+            return;
+        }
+        List<Long> due = wheel.advance(System.currentTimeMillis());
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<Long> batch = due.subList(from, Math.min(from + batchSize, due.size()));
+            try {
+                expire(batch);
+            } catch (RuntimeException e) {
+                log.warn("Failed to expire {} unpaid orders, retrying later: {}", batch.size(), e.getMessage());
+                retryLater(batch);
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("paymentWindowMinutes", paymentWindowMinutes);
+        stats.put("tracked", wheel.size());
+        stats.put("expired", expired.get());
+        stats.put("alreadySettled", alreadySettled.get());
+        stats.put("retried", retried.get());
+        return stats;
+    }
+
+    private void expire(List<Long> orderIds) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> cancelled = transactionTemplate.execute(status -> {
+            List<Object[]> rows = orderRepository.lockUnpaidCreatedBefore(orderIds,
+                    now.minusMinutes(paymentWindowMinutes));
+            if (rows.isEmpty()) {
+                return List.of();
+            }
+            List<Long> ids = rows.stream().map(row -> ((Number) row[0]).longValue()).toList();
+
+            Map<Long, Integer> quantities = new TreeMap<>();
+            for (Object[] row : orderItemRepository.sumQuantityByVariant(ids)) {
+                quantities.merge((Long) row[0], ((Number) row[1]).intValue(), Integer::sum);
+            }
+            inventoryService.releaseAll(quantities);
+            orderRepository.cancelExpired(ids, OrderStatus.PENDING, OrderStatus.CANCELLED, EXPIRED_REASON, now);
+            paymentRepository.cancelByOrderIdIn(ids, PaymentStatus.PENDING, PaymentStatus.CANCELLED);
+            for (Object[] row : rows) {
+                outboxService.publishOrderEvent(OutboxService.ORDER_CANCELLED, ((Number) row[0]).longValue(),
+                        (String) row[1], row[2] == null ? null : ((Number) row[2]).longValue(),
+                        OrderStatus.CANCELLED, OrderStatus.PENDING, (BigDecimal) row[3]);
+            }
+            return ids;
+        });
+        expired.addAndGet(cancelled.size());
+        if (!cancelled.isEmpty()) {
+            log.info("Cancelled {} orders not paid within {} minutes", cancelled.size(), paymentWindowMinutes);
+        }
+
+        // The rest were paid or cancelled meanwhile, or are locked by a payment or another node right now
+        List<Long> rest = new ArrayList<>(orderIds);
+        rest.removeAll(cancelled);
+        if (rest.isEmpty()) {
+            return;
+        }
+        List<Long> stillPending = transactionTemplate.execute(status ->
+                orderRepository.findIdsByIdInAndStatus(rest, OrderStatus.PENDING));
+        alreadySettled.addAndGet(rest.size() - stillPending.size());
+        retryLater(stillPending);
+    }
+
+    private void retryLater(List<Long> orderIds) {
+        long retryAt = System.currentTimeMillis() + RETRY_DELAY_MS;
+        orderIds.forEach(orderId -> wheel.schedule(orderId, retryAt));
+        retried.addAndGet(orderIds.size());
+    }
+
+    private long deadline(LocalDateTime createdAt) {
+        return Timestamp.valueOf(createdAt.plusMinutes(paymentWindowMinutes)).getTime();
+    }
+}
@@ -0,0 +1,254 @@
+package com.kidsfashion.service;
+
+import com.kidsfashion.dto.response.ReservationDriftResponse;
+import com.kidsfashion.dto.response.ReservationDriftResponse.Action;
+import com.kidsfashion.dto.response.ReservationReconcileResponse;
+import com.kidsfashion.entity.enums.MovementType;
+import com.kidsfashion.entity.enums.OrderStatus;
+import com.kidsfashion.repository.InventoryRepository;
+import com.kidsfashion.repository.OrderItemRepository;
+import com.kidsfashion.service.InventoryLedgerService.Movement;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Brings inventory.reserved_quantity back in line with the orders that actually hold stock.
+ *
+ * Expected reservations come from one aggregate over the order items of open orders. The
+ * inventory table is then read in variant id chunks without locks and compared in memory.
+ * Drifted variants of a chunk are fixed in one short transaction: their rows are locked with
+ * SKIP LOCKED, so rows a checkout is holding are left for the next run, the expected figures
+ * are recomputed under the lock and the corrections go out as one JDBC batch.
+ * Only reserved stock is corrected, never the on-hand quantity. Hot-SKU variants keep their
+ * reservations in slots and are reported only.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReservationReconcileService {
+
+    // Reserved at checkout, deducted when the order ships, released on cancellation
+    public static final Set<OrderStatus> HOLDING_STATUSES = EnumSet.of(OrderStatus.PENDING,
+            OrderStatus.CONFIRMED, OrderStatus.PAID, OrderStatus.PROCESSING);
+    private static final int MAX_REPORTED_DRIFTS = 200;
+    private static final String CORRECT_SQL =
+            "UPDATE inventory SET reserved_quantity = ?, updated_at = ? WHERE variant_id = ?";
+
+    private final InventoryRepository inventoryRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final LowStockService lowStockService;
+    private final InventoryLedgerService inventoryLedgerService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile ReservationReconcileResponse lastRun;
+
+    @Value("${inventory.reservation-reconcile.enabled:true}")
+    private boolean enabled;
+
+    @Value("${inventory.reservation-reconcile.dry-run:false}")
+    private boolean scheduledDryRun;
+
+    @Value("${inventory.reservation-reconcile.chunk-size:500}")
+    private int chunkSize;
+
+    @Scheduled(cron = "${inventory.reservation-reconcile.cron:0 40 2 * * *}")
+    public void scheduledReconcile() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            reconcile(scheduledDryRun);
+        } catch (IllegalStateException e) {
+            log.info("Skipping scheduled reservation reconciliation: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Compare every variant's reserved stock with its open orders, and correct the drift unless
+     * {@code dryRun} is set. A dry run reads without locks, so it may list a checkout in flight.
+     */
+    public ReservationReconcileResponse reconcile(boolean dryRun) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Reservation reconciliation is already running");
+        }
+        try {
+            Run run = new Run(dryRun);
+            Map<Long, Integer> expected = transactionTemplate.execute(status ->
+                    toQuantities(orderItemRepository.sumQuantityByVariantAndOrderStatus(HOLDING_STATUSES)));
+
+            long afterVariantId = 0;
+            List<Object[]> chunk;
+            do {
+                long after = afterVariantId;
+                chunk = transactionTemplate.execute(status -> inventoryRepository.findReservationsAfter(after, chunkSize));
+                Map<Long, Integer> drifted = new TreeMap<>();
+                for (Object[] row : chunk) {
+                    Long variantId = ((Number) row[0]).longValue();
+                    int reserved = toInt(row[1]) + toInt(row[2]);
+                    int held = expected.getOrDefault(variantId, 0);
+                    run.variantsChecked++;
+                    if (reserved == held) {
+                        continue;
+                    }
+                    if (toInt(row[3]) > 0) {
+                        run.record(variantId, reserved, held, Action.SHARDED);
+                    } else if (dryRun) {
+                        run.record(variantId, reserved, held, Action.REPORTED);
+                    } else {
+                        drifted.put(variantId, reserved);
+                    }
+                }
+                if (!drifted.isEmpty()) {
+                    try {
+                        correct(drifted, run);
+                    } catch (RuntimeException e) {
+                        log.warn("Failed to correct reservations of {} variants, leaving them for the next run: {}",
+                                drifted.size(), e.getMessage());
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    afterVariantId = ((Number) chunk.get(chunk.size() - 1)[0]).longValue();
+                }
+            } while (chunk.size() == chunkSize);
+
+            ReservationReconcileResponse result = run.toResponse();
+            lastRun = result;
+            if (result.getDrifted() > 0) {
+                log.info("Reservation reconciliation{}: {} of {} variants drifted, {} corrected ({} units), {} locked",
+                        dryRun ? " (dry run)" : "", result.getDrifted(), result.getVariantsChecked(),
+                        result.getCorrected(), result.getUnitsCorrected(), result.getSkippedLocked());
+            }
+            return result;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public ReservationReconcileResponse getLastRun() {
+        return lastRun;
+    }
+
+    // One short transaction per chunk; the expected figures are re-read once the rows are locked
+    private void correct(Map<Long, Integer> drifted, Run run) {
+        List<ReservationDriftResponse> outcomes = transactionTemplate.execute(status -> {
+            List<Object[]> locked = inventoryRepository.lockReservationsSkipLocked(drifted.keySet());
+            Map<Long, Integer> reserved = new TreeMap<>();
+            for (Object[] row : locked) {
+                reserved.put(((Number) row[0]).longValue(), toInt(row[1]));
+            }
+            Map<Long, Integer> held = reserved.isEmpty() ? Map.of()
+                    : toQuantities(orderItemRepository.sumQuantityByVariantAndOrderStatus(HOLDING_STATUSES,
+                            reserved.keySet()));
+
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object[]> updates = new ArrayList<>();
+            List<ReservationDriftResponse> results = new ArrayList<>();
+            drifted.forEach((variantId, seen) -> {
+                Integer current = reserved.get(variantId);
+                if (current == null) {
+                    results.add(drift(variantId, seen, null, Action.SKIPPED_LOCKED));
+                    return;
+                }
+                int expected = held.getOrDefault(variantId, 0);
+                // Equal again means a checkout or cancellation settled it since the chunk was read
+                if (current != expected) {
+                    updates.add(new Object[]{expected, now, variantId});
+                    results.add(drift(variantId, current, expected, Action.CORRECTED));
+                }
+            });
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate(CORRECT_SQL, updates);
+                updates.forEach(update -> lowStockService.check((Long) update[2]));
+                inventoryLedgerService.recordAll(results.stream()
+                        .filter(result -> result.getAction() == Action.CORRECTED)
+                        .map(result -> new Movement(result.getVariantId(), MovementType.ADJUST, 0,
+                                result.getExpected() - result.getReserved()))
+                        .toList());
+            }
+            return results;
+        });
+        outcomes.forEach(run::record);
+    }
+
+    private static ReservationDriftResponse drift(Long variantId, int reserved, Integer expected, Action action) {
+        return ReservationDriftResponse.builder()
+                .variantId(variantId)
+                .reserved(reserved)
+                .expected(expected)
+                .action(action)
+                .build();
+    }
+
+    private Map<Long, Integer> toQuantities(List<Object[]> rows) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (Object[] row : rows) {
+            quantities.put(((Number) row[0]).longValue(), toInt(row[1]));
+        }
+        return quantities;
+    }
+
+    private int toInt(Object value) {
+        return value == null ? 0 : ((Number) value).intValue();
+    }
+
+    // Tally of one run
+    private static class Run {
+
+        private final boolean dryRun;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final List<ReservationDriftResponse> drifts = new ArrayList<>();
+        private int variantsChecked;
+        private int drifted;
+        private int corrected;
+        private int skippedLocked;
+        private long unitsCorrected;
+
+        private Run(boolean dryRun) {
+            this.dryRun = dryRun;
+        }
+
+        private void record(Long variantId, int reserved, int expected, Action action) {
+            record(drift(variantId, reserved, expected, action));
+        }
+
+        private void record(ReservationDriftResponse drift) {
+            drifted++;
+            if (drift.getAction() == Action.CORRECTED) {
+                corrected++;
+                unitsCorrected += Math.abs(drift.getReserved() - drift.getExpected());
+            } else if (drift.getAction() == Action.SKIPPED_LOCKED) {
+                skippedLocked++;
+            }
+            if (drifts.size() < MAX_REPORTED_DRIFTS) {
+                drifts.add(drift);
+            }
+        }
+
+        private ReservationReconcileResponse toResponse() {
+            return ReservationReconcileResponse.builder()
+                    .dryRun(dryRun)
+                    .variantsChecked(variantsChecked)
+                    .drifted(drifted)
+                    .corrected(corrected)
+                    .skippedLocked(skippedLocked)
+                    .unitsCorrected(unitsCorrected)
+                    .drifts(drifts)
+                    .driftsTruncated(drifted > drifts.size())
+                    .startedAt(startedAt)
+                    .finishedAt(LocalDateTime.now())
+                    .build();
+        }
+    }
+}
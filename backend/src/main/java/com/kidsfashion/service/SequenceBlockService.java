@@ -0,0 +1,103 @@
+package com.kidsfashion.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Named sequences served from memory.
+ *
+ * Each node leases a block of values from the sequence_blocks table and hands them out
+ * without touching the database until the block runs out. Blocks never overlap across
+ * nodes; values left in a block when a node stops are skipped, so sequences can have gaps.
+ *
+ * Leases are taken inside checkout and payment transactions that already hold a connection,
+ * so they run on a small pool of their own: borrowing a second connection from the main pool
+ * deadlocks once every pooled connection belongs to a caller waiting for the same lease.
+ */
+@Slf4j
+@Service
+public class SequenceBlockService {
+
+    // A new sequence starts at the first value; returns the first value of the leased block
+    private static final String LEASE_SQL = "INSERT INTO sequence_blocks (name, next_value, updated_at) " +
+            "VALUES (?, ? + ?, NOW()) " +
+            "ON CONFLICT (name) DO UPDATE SET next_value = sequence_blocks.next_value + ?, " +
+            "updated_at = NOW() RETURNING next_value - ?";
+
+    private final HikariDataSource leaseDataSource;
+    private final JdbcTemplate leaseJdbcTemplate;
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    @Value("${sequence.block-size:50}")
+    private long blockSize;
+
+    public SequenceBlockService(DataSourceProperties dataSourceProperties,
+                                @Value("${sequence.lease-pool-size:2}") int leasePoolSize) {
+        this.leaseDataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        this.leaseDataSource.setPoolName("sequence-lease");
+        this.leaseDataSource.setMaximumPoolSize(leasePoolSize);
+        this.leaseDataSource.setMinimumIdle(0);
+        // Each lease is one auto-committed statement: a rolled-back caller must not hand the same block out twice
+        this.leaseJdbcTemplate = new JdbcTemplate(leaseDataSource);
+    }
+
+    /**
+     * Next value of the sequence.
+     *
+     * @param firstValue start of a sequence that does not exist yet; only consulted on this node's first lease
+     */
+    public long next(String name, LongSupplier firstValue) {
+        return blocks.computeIfAbsent(name, Block::new).next(firstValue);
+    }
+
+    public long next(String name) {
+        return next(name, () -> 1L);
+    }
+
+    /**
+     * Forget a sequence that is no longer used on this node (e.g. yesterday's order codes).
+     */
+    public void discard(String name) {
+        blocks.remove(name);
+    }
+
+    @PreDestroy
+    void close() {
+        leaseDataSource.close();
+    }
+
+    private final class Block {
+        private final String name;
+        private long next;
+        private long end;
+        private boolean leased;
+
+        private Block(String name) {
+            this.name = name;
+        }
+
+        private synchronized long next(LongSupplier firstValue) {
+            if (next >= end) {
+                long start = leased ? 1L : firstValue.getAsLong();
+                Long leasedStart = leaseJdbcTemplate.queryForObject(LEASE_SQL, Long.class,
+                        name, start, blockSize, blockSize, blockSize);
+                next = leasedStart;
+                end = leasedStart + blockSize;
+                leased = true;
+                log.debug("Leased {} values of sequence {} starting at {}", blockSize, name, leasedStart);
+            }
+            return next++;
+        }
+    }
+}
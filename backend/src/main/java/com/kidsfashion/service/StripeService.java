@@ -28,7 +28,6 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
 
 @Slf4j
 @Service
@@ -37,6 +36,8 @@ public class StripeService {
 
     private final PaymentRepository paymentRepository;
     private final OrderRepository orderRepository;
+    private final OutboxService outboxService;
+    private final TransactionIdGenerator transactionIdGenerator;
 
     @Value("${payment.stripe.secret-key}")
     private String stripeSecretKey;
@@ -73,6 +74,9 @@ public class StripeService {
     public StripePaymentResponse createPaymentIntent(Long orderId) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new EntityNotFoundException("Order not found: " + orderId));
+        if (order.getStatus() == OrderStatus.CANCELLED) {
+            throw new IllegalStateException("Order has been cancelled: " + order.getCancellationReason());
+        }
 
         // Check if payment already exists
         Payment existingPayment = paymentRepository.findByOrderId(orderId).orElse(null);
@@ -113,7 +117,7 @@ public class StripeService {
                 // Create new payment
                 payment = Payment.builder()
                         .order(order)
-                        .transactionId(generateTransactionId())
+                        .transactionId(transactionIdGenerator.next("STRIPE-"))
                         .gateway(PaymentGateway.STRIPE)
                         .gatewayTransactionId(paymentIntent.getId())
                         .amount(order.getTotalAmount())
@@ -190,7 +194,7 @@ public class StripeService {
             if (payment == null) {
                 payment = Payment.builder()
                         .order(order)
-                        .transactionId(generateTransactionId())
+                        .transactionId(transactionIdGenerator.next("STRIPE-"))
                         .gateway(PaymentGateway.STRIPE)
                         .gatewayTransactionId(session.getId())
                         .amount(order.getTotalAmount())
@@ -270,7 +274,7 @@ public class StripeService {
         
         if (payment != null) {
             payment.markAsSuccess(paymentIntent.getId());
-            payment.getOrder().setStatus(OrderStatus.PAID);
+            markOrderPaid(payment.getOrder());
             paymentRepository.save(payment);
             orderRepository.save(payment.getOrder());
             log.info("Updated payment and order status for: {}", payment.getOrder().getOrderCode());
@@ -313,7 +317,7 @@ public class StripeService {
         
         if (payment != null && session.getPaymentStatus().equals("paid")) {
             payment.markAsSuccess(session.getPaymentIntent());
-            payment.getOrder().setStatus(OrderStatus.PAID);
+            markOrderPaid(payment.getOrder());
             paymentRepository.save(payment);
             orderRepository.save(payment.getOrder());
             log.info("Updated payment and order status for checkout session: {}", session.getId());
@@ -343,7 +347,7 @@ public class StripeService {
                 log.info("Updating payment and order status to SUCCESS/PAID for order: {}", order.getOrderCode());
                 
                 payment.markAsSuccess(paymentIntentId);
-                order.setStatus(OrderStatus.PAID);
+                markOrderPaid(order);
                 
                 paymentRepository.save(payment);
                 orderRepository.save(order);
@@ -367,7 +371,18 @@ public class StripeService {
         }
     }
 
-    private String generateTransactionId() {
-        return "STRIPE-" + System.currentTimeMillis() + "-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    private void markOrderPaid(Order order) {
+        // Check the status under a row lock, so the expiry job cannot cancel the order between this check
+        // and the update. A refresh would also discard the payment's unsaved changes through the cascade.
+        OrderStatus previousStatus = orderRepository.lockStatusById(order.getId())
+                .map(OrderStatus::valueOf)
+                .orElseThrow(() -> new EntityNotFoundException("Order not found"));
+        if (previousStatus == OrderStatus.CANCELLED) {
+            // Paid after the payment window expired: the stock is released, so the payment needs a refund
+            log.warn("Payment received for cancelled order {}, refund required", order.getOrderCode());
+            return;
+        }
+        order.setStatus(OrderStatus.PAID);
+        outboxService.publishOrderEvent(OutboxService.ORDER_PAID, order, previousStatus);
     }
 }
@@ -0,0 +1,25 @@
+package com.kidsfashion.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Generates payment transaction ids (e.g. TXN20260101-00000042) from one shared sequence,
+ * so ids never collide across gateways or nodes.
+ */
+@Service
+@RequiredArgsConstructor
+public class TransactionIdGenerator {
+
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final SequenceBlockService sequenceBlockService;
+
+    public String next(String prefix) {
+        long number = sequenceBlockService.next("transaction-id");
+        return prefix + LocalDate.now().format(DAY_FORMAT) + "-" + String.format("%08d", number);
+    }
+}
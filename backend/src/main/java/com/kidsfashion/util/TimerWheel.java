@@ -0,0 +1,149 @@
+package com.kidsfashion.util;
+
+import java.util.*;
+
+/**
+ * Hierarchical timer wheel: schedule, cancel and expire in amortized constant time per key,
+ * however many keys are pending. Level 0 has one bucket per tick; every higher level has
+ * buckets covering a whole revolution of the level below and is cascaded down when the clock
+ * reaches that bucket.
+ * Deadlines beyond the top level wait in an overflow set.
+ *
+ * Cancelled and rescheduled keys are dropped lazily when their old bucket comes up, so a key
+ * may sit in more than one bucket; the deadline map is the source of truth. Thread-safe.
+ */
+public class TimerWheel<K> {
+
+    private final long tickMillis;
+    private final int bits;
+    private final int mask;
+    private final int levels;
+    private final List<Set<K>> buckets;
+    private final Set<K> overflow = new HashSet<>();
+    private final Set<K> due = new LinkedHashSet<>();
+    private final Map<K, Long> deadlines = new HashMap<>();
+    private long currentTick;
+
+    /**
+     * @param bits    log2 of the buckets per level, e.g. 6 for 64 buckets
+     * @param levels  number of levels; the wheel spans 2^(bits * levels) ticks before the overflow set
+     * @param nowMillis current time, the wheel's starting point
+     */
+    public TimerWheel(long tickMillis, int bits, int levels, long nowMillis) {
+        if (tickMillis <= 0 || bits < 1 || levels < 1 || bits * levels > 62) {
+            throw new IllegalArgumentException("Invalid timer wheel dimensions");
+        }
+        this.tickMillis = tickMillis;
+        this.bits = bits;
+        this.mask = (1 << bits) - 1;
+        this.levels = levels;
+        this.buckets = new ArrayList<>(levels << bits);
+        for (int i = 0; i < levels << bits; i++) {
+            buckets.add(new HashSet<>());
+        }
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * Schedule a key, replacing its previous deadline. A deadline in the past is returned by the next advance.
+     */
+    public synchronized void schedule(K key, long deadlineMillis) {
+        long tick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        deadlines.put(key, tick);
+        place(key, tick);
+    }
+
+    public synchronized boolean cancel(K key) {
+        due.remove(key);
+        return deadlines.remove(key) != null;
+    }
+
+    public synchronized boolean contains(K key) {
+        return deadlines.containsKey(key);
+    }
+
+    public synchronized int size() {
+        return deadlines.size();
+    }
+
+    /**
+     * Move the clock to {@code nowMillis} and return the keys whose deadline has passed, removing them.
+     */
+    public synchronized List<K> advance(long nowMillis) {
+        List<K> expired = new ArrayList<>();
+        collect(due, expired);
+        long target = nowMillis / tickMillis;
+        while (currentTick < target) {
+            currentTick++;
+            if ((currentTick & ((1L << (bits * levels)) - 1)) == 0) {
+                replace(overflow);
+            }
+            // Highest level first, so keys cascading down land in buckets cascaded in this same tick
+            for (int level = levels - 1; level >= 1; level--) {
+                if ((currentTick & ((1L << (bits * level)) - 1)) == 0) {
+                    replace(bucket(level, currentTick));
+                }
+            }
+            collect(bucket(0, currentTick), expired);
+        }
+        // Keys cascaded onto their exact deadline tick
+        collect(due, expired);
+        return expired;
+    }
+
+    private void place(K key, long tick) {
+        if (tick <= currentTick) {
+            due.add(key);
+            return;
+        }
+        // The lowest level whose current revolution still contains the deadline
+        for (int level = 0; level < levels; level++) {
+            int shift = bits * (level + 1);
+            if ((tick >>> shift) == (currentTick >>> shift)) {
+                bucket(level, tick).add(key);
+                return;
+            }
+        }
+        overflow.add(key);
+    }
+
+    private Set<K> bucket(int level, long tick) {
+        return buckets.get((level << bits) | (int) ((tick >>> (bits * level)) & mask));
+    }
+
+    // Re-place the keys of a bucket relative to the current tick
+    private void replace(Set<K> bucket) {
+        if (bucket.isEmpty()) {
+            return;
+        }
+        List<K> keys = new ArrayList<>(bucket);
+        bucket.clear();
+        for (K key : keys) {
+            Long tick = deadlines.get(key);
+            if (tick != null) {
+                place(key, tick);
+            }
+        }
+    }
+
+    private void collect(Set<K> bucket, List<K> expired) {
+        if (bucket.isEmpty()) {
+            return;
+        }
+        List<K> keys = new ArrayList<>(bucket);
+        bucket.clear();
+        for (K key : keys) {
+            Long tick = deadlines.get(key);
+            if (tick == null) {
+                continue;
+            }
+            if (tick <= currentTick) {
+                deadlines.remove(key);
+                expired.add(key);
+            } else {
+                // Rescheduled to a later deadline after it was placed here
+                place(key, tick);
+            }
+        }
+    }
+}
@@ -8,6 +8,10 @@
 -- Enable UUID extension (optional, for future use)
 CREATE EXTENSION IF NOT EXISTS "uuid-ossp";
 
+-- Trigram matching and accent folding for admin order search
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
 -- =====================================================
 -- 1. USER MANAGEMENT TABLES
 -- =====================================================
@@ -46,6 +50,8 @@ CREATE TABLE IF NOT EXISTS users (
 CREATE INDEX IF NOT EXISTS idx_users_email ON users(email);
 CREATE INDEX IF NOT EXISTS idx_users_status ON users(status);
 CREATE INDEX IF NOT EXISTS idx_users_phone ON users(phone_number);
+CREATE INDEX IF NOT EXISTS idx_users_created ON users(created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_users_status_created ON users(status, created_at DESC, id DESC);
 
 -- User Roles Junction Table
 CREATE TABLE IF NOT EXISTS user_roles (
@@ -261,7 +267,76 @@ CREATE TABLE IF NOT EXISTS inventory (
 
 CREATE INDEX IF NOT EXISTS idx_inventory_variant ON inventory(variant_id);
 CREATE INDEX IF NOT EXISTS idx_inventory_quantity ON inventory(quantity);
-CREATE INDEX IF NOT EXISTS idx_inventory_low_stock ON inventory(quantity, low_stock_threshold);
+-- Low stock is answered by inventory_low_stock below; a (quantity, threshold) index cannot serve it
+DROP INDEX IF EXISTS idx_inventory_low_stock;
+
+-- Inventory Slots Table (hot-SKU mode: a variant's stock split across counter slots)
+CREATE TABLE IF NOT EXISTS inventory_slots (
+    id BIGSERIAL PRIMARY KEY,
+    variant_id BIGINT NOT NULL REFERENCES product_variants(id) ON DELETE CASCADE,
+    slot_no INTEGER NOT NULL,
+    quantity INTEGER NOT NULL DEFAULT 0 CHECK (quantity >= 0),
+    reserved_quantity INTEGER NOT NULL DEFAULT 0 CHECK (reserved_quantity >= 0 AND reserved_quantity <= quantity),
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE (variant_id, slot_no)
+);
+
+-- Low Stock Set (variants at or below their low-stock threshold, updated by every stock change)
+CREATE TABLE IF NOT EXISTS inventory_low_stock (
+    variant_id BIGINT PRIMARY KEY REFERENCES product_variants(id) ON DELETE CASCADE,
+    level VARCHAR(20) NOT NULL CHECK (level IN ('LOW_STOCK', 'OUT_OF_STOCK')),
+    available INTEGER NOT NULL,
+    threshold INTEGER NOT NULL,
+    since TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_inventory_low_stock_level ON inventory_low_stock(level, available);
+
+-- Stock Alerts (every crossing of a low-stock threshold, read by the admin alert feed)
+CREATE TABLE IF NOT EXISTS stock_alerts (
+    id BIGSERIAL PRIMARY KEY,
+    variant_id BIGINT NOT NULL,
+    level VARCHAR(20) NOT NULL CHECK (level IN ('IN_STOCK', 'LOW_STOCK', 'OUT_OF_STOCK')),
+    previous_level VARCHAR(20) NOT NULL CHECK (previous_level IN ('IN_STOCK', 'LOW_STOCK', 'OUT_OF_STOCK')),
+    available INTEGER NOT NULL,
+    threshold INTEGER NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_stock_alerts_created ON stock_alerts(created_at);
+
+-- Inventory Movements (append-only stock ledger; deltas cover the main row and hot-SKU slots together)
+CREATE TABLE IF NOT EXISTS inventory_movements (
+    id BIGSERIAL PRIMARY KEY,
+    variant_id BIGINT NOT NULL,
+    type VARCHAR(20) NOT NULL CHECK (type IN ('OPENING', 'RESERVE', 'RELEASE', 'DEDUCT', 'RESTOCK', 'ADJUST')),
+    quantity_delta INTEGER NOT NULL,
+    reserved_delta INTEGER NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_inventory_movements_variant ON inventory_movements(variant_id, created_at DESC, id DESC);
+-- Rows arrive in time order, so a BRIN index serves the snapshot job's time ranges at almost no write cost
+CREATE INDEX IF NOT EXISTS idx_inventory_movements_created ON inventory_movements USING BRIN (created_at);
+
+-- Inventory Snapshots (stock per variant as of a point in time, folded from the ledger)
+CREATE TABLE IF NOT EXISTS inventory_snapshots (
+    id BIGSERIAL PRIMARY KEY,
+    variant_id BIGINT NOT NULL,
+    as_of TIMESTAMP NOT NULL,
+    quantity INTEGER NOT NULL,
+    reserved_quantity INTEGER NOT NULL,
+    UNIQUE (variant_id, as_of)
+);
+
+-- Opening balances when the ledger is first created, so it adds up to the current stock
+INSERT INTO inventory_movements (variant_id, type, quantity_delta, reserved_delta)
+SELECT i.variant_id, 'OPENING',
+       i.quantity + COALESCE((SELECT SUM(s.quantity) FROM inventory_slots s WHERE s.variant_id = i.variant_id), 0),
+       i.reserved_quantity + COALESCE((SELECT SUM(s.reserved_quantity) FROM inventory_slots s WHERE s.variant_id = i.variant_id), 0)
+FROM inventory i
+WHERE NOT EXISTS (SELECT 1 FROM inventory_movements);
 
 -- =====================================================
 -- 3. SHOPPING CART TABLES
@@ -284,6 +359,8 @@ CREATE INDEX IF NOT EXISTS idx_carts_user ON carts(user_id);
 CREATE INDEX IF NOT EXISTS idx_carts_session ON carts(session_id);
 CREATE INDEX IF NOT EXISTS idx_carts_status ON carts(status);
 CREATE INDEX IF NOT EXISTS idx_carts_expires ON carts(expires_at);
+-- Cart reaper: finished carts past their retention
+CREATE INDEX IF NOT EXISTS idx_carts_closed ON carts(updated_at) WHERE status IN ('ABANDONED', 'MERGED');
 
 -- Cart Items Table
 CREATE TABLE IF NOT EXISTS cart_items (
@@ -306,6 +383,13 @@ CREATE INDEX IF NOT EXISTS idx_cart_items_variant ON cart_items(variant_id);
 -- Sequence for order code generation
 CREATE SEQUENCE IF NOT EXISTS order_code_seq START 1;
 
+-- Sequence Blocks Table (order codes and transaction ids are leased to each node in blocks)
+CREATE TABLE IF NOT EXISTS sequence_blocks (
+    name VARCHAR(50) PRIMARY KEY,
+    next_value BIGINT NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
 -- Orders Table
 CREATE TABLE IF NOT EXISTS orders (
     id BIGSERIAL PRIMARY KEY,
@@ -313,7 +397,8 @@ CREATE TABLE IF NOT EXISTS orders (
     user_id BIGINT REFERENCES users(id) ON DELETE SET NULL,
     guest_email VARCHAR(255),
     status VARCHAR(20) NOT NULL DEFAULT 'PENDING' 
-        CHECK (status IN ('PENDING', 'PAID', 'PROCESSING', 'SHIPPING', 'COMPLETED', 'CANCELLED')),
+        CONSTRAINT orders_status_check CHECK (status IN ('PENDING', 'CONFIRMED', 'PAID', 'PROCESSING',
+            'SHIPPED', 'SHIPPING', 'DELIVERED', 'COMPLETED', 'CANCELLED')),
     recipient_name VARCHAR(150) NOT NULL,
     recipient_phone VARCHAR(20) NOT NULL,
     shipping_province VARCHAR(100) NOT NULL,
@@ -336,11 +421,23 @@ CREATE TABLE IF NOT EXISTS orders (
     CONSTRAINT chk_order_customer CHECK (user_id IS NOT NULL OR guest_email IS NOT NULL)
 );
 
-CREATE INDEX IF NOT EXISTS idx_orders_code ON orders(order_code);
+-- Every OrderStatus value; databases created before CONFIRMED, SHIPPED and DELIVERED get the wider check
+ALTER TABLE orders DROP CONSTRAINT IF EXISTS orders_status_check;
+ALTER TABLE orders ADD CONSTRAINT orders_status_check CHECK (status IN ('PENDING', 'CONFIRMED', 'PAID',
+    'PROCESSING', 'SHIPPED', 'SHIPPING', 'DELIVERED', 'COMPLETED', 'CANCELLED'));
+
+-- Exact order code lookups use the UNIQUE constraint's index; idx_orders_code_prefix below serves prefixes
+DROP INDEX IF EXISTS idx_orders_code;
 CREATE INDEX IF NOT EXISTS idx_orders_user ON orders(user_id);
 CREATE INDEX IF NOT EXISTS idx_orders_status ON orders(status);
 CREATE INDEX IF NOT EXISTS idx_orders_created ON orders(created_at);
 CREATE INDEX IF NOT EXISTS idx_orders_guest_email ON orders(guest_email);
+-- Admin order list: newest first within a status
+CREATE INDEX IF NOT EXISTS idx_orders_status_created ON orders(status, created_at DESC, id DESC);
+-- Revenue rollup backfill scans completed orders by completion time
+CREATE INDEX IF NOT EXISTS idx_orders_completed ON orders(completed_at) WHERE status = 'COMPLETED';
+-- Order code prefix search (LIKE 'ORD-2024%')
+CREATE INDEX IF NOT EXISTS idx_orders_code_prefix ON orders(order_code text_pattern_ops);
 
 -- Order Items Table
 CREATE TABLE IF NOT EXISTS order_items (
@@ -361,6 +458,51 @@ CREATE TABLE IF NOT EXISTS order_items (
 CREATE INDEX IF NOT EXISTS idx_order_items_order ON order_items(order_id);
 CREATE INDEX IF NOT EXISTS idx_order_items_variant ON order_items(variant_id);
 
+-- Orders Archive Table (completed/cancelled orders past the archive horizon)
+-- Range-partitioned by month of created_at; the archival job creates orders_archive_yYYYYmMM
+-- partitions as needed. Each row keeps the full order (items and payment) as one JSONB document.
+CREATE TABLE IF NOT EXISTS orders_archive (
+    id BIGINT NOT NULL,
+    order_code VARCHAR(30) NOT NULL,
+    user_id BIGINT,
+    guest_email VARCHAR(255),
+    status VARCHAR(20) NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    document JSONB NOT NULL,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE INDEX IF NOT EXISTS idx_orders_archive_code ON orders_archive(order_code, created_at);
+CREATE INDEX IF NOT EXISTS idx_orders_archive_user ON orders_archive(user_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_orders_archive_guest ON orders_archive(guest_email, created_at DESC, id DESC);
+
+-- Daily Sales Rollup Table (revenue of completed orders by completion day)
+-- dimension: TOTAL (key ''), PAYMENT_METHOD (method), BRAND (brand id), CATEGORY (category id)
+CREATE TABLE IF NOT EXISTS daily_sales (
+    id BIGSERIAL PRIMARY KEY,
+    sales_date DATE NOT NULL,
+    dimension VARCHAR(20) NOT NULL
+        CHECK (dimension IN ('TOTAL', 'PAYMENT_METHOD', 'BRAND', 'CATEGORY')),
+    dimension_key VARCHAR(50) NOT NULL DEFAULT '',
+    order_count INTEGER NOT NULL DEFAULT 0,
+    items_sold INTEGER NOT NULL DEFAULT 0,
+    revenue DECIMAL(16, 2) NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_daily_sales UNIQUE (sales_date, dimension, dimension_key)
+);
+
+CREATE INDEX IF NOT EXISTS idx_daily_sales_dimension ON daily_sales(dimension, sales_date);
+
+-- Orders currently counted in daily_sales, so rollup updates are applied exactly once
+CREATE TABLE IF NOT EXISTS daily_sales_orders (
+    order_id BIGINT PRIMARY KEY,
+    sales_date DATE NOT NULL,
+    counted_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_daily_sales_orders_date ON daily_sales_orders(sales_date);
+
 -- =====================================================
 -- 5. PAYMENT TABLES
 -- =====================================================
@@ -393,6 +535,42 @@ CREATE INDEX IF NOT EXISTS idx_payments_gateway_txn ON payments(gateway_transact
 CREATE INDEX IF NOT EXISTS idx_payments_status ON payments(status);
 CREATE INDEX IF NOT EXISTS idx_payments_gateway ON payments(gateway);
 
+-- Outbox Events Table (order lifecycle events, written in the same transaction as the change)
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id BIGSERIAL PRIMARY KEY,
+    aggregate_type VARCHAR(50) NOT NULL,
+    aggregate_id BIGINT NOT NULL,
+    event_type VARCHAR(50) NOT NULL,
+    payload TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING'
+        CHECK (status IN ('PENDING', 'DELIVERED', 'FAILED')),
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error VARCHAR(1000),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    delivered_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_outbox_pending ON outbox_events(next_attempt_at, id) WHERE status = 'PENDING';
+CREATE INDEX IF NOT EXISTS idx_outbox_aggregate ON outbox_events(aggregate_type, aggregate_id, id) WHERE status = 'PENDING';
+CREATE INDEX IF NOT EXISTS idx_outbox_delivered ON outbox_events(delivered_at) WHERE status = 'DELIVERED';
+
+-- Idempotency Keys Table (stored responses for retried order/payment requests)
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    id BIGSERIAL PRIMARY KEY,
+    scope VARCHAR(150) NOT NULL,
+    idem_key VARCHAR(100) NOT NULL,
+    request_hash VARCHAR(64) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'IN_PROGRESS'
+        CHECK (status IN ('IN_PROGRESS', 'COMPLETED')),
+    response_body TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL,
+    UNIQUE (scope, idem_key)
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_expires ON idempotency_keys(expires_at);
+
 -- =====================================================
 -- 6. FUNCTIONS AND TRIGGERS
 -- =====================================================
@@ -442,6 +620,11 @@ CREATE TRIGGER trigger_inventory_updated_at
     BEFORE UPDATE ON inventory
     FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
 
+DROP TRIGGER IF EXISTS trigger_inventory_slots_updated_at ON inventory_slots;
+CREATE TRIGGER trigger_inventory_slots_updated_at
+    BEFORE UPDATE ON inventory_slots
+    FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
+
 DROP TRIGGER IF EXISTS trigger_carts_updated_at ON carts;
 CREATE TRIGGER trigger_carts_updated_at
     BEFORE UPDATE ON carts
@@ -478,6 +661,25 @@ CREATE TRIGGER trigger_generate_order_code
     BEFORE INSERT ON orders
     FOR EACH ROW EXECUTE FUNCTION generate_order_code();
 
+-- Search normalization; IMMUTABLE so they can back expression indexes
+-- Lowercase and strip accents: 'Nguyễn Văn Đức' -> 'nguyen van duc'
+CREATE OR REPLACE FUNCTION search_normalize_text(TEXT)
+RETURNS TEXT AS $$
+    SELECT lower(public.unaccent('public.unaccent'::regdictionary, $1))
+$$ LANGUAGE sql IMMUTABLE STRICT PARALLEL SAFE;
+
+-- Digits only, +84 country code folded to the local leading 0: '+84 912-345-678' -> '0912345678'
+CREATE OR REPLACE FUNCTION search_normalize_phone(TEXT)
+RETURNS TEXT AS $$
+    SELECT regexp_replace(regexp_replace($1, '[^0-9]', '', 'g'), '^84([0-9]{9,10})$', '0\1')
+$$ LANGUAGE sql IMMUTABLE STRICT PARALLEL SAFE;
+
+-- Admin order search: trigram indexes on the normalized name and phone
+CREATE INDEX IF NOT EXISTS idx_orders_search_name
+    ON orders USING gin (search_normalize_text(recipient_name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_orders_search_phone
+    ON orders USING gin (search_normalize_phone(recipient_phone) gin_trgm_ops);
+
 -- =====================================================
 -- 7. SAMPLE DATA
 -- =====================================================
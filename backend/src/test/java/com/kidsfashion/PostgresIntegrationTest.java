@@ -0,0 +1,51 @@
+package com.kidsfashion;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Base for tests that need the real database: row locks, guarded updates and native SQL behave
+ * differently anywhere else. Runs against a Postgres container, or against an existing database
+ * given with {@code -Dtest.database.url=jdbc:postgresql://...} (plus {@code test.database.username}
+ * and {@code test.database.password}). Without Docker or that property the tests are skipped.
+ *
+ * The schema comes from schema.sql, as in production. Tests share one database and create their
+ * own products, carts and orders, so they must not assume an empty table.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public abstract class PostgresIntegrationTest {
+
+    private static final String DATABASE_URL = System.getProperty("test.database.url");
+
+    // Started once and shared by every test class; Testcontainers removes it when the JVM exits
+    private static PostgreSQLContainer<?> postgres;
+
+    @BeforeAll
+    static void startDatabase() {
+        if (DATABASE_URL != null || postgres != null) {
+            return;
+        }
+        assumeTrue(DockerClientFactory.instance().isDockerAvailable(),
+                "Needs Docker, or an existing database given with -Dtest.database.url");
+        postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+        postgres.start();
+    }
+
+    @DynamicPropertySource
+    static void databaseProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url",
+                () -> DATABASE_URL != null ? DATABASE_URL : postgres.getJdbcUrl());
+        registry.add("spring.datasource.username",
+                () -> DATABASE_URL != null ? System.getProperty("test.database.username", "postgres") : postgres.getUsername());
+        registry.add("spring.datasource.password",
+                () -> DATABASE_URL != null ? System.getProperty("test.database.password", "") : postgres.getPassword());
+    }
+}
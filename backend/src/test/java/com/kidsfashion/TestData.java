@@ -0,0 +1,104 @@
+package com.kidsfashion;
+
+import com.kidsfashion.dto.request.CreateOrderRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Rows for integration tests, written with plain SQL so a test depends only on the schema and
+ * on the service it exercises. Names and SKUs get a random suffix, so tests never collide with
+ * each other or with data already in the database.
+ */
+public class TestData {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TestData(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public static String unique(String prefix) {
+        return prefix + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    public Integer brand() {
+        String name = unique("brand");
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO brands (name, slug) VALUES (?, ?) RETURNING id", Integer.class, name, name);
+    }
+
+    public Integer category() {
+        String name = unique("category");
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO categories (name, slug) VALUES (?, ?) RETURNING id", Integer.class, name, name);
+    }
+
+    public Long product(Integer brandId, BigDecimal price, Integer... categoryIds) {
+        String sku = unique("P");
+        Long productId = jdbcTemplate.queryForObject(
+                "INSERT INTO products (sku, name, slug, base_price, brand_id) VALUES (?, ?, ?, ?, ?) RETURNING id",
+                Long.class, sku, "Test product " + sku, sku.toLowerCase(), price, brandId);
+        for (Integer categoryId : categoryIds) {
+            jdbcTemplate.update("INSERT INTO product_categories (product_id, category_id) VALUES (?, ?)",
+                    productId, categoryId);
+        }
+        return productId;
+    }
+
+    /**
+     * A variant of the product with the given stock, one per product (the first size and colour).
+     */
+    public Long variant(Long productId, int stock) {
+        Long variantId = jdbcTemplate.queryForObject(
+                "INSERT INTO product_variants (product_id, size_id, color_id, sku_variant) " +
+                        "VALUES (?, (SELECT MIN(id) FROM sizes), (SELECT MIN(id) FROM colors), ?) RETURNING id",
+                Long.class, productId, unique("V"));
+        jdbcTemplate.update("INSERT INTO inventory (variant_id, quantity, reserved_quantity) VALUES (?, ?, 0)",
+                variantId, stock);
+        return variantId;
+    }
+
+    public Long variant(int stock, BigDecimal price) {
+        return variant(product(brand(), price), stock);
+    }
+
+    public Long user() {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO users (email, password_hash, full_name) VALUES (?, 'not-a-hash', 'Test User') RETURNING id",
+                Long.class, unique("user") + "@example.com");
+    }
+
+    /**
+     * An active guest cart holding the items; returns its session id.
+     */
+    public String guestCart(Long variantId, int quantity) {
+        String sessionId = unique("test-session");
+        Long cartId = jdbcTemplate.queryForObject(
+                "INSERT INTO carts (session_id, status, expires_at) VALUES (?, 'ACTIVE', NOW() + INTERVAL '7 days') RETURNING id",
+                Long.class, sessionId);
+        jdbcTemplate.update("INSERT INTO cart_items (cart_id, variant_id, quantity) VALUES (?, ?, ?)",
+                cartId, variantId, quantity);
+        return sessionId;
+    }
+
+    public int[] stock(Long variantId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT quantity, reserved_quantity FROM inventory WHERE variant_id = ?",
+                (rs, rowNum) -> new int[]{rs.getInt(1), rs.getInt(2)}, variantId);
+    }
+
+    public static CreateOrderRequest guestOrder(String paymentMethod) {
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setGuestEmail(unique("guest") + "@example.com");
+        request.setRecipientName("Test Guest");
+        request.setRecipientPhone("0900000000");
+        request.setShippingProvince("Ha Noi");
+        request.setShippingDistrict("Ba Dinh");
+        request.setShippingWard("Phuc Xa");
+        request.setShippingAddress("1 Test Street");
+        request.setPaymentMethod(paymentMethod);
+        return request;
+    }
+}
@@ -0,0 +1,71 @@
+package com.kidsfashion.service;
+
+import com.kidsfashion.PostgresIntegrationTest;
+import com.kidsfashion.TestData;
+import com.kidsfashion.dto.response.AdminOrderListResponse;
+import com.kidsfashion.dto.response.OrderResponse;
+import com.kidsfashion.entity.enums.OrderStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Admin order list totals: exact for date filters and on the last page, estimated otherwise but
+ * never short of a next page.
+ */
+class AdminOrderListTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TestData data;
+
+    @BeforeEach
+    void setUp() {
+        data = new TestData(jdbcTemplate);
+    }
+
+    @Test
+    void dateFilteredTotalIsExact() {
+        Long variantId = data.variant(5, new BigDecimal("100000"));
+        orderService.createOrder(null, data.guestCart(variantId, 1), TestData.guestOrder("COD"));
+        LocalDateTime from = LocalDate.now().atStartOfDay();
+        LocalDateTime to = from.plusDays(1);
+
+        Page<AdminOrderListResponse> page = orderService.getAdminOrders(null, from, to, 0, 1);
+
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM orders WHERE created_at >= ? AND created_at < ?", Long.class, from, to);
+        assertThat(page.getTotalElements()).isEqualTo(count);
+    }
+
+    @Test
+    void statusTotalIsExactOnTheLastPageAndCoversTheNextPageBefore() {
+        Long variantId = data.variant(5, new BigDecimal("100000"));
+        for (int i = 0; i < 2; i++) {
+            OrderResponse order = orderService.createOrder(null, data.guestCart(variantId, 1), TestData.guestOrder("COD"));
+            orderService.updateOrderStatus(order.getId(), OrderStatus.CONFIRMED);
+        }
+        int confirmed = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM orders WHERE status = 'CONFIRMED'", Integer.class);
+
+        Page<AdminOrderListResponse> whole = orderService.getAdminOrders(OrderStatus.CONFIRMED, null, null, 0, confirmed);
+        Page<AdminOrderListResponse> first = orderService.getAdminOrders(OrderStatus.CONFIRMED, null, null, 0, 1);
+
+        assertThat(whole.getTotalElements()).isEqualTo(confirmed);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(first.getContent()).hasSize(1);
+        assertThat(orderService.getAllOrders(null, 0, 1).getTotalElements()).isGreaterThanOrEqualTo(2);
+    }
+}
@@ -0,0 +1,53 @@
+package com.kidsfashion.service;
+
+import com.kidsfashion.PostgresIntegrationTest;
+import com.kidsfashion.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Merging a guest cart at login clamps each variant to the stock still available and leaves sold
+ * out variants behind.
+ */
+class CartMergeTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TestData data;
+
+    @BeforeEach
+    void setUp() {
+        data = new TestData(jdbcTemplate);
+    }
+
+    @Test
+    void mergeClampsToAvailableStockAndDropsSoldOutVariants() {
+        Long soldOut = data.variant(0, new BigDecimal("100000"));
+        Long scarce = data.variant(3, new BigDecimal("100000"));
+        String sessionId = data.guestCart(soldOut, 2);
+        jdbcTemplate.update("INSERT INTO cart_items (cart_id, variant_id, quantity) " +
+                "SELECT id, ?, 5 FROM carts WHERE session_id = ?", scarce, sessionId);
+        Long userId = data.user();
+
+        cartService.mergeGuestCartToUser(userId, sessionId);
+
+        Map<Long, Integer> merged = jdbcTemplate.queryForList(
+                "SELECT ci.variant_id, ci.quantity FROM cart_items ci JOIN carts c ON c.id = ci.cart_id " +
+                "WHERE c.user_id = ? AND c.status = 'ACTIVE'", userId).stream()
+                .collect(Collectors.toMap(row -> ((Number) row.get("variant_id")).longValue(),
+                        row -> ((Number) row.get("quantity")).intValue()));
+        assertThat(merged).containsExactly(Map.entry(scarce, 3));
+    }
+}
@@ -0,0 +1,120 @@
+package com.kidsfashion.service;
+
+import com.kidsfashion.PostgresIntegrationTest;
+import com.kidsfashion.TestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The reaper abandons expired guest carts and deletes finished carts past their retention, items
+ * first, in chunks of the configured size and no more chunks per run than allowed.
+ */
+class CartReaperServiceTest extends PostgresIntegrationTest {
+
+    private static final int CHUNK_SIZE = 2;
+
+    @Autowired
+    private CartReaperService cartReaperService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TestData data;
+    private Long variantId;
+
+    @BeforeEach
+    void setUp() {
+        data = new TestData(jdbcTemplate);
+        variantId = data.variant(5, new BigDecimal("100000"));
+        ReflectionTestUtils.setField(cartReaperService, "pauseMs", 0L);
+        // Carts left due by other tests would otherwise land in this test's chunks
+        cartReaperService.reap();
+        ReflectionTestUtils.setField(cartReaperService, "chunkSize", CHUNK_SIZE);
+    }
+
+    @AfterEach
+    void restore() {
+        ReflectionTestUtils.setField(cartReaperService, "chunkSize", 500);
+        ReflectionTestUtils.setField(cartReaperService, "pauseMs", 100L);
+        ReflectionTestUtils.setField(cartReaperService, "maxChunksPerRun", 200);
+    }
+
+    @Test
+    void reapsPastRetentionInChunksAndKeepsTheRest() {
+        List<Long> expired = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            expired.add(cart("ABANDONED", 31));
+        }
+        expired.add(cart("MERGED", 8));
+        Long recentlyAbandoned = cart("ABANDONED", 29);
+        Long recentlyMerged = cart("MERGED", 6);
+        Long expiring = jdbcTemplate.queryForObject(
+                "INSERT INTO carts (session_id, status, expires_at) VALUES (?, 'ACTIVE', NOW() - INTERVAL '1 hour') " +
+                "RETURNING id", Long.class, TestData.unique("test-session"));
+
+        Map<String, Object> run = cartReaperService.reap();
+
+        // One abandon chunk, then delete chunks of two, two and one; the short chunk ends the run
+        assertThat(run).containsEntry("abandoned", 1L)
+                .containsEntry("cartsDeleted", 5L)
+                .containsEntry("itemsDeleted", 5L)
+                .containsEntry("chunks", 4)
+                .containsEntry("hitChunkLimit", false);
+        assertThat(existing(expired)).isZero();
+        Integer orphanItems = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM cart_items WHERE cart_id = ANY (?)", Integer.class,
+                (Object) expired.toArray(Long[]::new));
+        assertThat(orphanItems).isZero();
+        assertThat(existing(List.of(recentlyAbandoned, recentlyMerged, expiring))).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM carts WHERE id = ?", String.class, expiring))
+                .isEqualTo("ABANDONED");
+    }
+
+    @Test
+    void stopsAtTheChunkLimitAndLeavesTheRestForTheNextRun() {
+        List<Long> expired = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            expired.add(cart("ABANDONED", 31));
+        }
+        // The abandon step takes one chunk, leaving two for deletion
+        ReflectionTestUtils.setField(cartReaperService, "maxChunksPerRun", 3);
+
+        Map<String, Object> first = cartReaperService.reap();
+
+        assertThat(first).containsEntry("cartsDeleted", 4L).containsEntry("hitChunkLimit", true);
+        assertThat(existing(expired)).isEqualTo(1);
+
+        Map<String, Object> second = cartReaperService.reap();
+
+        assertThat(second).containsEntry("cartsDeleted", 1L).containsEntry("hitChunkLimit", false);
+        assertThat(existing(expired)).isZero();
+    }
+
+    // A finished cart with one item, last updated the given number of days ago; inserted, since the
+    // update trigger would reset updated_at
+    private Long cart(String status, int daysAgo) {
+        Long cartId = jdbcTemplate.queryForObject(
+                "INSERT INTO carts (session_id, status, expires_at, created_at, updated_at) " +
+                "VALUES (?, ?, NOW() - make_interval(days => ?), NOW() - make_interval(days => ?), " +
+                "NOW() - make_interval(days => ?)) RETURNING id",
+                Long.class, TestData.unique("test-session"), status, daysAgo, daysAgo, daysAgo);
+        jdbcTemplate.update("INSERT INTO cart_items (cart_id, variant_id, quantity) VALUES (?, ?, 1)", cartId, variantId);
+        return cartId;
+    }
+
+    private int existing(List<Long> cartIds) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM carts WHERE id = ANY (?)", Integer.class,
+                (Object) cartIds.toArray(Long[]::new));
+    }
+}
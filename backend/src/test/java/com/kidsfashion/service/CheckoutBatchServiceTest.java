@@ -0,0 +1,102 @@
+package com.kidsfashion.service;
+
+import com.kidsfashion.PostgresIntegrationTest;
+import com.kidsfashion.TestData;
+import com.kidsfashion.dto.request.CreateOrderRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Group commit: concurrent checkouts share a transaction, and an order that fails part way
+ * (after reserving stock) is rolled back to its savepoint without failing the batch.
+ */
+@TestPropertySource(properties = {
+        "checkout.group-commit.enabled=true",
+        "checkout.group-commit.window-ms=50"
+})
+class CheckoutBatchServiceTest extends PostgresIntegrationTest {
+
+    private static final int STOCK = 5;
+    private static final int CHECKOUTS = 20;
+
+    @Autowired
+    private CheckoutBatchService checkoutBatchService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TestData data;
+
+    @BeforeEach
+    void setUp() {
+        data = new TestData(jdbcTemplate);
+    }
+
+    @Test
+    void batchesOrdersAndRollsBackOnlyTheFailedOnes() throws Exception {
+        Long variantId = data.variant(STOCK, new BigDecimal("100000"));
+        Long otherVariantId = data.variant(STOCK, new BigDecimal("100000"));
+        List<CreateOrderRequest> requests = new ArrayList<>();
+        List<String> sessions = new ArrayList<>();
+        for (int i = 0; i < CHECKOUTS; i++) {
+            sessions.add(data.guestCart(variantId, 1));
+            requests.add(TestData.guestOrder("COD"));
+        }
+        // Fails after reserving its stock, so only the savepoint can undo the reservation
+        sessions.add(data.guestCart(otherVariantId, 1));
+        CreateOrderRequest withoutEmail = TestData.guestOrder("COD");
+        withoutEmail.setGuestEmail(null);
+        requests.add(withoutEmail);
+        long batchesBefore = (long) checkoutBatchService.getStats().get("batches");
+        long fallbacksBefore = (long) checkoutBatchService.getStats().get("fallbackBatches");
+
+        ExecutorService executor = Executors.newFixedThreadPool(sessions.size());
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger placed = new AtomicInteger();
+        List<String> refusals = new CopyOnWriteArrayList<>();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < sessions.size(); i++) {
+            String sessionId = sessions.get(i);
+            CreateOrderRequest request = requests.get(i);
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    checkoutBatchService.placeOrder(null, sessionId, request);
+                    placed.incrementAndGet();
+                } catch (IllegalArgumentException e) {
+                    refusals.add(e.getMessage());
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        assertThat(placed.get()).isEqualTo(STOCK);
+        assertThat(refusals).hasSize(CHECKOUTS - STOCK + 1).contains("Email is required for guest checkout");
+        assertThat(data.stock(variantId)).containsExactly(STOCK, STOCK);
+        assertThat(data.stock(otherVariantId)).containsExactly(STOCK, 0);
+        Integer ordered = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(quantity), 0) FROM order_items WHERE variant_id = ?", Integer.class, variantId);
+        assertThat(ordered).isEqualTo(STOCK);
+
+        Map<String, Object> stats = checkoutBatchService.getStats();
+        assertThat((long) stats.get("fallbackBatches")).isEqualTo(fallbacksBefore);
+        assertThat((long) stats.get("batches") - batchesBefore).isLessThan(sessions.size());
+    }
+}
@@ -0,0 +1,110 @@
+package com.kidsfashion.service;
+
+import com.kidsfashion.PostgresIntegrationTest;
+import com.kidsfashion.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Many guests checking out the last units of one variant at once: exactly the stock is sold,
+ * every other checkout is refused, and reserved stock never exceeds the stock on hand.
+ */
+class CheckoutConcurrencyTest extends PostgresIntegrationTest {
+
+    private static final int CHECKOUTS = 200;
+    private static final int STOCK = 50;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private InventorySlotService inventorySlotService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TestData data;
+
+    @BeforeEach
+    void setUp() {
+        data = new TestData(jdbcTemplate);
+    }
+
+    @Test
+    void parallelCheckoutsNeverOversell() throws Exception {
+        Long variantId = data.variant(STOCK, new BigDecimal("100000"));
+
+        assertSoldOut(variantId, checkoutInParallel(variantId));
+        assertThat(data.stock(variantId)).containsExactly(STOCK, STOCK);
+    }
+
+    @Test
+    void parallelCheckoutsNeverOversellAHotSku() throws Exception {
+        Long variantId = data.variant(STOCK, new BigDecimal("100000"));
+        inventorySlotService.enable(variantId, 4);
+
+        assertSoldOut(variantId, checkoutInParallel(variantId));
+        Integer slotReserved = jdbcTemplate.queryForObject(
+                "SELECT SUM(reserved_quantity) FROM inventory_slots WHERE variant_id = ?", Integer.class, variantId);
+        assertThat(data.stock(variantId)[1] + slotReserved).isEqualTo(STOCK);
+    }
+
+    private record Outcome(int placed, List<Throwable> refused) {
+    }
+
+    private Outcome checkoutInParallel(Long variantId) throws Exception {
+        List<String> sessions = new ArrayList<>();
+        for (int i = 0; i < CHECKOUTS; i++) {
+            sessions.add(data.guestCart(variantId, 1));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(CHECKOUTS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger placed = new AtomicInteger();
+        List<Throwable> refused = new CopyOnWriteArrayList<>();
+        List<Future<?>> futures = new ArrayList<>();
+        for (String sessionId : sessions) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    orderService.createOrder(null, sessionId, TestData.guestOrder("COD"));
+                    placed.incrementAndGet();
+                } catch (RuntimeException e) {
+                    refused.add(e);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+        return new Outcome(placed.get(), refused);
+    }
+
+    private void assertSoldOut(Long variantId, Outcome outcome) {
+        assertThat(outcome.placed()).isEqualTo(STOCK);
+        assertThat(outcome.refused()).hasSize(CHECKOUTS - STOCK)
+                .allSatisfy(e -> assertThat(e)
+                        .isInstanceOf(IllegalArgumentException.class)
+                        .hasMessageStartingWith("Not enough stock"));
+        Integer oversold = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM inventory WHERE variant_id = ? AND reserved_quantity > quantity",
+                Integer.class, variantId);
+        assertThat(oversold).isZero();
+        Integer ordered = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(quantity), 0) FROM order_items WHERE variant_id = ?", Integer.class, variantId);
+        assertThat(ordered).isEqualTo(STOCK);
+    }
+}
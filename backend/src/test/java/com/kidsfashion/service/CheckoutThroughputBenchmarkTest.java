@@ -0,0 +1,93 @@
+package com.kidsfashion.service;
+
+import com.kidsfashion.PostgresIntegrationTest;
+import com.kidsfashion.TestData;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Orders per second through POST /orders' service path, with and without group commit.
+ * Only runs when asked for; compare the two modes on the same database:
+ *
+ * <pre>
+ * mvn test -Dtest=CheckoutThroughputBenchmarkTest -Dbenchmark=true -Dtest.database.url=...
+ * mvn test -Dtest=CheckoutThroughputBenchmarkTest -Dbenchmark=true -Dtest.database.url=... \
+ *     -Dcheckout.group-commit.enabled=true
+ * </pre>
+ *
+ * Checkout sizes come from benchmark.orders and benchmark.threads.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CheckoutThroughputBenchmarkTest extends PostgresIntegrationTest {
+
+    private static final int VARIANTS = 20;
+    private static final int WARMUP_ORDERS = 200;
+
+    @Autowired
+    private CheckoutBatchService checkoutBatchService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${benchmark.orders:2000}")
+    private int orders;
+
+    @Value("${benchmark.threads:50}")
+    private int threads;
+
+    @Test
+    void ordersPerSecond() throws Exception {
+        TestData data = new TestData(jdbcTemplate);
+        List<Long> variantIds = new ArrayList<>();
+        for (int i = 0; i < VARIANTS; i++) {
+            variantIds.add(data.variant(orders + WARMUP_ORDERS, new BigDecimal("100000")));
+        }
+        List<String> sessions = new ArrayList<>();
+        for (int i = 0; i < orders + WARMUP_ORDERS; i++) {
+            sessions.add(data.guestCart(variantIds.get(i % VARIANTS), 1));
+        }
+
+        checkout(sessions.subList(0, WARMUP_ORDERS));
+        Map<String, Object> before = checkoutBatchService.getStats();
+        long started = System.nanoTime();
+        int placed = checkout(sessions.subList(WARMUP_ORDERS, sessions.size()));
+        long elapsedMs = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        Map<String, Object> after = checkoutBatchService.getStats();
+
+        long batches = (long) after.get("batches") - (long) before.get("batches");
+        log.info("Checkout throughput, group commit {}: {} orders with {} threads in {} ms = {} orders/s, {} batches",
+                after.get("enabled"), placed, threads, elapsedMs, placed * 1000L / elapsedMs, batches);
+        assertThat(placed).isEqualTo(orders);
+    }
+
+    private int checkout(List<String> sessions) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicInteger placed = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (String sessionId : sessions) {
+            futures.add(executor.submit(() -> {
+                checkoutBatchService.placeOrder(null, sessionId, TestData.guestOrder("COD"));
+                placed.incrementAndGet();
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+        return placed.get();
+    }
+}
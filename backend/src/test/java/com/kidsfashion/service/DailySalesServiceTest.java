@@ -0,0 +1,128 @@
+package com.kidsfashion.service;
+
+import com.kidsfashion.PostgresIntegrationTest;
+import com.kidsfashion.TestData;
+import com.kidsfashion.dto.response.OrderResponse;
+import com.kidsfashion.entity.enums.OrderStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A completed order reaches the daily sales rollups of every dimension through the outbox, and
+ * delivering its event again changes nothing.
+ */
+class DailySalesServiceTest extends PostgresIntegrationTest {
+
+    private static final BigDecimal PRICE = new BigDecimal("150000");
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TestData data;
+
+    @BeforeEach
+    void setUp() {
+        data = new TestData(jdbcTemplate);
+    }
+
+    @Test
+    void completedOrderIsCountedOnceInEveryDimension() throws Exception {
+        Integer brandId = data.brand();
+        Integer categoryId = data.category();
+        Long variantId = data.variant(data.product(brandId, PRICE, categoryId), 5);
+        OrderResponse order = orderService.createOrder(null, data.guestCart(variantId, 2), TestData.guestOrder("COD"));
+        LocalDate today = LocalDate.now();
+        Map<String, Object[]> before = rollups(today, brandId, categoryId);
+
+        for (OrderStatus status : List.of(OrderStatus.CONFIRMED, OrderStatus.SHIPPING, OrderStatus.DELIVERED,
+                OrderStatus.COMPLETED)) {
+            orderService.updateOrderStatus(order.getId(), status);
+        }
+        // The completion is the order's last event; the earlier ones are delivered before it
+        Long eventId = jdbcTemplate.queryForObject(
+                "SELECT MAX(id) FROM outbox_events WHERE aggregate_id = ? AND event_type = ?",
+                Long.class, order.getId(), OutboxService.ORDER_STATUS_CHANGED);
+        awaitDelivered(eventId);
+
+        LocalDate salesDate = jdbcTemplate.queryForObject(
+                "SELECT CAST(completed_at AS DATE) FROM orders WHERE id = ?", LocalDate.class, order.getId());
+        assertThat(salesDate).isEqualTo(today);
+        Map<String, Object[]> after = rollups(today, brandId, categoryId);
+        BigDecimal itemsTotal = PRICE.multiply(BigDecimal.valueOf(2)).setScale(2);
+        assertThat(difference(before, after, "TOTAL")).containsExactly(1, 2, order.getTotalAmount().setScale(2));
+        assertThat(difference(before, after, "PAYMENT_METHOD")).containsExactly(1, 2, order.getTotalAmount().setScale(2));
+        assertThat(difference(before, after, "BRAND")).containsExactly(1, 2, itemsTotal);
+        assertThat(difference(before, after, "CATEGORY")).containsExactly(1, 2, itemsTotal);
+
+        // Redeliver the event as a dispatcher outliving its claim would
+        jdbcTemplate.update("UPDATE outbox_events SET status = 'PENDING', delivered_at = NULL, " +
+                "next_attempt_at = created_at WHERE id = ?", eventId);
+        awaitDelivered(eventId);
+
+        Map<String, Object[]> redelivered = rollups(today, brandId, categoryId);
+        for (String dimension : after.keySet()) {
+            assertThat(redelivered.get(dimension)).containsExactly(after.get(dimension));
+        }
+        Integer ledgerRows = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM daily_sales_orders WHERE order_id = ?", Integer.class, order.getId());
+        assertThat(ledgerRows).isEqualTo(1);
+    }
+
+    // order_count, items_sold and revenue per dimension, zero where the day has no row yet
+    private Map<String, Object[]> rollups(LocalDate day, Integer brandId, Integer categoryId) {
+        Map<String, Object[]> rows = new LinkedHashMap<>();
+        rows.put("TOTAL", rollup(day, "TOTAL", ""));
+        rows.put("PAYMENT_METHOD", rollup(day, "PAYMENT_METHOD", "COD"));
+        rows.put("BRAND", rollup(day, "BRAND", String.valueOf(brandId)));
+        rows.put("CATEGORY", rollup(day, "CATEGORY", String.valueOf(categoryId)));
+        return rows;
+    }
+
+    private Object[] rollup(LocalDate day, String dimension, String key) {
+        List<Object[]> rows = jdbcTemplate.query(
+                "SELECT order_count, items_sold, revenue FROM daily_sales " +
+                "WHERE sales_date = ? AND dimension = ? AND dimension_key = ?",
+                (rs, rowNum) -> new Object[]{rs.getInt(1), rs.getInt(2), rs.getBigDecimal(3)},
+                day, dimension, key);
+        return rows.isEmpty() ? new Object[]{0, 0, BigDecimal.ZERO.setScale(2)} : rows.get(0);
+    }
+
+    private Object[] difference(Map<String, Object[]> before, Map<String, Object[]> after, String dimension) {
+        Object[] from = before.get(dimension);
+        Object[] to = after.get(dimension);
+        return new Object[]{(Integer) to[0] - (Integer) from[0], (Integer) to[1] - (Integer) from[1],
+                ((BigDecimal) to[2]).subtract((BigDecimal) from[2])};
+    }
+
+    // The scheduled dispatcher may get to the event first, so wait for whichever run delivers it
+    private void awaitDelivered(Long eventId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            outboxDispatcher.dispatch();
+            String status = jdbcTemplate.queryForObject(
+                    "SELECT status FROM outbox_events WHERE id = ?", String.class, eventId);
+            assertThat(status).isNotEqualTo("FAILED");
+            if ("DELIVERED".equals(status)) {
+                return;
+            }
+            assertThat(System.currentTimeMillis()).as("event %d delivered in time", eventId).isLessThan(deadline);
+            Thread.sleep(100);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.kidsfashion.service;
+
+import com.kidsfashion.service.GuestCartTokenService.CartToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Token encoding and every check a token must pass, on a service built without Spring. Tampered
+ * tokens are built by hand and, unless the test is about the signature, signed with the same key.
+ */
+class GuestCartTokenServiceTest {
+
+    private static final String SECRET = "test-secret";
+    private static final long CART_KEY = 0x1234_5678_9ABC_DEF0L;
+    private static final long TTL_DAYS = 7;
+    private static final int MAX_ITEMS = 50;
+
+    private GuestCartTokenService service;
+
+    @BeforeEach
+    void setUp() {
+        service = service(SECRET);
+    }
+
+    @Test
+    void decodesWhatItEncodes() {
+        Map<Long, Integer> quantities = Map.of(11L, 2, 300_000L, 1);
+
+        String token = service.encode(CART_KEY, quantities);
+
+        assertThat(token).startsWith(GuestCartTokenService.PREFIX);
+        assertThat(service.decode(token)).contains(new CartToken(CART_KEY, quantities));
+    }
+
+    @Test
+    void rejectsOversizedToken() {
+        String token = service.encode(CART_KEY, Map.of(11L, 2));
+
+        ReflectionTestUtils.setField(service, "maxLength", token.length() - 1);
+
+        assertThat(service.decode(token)).isEmpty();
+        assertThatThrownBy(() -> service.encode(CART_KEY, Map.of(11L, 2)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("too large");
+    }
+
+    @Test
+    void encodeRejectsTooManyItems() {
+        assertThatThrownBy(() -> service.encode(CART_KEY, items(MAX_ITEMS + 1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining(String.valueOf(MAX_ITEMS));
+    }
+
+    @Test
+    void decodeRejectsTooManyItems() {
+        assertThat(service.decode(signed(payload(1, now(), items(MAX_ITEMS))))).isPresent();
+        assertThat(service.decode(signed(payload(1, now(), items(MAX_ITEMS + 1))))).isEmpty();
+    }
+
+    @Test
+    void rejectsFlippedPayloadByte() {
+        String token = service.encode(CART_KEY, Map.of(11L, 2));
+        int dot = token.indexOf('.', GuestCartTokenService.PREFIX.length());
+        byte[] payload = Base64.getUrlDecoder().decode(token.substring(GuestCartTokenService.PREFIX.length(), dot));
+        payload[payload.length - 1] ^= 0x01;
+
+        String tampered = GuestCartTokenService.PREFIX + base64(payload) + token.substring(dot);
+
+        assertThat(service.decode(tampered)).isEmpty();
+    }
+
+    @Test
+    void rejectsWrongSignature() {
+        String token = service("another-secret").encode(CART_KEY, Map.of(11L, 2));
+
+        assertThat(service.decode(token)).isEmpty();
+    }
+
+    @Test
+    void rejectsUnknownVersion() {
+        assertThat(service.decode(signed(payload(2, now(), Map.of(11L, 2))))).isEmpty();
+    }
+
+    @Test
+    void rejectsExpiredToken() {
+        long issuedAt = now() - TTL_DAYS * 86_400 - 60;
+
+        assertThat(service.decode(signed(payload(1, issuedAt, Map.of(11L, 2))))).isEmpty();
+    }
+
+    @Test
+    void rejectsTokenIssuedInTheFuture() {
+        assertThat(service.decode(signed(payload(1, now() + 60, Map.of(11L, 2))))).isPresent();
+        assertThat(service.decode(signed(payload(1, now() + 3_600, Map.of(11L, 2))))).isEmpty();
+    }
+
+    @Test
+    void rejectsTruncatedVarint() {
+        ByteArrayOutputStream out = header(1, now());
+        writeVarint(out, 1);
+        // Continuation bit set on the last byte
+        out.write(0x80);
+
+        assertThat(service.decode(signed(out.toByteArray()))).isEmpty();
+    }
+
+    @Test
+    void rejectsTrailingBytes() {
+        byte[] payload = payload(1, now(), Map.of(11L, 2));
+        byte[] extended = Arrays.copyOf(payload, payload.length + 1);
+
+        assertThat(service.decode(signed(payload))).isPresent();
+        assertThat(service.decode(signed(extended))).isEmpty();
+    }
+
+    private GuestCartTokenService service(String secret) {
+        GuestCartTokenService tokens = new GuestCartTokenService(null, null, null, null, secret);
+        ReflectionTestUtils.setField(tokens, "enabled", true);
+        ReflectionTestUtils.setField(tokens, "ttlDays", TTL_DAYS);
+        ReflectionTestUtils.setField(tokens, "maxItems", MAX_ITEMS);
+        ReflectionTestUtils.setField(tokens, "maxLength", 1024);
+        return tokens;
+    }
+
+    private static Map<Long, Integer> items(int count) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (long variantId = 1; variantId <= count; variantId++) {
+            quantities.put(variantId, 1);
+        }
+        return quantities;
+    }
+
+    private static long now() {
+        return Instant.now().getEpochSecond();
+    }
+
+    // Same layout as the service writes: version, cart key, issued at, count, (variant id, quantity) pairs
+    private static byte[] payload(int version, long issuedAt, Map<Long, Integer> quantities) {
+        ByteArrayOutputStream out = header(version, issuedAt);
+        writeVarint(out, quantities.size());
+        quantities.forEach((variantId, quantity) -> {
+            writeVarint(out, variantId);
+            writeVarint(out, quantity);
+        });
+        return out.toByteArray();
+    }
+
+    private static ByteArrayOutputStream header(int version, long issuedAt) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(version);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (CART_KEY >>> shift));
+        }
+        writeVarint(out, issuedAt);
+        return out;
+    }
+
+    private static String signed(byte[] payload) {
+        String signed = GuestCartTokenService.PREFIX + base64(payload);
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] signature = Arrays.copyOf(mac.doFinal(signed.getBytes(StandardCharsets.US_ASCII)), 16);
+            return signed + "." + base64(signature);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String base64(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
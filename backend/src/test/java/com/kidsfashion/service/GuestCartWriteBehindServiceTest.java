@@ -0,0 +1,80 @@
+package com.kidsfashion.service;
+
+import com.kidsfashion.PostgresIntegrationTest;
+import com.kidsfashion.TestData;
+import com.kidsfashion.dto.request.AddToCartRequest;
+import com.kidsfashion.dto.response.OrderResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Guest carts held in the write-behind store reach the database before checkout reads them,
+ * and are never forced through from inside a transaction.
+ */
+@TestPropertySource(properties = "cart.guest-store.enabled=true")
+class GuestCartWriteBehindServiceTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CheckoutBatchService checkoutBatchService;
+
+    @Autowired
+    private GuestCartWriteBehindService guestCarts;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TestData data;
+
+    @BeforeEach
+    void setUp() {
+        data = new TestData(jdbcTemplate);
+    }
+
+    @Test
+    void checkoutWritesUnsavedGuestCartFirst() {
+        Long variantId = data.variant(5, new BigDecimal("100000"));
+        String sessionId = cartService.generateSessionId();
+        cartService.addToCart(null, sessionId, addToCart(variantId, 2));
+
+        OrderResponse order = checkoutBatchService.placeOrder(null, sessionId, TestData.guestOrder("COD"));
+
+        Integer ordered = jdbcTemplate.queryForObject(
+                "SELECT SUM(quantity) FROM order_items WHERE order_id = ?", Integer.class, order.getId());
+        assertThat(ordered).isEqualTo(2);
+        assertThat(data.stock(variantId)).containsExactly(5, 2);
+    }
+
+    @Test
+    void flushInsideTransactionIsRefused() {
+        Long variantId = data.variant(5, new BigDecimal("100000"));
+        String sessionId = cartService.generateSessionId();
+        cartService.addToCart(null, sessionId, addToCart(variantId, 1));
+
+        assertThatThrownBy(() -> new TransactionTemplate(transactionManager)
+                .executeWithoutResult(status -> guestCarts.flush(sessionId)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private AddToCartRequest addToCart(Long variantId, int quantity) {
+        AddToCartRequest request = new AddToCartRequest();
+        request.setVariantId(variantId);
+        request.setQuantity(quantity);
+        return request;
+    }
+}
@@ -0,0 +1,78 @@
+package com.kidsfashion.service;
+
+import com.kidsfashion.PostgresIntegrationTest;
+import com.kidsfashion.TestData;
+import com.kidsfashion.dto.response.OrderResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * A customer cancellation that races another writer of the same order waits for it and sees its
+ * outcome, so the reservation is released once.
+ */
+class OrderCancellationTest extends PostgresIntegrationTest {
+
+    private static final int STOCK = 5;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TestData data;
+
+    @BeforeEach
+    void setUp() {
+        data = new TestData(jdbcTemplate);
+    }
+
+    @Test
+    void cancellationWaitsForExpiryHoldingTheOrder() throws Exception {
+        Long variantId = data.variant(STOCK, new BigDecimal("100000"));
+        OrderResponse order = orderService.createOrder(null, data.guestCart(variantId, 2), TestData.guestOrder("COD"));
+        CountDownLatch locked = new CountDownLatch(1);
+
+        // Cancel the order the way the expiry sweep does, holding the row lock a while before committing
+        CompletableFuture<Void> expiry = CompletableFuture.runAsync(() -> new TransactionTemplate(transactionManager)
+                .executeWithoutResult(status -> {
+                    jdbcTemplate.queryForList("SELECT id FROM orders WHERE id = ? FOR UPDATE", order.getId());
+                    jdbcTemplate.update("UPDATE inventory SET reserved_quantity = reserved_quantity - 2 " +
+                            "WHERE variant_id = ?", variantId);
+                    jdbcTemplate.update("UPDATE orders SET status = 'CANCELLED' WHERE id = ?", order.getId());
+                    locked.countDown();
+                    sleep(500);
+                }));
+        assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> orderService.cancelOrder(order.getId(), null, "changed my mind"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("CANCELLED");
+        expiry.get(10, TimeUnit.SECONDS);
+
+        assertThat(data.stock(variantId)).containsExactly(STOCK, 0);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
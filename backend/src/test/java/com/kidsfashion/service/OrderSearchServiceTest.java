@@ -0,0 +1,65 @@
+package com.kidsfashion.service;
+
+import com.kidsfashion.PostgresIntegrationTest;
+import com.kidsfashion.TestData;
+import com.kidsfashion.dto.response.AdminOrderListResponse;
+import com.kidsfashion.dto.response.OrderResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Recipient name search: substrings match through LIKE, misspellings and keywords with LIKE
+ * wildcards through trigram similarity on the keyword as typed. Keywords too short to yield a
+ * trigram are refused.
+ */
+class OrderSearchServiceTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderSearchService orderSearchService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TestData data;
+
+    @BeforeEach
+    void setUp() {
+        data = new TestData(jdbcTemplate);
+    }
+
+    @Test
+    void findsRecipientByNameSubstringMisspellingAndWildcardKeyword() {
+        Long variantId = data.variant(5, new BigDecimal("100000"));
+        OrderResponse order = orderService.createOrder(null, data.guestCart(variantId, 1), TestData.guestOrder("COD"));
+        jdbcTemplate.update("UPDATE orders SET recipient_name = 'Quyzzbert Vollmarch' WHERE id = ?", order.getId());
+
+        assertThat(search("quyzzbert")).contains(order.getId());
+        assertThat(search("Quyzzberd Volmarch")).contains(order.getId());
+        assertThat(search("Quyzzbert_Vollmarch%")).contains(order.getId());
+        assertThat(search("Xavrilonde")).doesNotContain(order.getId());
+    }
+
+    @Test
+    void rejectsKeywordTooShortForTrigrams() {
+        assertThatThrownBy(() -> search("Qu"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("at least 3");
+    }
+
+    private List<Long> search(String keyword) {
+        return orderSearchService.search(keyword, null, LocalDateTime.now().minusHours(1), null, null, 50)
+                .getContent().stream().map(AdminOrderListResponse::getId).toList();
+    }
+}
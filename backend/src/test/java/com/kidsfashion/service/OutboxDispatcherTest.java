@@ -0,0 +1,110 @@
+package com.kidsfashion.service;
+
+import com.kidsfashion.PostgresIntegrationTest;
+import com.kidsfashion.TestData;
+import com.kidsfashion.dto.response.OrderResponse;
+import com.kidsfashion.entity.OutboxEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Events written next to an order reach their handlers and are marked delivered; a failing
+ * handler leaves its event pending for a retry.
+ */
+class OutboxDispatcherTest extends PostgresIntegrationTest {
+
+    private static final String FAILING_EVENT = "TEST_FAILING";
+
+    @TestConfiguration
+    static class FailingHandlerConfig {
+
+        @Bean
+        OutboxEventHandler failingHandler() {
+            return new OutboxEventHandler() {
+                @Override
+                public boolean supports(String eventType) {
+                    return FAILING_EVENT.equals(eventType);
+                }
+
+                @Override
+                public void handle(OutboxEvent event) {
+                    throw new IllegalStateException("Handler unavailable");
+                }
+            };
+        }
+    }
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TestData data;
+
+    @BeforeEach
+    void setUp() {
+        data = new TestData(jdbcTemplate);
+    }
+
+    @Test
+    void orderEventIsDelivered() throws Exception {
+        Long variantId = data.variant(5, new BigDecimal("100000"));
+        OrderResponse order = orderService.createOrder(null, data.guestCart(variantId, 1), TestData.guestOrder("COD"));
+
+        Map<String, Object> event = awaitDispatched(OutboxService.ORDER_CREATED, order.getId());
+
+        assertThat(event.get("status")).isEqualTo("DELIVERED");
+        assertThat(event.get("delivered_at")).isNotNull();
+        assertThat(event.get("attempts")).isEqualTo(0);
+    }
+
+    @Test
+    void failingEventIsRetriedLater() throws Exception {
+        Long aggregateId = System.nanoTime();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                outboxService.publish("TEST", aggregateId, FAILING_EVENT, Map.of()));
+
+        Map<String, Object> event = awaitDispatched(FAILING_EVENT, aggregateId);
+
+        assertThat(event.get("status")).isEqualTo("PENDING");
+        assertThat(event.get("last_error")).isEqualTo("Handler unavailable");
+        assertThat(event.get("future_attempt")).isEqualTo(true);
+    }
+
+    // The scheduled dispatcher may get to the event first, so wait for whichever run handles it
+    private Map<String, Object> awaitDispatched(String eventType, Long aggregateId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            outboxDispatcher.dispatch();
+            Map<String, Object> event = jdbcTemplate.queryForMap(
+                    "SELECT status, attempts, last_error, delivered_at, next_attempt_at > created_at AS future_attempt " +
+                    "FROM outbox_events WHERE event_type = ? AND aggregate_id = ?", eventType, aggregateId);
+            if (!"PENDING".equals(event.get("status")) || (Integer) event.get("attempts") > 0
+                    || System.currentTimeMillis() > deadline) {
+                return event;
+            }
+            Thread.sleep(100);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.kidsfashion.service;
+
+import com.kidsfashion.PostgresIntegrationTest;
+import com.kidsfashion.TestData;
+import com.kidsfashion.dto.response.OrderResponse;
+import com.kidsfashion.entity.enums.OrderStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Single-order status changes deduct and release stock by the same rule the reconciler assumes,
+ * so reconciling after a shipment finds nothing to correct.
+ */
+class ReservationReconcileServiceTest extends PostgresIntegrationTest {
+
+    private static final int STOCK = 5;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ReservationReconcileService reservationReconcileService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TestData data;
+
+    @BeforeEach
+    void setUp() {
+        data = new TestData(jdbcTemplate);
+    }
+
+    @Test
+    void reconcileAfterConfirmedToShippingLeavesAvailableStockUnchanged() {
+        Long variantId = data.variant(STOCK, new BigDecimal("100000"));
+        OrderResponse order = orderService.createOrder(null, data.guestCart(variantId, 2), TestData.guestOrder("COD"));
+
+        orderService.updateOrderStatus(order.getId(), OrderStatus.CONFIRMED);
+        orderService.updateOrderStatus(order.getId(), OrderStatus.SHIPPING);
+        assertThat(data.stock(variantId)).containsExactly(STOCK - 2, 0);
+
+        reservationReconcileService.reconcile(false);
+
+        assertThat(data.stock(variantId)).containsExactly(STOCK - 2, 0);
+    }
+
+    @Test
+    void processingToShippedDeductsAndCancellationReleases() {
+        Long variantId = data.variant(STOCK, new BigDecimal("100000"));
+        OrderResponse shipped = orderService.createOrder(null, data.guestCart(variantId, 1), TestData.guestOrder("COD"));
+        OrderResponse cancelled = orderService.createOrder(null, data.guestCart(variantId, 2), TestData.guestOrder("COD"));
+
+        orderService.updateOrderStatus(shipped.getId(), OrderStatus.PROCESSING);
+        orderService.updateOrderStatus(shipped.getId(), OrderStatus.SHIPPED);
+        orderService.updateOrderStatus(cancelled.getId(), OrderStatus.CANCELLED);
+        reservationReconcileService.reconcile(false);
+
+        assertThat(data.stock(variantId)).containsExactly(STOCK - 1, 0);
+    }
+
+    @Test
+    void rejectsTransitionOutsideTheTable() {
+        Long variantId = data.variant(STOCK, new BigDecimal("100000"));
+        OrderResponse order = orderService.createOrder(null, data.guestCart(variantId, 1), TestData.guestOrder("COD"));
+
+        assertThatThrownBy(() -> orderService.updateOrderStatus(order.getId(), OrderStatus.COMPLETED))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cannot move from PENDING to COMPLETED");
+        assertThat(data.stock(variantId)).containsExactly(STOCK, 1);
+    }
+}
@@ -13,6 +13,7 @@ import {
 } from 'lucide-react'
 import { logout } from '../../store/slices/authSlice'
 import { getCategories } from '../../store/slices/productSlice'
+import { getCartCount } from '../../store/slices/cartSlice'
 import PhanKidLogo from './PhanKidLogo'
 
 const Header = () => {
@@ -33,6 +34,10 @@ const Header = () => {
     dispatch(getCategories())
   }, [dispatch])
 
+  useEffect(() => {
+    dispatch(getCartCount())
+  }, [dispatch, user])
+
   useEffect(() => {
     const handleScroll = () => {
       setIsScrolled(window.scrollY > 20)
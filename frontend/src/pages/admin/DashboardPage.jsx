@@ -24,27 +24,26 @@ const DashboardPage = () => {
       setLoading(true);
       
       // Fetch stats from different endpoints
-      const [productsRes, ordersRes] = await Promise.all([
-        api.get('/products?size=1'),
+      const [statsRes, ordersRes, salesRes] = await Promise.all([
+        api.get('/admin/dashboard/stats'),
         api.get('/admin/orders?size=5'),
+        api.get('/admin/reports/sales?from=2000-01-01&granularity=MONTH'),
       ]);
 
-      // Calculate stats from responses
-      const totalProducts = productsRes.data?.data?.totalElements || 0;
+      // Counters are kept in memory by the backend, so this call does not count whole tables
+      const dashboard = statsRes.data?.data || {};
       const orders = ordersRes.data?.data?.content || [];
-      const totalOrders = ordersRes.data?.data?.totalElements || 0;
       
-      // Calculate revenue from orders
-      const totalRevenue = orders.reduce((sum, order) => sum + (order.totalAmount || 0), 0);
-      const pendingOrders = orders.filter(o => o.status === 'PENDING').length;
+      // All-time revenue from the daily sales rollups
+      const totalRevenue = salesRes.data?.data?.revenue || 0;
 
       setStats({
-        totalProducts,
-        totalOrders,
+        totalProducts: dashboard.activeProducts || 0,
+        totalOrders: dashboard.totalOrders || 0,
         totalRevenue,
-        totalUsers: 0, // Will implement later
-        pendingOrders,
-        lowStockProducts: 0, // Will implement later
+        totalUsers: dashboard.totalUsers || 0,
+        pendingOrders: dashboard.pendingOrders || 0,
+        lowStockProducts: dashboard.lowStockItems || 0,
       });
 
       setRecentOrders(orders.slice(0, 5));
@@ -15,6 +15,9 @@ const OrderListPage = () => {
   const [selectedOrder, setSelectedOrder] = useState(null);
   const [statusModal, setStatusModal] = useState({ open: false, order: null });
   const [newStatus, setNewStatus] = useState('');
+  const [searchInput, setSearchInput] = useState(searchParams.get('search') || '');
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
 
   const statusFilters = [
     { value: '', label: 'Tất cả' },
@@ -36,11 +39,20 @@ const OrderListPage = () => {
       const page = searchParams.get('page') || 0;
       const status = searchParams.get('status') || '';
       const search = searchParams.get('search') || '';
-      
+
+      if (search) {
+        // Search results are ranked and paged with a cursor ("Xem thêm")
+        const data = await fetchSearchPage(search, status, null);
+        setOrders(data?.content || []);
+        setNextCursor(data?.nextCursor || null);
+        setPagination({ page: 0, size: 10, totalElements: data?.content?.length || 0, totalPages: 0 });
+        return;
+      }
+      setNextCursor(null);
+
       let url = `/admin/orders?page=${page}&size=10`;
       if (status) url += `&status=${status}`;
-      if (search) url += `&search=${search}`;
-      
+
       const response = await api.get(url);
       const data = response.data?.data;
       
@@ -58,6 +70,58 @@ const OrderListPage = () => {
     }
   };
 
+  const fetchSearchPage = async (search, status, cursor) => {
+    let url = `/admin/orders/search?q=${encodeURIComponent(search)}&size=10`;
+    if (status) url += `&status=${status}`;
+    if (cursor) url += `&cursor=${cursor}`;
+    const response = await api.get(url);
+    return response.data?.data;
+  };
+
+  const handleLoadMore = async () => {
+    if (!nextCursor) return;
+    try {
+      setLoadingMore(true);
+      const data = await fetchSearchPage(searchParams.get('search'), searchParams.get('status') || '', nextCursor);
+      const more = data?.content || [];
+      setOrders((prev) => [...prev, ...more]);
+      setNextCursor(data?.nextCursor || null);
+      setPagination((prev) => ({ ...prev, totalElements: prev.totalElements + more.length }));
+    } catch (error) {
+      console.error('Error searching orders:', error);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
+  const handleSearch = (e) => {
+    e.preventDefault();
+    const params = Object.fromEntries(searchParams);
+    const keyword = searchInput.trim();
+    if (keyword) {
+      params.search = keyword;
+    } else {
+      delete params.search;
+    }
+    params.page = 0;
+    setSearchParams(params);
+  };
+
+  // List rows are summaries; load the full order (items, address, totals) for the detail panel
+  const handleSelectOrder = async (order) => {
+    if (selectedOrder?.id === order.id) {
+      setSelectedOrder(null);
+      return;
+    }
+    try {
+      const response = await api.get(`/admin/orders/${order.id}`);
+      setSelectedOrder(response.data?.data || order);
+    } catch (error) {
+      console.error('Error fetching order detail:', error);
+      setSelectedOrder(order);
+    }
+  };
+
   const handleStatusFilter = (status) => {
     const params = Object.fromEntries(searchParams);
     if (status) {
@@ -133,8 +197,23 @@ const OrderListPage = () => {
         </div>
       </div>
 
-      {/* Status Filters */}
-      <div className="bg-white rounded-xl shadow-sm border border-gray-100 p-4">
+      {/* Search & Status Filters */}
+      <div className="bg-white rounded-xl shadow-sm border border-gray-100 p-4 space-y-4">
+        <form onSubmit={handleSearch} className="flex gap-2">
+          <input
+            type="text"
+            value={searchInput}
+            onChange={(e) => setSearchInput(e.target.value)}
+            placeholder="Tìm theo mã đơn, số điện thoại hoặc tên người nhận"
+            className="flex-1 px-4 py-2 border border-gray-300 rounded-lg focus:ring-2 focus:ring-blue-500 focus:border-transparent"
+          />
+          <button
+            type="submit"
+            className="px-4 py-2 bg-blue-600 text-white rounded-lg hover:bg-blue-700"
+          >
+            Tìm kiếm
+          </button>
+        </form>
         <div className="flex flex-wrap gap-2">
           {statusFilters.map((filter) => (
             <button
@@ -189,7 +268,7 @@ const OrderListPage = () => {
                     <tr 
                       key={order.id} 
                       className="hover:bg-gray-50 transition-colors cursor-pointer"
-                      onClick={() => setSelectedOrder(selectedOrder?.id === order.id ? null : order)}
+                      onClick={() => handleSelectOrder(order)}
                     >
                       <td className="px-6 py-4 whitespace-nowrap">
                         <span className="text-sm font-medium text-blue-600">#{order.orderCode}</span>
@@ -316,6 +395,19 @@ const OrderListPage = () => {
               </div>
             )}
 
+            {/* Search: load next page of ranked results */}
+            {nextCursor && (
+              <div className="px-6 py-4 border-t border-gray-100 text-center">
+                <button
+                  onClick={handleLoadMore}
+                  disabled={loadingMore}
+                  className="px-4 py-2 border border-gray-300 rounded-lg disabled:opacity-50 hover:bg-gray-50"
+                >
+                  {loadingMore ? 'Đang tải...' : 'Xem thêm'}
+                </button>
+              </div>
+            )}
+
             {/* Pagination */}
             {pagination.totalPages > 1 && (
               <div className="px-6 py-4 border-t border-gray-100 flex items-center justify-between">
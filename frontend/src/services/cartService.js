@@ -10,6 +10,14 @@ const getSessionId = () => {
   return sessionId
 }
 
+// When guest carts travel in signed tokens, every change returns the token to send from now on
+const rememberCartToken = (cart) => {
+  if (cart?.cartToken) {
+    localStorage.setItem('cartSessionId', cart.cartToken)
+  }
+  return cart
+}
+
 const getCart = async () => {
   const sessionId = getSessionId()
   const response = await api.get('/cart', {
@@ -18,12 +26,32 @@ const getCart = async () => {
   return response.data.data
 }
 
+// Item count only, for the header badge
+const getCartCount = async () => {
+  const sessionId = getSessionId()
+  const response = await api.get('/cart/count', {
+    headers: { 'X-Cart-Session': sessionId }
+  })
+  return response.data.data
+}
+
 const addToCart = async (variantId, quantity = 1) => {
   const sessionId = getSessionId()
   const response = await api.post('/cart/items', 
     { variantId, quantity },
     { headers: { 'X-Cart-Session': sessionId } }
   )
+  return rememberCartToken(response.data.data)
+}
+
+// Many add/set/remove operations at once: [{ type: 'ADD' | 'SET' | 'REMOVE', variantId, quantity }]
+const applyCartBatch = async (operations) => {
+  const sessionId = getSessionId()
+  const response = await api.post('/cart/items/batch',
+    { operations },
+    { headers: { 'X-Cart-Session': sessionId } }
+  )
+  rememberCartToken(response.data.data?.cart)
   return response.data.data
 }
 
@@ -32,7 +60,7 @@ const updateCartItem = async (variantId, quantity) => {
   const response = await api.put(`/cart/items/${variantId}?quantity=${quantity}`, null, {
     headers: { 'X-Cart-Session': sessionId }
   })
-  return response.data.data
+  return rememberCartToken(response.data.data)
 }
 
 const removeFromCart = async (variantId) => {
@@ -40,7 +68,7 @@ const removeFromCart = async (variantId) => {
   const response = await api.delete(`/cart/items/${variantId}`, {
     headers: { 'X-Cart-Session': sessionId }
   })
-  return response.data.data
+  return rememberCartToken(response.data.data)
 }
 
 const clearCart = async () => {
@@ -48,6 +76,10 @@ const clearCart = async () => {
   const response = await api.delete('/cart', {
     headers: { 'X-Cart-Session': sessionId }
   })
+  // A token cart is cleared by dropping the token
+  if (sessionId.startsWith('c1.')) {
+    localStorage.removeItem('cartSessionId')
+  }
   return response.data.data
 }
 
@@ -64,7 +96,9 @@ const mergeCart = async () => {
 const cartService = {
   getSessionId,
   getCart,
+  getCartCount,
   addToCart,
+  applyCartBatch,
   updateCartItem,
   removeFromCart,
   clearCart,
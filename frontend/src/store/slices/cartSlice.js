@@ -24,6 +24,19 @@ export const getCart = createAsyncThunk(
   }
 )
 
+// Get cart item count (header badge)
+export const getCartCount = createAsyncThunk(
+  'cart/getCartCount',
+  async (_, thunkAPI) => {
+    try {
+      return await cartService.getCartCount()
+    } catch (error) {
+      const message = error.response?.data?.message || error.message
+      return thunkAPI.rejectWithValue(message)
+    }
+  }
+)
+
 // Add to cart
 export const addToCart = createAsyncThunk(
   'cart/addToCart',
@@ -37,6 +50,19 @@ export const addToCart = createAsyncThunk(
   }
 )
 
+// Apply several cart operations at once (buy the look, reorder)
+export const applyCartBatch = createAsyncThunk(
+  'cart/applyCartBatch',
+  async (operations, thunkAPI) => {
+    try {
+      return await cartService.applyCartBatch(operations)
+    } catch (error) {
+      const message = error.response?.data?.message || error.message
+      return thunkAPI.rejectWithValue(message)
+    }
+  }
+)
+
 // Update cart item
 export const updateCartItem = createAsyncThunk(
   'cart/updateCartItem',
@@ -104,6 +130,10 @@ const cartSlice = createSlice({
         state.isError = true
         state.message = action.payload
       })
+      // Get cart item count
+      .addCase(getCartCount.fulfilled, (state, action) => {
+        state.totalItems = action.payload || 0
+      })
       // Add to cart
       .addCase(addToCart.pending, (state) => {
         state.isLoading = true
@@ -120,6 +150,14 @@ const cartSlice = createSlice({
         state.isError = true
         state.message = action.payload
       })
+      // Apply cart batch
+      .addCase(applyCartBatch.fulfilled, (state, action) => {
+        const cart = action.payload?.cart
+        state.cart = cart
+        state.items = cart?.items || []
+        state.totalItems = cart?.totalItems || 0
+        state.subtotal = cart?.subtotal || 0
+      })
       // Update cart item
       .addCase(updateCartItem.fulfilled, (state, action) => {
         state.cart = action.payload